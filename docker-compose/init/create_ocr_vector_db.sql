@@ -7,4 +7,22 @@ CREATE TABLE textract_index (
     type TEXT,
     confidence FLOAT,
     metadata JSONB
-);
\ No newline at end of file
+);
+-- Embeddings shared across documents, keyed by model + SHA-256 of the normalized text
+CREATE TABLE embedding_cache (
+    model TEXT NOT NULL,
+    text_hash CHAR(64) NOT NULL,
+    vector VECTOR(1536) NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (model, text_hash)
+);
+-- Chat completions keyed by SHA-256 of model, options, rendered messages and response schema
+CREATE TABLE llm_response_cache (
+    cache_key CHAR(64) PRIMARY KEY,
+    prompt_version TEXT NOT NULL,
+    model TEXT,
+    response TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    expires_at TIMESTAMPTZ NOT NULL
+);
+CREATE INDEX llm_response_cache_expires_at ON llm_response_cache (expires_at);
@@ -0,0 +1,97 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.util.TextractJsonUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BlockType;
+
+/**
+ * {@link TitleFieldRecognizer} against the reference {@link TextractFieldExtractor} on a synthetic
+ * multi-page title (LINE blocks plus their WORDs). Setup fails if the two disagree.
+ *
+ * <p>Run with {@code mvn -Pjmh test-compile exec:exec}; the reference extractor lives in the test
+ * sources, which the profile compiles together with this directory. Correctness is covered by
+ * {@code TitleFieldRecognizerTest} under a plain {@code mvn test}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TitleFieldRecognizerBenchmark {
+
+  private static final String[] TITLE_LINES = {
+    "COMMONWEALTH OF PENNSYLVANIA",
+    "CERTIFICATE OF TITLE FOR A VEHICLE",
+    "VEHICLE IDENTIFICATION NUMBER",
+    "1FTFW1ET5DFC10312",
+    "2013",
+    "FORD F150 SUPERCREW PICKUP",
+    "FUEL TYPE GAS",
+    "ODOMETER READING",
+    "84,512 MILES",
+    "DATE OF ISSUE 03/14/2021",
+    "OWNER JOHN A SMITH",
+    "1234 MAPLE AVENUE",
+    "HARRISBURG PA 17101-2208",
+    "FIRST LIEN IN FAVOR OF",
+    "PNC BANK NA 249 FIFTH AVENUE PITTSBURGH PA 15222",
+    "LIEN RELEASED 07/02/2022 AUTHORIZED SIGNATURE",
+    "TITLE BRAND NONE",
+    "PRIOR TITLE STATE OH",
+    "ASSIGNMENT OF TITLE BY OWNER",
+    "SECRETARY OF TRANSPORTATION"
+  };
+
+  @Param({"1", "4"})
+  public int pages;
+
+  private BlockGraph graph;
+
+  @Setup
+  public void setup() {
+    List<Block> blocks = new ArrayList<>();
+    int id = 0;
+    for (int page = 1; page <= pages; page++) {
+      for (int repeat = 0; repeat < 5; repeat++) {
+        for (String line : TITLE_LINES) {
+          blocks.add(block(id++, BlockType.LINE, line, page));
+          for (String word : line.split(" ")) blocks.add(block(id++, BlockType.WORD, word, page));
+        }
+      }
+    }
+    graph = BlockGraph.of(TextractJsonUtils.fromSdk(blocks));
+
+    Map<String, String> expected = TextractFieldExtractor.extractHighFidelity(graph);
+    Map<String, String> actual = TitleFieldRecognizer.recognize(graph);
+    if (!expected.equals(actual)) {
+      throw new IllegalStateException("Recognizer differs: " + expected + " vs " + actual);
+    }
+  }
+
+  @Benchmark
+  public Map<String, String> reference() {
+    return TextractFieldExtractor.extractHighFidelity(graph);
+  }
+
+  @Benchmark
+  public Map<String, String> recognizer() {
+    return TitleFieldRecognizer.recognize(graph);
+  }
+
+  private static Block block(int id, BlockType type, String text, int page) {
+    return Block.builder()
+        .id("b" + id)
+        .blockType(type)
+        .text(text)
+        .page(page)
+        .confidence(99.0f)
+        .build();
+  }
+}
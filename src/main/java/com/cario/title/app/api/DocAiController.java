@@ -14,18 +14,24 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
 import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Log4j2
 @Validated
@@ -40,6 +46,7 @@ public class DocAiController {
   private final AiPipelineService aiPipelineService;
   private final StatusService statusService;
   private final ObjectMapper om; // injected from Spring
+  private final ExecutorService analyzeStreamExecutor;
 
   @Value("${aws.s3.bucket}")
   private String bucket;
@@ -56,6 +63,9 @@ public class DocAiController {
   @Value("${app.nlp.model:gpt-4o-mini}")
   private String nlpModelName;
 
+  @Value("${app.nlp.stream.emitter-timeout-ms:300000}")
+  private long streamEmitterTimeoutMs;
+
   // ------------------------------------------------------------
   // /docai/status/{documentId}
   // ------------------------------------------------------------
@@ -203,6 +213,65 @@ public class DocAiController {
     }
   }
 
+  // ------------------------------------------------------------
+  // /docai/analyze/stream
+  // ------------------------------------------------------------
+  /**
+   * Server-sent events variant of {@code /docai/analyze}: one {@code section} event per top-level
+   * NLP section ({@code {"name":..., "value":...}}) as soon as it is available, then a {@code
+   * result} event with the business JSON, or an {@code error} event.
+   */
+  @PostMapping(
+      path = "/analyze/stream",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter analyzeStream(
+      @RequestBody @Validated AnalyzeRequest req,
+      @RequestParam(name = "documentId", required = false) String documentId) {
+
+    String docId = ensureDocId(documentId, bucket, req.getTextractKey(), null);
+    String textractJsonS3 = s3Uri(bucket, req.getTextractKey());
+    String promptS3 = s3Uri(bucket, ensureSlash(promptPrefix) + promptFile);
+
+    log.info(
+        "docai.analyze.stream docId={} textractKey={} outputKey={} minConfidence={}",
+        docId,
+        req.getTextractKey(),
+        req.getOutputKey(),
+        req.getMinConfidence());
+
+    statusService.recordNlpStarted(docId, textractJsonS3, nlpModelName, promptS3);
+
+    SseEmitter emitter = new SseEmitter(streamEmitterTimeoutMs);
+    try {
+      analyzeStreamExecutor.execute(
+          () -> {
+            try {
+              Map<String, Object> businessJson =
+                  aiNlpService.normalizeFromTextractS3(
+                      req.getTextractKey(),
+                      req.getOutputKey(),
+                      req.getMinConfidence(),
+                      (name, value) ->
+                          send(emitter, "section", Map.of("name", name, "value", value)));
+              send(emitter, "result", businessJson);
+              emitter.complete();
+            } catch (Throwable ex) {
+              log.error("docai.analyze.stream failed docId={} msg={}", docId, ex.getMessage(), ex);
+              statusService.recordNlpFailed(docId, textractJsonS3, nlpModelName, ex.getMessage());
+              send(emitter, "error", Map.of("message", String.valueOf(ex.getMessage())));
+              emitter.completeWithError(ex);
+            }
+          });
+    } catch (RejectedExecutionException ex) {
+      log.warn("docai.analyze.stream rejected docId={}, stream executor saturated", docId);
+      statusService.recordNlpFailed(docId, textractJsonS3, nlpModelName, "stream capacity");
+      throw new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "Too many streaming analyses in progress", ex);
+    }
+    return emitter;
+  }
+
   // ------------------------------------------------------------
   // /docai/pipeline
   // ------------------------------------------------------------
@@ -292,6 +361,15 @@ public class DocAiController {
     return UUID.randomUUID().toString();
   }
 
+  /** Best effort: a client that went away must not fail the analysis. */
+  private static void send(SseEmitter emitter, String event, Object data) {
+    try {
+      emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+    } catch (IOException | IllegalStateException e) {
+      log.debug("docai.analyze.stream client gone event={} msg={}", event, e.getMessage());
+    }
+  }
+
   private static String ensureSlash(String prefix) {
     return prefix.endsWith("/") ? prefix : prefix + "/";
   }
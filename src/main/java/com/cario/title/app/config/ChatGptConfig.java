@@ -1,7 +1,7 @@
 package com.cario.title.app.config;
 
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -11,14 +11,14 @@ import org.springframework.context.annotation.Configuration;
  * <p>Provides a {@link ChatClient.Builder} bean that can be injected into services like {@code
  * AiNlpService}.
  *
- * <p>Spring AI will autoconfigure the {@link OpenAiChatModel} using properties in application.yaml
- * (spring.ai.openai.api-key, etc.).
+ * <p>Spring AI will autoconfigure the OpenAI {@link ChatModel} using properties in application.yaml
+ * (spring.ai.openai.api-key, etc.); the {@code replay} profile substitutes a recorded one.
  */
 @Configuration
 public class ChatGptConfig {
 
   @Bean
-  public ChatClient.Builder chatClientBuilder(OpenAiChatModel openAiChatModel) {
-    return ChatClient.builder(openAiChatModel);
+  public ChatClient.Builder chatClientBuilder(ChatModel chatModel) {
+    return ChatClient.builder(chatModel);
   }
 }
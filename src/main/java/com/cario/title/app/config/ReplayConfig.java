@@ -0,0 +1,100 @@
+package com.cario.title.app.config;
+
+import com.cario.title.app.replay.LatencyModel;
+import com.cario.title.app.replay.ReplayChatModel;
+import com.cario.title.app.replay.ReplayEmbeddingModel;
+import com.cario.title.app.replay.ReplayExchangeFunction;
+import com.cario.title.app.replay.ReplayFixtures;
+import com.cario.title.app.replay.ReplayTextractClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Scope;
+import org.springframework.web.reactive.function.client.WebClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+/**
+ * Offline stand-ins for Textract, OpenAI and Perplexity, for load testing the pipeline on a laptop.
+ *
+ * <p>Activate together with {@code local} ({@code --spring.profiles.active=local,replay}). The
+ * {@link TextractClient}, chat model, embedding model and {@link WebClient.Builder} beans declared
+ * here take precedence over the real ones; S3, DynamoDB and Postgres stay as configured. Responses
+ * come from the fixture directory {@code app.replay.fixtures-dir} (see {@link ReplayFixtures});
+ * Textract output can be recorded by copying objects from the Textract output prefix, chat bodies
+ * from the OpenAI output prefix.
+ *
+ * <p>Each dependency sleeps for a log-normal latency sample ({@code
+ * app.replay.latency.<dependency>.median-ms} and {@code .sigma}; a median of 0 disables it), so the
+ * concurrency limits and pools of the pipeline see realistic call durations.
+ *
+ * <p>Point the replay run at a scratch database, or set {@code
+ * spring.ai.openai.embedding.options.model} to a replay-only name, so that synthetic vectors never
+ * land in the shared embedding cache under the real model's key.
+ */
+@Configuration
+@Profile("replay")
+public class ReplayConfig {
+
+  @Value("${app.replay.fixtures-dir:replay-fixtures}")
+  private String fixturesDir;
+
+  @Value("${app.replay.embedding-dimensions:1536}")
+  private int embeddingDimensions;
+
+  @Bean
+  public ReplayFixtures replayFixtures(ObjectMapper mapper) {
+    return new ReplayFixtures(Path.of(fixturesDir), mapper);
+  }
+
+  @Bean
+  @Primary
+  public TextractClient replayTextractClient(
+      ReplayFixtures fixtures,
+      @Value("${app.replay.latency.textract.median-ms:900}") double syncMedianMs,
+      @Value("${app.replay.latency.textract.sigma:0.4}") double syncSigma,
+      @Value("${app.replay.latency.textract-job.median-ms:12000}") double jobMedianMs,
+      @Value("${app.replay.latency.textract-job.sigma:0.5}") double jobSigma) {
+    return new ReplayTextractClient(
+        fixtures,
+        new LatencyModel(syncMedianMs, syncSigma),
+        new LatencyModel(jobMedianMs, jobSigma));
+  }
+
+  @Bean
+  @Primary
+  public ChatModel replayChatModel(
+      ReplayFixtures fixtures,
+      @Value("${app.replay.latency.chat.median-ms:4000}") double medianMs,
+      @Value("${app.replay.latency.chat.sigma:0.5}") double sigma) {
+    return new ReplayChatModel(fixtures, new LatencyModel(medianMs, sigma));
+  }
+
+  @Bean
+  @Primary
+  public EmbeddingModel replayEmbeddingModel(
+      ReplayFixtures fixtures,
+      @Value("${app.replay.latency.embedding.median-ms:150}") double medianMs,
+      @Value("${app.replay.latency.embedding.sigma:0.3}") double sigma) {
+    return new ReplayEmbeddingModel(
+        fixtures, new LatencyModel(medianMs, sigma), embeddingDimensions);
+  }
+
+  /** Prototype like Boot's own builder, so every client gets a fresh, replaying builder. */
+  @Bean
+  @Primary
+  @Scope("prototype")
+  public WebClient.Builder replayWebClientBuilder(
+      ReplayFixtures fixtures,
+      @Value("${app.replay.latency.perplexity.median-ms:6000}") double medianMs,
+      @Value("${app.replay.latency.perplexity.sigma:0.5}") double sigma) {
+    return WebClient.builder()
+        .exchangeFunction(
+            new ReplayExchangeFunction(fixtures, new LatencyModel(medianMs, sigma)));
+  }
+}
@@ -4,6 +4,7 @@ import com.cario.title.app.repository.dynamodb.DocProcessStateRepository;
 import com.cario.title.app.scheduler.DocProcessScheduler;
 import com.cario.title.app.scheduler.GcvIngestScheduler;
 import com.cario.title.app.service.AiPipelineService;
+import com.cario.title.app.service.ContentHashService;
 import com.cario.title.app.service.StatusService;
 import com.cario.title.app.service.VisionOcrService;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -64,8 +65,9 @@ public class SchedulerConfig {
       S3Client s3,
       AiPipelineService pipeline,
       StatusService status,
-      DocProcessStateRepository stateRepo) {
-    return new DocProcessScheduler(s3, pipeline, status, stateRepo);
+      DocProcessStateRepository stateRepo,
+      ContentHashService contentHashes) {
+    return new DocProcessScheduler(s3, pipeline, status, stateRepo, contentHashes);
   }
 
   @Bean
@@ -74,7 +76,8 @@ public class SchedulerConfig {
       name = "enabled",
       havingValue = "true",
       matchIfMissing = false)
-  public GcvIngestScheduler gcvIngestScheduler(S3Client s3, VisionOcrService vision) {
-    return new GcvIngestScheduler(s3, vision);
+  public GcvIngestScheduler gcvIngestScheduler(
+      S3Client s3, VisionOcrService vision, ContentHashService contentHashes) {
+    return new GcvIngestScheduler(s3, vision, contentHashes);
   }
 }
@@ -1,12 +1,21 @@
 package com.cario.title.app.config;
 
 import com.cario.title.app.repository.dynamodb.DocProcessStateRepository;
+import com.cario.title.app.repository.dynamodb.TextractJobRegistry;
 import com.cario.title.app.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,7 +35,7 @@ public class ServiceConfig {
   private final ChatClient.Builder chatClientBuilder;
   private final DocProcessStateRepository docProcessStateRepository;
   private final JdbcTemplate jdbcTemplate;
-  private final OpenAiEmbeddingModel embeddingModel;
+  private final EmbeddingModel embeddingModel;
 
   // -------------------
   // Utility
@@ -54,14 +63,152 @@ public class ServiceConfig {
   }
 
   @Bean
-  public TextractService textractService() {
-    return new TextractService(s3Client, textractClient, jdbcTemplate, embeddingModel);
+  public ContentHashService contentHashService() {
+    return new ContentHashService(s3Client);
   }
 
   @Bean
-  public AiNlpService aiNlpService(PromptLoaderService promptLoaderService) {
+  public TextractGateway textractGateway(MeterRegistry meterRegistry) {
+    return new TextractGateway(textractClient, meterRegistry);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  public TextractJobTracker textractJobTracker(TextractGateway textractGateway) {
+    return new TextractJobTracker(textractGateway);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  public TextractPageAnalyzer textractPageAnalyzer(TextractGateway textractGateway) {
+    return new TextractPageAnalyzer(textractGateway);
+  }
+
+  @Bean
+  public TieredTextractAnalyzer tieredTextractAnalyzer(
+      TextractGateway textractGateway,
+      TextractPageAnalyzer textractPageAnalyzer,
+      MeterRegistry meterRegistry) {
+    return new TieredTextractAnalyzer(textractGateway, textractPageAnalyzer, meterRegistry);
+  }
+
+  @Bean
+  public TextractJobRegistry textractJobRegistry() {
+    return new TextractJobRegistry(docProcessStateRepository);
+  }
+
+  @Bean
+  public EmbeddingCache embeddingCache(MeterRegistry meterRegistry) {
+    return new EmbeddingCache(jdbcTemplate, meterRegistry);
+  }
+
+  @Bean
+  public TextractDocumentCache textractDocumentCache(MeterRegistry meterRegistry) {
+    return new TextractDocumentCache(s3Client, meterRegistry);
+  }
+
+  @Bean
+  public TextractIndexer textractIndexer(
+      EmbeddingCache embeddingCache, MeterRegistry meterRegistry) {
+    return new TextractIndexer(jdbcTemplate, embeddingModel, embeddingCache, meterRegistry);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  public TextractIndexingPipeline textractIndexingPipeline(
+      TextractIndexer textractIndexer, MeterRegistry meterRegistry) {
+    return new TextractIndexingPipeline(
+        textractIndexer, docProcessStateRepository, meterRegistry);
+  }
+
+  @Bean
+  public TextractService textractService(
+      TextractGateway textractGateway,
+      TextractJobTracker textractJobTracker,
+      TextractJobRegistry textractJobRegistry,
+      TextractIndexer textractIndexer,
+      TextractIndexingPipeline textractIndexingPipeline,
+      ContentHashService contentHashService,
+      TextractPageAnalyzer textractPageAnalyzer,
+      TieredTextractAnalyzer tieredTextractAnalyzer,
+      TextractDocumentCache textractDocumentCache) {
+    return new TextractService(
+        s3Client,
+        textractGateway,
+        textractJobTracker,
+        textractJobRegistry,
+        textractIndexer,
+        textractIndexingPipeline,
+        contentHashService,
+        textractPageAnalyzer,
+        tieredTextractAnalyzer,
+        textractDocumentCache);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  public LlmChunkExecutor llmChunkExecutor(MeterRegistry meterRegistry) {
+    return new LlmChunkExecutor(meterRegistry);
+  }
+
+  @Bean
+  public TokenBudgetChunker tokenBudgetChunker(MeterRegistry meterRegistry) {
+    return new TokenBudgetChunker(meterRegistry);
+  }
+
+  @Bean
+  public LlmResponseCache llmResponseCache(MeterRegistry meterRegistry) {
+    return new LlmResponseCache(jdbcTemplate, meterRegistry);
+  }
+
+  @Bean
+  public PayloadLogger payloadLogger(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    return new PayloadLogger(objectMapper, meterRegistry);
+  }
+
+  @Bean
+  public AiNlpService aiNlpService(
+      PromptLoaderService promptLoaderService,
+      TextractIndexingPipeline textractIndexingPipeline,
+      EmbeddingCache embeddingCache,
+      TextractDocumentCache textractDocumentCache,
+      LlmChunkExecutor llmChunkExecutor,
+      TokenBudgetChunker tokenBudgetChunker,
+      LlmResponseCache llmResponseCache,
+      PayloadLogger payloadLogger) {
     return new AiNlpService(
-        chatClientBuilder, s3Client, promptLoaderService, jdbcTemplate, embeddingModel);
+        chatClientBuilder,
+        s3Client,
+        promptLoaderService,
+        jdbcTemplate,
+        embeddingModel,
+        textractIndexingPipeline,
+        embeddingCache,
+        textractDocumentCache,
+        llmChunkExecutor,
+        tokenBudgetChunker,
+        llmResponseCache,
+        payloadLogger);
+  }
+
+  /**
+   * Runs {@code /docai/analyze/stream} requests off the servlet threads. The queue is bounded; once
+   * it is full, submissions are rejected and the controller answers 503.
+   */
+  @Bean(destroyMethod = "shutdownNow")
+  public ExecutorService analyzeStreamExecutor(
+      @Value("${app.nlp.stream.concurrency:8}") int concurrency,
+      @Value("${app.nlp.stream.queue-capacity:16}") int queueCapacity) {
+    AtomicInteger seq = new AtomicInteger();
+    int threads = Math.max(1, concurrency);
+    return new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+        r -> {
+          Thread t = new Thread(r, "analyze-stream-" + seq.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
   }
 
   @Bean
@@ -70,10 +217,16 @@ public class ServiceConfig {
       AiNlpService aiNlpService,
       PerplexityExtractService perplexityExtractService,
       S3Client s3Client,
-      PerplexityServiceProperties perplexityProps) {
+      PerplexityServiceProperties perplexityProps,
+      ContentHashService contentHashService) {
 
     return new AiPipelineService(
-        textractService, aiNlpService, perplexityExtractService, s3Client, perplexityProps);
+        textractService,
+        aiNlpService,
+        perplexityExtractService,
+        s3Client,
+        perplexityProps,
+        contentHashService);
   }
 
   @Bean
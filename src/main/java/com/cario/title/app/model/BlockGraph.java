@@ -0,0 +1,170 @@
+package com.cario.title.app.model;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Read-only index over a {@link TextractDocument}, built in a single pass and shared by every
+ * consumer of the document (token extraction, chunking, field scanning).
+ *
+ * <p>Per block it precomputes the text joined from its {@code WORD} (and checkbox) children and the
+ * mean confidence of those words. Tables get their cells ordered by row then column, and cells a
+ * back pointer to their table. Blocks are also bucketed by type, so a scan over LINEs no longer
+ * touches every WORD of the document.
+ */
+public final class BlockGraph {
+
+  private static final int[] NONE = new int[0];
+
+  private final TextractDocument doc;
+  private final String[] text;
+  private final float[] confidence;
+  private final int[] tableOf;
+  private final int[][] tableCells;
+  private final Map<TextractBlockType, int[]> byType;
+
+  private BlockGraph(TextractDocument doc) {
+    this.doc = doc;
+    int n = doc.size();
+    this.text = new String[n];
+    this.confidence = new float[n];
+    this.tableOf = new int[n];
+    this.tableCells = new int[n][];
+    Arrays.fill(tableOf, -1);
+
+    int[] typeCounts = new int[TextractBlockType.values().length];
+    StringBuilder sb = new StringBuilder(64);
+    for (int i = 0; i < n; i++) {
+      TextractBlock b = doc.get(i);
+      typeCounts[b.getType().ordinal()]++;
+
+      sb.setLength(0);
+      double sum = 0.0;
+      int words = 0;
+      for (int kid : b.children()) {
+        TextractBlock child = doc.get(kid);
+        String part = null;
+        if (child.getType() == TextractBlockType.WORD) {
+          part = child.getText() == null ? null : child.getText().strip();
+          if (child.hasConfidence()) {
+            sum += child.getConfidence();
+            words++;
+          }
+        } else if (child.getType() == TextractBlockType.SELECTION_ELEMENT
+            && child.getSelectionStatus() != null) {
+          part = "Checkbox:" + child.getSelectionStatus();
+        }
+        if (part == null || part.isEmpty()) continue;
+        if (sb.length() > 0) sb.append(' ');
+        sb.append(part);
+      }
+      text[i] = sb.length() > 0 ? sb.toString() : "";
+      confidence[i] = words > 0 ? (float) (sum / words) : b.getConfidence();
+
+      if (b.getType() == TextractBlockType.TABLE) tableCells[i] = orderedCells(doc, i);
+    }
+
+    for (int t = 0; t < n; t++) {
+      if (tableCells[t] == null) continue;
+      for (int c : tableCells[t]) tableOf[c] = t;
+    }
+
+    this.byType = new EnumMap<>(TextractBlockType.class);
+    int[][] buckets = new int[typeCounts.length][];
+    int[] fill = new int[typeCounts.length];
+    for (int i = 0; i < n; i++) {
+      int o = doc.get(i).getType().ordinal();
+      if (buckets[o] == null) buckets[o] = new int[typeCounts[o]];
+      buckets[o][fill[o]++] = i;
+    }
+    for (TextractBlockType t : TextractBlockType.values()) {
+      if (buckets[t.ordinal()] != null) byType.put(t, buckets[t.ordinal()]);
+    }
+  }
+
+  /** Indexes {@code doc}; cost is linear in the number of blocks and relationships. */
+  public static BlockGraph of(TextractDocument doc) {
+    return new BlockGraph(doc);
+  }
+
+  public TextractDocument document() {
+    return doc;
+  }
+
+  public int size() {
+    return doc.size();
+  }
+
+  public TextractBlock block(int index) {
+    return doc.get(index);
+  }
+
+  /** Text of the block's WORD/checkbox children joined by single spaces; empty if it has none. */
+  public String childText(int index) {
+    return text[index];
+  }
+
+  /**
+   * Mean confidence of the block's WORD children, falling back to the block's own confidence
+   * ({@link Float#NaN} if it has none).
+   */
+  public float wordConfidence(int index) {
+    return confidence[index];
+  }
+
+  public int parentOf(int index) {
+    return doc.parentOf(index);
+  }
+
+  /** Cells of a TABLE block ordered by row, then column; empty for other blocks. */
+  public int[] cellsOf(int table) {
+    int[] cells = tableCells[table];
+    return cells == null ? NONE : cells;
+  }
+
+  /** The TABLE a CELL belongs to, or {@code -1}. */
+  public int tableOf(int cell) {
+    return tableOf[cell];
+  }
+
+  /** Indexes of all blocks of {@code type}, in document order. Must not be modified. */
+  public int[] ofType(TextractBlockType type) {
+    return byType.getOrDefault(type, NONE);
+  }
+
+  /** Indexes of all blocks of any of {@code types}, merged back into document order. */
+  public int[] ofTypes(TextractBlockType... types) {
+    int total = 0;
+    for (TextractBlockType t : types) total += ofType(t).length;
+    int[] out = new int[total];
+    int k = 0;
+    for (TextractBlockType t : types) {
+      int[] idx = ofType(t);
+      System.arraycopy(idx, 0, out, k, idx.length);
+      k += idx.length;
+    }
+    Arrays.sort(out);
+    return out;
+  }
+
+  private static int[] orderedCells(TextractDocument doc, int table) {
+    int[] kids = doc.get(table).children();
+    int[] cells = new int[kids.length];
+    int k = 0;
+    for (int c : kids) {
+      if (doc.get(c).getType().isCell()) cells[k++] = c;
+    }
+    // sort by (row, column) via packed long keys to stay on primitives
+    long[] keys = new long[k];
+    for (int j = 0; j < k; j++) {
+      TextractBlock cell = doc.get(cells[j]);
+      keys[j] =
+          ((long) cell.getRowIndex() << 42) | ((long) cell.getColumnIndex() << 21) | cells[j];
+    }
+    Arrays.sort(keys);
+    int[] out = new int[k];
+    for (int j = 0; j < k; j++) out[j] = (int) (keys[j] & 0x1FFFFF);
+    return out;
+  }
+}
@@ -13,4 +13,5 @@ public class DocUploadResult {
   private String contentType; // As stored on S3
   private long size; // Bytes uploaded
   private String s3Uri; // s3://bucket/key
+  private String contentHash; // hex SHA-256 of the uploaded bytes
 }
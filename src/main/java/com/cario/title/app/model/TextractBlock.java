@@ -0,0 +1,103 @@
+package com.cario.title.app.model;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Immutable, compact view of one Textract block.
+ *
+ * <p>Numeric attributes are primitives: a missing confidence or bounding box is {@link Float#NaN}
+ * and missing table coordinates are {@code 0}. Relationships point to other blocks by their index
+ * in the owning {@link TextractDocument} rather than by id, so walking the block graph needs no
+ * hash lookups. Arrays returned by the getters are shared and must not be modified.
+ */
+@Value
+@Builder(toBuilder = true)
+public class TextractBlock {
+
+  private static final Relationship[] NO_RELATIONSHIPS = new Relationship[0];
+  private static final int[] NO_TARGETS = new int[0];
+
+  /** A typed edge to other blocks of the same document. */
+  public record Relationship(String type, int[] targets) {}
+
+  TextractBlockType type;
+
+  /** Original {@code BlockType} when {@link #type} is {@link TextractBlockType#UNKNOWN}. */
+  String unknownTypeName;
+
+  String id;
+
+  String text;
+
+  @Builder.Default float confidence = Float.NaN;
+
+  int page;
+
+  @Builder.Default float left = Float.NaN;
+
+  @Builder.Default float top = Float.NaN;
+
+  @Builder.Default float width = Float.NaN;
+
+  @Builder.Default float height = Float.NaN;
+
+  /** Polygon points as {@code x0, y0, x1, y1, ...}; {@code null} when Textract sent none. */
+  float[] polygon;
+
+  @Builder.Default Relationship[] relationships = NO_RELATIONSHIPS;
+
+  @Builder.Default List<String> entityTypes = List.of();
+
+  String selectionStatus;
+
+  int rowIndex;
+
+  int columnIndex;
+
+  int rowSpan;
+
+  int columnSpan;
+
+  String queryText;
+
+  String queryAlias;
+
+  /** Textract {@code BlockType} string, including types this enum does not know yet. */
+  public String getTypeName() {
+    return type == TextractBlockType.UNKNOWN && unknownTypeName != null
+        ? unknownTypeName
+        : type.name();
+  }
+
+  public boolean hasConfidence() {
+    return !Float.isNaN(confidence);
+  }
+
+  /** {@code true} if the block carries a confidence of at least {@code min}. */
+  public boolean meetsConfidence(float min) {
+    return confidence >= min; // NaN compares false
+  }
+
+  public boolean hasBoundingBox() {
+    return !Float.isNaN(width);
+  }
+
+  public boolean hasEntityType(String entityType) {
+    return entityTypes.contains(entityType);
+  }
+
+  /** Indexes of the {@code CHILD} blocks, in Textract order. */
+  public int[] children() {
+    return targets("CHILD");
+  }
+
+  /** Indexes of all blocks related through {@code type} (e.g. {@code VALUE}, {@code ANSWER}). */
+  public int[] targets(String type) {
+    for (Relationship r : relationships) {
+      if (r.type().equals(type)) return r.targets();
+    }
+    return NO_TARGETS;
+  }
+}
@@ -0,0 +1,56 @@
+package com.cario.title.app.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Textract block types known to the pipeline. Values not listed here (new Textract features) map
+ * to {@link #UNKNOWN} but keep their original name in {@link TextractBlock#getTypeName()}.
+ */
+public enum TextractBlockType {
+  PAGE,
+  LINE,
+  WORD,
+  KEY_VALUE_SET,
+  TABLE,
+  TABLE_TITLE,
+  TABLE_FOOTER,
+  CELL,
+  MERGED_CELL,
+  SELECTION_ELEMENT,
+  SIGNATURE,
+  TITLE,
+  QUERY,
+  QUERY_RESULT,
+  LAYOUT_TITLE,
+  LAYOUT_HEADER,
+  LAYOUT_FOOTER,
+  LAYOUT_SECTION_HEADER,
+  LAYOUT_PAGE_NUMBER,
+  LAYOUT_LIST,
+  LAYOUT_FIGURE,
+  LAYOUT_TABLE,
+  LAYOUT_KEY_VALUE,
+  LAYOUT_TEXT,
+  UNKNOWN;
+
+  private static final Map<String, TextractBlockType> BY_NAME = new HashMap<>();
+
+  static {
+    for (TextractBlockType t : values()) BY_NAME.put(t.name(), t);
+  }
+
+  /** Resolves a Textract {@code BlockType} string without throwing on unknown values. */
+  public static TextractBlockType of(String name) {
+    if (name == null) return UNKNOWN;
+    return BY_NAME.getOrDefault(name, UNKNOWN);
+  }
+
+  public boolean isCell() {
+    return this == CELL || this == MERGED_CELL;
+  }
+
+  public boolean isLayout() {
+    return name().startsWith("LAYOUT_");
+  }
+}
@@ -0,0 +1,187 @@
+package com.cario.title.app.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The blocks of one Textract analysis, with relationships resolved to block indexes.
+ *
+ * <p>Instances are immutable and built through {@link #builder(int)}, which accepts blocks with
+ * id-based relationships (as Textract returns them) and resolves them once. Ids that point outside
+ * the document (e.g. blocks dropped by a confidence filter) are discarded. {@link
+ * #withMinConfidence} derives the filtered view of a stored, unfiltered analysis.
+ */
+public final class TextractDocument {
+
+  private static final TextractDocument EMPTY = new TextractDocument(List.of(), new int[0]);
+
+  private final List<TextractBlock> blocks;
+  private final int[] parents;
+
+  private TextractDocument(List<TextractBlock> blocks, int[] parents) {
+    this.blocks = blocks;
+    this.parents = parents;
+  }
+
+  public static TextractDocument empty() {
+    return EMPTY;
+  }
+
+  public static Builder builder(int expectedSize) {
+    return new Builder(expectedSize);
+  }
+
+  public int size() {
+    return blocks.size();
+  }
+
+  public boolean isEmpty() {
+    return blocks.isEmpty();
+  }
+
+  public TextractBlock get(int index) {
+    return blocks.get(index);
+  }
+
+  /** Unmodifiable block list in Textract order. */
+  public List<TextractBlock> blocks() {
+    return blocks;
+  }
+
+  /** Index of the block listing {@code index} as a {@code CHILD}, or {@code -1}. */
+  public int parentOf(int index) {
+    return parents[index];
+  }
+
+  /**
+   * View of this document holding only the blocks whose confidence is at least {@code min} (blocks
+   * without a confidence are dropped as well), with relationships to dropped blocks removed.
+   *
+   * <p>Stored Textract output is unfiltered; callers apply their threshold here when reading, so
+   * one stored analysis serves every threshold.
+   */
+  public TextractDocument withMinConfidence(float min) {
+    int n = blocks.size();
+    int[] remap = new int[n];
+    int kept = 0;
+    for (int i = 0; i < n; i++) remap[i] = blocks.get(i).meetsConfidence(min) ? kept++ : -1;
+    if (kept == n) return this;
+    if (kept == 0) return EMPTY;
+
+    List<TextractBlock> out = new ArrayList<>(kept);
+    int[] keptParents = new int[kept];
+    Arrays.fill(keptParents, -1);
+    for (int i = 0; i < n; i++) {
+      if (remap[i] < 0) continue;
+      TextractBlock b = blocks.get(i);
+      if (b.getRelationships().length == 0) {
+        out.add(b);
+        continue;
+      }
+      List<TextractBlock.Relationship> rels = new ArrayList<>(b.getRelationships().length);
+      for (TextractBlock.Relationship r : b.getRelationships()) {
+        int[] targets = new int[r.targets().length];
+        int k = 0;
+        for (int t : r.targets()) if (remap[t] >= 0) targets[k++] = remap[t];
+        if (k == 0) continue;
+        if (k < targets.length) targets = Arrays.copyOf(targets, k);
+        rels.add(new TextractBlock.Relationship(r.type(), targets));
+        if ("CHILD".equals(r.type())) {
+          for (int t : targets) if (keptParents[t] < 0) keptParents[t] = remap[i];
+        }
+      }
+      out.add(
+          b.toBuilder().relationships(rels.toArray(new TextractBlock.Relationship[0])).build());
+    }
+    return new TextractDocument(Collections.unmodifiableList(out), keptParents);
+  }
+
+  /** Count, mean, min and max over the blocks that carry a confidence. */
+  public DoubleSummaryStatistics confidenceStats() {
+    DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+    for (TextractBlock b : blocks) {
+      if (b.hasConfidence()) stats.accept(b.getConfidence());
+    }
+    return stats;
+  }
+
+  /** Collects blocks with relationships expressed as Textract ids. */
+  public static final class Builder {
+    private final List<String> ids;
+    private final List<TextractBlock.TextractBlockBuilder> pending;
+    private final List<Map<String, List<String>>> pendingRelationships;
+
+    private Builder(int expectedSize) {
+      this.ids = new ArrayList<>(Math.max(16, expectedSize));
+      this.pending = new ArrayList<>(Math.max(16, expectedSize));
+      this.pendingRelationships = new ArrayList<>(Math.max(16, expectedSize));
+    }
+
+    /**
+     * Adds a block. {@code relationships} maps relationship type to target ids and may be {@code
+     * null}; it is copied, so callers can reuse their map.
+     */
+    public Builder add(
+        String id,
+        TextractBlock.TextractBlockBuilder block,
+        Map<String, List<String>> relationships) {
+      ids.add(id);
+      pending.add(block.id(id));
+      pendingRelationships.add(
+          relationships == null || relationships.isEmpty()
+              ? null
+              : new LinkedHashMap<>(relationships));
+      return this;
+    }
+
+    public TextractDocument build() {
+      int n = pending.size();
+      if (n == 0) return EMPTY;
+
+      Map<String, Integer> indexById = new HashMap<>(n * 2);
+      for (int i = 0; i < n; i++) {
+        if (ids.get(i) != null) indexById.put(ids.get(i), i);
+      }
+
+      int[] parents = new int[n];
+      Arrays.fill(parents, -1);
+      List<TextractBlock> built = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        TextractBlock.TextractBlockBuilder b = pending.get(i);
+        Map<String, List<String>> rels = pendingRelationships.get(i);
+        if (rels != null) {
+          List<TextractBlock.Relationship> resolved = new ArrayList<>(rels.size());
+          for (Map.Entry<String, List<String>> e : rels.entrySet()) {
+            int[] targets = resolve(e.getValue(), indexById);
+            if (targets.length == 0) continue;
+            resolved.add(new TextractBlock.Relationship(e.getKey(), targets));
+            if ("CHILD".equals(e.getKey())) {
+              for (int t : targets) if (parents[t] < 0) parents[t] = i;
+            }
+          }
+          if (!resolved.isEmpty()) {
+            b.relationships(resolved.toArray(new TextractBlock.Relationship[0]));
+          }
+        }
+        built.add(b.build());
+      }
+      return new TextractDocument(Collections.unmodifiableList(built), parents);
+    }
+
+    private static int[] resolve(List<String> ids, Map<String, Integer> indexById) {
+      int[] out = new int[ids.size()];
+      int k = 0;
+      for (String id : ids) {
+        Integer idx = indexById.get(id);
+        if (idx != null) out[k++] = idx;
+      }
+      return k == out.length ? out : Arrays.copyOf(out, k);
+    }
+  }
+}
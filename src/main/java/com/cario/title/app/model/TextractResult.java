@@ -1,10 +1,14 @@
 package com.cario.title.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
+import java.util.function.Supplier;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * Represents the combined output of a Textract processing operation. Includes:
@@ -35,8 +39,18 @@ public class TextractResult {
   /** Combined S3 URI (s3://bucket/key). */
   private String s3Uri;
 
-  /** The JSON string as stored in S3 (filtered high-confidence blocks). */
-  private String jsonOutput;
+  /**
+   * Blocks meeting the requested threshold as JSON; the S3 object itself holds every block, so
+   * other thresholds can be applied to it later. Built on first access from {@link
+   * #jsonOutputSupplier} when not set directly.
+   */
+  @ToString.Exclude private String jsonOutput;
+
+  /** Produces {@link #jsonOutput} on demand, so callers that never read it don't pay for it. */
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private Supplier<String> jsonOutputSupplier;
 
   /** Number of high-confidence blocks extracted. */
   private int blockCount;
@@ -52,4 +66,9 @@ public class TextractResult {
 
   /** List of confidence scores for each high-confidence block (optional). */
   private List<Float> confidenceScores;
+
+  public String getJsonOutput() {
+    if (jsonOutput == null && jsonOutputSupplier != null) jsonOutput = jsonOutputSupplier.get();
+    return jsonOutput;
+  }
 }
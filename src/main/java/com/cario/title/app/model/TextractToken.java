@@ -0,0 +1,30 @@
+package com.cario.title.app.model;
+
+import java.util.Map;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * One searchable unit of a Textract document (a LINE, form VALUE, table CELL or whole TABLE) as
+ * stored in the {@code textract_index} vector table.
+ */
+@Value
+@Builder
+public class TextractToken {
+
+  /** Textract block id (primary key of the index row). */
+  String id;
+
+  /** Normalized text that gets embedded. */
+  String text;
+
+  /** LINE, KV_VALUE, CELL or TABLE. */
+  String type;
+
+  int page;
+
+  double confidence;
+
+  /** Block details persisted as JSONB (bounding box, table coordinates, relationships). */
+  Map<String, Object> metadata;
+}
@@ -1,11 +1,18 @@
 package com.cario.title.app.prompt;
 
+import com.cario.title.app.util.ContentHashUtils;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.TreeMap;
 import lombok.Data;
 
 @Data
 public class PromptConfig {
+  /** Optional label of this prompt set, e.g. {@code 2025-06-title-v3}. */
+  @JsonProperty("version")
+  private String version;
+
   @JsonProperty("system")
   private String systemTemplate;
 
@@ -14,4 +21,16 @@ public class PromptConfig {
 
   @JsonProperty("rules")
   private Map<String, String> rules;
+
+  /**
+   * The configured {@code version}, or the first 12 hex digits of a hash over the templates and
+   * rules when none is set, so edits to an unlabelled prompt still show up as a new version.
+   */
+  public String effectiveVersion() {
+    if (version != null && !version.isBlank()) return version;
+    String content =
+        systemTemplate + "\n" + userTemplate + "\n" + (rules == null ? "" : new TreeMap<>(rules));
+    return "sha-"
+        + ContentHashUtils.sha256Hex(content.getBytes(StandardCharsets.UTF_8)).substring(0, 12);
+  }
 }
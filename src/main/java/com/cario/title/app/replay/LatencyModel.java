@@ -0,0 +1,33 @@
+package com.cario.title.app.replay;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal service latency: {@code median * exp(sigma * N(0,1))}.
+ *
+ * <p>A log-normal with a realistic median and a sigma around 0.3–0.6 reproduces the long right
+ * tail of remote API calls; {@code medianMs <= 0} disables the delay.
+ */
+public record LatencyModel(double medianMs, double sigma) {
+
+  public static final LatencyModel NONE = new LatencyModel(0.0, 0.0);
+
+  /** One latency sample in milliseconds. */
+  public long sampleMs() {
+    if (medianMs <= 0.0) return 0L;
+    double z = ThreadLocalRandom.current().nextGaussian();
+    return Math.round(medianMs * Math.exp(Math.max(0.0, sigma) * z));
+  }
+
+  /** Blocks the calling thread for one latency sample. */
+  public void pause() {
+    long ms = sampleMs();
+    if (ms <= 0L) return;
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during simulated latency", e);
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.cario.title.app.replay;
+
+import java.util.List;
+import java.util.Objects;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+/**
+ * {@link ChatModel} that answers every prompt with a recorded completion body, picked by the
+ * prompt's contents, after one sample of the chat latency model. Call options are ignored.
+ */
+public class ReplayChatModel implements ChatModel {
+
+  private final ReplayFixtures fixtures;
+  private final LatencyModel latency;
+
+  public ReplayChatModel(ReplayFixtures fixtures, LatencyModel latency) {
+    this.fixtures = Objects.requireNonNull(fixtures, "fixtures must not be null");
+    this.latency = Objects.requireNonNull(latency, "latency must not be null");
+  }
+
+  @Override
+  public ChatResponse call(Prompt prompt) {
+    latency.pause();
+    String body = fixtures.chatFor(prompt.getContents());
+    return new ChatResponse(List.of(new Generation(new AssistantMessage(body))));
+  }
+}
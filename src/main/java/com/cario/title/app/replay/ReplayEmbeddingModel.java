@@ -0,0 +1,70 @@
+package com.cario.title.app.replay;
+
+import com.cario.title.app.util.ContentHashUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * {@link EmbeddingModel} that returns recorded vectors, or for texts without a recording a unit
+ * vector seeded by the text's hash (same text, same vector), after one sample of the embedding
+ * latency model per request.
+ */
+public class ReplayEmbeddingModel implements EmbeddingModel {
+
+  private final ReplayFixtures fixtures;
+  private final LatencyModel latency;
+  private final int dimensions;
+
+  public ReplayEmbeddingModel(ReplayFixtures fixtures, LatencyModel latency, int dimensions) {
+    this.fixtures = Objects.requireNonNull(fixtures, "fixtures must not be null");
+    this.latency = Objects.requireNonNull(latency, "latency must not be null");
+    this.dimensions = dimensions;
+  }
+
+  @Override
+  public EmbeddingResponse call(EmbeddingRequest request) {
+    latency.pause();
+    List<String> texts = request.getInstructions();
+    List<Embedding> out = new ArrayList<>(texts.size());
+    for (int i = 0; i < texts.size(); i++) out.add(new Embedding(vectorFor(texts.get(i)), i));
+    return new EmbeddingResponse(out);
+  }
+
+  @Override
+  public float[] embed(Document document) {
+    return embed(document.getText());
+  }
+
+  @Override
+  public int dimensions() {
+    return dimensions;
+  }
+
+  // ------------------ Internals ------------------
+
+  private float[] vectorFor(String text) {
+    float[] recorded = fixtures.embeddingFor(text);
+    if (recorded != null) return recorded;
+
+    String hash = ContentHashUtils.sha256Hex(text.getBytes(StandardCharsets.UTF_8));
+    SplittableRandom random =
+        new SplittableRandom(Long.parseUnsignedLong(hash.substring(0, 16), 16));
+    float[] v = new float[dimensions];
+    double norm = 0.0;
+    for (int i = 0; i < v.length; i++) {
+      v[i] = (float) (random.nextDouble() * 2.0 - 1.0);
+      norm += v[i] * v[i];
+    }
+    float scale = (float) (1.0 / Math.sqrt(Math.max(norm, 1e-12)));
+    for (int i = 0; i < v.length; i++) v[i] *= scale;
+    return v;
+  }
+}
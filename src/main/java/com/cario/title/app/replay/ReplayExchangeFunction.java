@@ -0,0 +1,48 @@
+package com.cario.title.app.replay;
+
+import java.time.Duration;
+import java.util.Objects;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ExchangeFunction} for {@code WebClient}s built in the replay profile: every request is
+ * answered with a recorded Perplexity envelope (or an empty-answer envelope when none were
+ * recorded) after one sample of the Perplexity latency model. File uploads get a fixed file id.
+ */
+public class ReplayExchangeFunction implements ExchangeFunction {
+
+  private static final String EMPTY_ANSWER =
+      "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"{}\"}}]}";
+
+  private final ReplayFixtures fixtures;
+  private final LatencyModel latency;
+
+  public ReplayExchangeFunction(ReplayFixtures fixtures, LatencyModel latency) {
+    this.fixtures = Objects.requireNonNull(fixtures, "fixtures must not be null");
+    this.latency = Objects.requireNonNull(latency, "latency must not be null");
+  }
+
+  @Override
+  public Mono<ClientResponse> exchange(ClientRequest request) {
+    String path = request.url().getPath();
+    String body;
+    if (path.endsWith("/files")) {
+      body = "{\"id\":\"replay-file\"}";
+    } else {
+      String recorded = fixtures.perplexityFor(request.url().toString());
+      body = recorded != null ? recorded : EMPTY_ANSWER;
+    }
+    ClientResponse response =
+        ClientResponse.create(HttpStatus.OK)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(body)
+            .build();
+    return Mono.delay(Duration.ofMillis(latency.sampleMs())).thenReturn(response);
+  }
+}
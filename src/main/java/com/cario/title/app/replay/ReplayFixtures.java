@@ -0,0 +1,156 @@
+package com.cario.title.app.replay;
+
+import com.cario.title.app.model.TextractDocument;
+import com.cario.title.app.util.ContentHashUtils;
+import com.cario.title.app.util.TextractJsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Recorded responses served by the replay stand-ins, loaded once from a local directory:
+ *
+ * <pre>
+ *   textract/*.json      Textract output as written to the textract/ prefix (block array or
+ *                        {"Blocks": [...]} envelope); required
+ *   chat/*.json          chat completion bodies (the model's JSON answer); required
+ *   perplexity/*.json    Perplexity /chat/completions envelopes; optional
+ *   embeddings.jsonl     {"text": ..., "vector": [...]} per line; optional
+ * </pre>
+ *
+ * <p>Fixtures are chosen deterministically: a Textract fixture whose file name matches the input
+ * document's base name wins, otherwise the input's hash picks one, so a run over the same inputs
+ * always replays the same responses.
+ */
+@Log4j2
+public class ReplayFixtures {
+
+  private final Path dir;
+  private final Map<String, TextractDocument> textractByName = new LinkedHashMap<>();
+  private final List<TextractDocument> textract = new ArrayList<>();
+  private final List<String> chat;
+  private final List<String> perplexity;
+  private final Map<String, float[]> embeddings = new HashMap<>();
+
+  public ReplayFixtures(Path dir, ObjectMapper mapper) {
+    this.dir = Objects.requireNonNull(dir, "dir must not be null");
+    Objects.requireNonNull(mapper, "mapper must not be null");
+    if (!Files.isDirectory(dir)) {
+      throw new IllegalStateException("Replay fixture directory not found: " + dir);
+    }
+
+    for (Path p : jsonFiles("textract")) {
+      TextractDocument doc = TextractJsonUtils.fromJson(readTree(mapper, p));
+      textractByName.put(baseName(p), doc);
+      textract.add(doc);
+    }
+    this.chat = readAll(jsonFiles("chat"));
+    this.perplexity = readAll(jsonFiles("perplexity"));
+    if (textract.isEmpty()) {
+      throw new IllegalStateException("No textract/*.json fixtures in " + dir);
+    }
+    if (chat.isEmpty()) throw new IllegalStateException("No chat/*.json fixtures in " + dir);
+
+    Path vectors = dir.resolve("embeddings.jsonl");
+    if (Files.isRegularFile(vectors)) {
+      try (BufferedReader in = Files.newBufferedReader(vectors, StandardCharsets.UTF_8)) {
+        for (String line; (line = in.readLine()) != null; ) {
+          if (line.isBlank()) continue;
+          JsonNode row = mapper.readTree(line);
+          JsonNode v = row.path("vector");
+          float[] out = new float[v.size()];
+          for (int i = 0; i < out.length; i++) out[i] = (float) v.get(i).asDouble();
+          embeddings.put(row.path("text").asText(), out);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to read " + vectors, e);
+      }
+    }
+
+    log.info(
+        "replay.fixtures loaded dir={} textract={} chat={} perplexity={} embeddings={}",
+        dir,
+        textract.size(),
+        chat.size(),
+        perplexity.size(),
+        embeddings.size());
+  }
+
+  /** Textract output for the S3 object {@code key}: by base name, else by key hash. */
+  public TextractDocument textractFor(String key) {
+    TextractDocument named = textractByName.get(baseName(key));
+    return named != null ? named : pick(textract, key);
+  }
+
+  /** Chat completion body for a prompt. */
+  public String chatFor(String prompt) {
+    return pick(chat, prompt);
+  }
+
+  /** Perplexity envelope for a request, or {@code null} when none were recorded. */
+  public String perplexityFor(String request) {
+    return perplexity.isEmpty() ? null : pick(perplexity, request);
+  }
+
+  /** Recorded embedding of {@code text}, or {@code null}. */
+  public float[] embeddingFor(String text) {
+    return embeddings.get(text);
+  }
+
+  // ------------------ Internals ------------------
+
+  private static <T> T pick(List<T> items, String seed) {
+    String hash = ContentHashUtils.sha256Hex(String.valueOf(seed).getBytes(StandardCharsets.UTF_8));
+    int h = Integer.parseUnsignedInt(hash.substring(0, 7), 16);
+    return items.get(h % items.size());
+  }
+
+  private List<Path> jsonFiles(String sub) {
+    Path root = dir.resolve(sub);
+    if (!Files.isDirectory(root)) return List.of();
+    try (Stream<Path> files = Files.walk(root)) {
+      return files.filter(p -> p.toString().endsWith(".json")).sorted().toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to list " + root, e);
+    }
+  }
+
+  private static List<String> readAll(List<Path> files) {
+    List<String> out = new ArrayList<>(files.size());
+    for (Path p : files) {
+      try {
+        out.add(Files.readString(p, StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to read " + p, e);
+      }
+    }
+    return out;
+  }
+
+  private static JsonNode readTree(ObjectMapper mapper, Path p) {
+    try {
+      return mapper.readTree(p.toFile());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + p, e);
+    }
+  }
+
+  private static String baseName(Path p) {
+    return baseName(p.getFileName().toString());
+  }
+
+  /** {@code a/b/title-123.pdf} and {@code title-123.json} both give {@code title-123}. */
+  private static String baseName(String name) {
+    String n = name.substring(name.lastIndexOf('/') + 1);
+    int dot = n.lastIndexOf('.');
+    return dot > 0 ? n.substring(0, dot) : n;
+  }
+}
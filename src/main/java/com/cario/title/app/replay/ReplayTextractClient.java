@@ -0,0 +1,147 @@
+package com.cario.title.app.replay;
+
+import com.cario.title.app.model.TextractDocument;
+import com.cario.title.app.util.ContentHashUtils;
+import com.cario.title.app.util.TextractJsonUtils;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.log4j.Log4j2;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.*;
+
+/**
+ * {@link TextractClient} that answers from {@link ReplayFixtures} instead of calling AWS.
+ *
+ * <ul>
+ *   <li>{@code AnalyzeDocument} / {@code DetectDocumentText} on an S3 document return the whole
+ *       recorded output; on inline bytes (split PDF pages, images) they return page 1 of the
+ *       fixture the bytes hash to. Text detection keeps only PAGE, LINE and WORD blocks.
+ *   <li>{@code StartDocumentAnalysis} registers a job that completes after one sample of the async
+ *       latency model; {@code GetDocumentAnalysis} reports {@code IN_PROGRESS} until then and
+ *       pages the result with {@code NextToken} like the real API.
+ * </ul>
+ *
+ * Every call first sleeps for one sample of the sync latency model.
+ */
+@Log4j2
+public class ReplayTextractClient implements TextractClient {
+
+  private static final int DEFAULT_PAGE_SIZE = 1000;
+  private static final Set<BlockType> TEXT_TYPES =
+      EnumSet.of(BlockType.PAGE, BlockType.LINE, BlockType.WORD);
+
+  private final ReplayFixtures fixtures;
+  private final LatencyModel syncLatency;
+  private final LatencyModel jobLatency;
+  private final Map<TextractDocument, List<Block>> sdkBlocks =
+      Collections.synchronizedMap(new IdentityHashMap<>());
+  private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+  private final AtomicLong jobSeq = new AtomicLong();
+
+  private record Job(List<Block> blocks, long readyAtNanos) {}
+
+  public ReplayTextractClient(
+      ReplayFixtures fixtures, LatencyModel syncLatency, LatencyModel jobLatency) {
+    this.fixtures = Objects.requireNonNull(fixtures, "fixtures must not be null");
+    this.syncLatency = Objects.requireNonNull(syncLatency, "syncLatency must not be null");
+    this.jobLatency = Objects.requireNonNull(jobLatency, "jobLatency must not be null");
+  }
+
+  @Override
+  public AnalyzeDocumentResponse analyzeDocument(AnalyzeDocumentRequest request) {
+    syncLatency.pause();
+    List<Block> blocks = blocksFor(request.document());
+    return AnalyzeDocumentResponse.builder()
+        .blocks(blocks)
+        .documentMetadata(metadata(blocks))
+        .analyzeDocumentModelVersion("replay")
+        .build();
+  }
+
+  @Override
+  public DetectDocumentTextResponse detectDocumentText(DetectDocumentTextRequest request) {
+    syncLatency.pause();
+    List<Block> blocks = new ArrayList<>();
+    for (Block b : blocksFor(request.document())) {
+      if (TEXT_TYPES.contains(b.blockType())) blocks.add(b);
+    }
+    return DetectDocumentTextResponse.builder()
+        .blocks(blocks)
+        .documentMetadata(metadata(blocks))
+        .detectDocumentTextModelVersion("replay")
+        .build();
+  }
+
+  @Override
+  public StartDocumentAnalysisResponse startDocumentAnalysis(StartDocumentAnalysisRequest request) {
+    syncLatency.pause();
+    String key = request.documentLocation().s3Object().name();
+    String jobId = "replay-" + jobSeq.incrementAndGet();
+    long readyAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(jobLatency.sampleMs());
+    jobs.put(jobId, new Job(sdk(fixtures.textractFor(key)), readyAt));
+    log.debug("replay.textract job started jobId={} key={}", jobId, key);
+    return StartDocumentAnalysisResponse.builder().jobId(jobId).build();
+  }
+
+  @Override
+  public GetDocumentAnalysisResponse getDocumentAnalysis(GetDocumentAnalysisRequest request) {
+    syncLatency.pause();
+    Job job = jobs.get(request.jobId());
+    if (job == null) {
+      throw InvalidJobIdException.builder().message("Unknown job " + request.jobId()).build();
+    }
+    if (System.nanoTime() < job.readyAtNanos()) {
+      return GetDocumentAnalysisResponse.builder().jobStatus(JobStatus.IN_PROGRESS).build();
+    }
+
+    int pageSize = request.maxResults() == null ? DEFAULT_PAGE_SIZE : request.maxResults();
+    int from = request.nextToken() == null ? 0 : Integer.parseInt(request.nextToken());
+    int to = Math.min(job.blocks().size(), from + pageSize);
+    String next = to < job.blocks().size() ? Integer.toString(to) : null;
+    if (next == null) jobs.remove(request.jobId());
+    return GetDocumentAnalysisResponse.builder()
+        .jobStatus(JobStatus.SUCCEEDED)
+        .blocks(job.blocks().subList(from, to))
+        .documentMetadata(metadata(job.blocks()))
+        .nextToken(next)
+        .analyzeDocumentModelVersion("replay")
+        .build();
+  }
+
+  @Override
+  public String serviceName() {
+    return SERVICE_NAME;
+  }
+
+  @Override
+  public void close() {
+    jobs.clear();
+  }
+
+  // ------------------ Internals ------------------
+
+  private List<Block> blocksFor(Document document) {
+    if (document.s3Object() != null) return sdk(fixtures.textractFor(document.s3Object().name()));
+
+    String hash = ContentHashUtils.sha256Hex(document.bytes().asByteArray());
+    List<Block> firstPage = new ArrayList<>();
+    for (Block b : sdk(fixtures.textractFor(hash))) {
+      if (b.page() == null || b.page() == 1) firstPage.add(b);
+    }
+    return firstPage;
+  }
+
+  private List<Block> sdk(TextractDocument doc) {
+    return sdkBlocks.computeIfAbsent(doc, d -> List.copyOf(TextractJsonUtils.toSdk(d)));
+  }
+
+  private static DocumentMetadata metadata(List<Block> blocks) {
+    int pages = 0;
+    for (Block b : blocks) {
+      if (b.page() != null) pages = Math.max(pages, b.page());
+    }
+    return DocumentMetadata.builder().pages(Math.max(1, pages)).build();
+  }
+}
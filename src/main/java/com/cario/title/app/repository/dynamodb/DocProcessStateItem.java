@@ -38,6 +38,18 @@ public class DocProcessStateItem {
   /** Per-phase records keyed by phase name (UPLOAD, TEXTRACT, NLP, PIPELINE...). */
   private Map<String, PhaseRecordItem> phases;
 
+  /**
+   * Vector index state: QUEUED | INDEXING | INDEXED | FAILED (null if never indexed). Set on the
+   * item keyed by the index's content-hash id ({@code sha256/<hash>}), which carries no phases.
+   */
+  private String indexStatus;
+
+  /** When the textract_index rows were written. */
+  private Instant indexedAt;
+
+  /** Number of rows written to textract_index. */
+  private Integer indexedTokens;
+
   // ---------- DynamoDB mapping ----------
 
   @DynamoDbPartitionKey
@@ -80,4 +92,19 @@ public class DocProcessStateItem {
   public Map<String, PhaseRecordItem> getPhases() {
     return phases;
   }
+
+  @DynamoDbAttribute("indexStatus")
+  public String getIndexStatus() {
+    return indexStatus;
+  }
+
+  @DynamoDbAttribute("indexedAt")
+  public Instant getIndexedAt() {
+    return indexedAt;
+  }
+
+  @DynamoDbAttribute("indexedTokens")
+  public Integer getIndexedTokens() {
+    return indexedTokens;
+  }
 }
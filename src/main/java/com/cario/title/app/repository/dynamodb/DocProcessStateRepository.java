@@ -6,7 +6,9 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.*;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 /** Repository over the Enhanced DynamoDB table for DocProcessStateItem. */
 @Log4j2
@@ -39,6 +41,29 @@ public class DocProcessStateRepository {
     log.debug("docstate.saveRaw docId={} status={}", item.getDocumentId(), item.getOverallStatus());
   }
 
+  /**
+   * Scan for documents whose given phase currently has the given status. Intended for rare
+   * maintenance sweeps (e.g. startup recovery), not for request paths.
+   */
+  public List<DocProcessStateItem> findByPhaseStatus(String phaseName, String status) {
+    Expression filter =
+        Expression.builder()
+            .expression("#phases.#phase.#status = :status")
+            .putExpressionName("#phases", "phases")
+            .putExpressionName("#phase", phaseName)
+            .putExpressionName("#status", "status")
+            .putExpressionValue(":status", AttributeValue.builder().s(status).build())
+            .build();
+    List<DocProcessStateItem> out = new ArrayList<>();
+    table
+        .scan(ScanEnhancedRequest.builder().filterExpression(filter).build())
+        .items()
+        .forEach(out::add);
+    log.info(
+        "docstate.findByPhaseStatus phase={} status={} found={}", phaseName, status, out.size());
+    return out;
+  }
+
   // -------- Convenience helpers --------
 
   /** Initialize doc state if not exists; returns current state. */
@@ -108,6 +133,23 @@ public class DocProcessStateRepository {
     log.info("docstate.setOverall docId={} status={} finalKey={}", documentId, status, finalKey);
   }
 
+  /**
+   * Set the vector index state. Written as a partial update so concurrent phase updates are not
+   * overwritten.
+   */
+  public void setIndexState(String documentId, String status, Integer indexedTokens) {
+    DocProcessStateItem partial =
+        DocProcessStateItem.builder()
+            .documentId(documentId)
+            .indexStatus(status)
+            .indexedAt("INDEXED".equals(status) ? Instant.now() : null)
+            .indexedTokens(indexedTokens)
+            .updatedAt(Instant.now())
+            .build();
+    table.updateItem(item -> item.ignoreNulls(true).item(partial));
+    log.info("docstate.setIndexState docId={} status={}", documentId, status);
+  }
+
   // -------- Internals --------
 
   private DocProcessStateItem getOrCreate(String documentId) {
@@ -150,6 +192,9 @@ public class DocProcessStateRepository {
     if (incoming.getPromptVersion() != null) merged.setPromptVersion(incoming.getPromptVersion());
     if (incoming.getSchemaName() != null) merged.setSchemaName(incoming.getSchemaName());
 
+    if (incoming.getJobId() != null) merged.setJobId(incoming.getJobId());
+    if (incoming.getFeatureTypes() != null) merged.setFeatureTypes(incoming.getFeatureTypes());
+
     if (incoming.getMessages() != null && !incoming.getMessages().isEmpty()) {
       List<String> mergedMsgs =
           new ArrayList<>(Optional.ofNullable(merged.getMessages()).orElseGet(ArrayList::new));
@@ -47,6 +47,11 @@ public class PhaseRecordItem {
   private String promptVersion; // if you version prompts
   private String schemaName; // JSON schema name used
 
+  /** Async job metadata (e.g. Textract StartDocumentAnalysis), so restarts can resume polling. */
+  private String jobId;
+
+  private List<String> featureTypes;
+
   /** Free-form messages, warnings, error messages. */
   private List<String> messages;
 
@@ -128,6 +133,16 @@ public class PhaseRecordItem {
     return schemaName;
   }
 
+  @DynamoDbAttribute("jobId")
+  public String getJobId() {
+    return jobId;
+  }
+
+  @DynamoDbAttribute("featureTypes")
+  public List<String> getFeatureTypes() {
+    return featureTypes;
+  }
+
   @DynamoDbAttribute("messages")
   public List<String> getMessages() {
     return messages;
@@ -0,0 +1,116 @@
+package com.cario.title.app.repository.dynamodb;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Records started Textract async jobs under the {@code TEXTRACT_JOB} phase of a document's state,
+ * so a restarted service can resume polling an existing job instead of paying for a new one. The
+ * document id is the input's content-hash result key ({@code sha256/<hash>}), so the same bytes
+ * submitted under another S3 key join the running job; {@code bucket/key} only when the hash is
+ * unknown.
+ *
+ * <p>Registry writes are best effort: a DynamoDB hiccup is logged and never fails the Textract
+ * call itself.
+ */
+@Log4j2
+@RequiredArgsConstructor
+public class TextractJobRegistry {
+
+  public static final String PHASE_TEXTRACT_JOB = "TEXTRACT_JOB";
+
+  private static final String STATUS_RUNNING = "STARTED";
+
+  private final DocProcessStateRepository repo;
+
+  /** A job that was started but never recorded as finished. */
+  public record PendingJob(
+      String documentId, String jobId, String inputS3Uri, List<String> featureTypes) {}
+
+  public void recordStarted(
+      String documentId, String jobId, String inputS3Uri, List<String> featureTypes) {
+    PhaseRecordItem phase =
+        PhaseRecordItem.builder()
+            .status(STATUS_RUNNING)
+            .startedAt(Instant.now())
+            .attempts(1)
+            .inputS3Uri(inputS3Uri)
+            .jobId(jobId)
+            .featureTypes(featureTypes)
+            .messages(List.of("Textract async job started jobId=" + jobId))
+            .build();
+    try {
+      repo.upsertPhase(documentId, PHASE_TEXTRACT_JOB, phase);
+    } catch (RuntimeException e) {
+      log.warn("textract.registry start not recorded docId={} jobId={}", documentId, jobId, e);
+    }
+  }
+
+  public void recordFinished(String documentId, String jobId, boolean succeeded, String message) {
+    PhaseRecordItem phase =
+        PhaseRecordItem.builder()
+            .status(succeeded ? "SUCCEEDED" : "FAILED")
+            .completedAt(Instant.now())
+            .jobId(jobId)
+            .messages(List.of(message == null ? "Textract async job finished" : message))
+            .build();
+    try {
+      repo.upsertPhase(documentId, PHASE_TEXTRACT_JOB, phase);
+    } catch (RuntimeException e) {
+      log.warn("textract.registry finish not recorded docId={} jobId={}", documentId, jobId, e);
+    }
+  }
+
+  /**
+   * Returns the running job for a document if it used the same feature set and is still young
+   * enough for Textract to hold its results.
+   */
+  public Optional<PendingJob> findRunning(
+      String documentId, List<String> featureTypes, Duration maxAge) {
+    try {
+      DocProcessStateItem state = repo.get(documentId);
+      if (state == null || state.getPhases() == null) return Optional.empty();
+      return toPending(documentId, state.getPhases().get(PHASE_TEXTRACT_JOB), maxAge)
+          .filter(job -> featureTypes.equals(job.featureTypes()));
+    } catch (RuntimeException e) {
+      log.warn("textract.registry lookup failed docId={}", documentId, e);
+      return Optional.empty();
+    }
+  }
+
+  /** All jobs still marked running and young enough to resume (used on startup). */
+  public List<PendingJob> findAllRunning(Duration maxAge) {
+    List<PendingJob> out = new ArrayList<>();
+    try {
+      for (DocProcessStateItem state :
+          repo.findByPhaseStatus(PHASE_TEXTRACT_JOB, STATUS_RUNNING)) {
+        Map<String, PhaseRecordItem> phases = state.getPhases();
+        if (phases == null) continue;
+        toPending(state.getDocumentId(), phases.get(PHASE_TEXTRACT_JOB), maxAge)
+            .ifPresent(out::add);
+      }
+    } catch (RuntimeException e) {
+      log.warn("textract.registry scan failed", e);
+    }
+    return out;
+  }
+
+  private static Optional<PendingJob> toPending(
+      String documentId, PhaseRecordItem phase, Duration maxAge) {
+    if (phase == null || phase.getJobId() == null) return Optional.empty();
+    if (!STATUS_RUNNING.equals(phase.getStatus())) return Optional.empty();
+    Instant startedAt = phase.getStartedAt();
+    if (startedAt == null || startedAt.plus(maxAge).isBefore(Instant.now())) {
+      return Optional.empty();
+    }
+    List<String> features = phase.getFeatureTypes() == null ? List.of() : phase.getFeatureTypes();
+    return Optional.of(
+        new PendingJob(documentId, phase.getJobId(), phase.getInputS3Uri(), features));
+  }
+}
@@ -3,6 +3,7 @@ package com.cario.title.app.scheduler;
 import com.cario.title.app.repository.dynamodb.DocProcessStateItem;
 import com.cario.title.app.repository.dynamodb.DocProcessStateRepository;
 import com.cario.title.app.service.AiPipelineService;
+import com.cario.title.app.service.ContentHashService;
 import com.cario.title.app.service.StatusService;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -26,6 +27,7 @@ public class DocProcessScheduler {
   private final AiPipelineService pipeline;
   private final StatusService status;
   private final DocProcessStateRepository stateRepo;
+  private final ContentHashService contentHashes;
 
   @Value("${aws.s3.bucket}")
   private String bucket;
@@ -111,12 +113,19 @@ public class DocProcessScheduler {
 
         try {
           String outputKey = deriveOpenAiOutputKey(key);
-          log.info("scheduler.process docId={} key={} -> outputKey={}", docId, key, outputKey);
+          // identical bytes seen before (under any key) resolve to the stored results
+          String contentHash = contentHashes.resolve(bucket, key);
+          log.info(
+              "scheduler.process docId={} key={} sha256={} -> outputKey={}",
+              docId,
+              key,
+              contentHash,
+              outputKey);
 
           // Run pipeline -> returns business JSON (not used here, since we persist to S3 inside
           // pipeline)
           Map<String, Object> businessJson =
-              pipeline.processFromS3(bucket, key, outputKey, minConfidence);
+              pipeline.processFromS3(bucket, key, contentHash, outputKey, minConfidence);
 
           // record success: store the outputKey
           status.recordPipelineSucceeded(docId, outputKey, "s3://" + bucket + "/" + outputKey);
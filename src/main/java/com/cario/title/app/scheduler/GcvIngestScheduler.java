@@ -1,8 +1,9 @@
 package com.cario.title.app.scheduler;
 
+import com.cario.title.app.service.ContentHashService;
 import com.cario.title.app.service.VisionOcrService;
+import com.cario.title.app.util.ContentHashUtils;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +20,7 @@ public class GcvIngestScheduler {
 
   private final S3Client s3;
   private final VisionOcrService vision;
+  private final ContentHashService contentHashes;
 
   @Value("${aws.s3.bucket}")
   private String bucket;
@@ -70,14 +72,16 @@ public class GcvIngestScheduler {
         if (processed >= maxPerRun) break;
 
         String key = obj.key();
-        String outKey = deriveOutKey(key);
-
-        // skip if output already exists
-        if (exists(bucket, outKey)) {
-          log.debug("gcv.skip exists {}", outKey);
+        // OCR output is content-addressed, so re-uploads of the same scan are skipped. Objects
+        // seen in an earlier sweep are checked by their remembered hash; others are hashed from
+        // the bytes read for OCR, so listing never streams objects that are not processed.
+        String knownHash = contentHashes.cached(bucket, key, obj.eTag());
+        if (knownHash != null && exists(bucket, outKeyFor(knownHash))) {
+          log.debug("gcv.skip exists {}", outKeyFor(knownHash));
           continue;
         }
 
+        processed++; // every object read counts against maxPerRun, OCR'd or not
         try {
           byte[] bytes =
               s3.getObject(
@@ -85,15 +89,21 @@ public class GcvIngestScheduler {
                       ResponseTransformer.toBytes())
                   .asByteArray();
 
+          String contentHash = ContentHashUtils.sha256Hex(bytes);
+          contentHashes.remember(bucket, key, obj.eTag(), contentHash);
+          String outKey = outKeyFor(contentHash);
+          if (exists(bucket, outKey)) {
+            log.debug("gcv.skip exists {}", outKey);
+            continue;
+          }
+
           String json = vision.ocrBytes(bytes, docMode);
 
           put(bucket, outKey, json, "application/json");
           log.info("gcv.ok input={} output={} size={}", key, outKey, json.length());
-          processed++;
 
         } catch (Exception e) {
           log.error("gcv.err key={} msg={}", key, e.getMessage(), e);
-          processed++;
         }
       }
 
@@ -119,14 +129,8 @@ public class GcvIngestScheduler {
         software.amazon.awssdk.core.sync.RequestBody.fromString(content, StandardCharsets.UTF_8));
   }
 
-  private String deriveOutKey(String inKey) {
-    String base = inKey;
-    int slash = base.lastIndexOf('/');
-    if (slash >= 0 && slash + 1 < base.length()) base = base.substring(slash + 1);
-    int dot = base.lastIndexOf('.');
-    if (dot > 0) base = base.substring(0, dot);
-    String p = normalize(gcvPrefix);
-    return p + base + "-" + Instant.now().toEpochMilli() + ".json";
+  private String outKeyFor(String contentHash) {
+    return normalize(gcvPrefix) + ContentHashUtils.resultKey(contentHash) + ".json";
   }
 
   private static String normalize(String p) {
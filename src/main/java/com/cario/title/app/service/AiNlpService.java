@@ -1,10 +1,18 @@
 package com.cario.title.app.service;
 
+import com.cario.title.app.model.BlockGraph;
 import com.cario.title.app.model.NlpOutput;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import com.cario.title.app.model.TextractDocument;
 import com.cario.title.app.prompt.PromptConfig;
+import com.cario.title.app.util.ContentHashUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.github.victools.jsonschema.generator.Module;
 import com.github.victools.jsonschema.generator.OptionPreset;
 import com.github.victools.jsonschema.generator.SchemaGenerator;
@@ -13,10 +21,11 @@ import com.github.victools.jsonschema.generator.SchemaVersion;
 import com.pgvector.PGvector;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -25,15 +34,13 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
-import org.springframework.ai.openai.OpenAiEmbeddingModel;
 import org.springframework.ai.openai.api.ResponseFormat;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
-import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
@@ -44,8 +51,37 @@ public class AiNlpService {
   private final S3Client s3;
   private final PromptLoaderService promptLoader;
   private final ObjectMapper om = new ObjectMapper();
+  private final ObjectReader partialReader =
+      om.readerFor(NlpOutput.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
   private final JdbcTemplate jdbcTemplate;
-  private final OpenAiEmbeddingModel embeddingModel;
+  private final EmbeddingModel embeddingModel;
+  private final TextractIndexingPipeline indexingPipeline;
+  private final EmbeddingCache embeddingCache;
+  private final TextractDocumentCache documentCache;
+  private final LlmChunkExecutor chunkExecutor;
+  private final TokenBudgetChunker chunker;
+  private final LlmResponseCache responseCache;
+  private final PayloadLogger payloads;
+
+  /** User message for one chunk; its size counts towards the chunker's prompt overhead. */
+  private static final String CHUNK_USER_TEMPLATE =
+      """
+      Convert the following AWS Textract output into the target JSON format.
+
+      STRICT RULES:
+      - Your response MUST strictly follow the provided JSON schema (no extra fields).
+      - Use structuredJson as the primary source for labeled values (KEY_VALUE_SET, TABLE/CELL, QUERY_RESULT).
+      - Use rawText to fill gaps and confirm ambiguous fields.
+      - If a field is not found, return null (or [] for arrays).
+      - Always return the full JSON object (all schema-required fields present).
+      - Avoid hallucinating values that aren't supported by the inputs.
+
+      Raw text:
+      {rawText}
+
+      Structured JSON (array of blocks):
+      {structuredJson}
+      """;
 
   String userTask =
       """
@@ -91,17 +127,39 @@ public class AiNlpService {
   @Value("${nlp.input}")
   private String nlpInput;
 
+  /** Longest a streamed completion may take end to end. */
+  @Value("${app.nlp.stream.timeout-seconds:180}")
+  private long streamTimeoutSeconds;
+
+  /** How long vector-mode normalization waits for background indexing of the document. */
+  @Value("${app.index.await-timeout-seconds:120}")
+  private long indexAwaitTimeoutSeconds;
+
   public AiNlpService(
       ChatClient.Builder builder,
       S3Client s3Client,
       PromptLoaderService loader,
       JdbcTemplate jdbcTemplate,
-      OpenAiEmbeddingModel embeddingModel) {
+      EmbeddingModel embeddingModel,
+      TextractIndexingPipeline indexingPipeline,
+      EmbeddingCache embeddingCache,
+      TextractDocumentCache documentCache,
+      LlmChunkExecutor chunkExecutor,
+      TokenBudgetChunker chunker,
+      LlmResponseCache responseCache,
+      PayloadLogger payloads) {
     this.chat = builder.build();
     this.s3 = s3Client;
     this.promptLoader = loader;
     this.jdbcTemplate = jdbcTemplate;
     this.embeddingModel = embeddingModel;
+    this.indexingPipeline = indexingPipeline;
+    this.embeddingCache = embeddingCache;
+    this.documentCache = documentCache;
+    this.chunkExecutor = chunkExecutor;
+    this.chunker = chunker;
+    this.responseCache = responseCache;
+    this.payloads = payloads;
   }
 
   // ============================================================
@@ -114,6 +172,24 @@ public class AiNlpService {
 
   public Map<String, Object> normalizeFromTextractS3(
       String textractKey, String outputKey, Float minConfidence) {
+    return normalizeFromTextractS3(textractKey, outputKey, minConfidence, null);
+  }
+
+  /**
+   * Like {@link #normalizeFromTextractS3(String, String, Float)}, additionally reporting each
+   * top-level {@code NlpOutput} section ({@code vehicle}, {@code owner}, {@code lienholders}, ...)
+   * to {@code onSection} as soon as it is known.
+   *
+   * <p>A document that fits one chunk is answered with a streamed completion and its sections are
+   * reported as the model closes them; otherwise they are reported once the partials are merged.
+   * Streamed sections are the model's raw answer, the returned business JSON is authoritative.
+   * Vector mode reports no sections.
+   */
+  public Map<String, Object> normalizeFromTextractS3(
+      String textractKey,
+      String outputKey,
+      Float minConfidence,
+      BiConsumer<String, JsonNode> onSection) {
 
     float threshold = (minConfidence == null ? 70.0f : minConfidence);
 
@@ -125,15 +201,18 @@ public class AiNlpService {
             resolvedTextractKey, outputKey + "-vector", threshold, userTask);
 
       } else {
-        List<Map<String, Object>> blocks = getTextractBlocksFromS3(bucket, resolvedTextractKey);
+        // Stored output is unfiltered: apply the threshold here, then index the document once;
+        // every scan below reuses the same graph
+        BlockGraph blocks =
+            BlockGraph.of(
+                getTextractDocumentFromS3(bucket, resolvedTextractKey)
+                    .withMinConfidence(threshold));
 
         // Log block type counts
-        Map<String, Long> counts =
-            blocks.stream()
-                .collect(
-                    Collectors.groupingBy(
-                        b -> Objects.toString(b.get("BlockType"), "UNKNOWN"),
-                        Collectors.counting()));
+        Map<TextractBlockType, Integer> counts = new EnumMap<>(TextractBlockType.class);
+        for (TextractBlockType t : TextractBlockType.values()) {
+          if (blocks.ofType(t).length > 0) counts.put(t, blocks.ofType(t).length);
+        }
         log.info("ainlp textract block counts={}", counts);
 
         // Pre-parse minimal candidates (telemetry + fallback fields)
@@ -149,75 +228,81 @@ public class AiNlpService {
 
         // Build schema from NlpOutput POJO
         Map<String, Object> schema = buildNlpSchemaFromPojo();
-        log.info(
-            "ainlp final json schema for llm = {}",
-            om.writerWithDefaultPrettyPrinter().writeValueAsString(schema));
+        payloads.json(log, resolvedTextractKey, "llm schema", schema);
 
         // Get textract high fidelity fields
-        Map<String, String> textractHigh = extractHighFidelityFromTextract(blocks);
+        Map<String, String> textractHigh = TitleFieldRecognizer.recognize(blocks);
 
-        log.info(
-            "ainlp textract high fidelity json data ={}",
-            om.writerWithDefaultPrettyPrinter().writeValueAsString(textractHigh));
+        payloads.json(log, resolvedTextractKey, "textract high fidelity fields", textractHigh);
 
         // --- Option 1: Chunking (large docs) ---
-        // List<String> chunks = chunkTextractBlocks(blocks, 18000);
-        List<String> chunks = chunkTextractBlocksWithFullCoverage(blocks, 18000);
-
-        String allChunks =
-            IntStream.range(0, chunks.size())
-                .mapToObj(i -> String.format("---- Chunk %d ----%n%s", i, chunks.get(i)))
-                .collect(Collectors.joining("\n\n"));
-
-        log.info("ainlp chunking count and data ={}\n{}", chunks.size(), allChunks);
-
-        // --- Option 2: Process chunks ---
-        List<String> partials = processChunksWithLLM(chunks, schema);
-
-        String allPartials =
-            IntStream.range(0, partials.size())
-                .mapToObj(i -> String.format("---- Partial %d ----%n%s", i, partials.get(i)))
-                .collect(Collectors.joining("\n\n"));
-
-        log.info("ainlp processed partials count and data ={}\n{}", partials.size(), allPartials);
-
-        // Consolidate into final JSON
-        String modelJson = consolidateResults(partials, schema);
+        List<String> chunks = chunker.chunk(blocks, promptOverheadTokens(schema));
+
+        payloads.text(
+            log,
+            resolvedTextractKey,
+            "chunks count=" + chunks.size(),
+            () ->
+                IntStream.range(0, chunks.size())
+                    .mapToObj(i -> String.format("---- Chunk %d ----%n%s", i, chunks.get(i)))
+                    .collect(Collectors.joining("\n\n")));
+
+        // --- Option 2: Process chunks (streamed when a single call answers the document) ---
+        boolean streamed = onSection != null && chunks.size() == 1;
+        List<String> partials =
+            streamed
+                ? List.of(callModelWithCandidates(chunks.get(0), "", schema, onSection))
+                : processChunksWithLLM(chunks, schema);
+
+        payloads.text(
+            log,
+            resolvedTextractKey,
+            "partials count=" + partials.size(),
+            () ->
+                IntStream.range(0, partials.size())
+                    .mapToObj(i -> String.format("---- Partial %d ----%n%s", i, partials.get(i)))
+                    .collect(Collectors.joining("\n\n")));
+
+        // Merge partials locally; the model consolidates only conflicts the merger cannot decide
+        String modelJson = mergePartials(partials, schema, blocks);
+        if (onSection != null && !streamed) {
+          om.readTree(modelJson)
+              .fields()
+              .forEachRemaining(e -> onSection.accept(e.getKey(), e.getValue()));
+        }
 
         Map<String, Object> llmOutput =
             om.readValue(modelJson, new TypeReference<Map<String, Object>>() {});
 
-        log.info(
-            "ainlp processed partial consolidated llmOutput={}",
-            om.writerWithDefaultPrettyPrinter().writeValueAsString(llmOutput));
+        payloads.json(log, resolvedTextractKey, "consolidated llm output", llmOutput);
 
         Map<String, Object> finalJson = mergeTextractAndLLM(llmOutput, textractHigh);
 
-        log.info(
-            "ainlp.llmoutput and textract output merged final json={}",
-            om.writerWithDefaultPrettyPrinter().writeValueAsString(finalJson));
+        payloads.json(log, resolvedTextractKey, "llm and textract merged", finalJson);
 
         String finalJsonString = om.writeValueAsString(finalJson);
 
         // Deserialize into POJO
         NlpOutput out = om.readValue(finalJsonString, NlpOutput.class);
+        if (applyVinDecode(out, textractHigh.get("vehicle_id_number"))) {
+          finalJsonString = om.writeValueAsString(out);
+        }
 
         // Store the actual final JSON snapshot in rawJson for trace/debug
         out.setRawJson(finalJsonString);
 
         // Map into business-friendly schema
         Map<String, Object> business = BusinessSchemaMapper.toBusinessSchema(out);
-        String businessPretty = om.writerWithDefaultPrettyPrinter().writeValueAsString(business);
-
-        log.info("business.json={}", businessPretty);
+        payloads.json(log, resolvedTextractKey, "business json", business);
 
         // Save outputs
         if (outputKey != null && !outputKey.isBlank()) {
+          String businessPretty = om.writerWithDefaultPrettyPrinter().writeValueAsString(business);
           String fullKey = resolveOpenAiOutputKey(outputKey);
           putS3Text(bucket, fullKey, modelJson, "application/json");
           log.info("ainlp.normalized.saved s3://{}/{}", bucket, fullKey);
 
-          String businessKey = fullKey.replaceAll("\\.json$", "") + ".business.json";
+          String businessKey = businessKeyFor(fullKey);
           putS3Text(bucket, businessKey, businessPretty, "application/json");
           log.info("ainlp.business.saved s3://{}/{}", bucket, businessKey);
         }
@@ -245,23 +330,22 @@ public class AiNlpService {
 
     float threshold = (minConfidence == null ? 70.0f : minConfidence);
 
-    threshold = 70.0f;
+    // Indexing runs in the background; only this path needs the rows, so wait for them here
+    if (!indexingPipeline.awaitIndexed(docId, Duration.ofSeconds(indexAwaitTimeoutSeconds))) {
+      log.warn("ainlp vector index not ready docId={}, continuing with available rows", docId);
+    }
 
     try {
       // 1. Schema for output
       Map<String, Object> schema = buildNlpSchemaFromPojo();
-      log.info(
-          "ainlp target schema = {}",
-          om.writerWithDefaultPrettyPrinter().writeValueAsString(schema));
+      payloads.json(log, docId, "llm schema", schema);
 
       // 2. High-fidelity fields (direct Textract signals)
       Map<String, String> textractHigh = loadHighFidelityFromDb(docId, threshold);
-      log.info(
-          "ainlp high-fidelity data from db = {}",
-          om.writerWithDefaultPrettyPrinter().writeValueAsString(textractHigh));
+      payloads.json(log, docId, "high fidelity fields from db", textractHigh);
 
       // 3. Retrieve candidate evidence via vector search
-      List<String> retrievedSnippets = retrieveRelevantChunks(docId, userTask, 15);
+      List<String> retrievedSnippets = retrieveRelevantChunks(docId, userTask, threshold, 15);
 
       log.info("ainlp retrieved {} snippets for task={}", retrievedSnippets.size(), userTask);
 
@@ -276,9 +360,7 @@ public class AiNlpService {
 
       Map<String, Object> llmOutput =
           om.readValue(modelJson, new TypeReference<Map<String, Object>>() {});
-      log.info(
-          "ainlp LLM structured output={}",
-          om.writerWithDefaultPrettyPrinter().writeValueAsString(llmOutput));
+      payloads.json(log, docId, "llm structured output", llmOutput);
 
       // 5. Merge Textract high-fidelity (anchors) with LLM (semantic fill)
       Map<String, Object> finalJson = mergeTextractAndLLM(llmOutput, textractHigh);
@@ -287,23 +369,21 @@ public class AiNlpService {
 
       // Deserialize into POJO
       NlpOutput out = om.readValue(finalJsonString, NlpOutput.class);
+      if (applyVinDecode(out, null)) {
+        finalJsonString = om.writeValueAsString(out);
+      }
       out.setRawJson(finalJsonString);
 
       // Business schema
       Map<String, Object> business = BusinessSchemaMapper.toBusinessSchema(out);
-      String businessPretty = om.writerWithDefaultPrettyPrinter().writeValueAsString(business);
-
-      log.info("ainlp business json using vector ={}", businessPretty);
+      payloads.json(log, docId, "business json using vector", business);
 
       // Save outputs if required
       if (outputKey != null && !outputKey.isBlank()) {
+        String businessPretty = om.writerWithDefaultPrettyPrinter().writeValueAsString(business);
         String fullKey = resolveOpenAiOutputKey(outputKey);
         putS3Text(bucket, fullKey, modelJson, "application/json");
-        putS3Text(
-            bucket,
-            fullKey.replaceAll("\\.json$", "") + ".business.json",
-            businessPretty,
-            "application/json");
+        putS3Text(bucket, businessKeyFor(fullKey), businessPretty, "application/json");
       }
 
       return business;
@@ -314,19 +394,22 @@ public class AiNlpService {
     }
   }
 
-  private List<String> retrieveRelevantChunks(String docId, String query, int limit) {
-    float[] qVec = embeddingModel.embed(query); // embed user task or schema
+  private List<String> retrieveRelevantChunks(
+      String docId, String query, float threshold, int limit) {
+    // the task text is the same for every document, so this is normally a cache hit
+    float[] qVec = embeddingCache.embed(query, embeddingModel::embed);
     PGvector qVector = new PGvector(qVec);
 
     return jdbcTemplate.query(
         "SELECT text FROM textract_index "
-            + "WHERE doc_id = ? "
+            + "WHERE doc_id = ? AND confidence >= ? "
             + "ORDER BY vector <-> ? "
             + "LIMIT ?",
         ps -> {
           ps.setString(1, docId);
-          ps.setObject(2, qVector);
-          ps.setInt(3, limit);
+          ps.setFloat(2, threshold);
+          ps.setObject(3, qVector);
+          ps.setInt(4, limit);
         },
         (rs, rowNum) -> rs.getString("text"));
   }
@@ -400,161 +483,63 @@ public class AiNlpService {
                     .build())
             .build();
 
+    List<Message> messages = List.of(systemMsg, userMsg);
     String json =
-        chat.prompt().messages(List.of(systemMsg, userMsg)).options(options).call().content();
+        responseCache.getOrCall(
+            cfg.effectiveVersion(),
+            messages,
+            options,
+            schema,
+            () -> chat.prompt().messages(messages).options(options).call().content());
+    evictIfUnreadable(json, messages, options, schema);
 
     log.debug("ainlp.llm.rawJson={}", truncate(json, 1400));
     return json;
   }
 
-  private List<String> chunkTextractBlocksWithFullCoverage(
-      List<Map<String, Object>> blocks, int maxChars) {
-    List<String> chunks = new ArrayList<>();
-    StringBuilder current = new StringBuilder();
-
-    // Index TABLE -> list of CELLs
-    Map<String, List<Map<String, Object>>> tableCells = new HashMap<>();
-
-    for (Map<String, Object> b : blocks) {
-      String type = Objects.toString(b.get("BlockType"), "");
-
-      // Collect cells for later table grouping
-      if ("CELL".equals(type) || "MERGED_CELL".equals(type)) {
-        String parentId = Objects.toString(b.get("ParentId"), "");
-        tableCells.computeIfAbsent(parentId, k -> new ArrayList<>()).add(b);
-        continue;
-      }
-
-      StringBuilder sb = new StringBuilder("[").append(type).append("] ");
-
-      // Common text (WORD, LINE, QUERY_RESULT, etc.)
-      if (b.containsKey("Text")) {
-        sb.append(b.get("Text")).append(" ");
-      }
-
-      // Selection elements (checkboxes, radio buttons)
-      if ("SELECTION_ELEMENT".equals(type)) {
-        sb.append("Selected: ").append(b.get("SelectionStatus")).append(" ");
-      }
-
-      // Table marker (we’ll expand cells below)
-      if ("TABLE".equals(type)) {
-        sb.append("(Table detected)");
-        String tableId = Objects.toString(b.get("Id"), "");
-        List<Map<String, Object>> cells = tableCells.getOrDefault(tableId, List.of());
-
-        // Group by RowIndex
-        Map<Integer, List<Map<String, Object>>> rows = new TreeMap<>();
-        for (Map<String, Object> cell : cells) {
-          Integer row = (Integer) cell.get("RowIndex");
-          rows.computeIfAbsent(row, k -> new ArrayList<>()).add(cell);
-        }
-
-        sb.append("\n");
-        for (var row : rows.entrySet()) {
-          sb.append("  Row ").append(row.getKey()).append(": ");
-          // sort by ColumnIndex
-          row.getValue().sort(Comparator.comparingInt(c -> (Integer) c.get("ColumnIndex")));
-          for (Map<String, Object> cell : row.getValue()) {
-            String txt = Objects.toString(cell.get("Text"), "").trim();
-            sb.append(" | ").append(txt.isEmpty() ? " " : txt);
-          }
-          sb.append(" |\n");
-        }
-      }
-
-      // Page marker
-      if ("PAGE".equals(type)) {
-        sb.append("(Page break) ");
-      }
-
-      // Key-value sets (forms)
-      if ("KEY_VALUE_SET".equals(type)) {
-        sb.append("(Form field) ");
-        if (b.containsKey("EntityTypes")) {
-          sb.append("EntityTypes=").append(b.get("EntityTypes")).append(" ");
-        }
-      }
-
-      // Queries
-      if ("QUERY".equals(type)) {
-        sb.append("Query: ").append(b.getOrDefault("QueryText", "")).append(" ");
-      }
-
-      if ("QUERY_RESULT".equals(type)) {
-        sb.append("Answer: ").append(b.getOrDefault("Text", "")).append(" ");
-      }
-
-      // Layout features
-      if (type.startsWith("LAYOUT_")) {
-        sb.append("(Layout element) ");
-      }
-
-      // Final text for this block
-      String text = sb.toString().trim();
-      if (text.isBlank()) continue;
-
-      // Chunking
-      if (current.length() + text.length() > maxChars) {
-        chunks.add(current.toString());
-        current = new StringBuilder();
-      }
-      current.append(text).append("\n");
-    }
-
-    if (current.length() > 0) {
-      chunks.add(current.toString());
-    }
-
-    return chunks;
-  }
-
   // ============================================================
   // Chunking + Two-Pass Summarization
   // ============================================================
 
-  private List<String> chunkTextractBlocks(List<Map<String, Object>> blocks, int maxChars) {
-    List<String> chunks = new ArrayList<>();
-    StringBuilder current = new StringBuilder();
-
-    for (Map<String, Object> b : blocks) {
-      String type = Objects.toString(b.get("BlockType"), "");
-      StringBuilder sb = new StringBuilder("[").append(type).append("] ");
-
-      if (b.containsKey("Text")) sb.append(b.get("Text")).append(" ");
-      if ("SELECTION_ELEMENT".equals(type))
-        sb.append("Selected: ").append(b.get("SelectionStatus")).append(" ");
-      if ("CELL".equals(type)) {
-        if (b.containsKey("RowIndex") || b.containsKey("ColumnIndex")) {
-          sb.append("(Row=")
-              .append(b.get("RowIndex"))
-              .append(", Col=")
-              .append(b.get("ColumnIndex"))
-              .append(") ");
-        }
-      }
-
-      String text = sb.toString().trim();
-      if (text.isBlank()) continue;
+  /** Prompt tokens sent with every chunk: system prompt, rules, user template and schema. */
+  private int promptOverheadTokens(Map<String, Object> schema) throws Exception {
+    PromptConfig cfg = promptLoader.load(bucket, buildPromptKey());
+    return chunker.countTokens(cfg.getSystemTemplate())
+        + chunker.countTokens(cfg.getRules() == null ? "" : om.writeValueAsString(cfg.getRules()))
+        + chunker.countTokens(CHUNK_USER_TEMPLATE)
+        + chunker.countTokens(om.writeValueAsString(schema));
+  }
 
-      if (current.length() + text.length() > maxChars) {
-        chunks.add(current.toString());
-        current = new StringBuilder();
-      }
-      current.append(text).append("\n");
-    }
-    if (current.length() > 0) chunks.add(current.toString());
-    return chunks;
+  /** One model call per chunk, run concurrently; partials come back in chunk order. */
+  private List<String> processChunksWithLLM(List<String> chunks, Map<String, Object> schema) {
+    return chunkExecutor.mapInOrder(chunks, chunk -> callModelWithCandidates(chunk, "", schema));
   }
 
-  private List<String> processChunksWithLLM(List<String> chunks, Map<String, Object> schema)
+  /**
+   * Merges chunk partials with {@link NlpOutputMerger}, using the document's LINE blocks as
+   * evidence. Falls back to {@link #consolidateResults} when fields conflict without a decision or
+   * no partial could be read.
+   */
+  private String mergePartials(List<String> partials, Map<String, Object> schema, BlockGraph graph)
       throws Exception {
-    List<String> partialResults = new ArrayList<>();
-    for (String chunk : chunks) {
-      String fragmentJson = callModelWithCandidates(chunk, "", schema);
-      partialResults.add(fragmentJson);
+    List<NlpOutput> parsed = new ArrayList<>(partials.size());
+    for (String p : partials) {
+      try {
+        parsed.add(partialReader.readValue(p));
+      } catch (JsonProcessingException e) {
+        log.warn("ainlp partial unreadable, skipped: {}", e.getOriginalMessage());
+      }
     }
-    return partialResults;
+    if (!parsed.isEmpty()) {
+      NlpOutputMerger.Result merged =
+          NlpOutputMerger.merge(parsed, NlpOutputMerger.Evidence.of(graph));
+      if (merged.resolved()) {
+        log.info("ainlp partials merged locally count={}", parsed.size());
+        return om.writeValueAsString(merged.merged());
+      }
+      log.info("ainlp partial conflicts={} consolidating with the model", merged.conflicts());
+    }
+    return consolidateResults(partials, schema);
   }
 
   private String consolidateResults(List<String> partialResults, Map<String, Object> schema)
@@ -573,6 +558,20 @@ public class AiNlpService {
 
   private String callModelWithCandidates(
       String rawText, String structuredJson, Map<String, Object> schema) throws Exception {
+    return callModelWithCandidates(rawText, structuredJson, schema, null);
+  }
+
+  /**
+   * With a non-null {@code onSection} the completion is streamed through a {@link
+   * JsonSectionAssembler}; a cached answer is replayed through one, so sections are reported
+   * either way.
+   */
+  private String callModelWithCandidates(
+      String rawText,
+      String structuredJson,
+      Map<String, Object> schema,
+      BiConsumer<String, JsonNode> onSection)
+      throws Exception {
 
     PromptConfig cfg = promptLoader.load(bucket, buildPromptKey());
 
@@ -583,26 +582,7 @@ public class AiNlpService {
 
     Message systemMsg = new PromptTemplate(cfg.getSystemTemplate()).createMessage(vars);
 
-    Message userMsg =
-        new PromptTemplate(
-                """
-                        Convert the following AWS Textract output into the target JSON format.
-
-                        STRICT RULES:
-                        - Your response MUST strictly follow the provided JSON schema (no extra fields).
-                        - Use structuredJson as the primary source for labeled values (KEY_VALUE_SET, TABLE/CELL, QUERY_RESULT).
-                        - Use rawText to fill gaps and confirm ambiguous fields.
-                        - If a field is not found, return null (or [] for arrays).
-                        - Always return the full JSON object (all schema-required fields present).
-                        - Avoid hallucinating values that aren't supported by the inputs.
-
-                        Raw text:
-                        {rawText}
-
-                        Structured JSON (array of blocks):
-                        {structuredJson}
-                        """)
-            .createMessage(vars);
+    Message userMsg = new PromptTemplate(CHUNK_USER_TEMPLATE).createMessage(vars);
 
     enforceNoAdditionalProperties(schema);
 
@@ -622,13 +602,83 @@ public class AiNlpService {
                     .build())
             .build();
 
+    List<Message> messages = List.of(systemMsg, userMsg);
+    if (onSection == null) {
+      String json =
+          responseCache.getOrCall(
+              cfg.effectiveVersion(),
+              messages,
+              options,
+              schema,
+              () -> chat.prompt().messages(messages).options(options).call().content());
+      evictIfUnreadable(json, messages, options, schema);
+      log.debug("ainlp.llm.rawJson={}", truncate(json, 1400));
+      return json;
+    }
+
+    JsonSectionAssembler assembler = new JsonSectionAssembler(om, onSection);
+    boolean[] streamed = {false};
     String json =
-        chat.prompt().messages(List.of(systemMsg, userMsg)).options(options).call().content();
+        responseCache.getOrCall(
+            cfg.effectiveVersion(),
+            messages,
+            options,
+            schema,
+            () -> {
+              streamed[0] = true;
+              return streamCompletion(messages, options, assembler);
+            });
+    evictIfUnreadable(json, messages, options, schema);
+    if (!streamed[0]) assembler.feed(json);
+    assembler.finish();
 
     log.debug("ainlp.llm.rawJson={}", truncate(json, 1400));
     return json;
   }
 
+  /**
+   * Reads {@code json} the way its consumers do and evicts it from {@link #responseCache} if that
+   * fails, so an answer the pipeline skips is asked for again on the next run.
+   */
+  private void evictIfUnreadable(
+      String json, List<Message> messages, OpenAiChatOptions options, Map<String, Object> schema) {
+    if (json != null) {
+      try {
+        partialReader.readValue(json);
+        return;
+      } catch (JsonProcessingException e) {
+        log.warn("ainlp llm response unreadable, evicting msg={}", e.getOriginalMessage());
+      }
+    }
+    responseCache.evict(messages, options, schema);
+  }
+
+  /** Streams one completion into {@code assembler}; returns the full text. */
+  private String streamCompletion(
+      List<Message> messages, OpenAiChatOptions options, JsonSectionAssembler assembler) {
+    long t0 = System.nanoTime();
+    long[] firstTokenNanos = {0L};
+    StringBuilder full = new StringBuilder();
+    chat.prompt()
+        .messages(messages)
+        .options(options)
+        .stream()
+        .content()
+        .doOnNext(
+            part -> {
+              if (firstTokenNanos[0] == 0L) firstTokenNanos[0] = System.nanoTime() - t0;
+              full.append(part);
+              assembler.feed(part);
+            })
+        .blockLast(Duration.ofSeconds(streamTimeoutSeconds));
+    log.info(
+        "ainlp.llm streamed chars={} firstTokenMs={} durationMs={}",
+        full.length(),
+        firstTokenNanos[0] / 1_000_000,
+        (System.nanoTime() - t0) / 1_000_000);
+    return full.toString();
+  }
+
   // ============================================================
   // Schema helpers
   // ============================================================
@@ -718,26 +768,11 @@ public class AiNlpService {
   // Textract + S3 utils
   // ============================================================
 
-  @SuppressWarnings("unchecked")
-  private List<Map<String, Object>> getTextractBlocksFromS3(String bucket, String key)
+  private TextractDocument getTextractDocumentFromS3(String bucket, String key)
       throws Exception {
+    // usually just parsed or written by the Textract stage of the same pipeline run
     try {
-      ResponseBytes<?> bytes =
-          s3.getObjectAsBytes(GetObjectRequest.builder().bucket(bucket).key(key).build());
-      String json = bytes.asString(StandardCharsets.UTF_8);
-      try {
-        Map<String, Object> maybeObj = om.readValue(json, new TypeReference<>() {});
-        Object rawBlocks = maybeObj.get("Blocks");
-        if (rawBlocks instanceof List<?> list) {
-          return list.stream()
-              .filter(Map.class::isInstance)
-              .map(m -> (Map<String, Object>) m)
-              .toList();
-        }
-        return List.of();
-      } catch (Exception ignore) {
-        return om.readValue(json, new TypeReference<>() {});
-      }
+      return documentCache.load(bucket, key);
     } catch (NoSuchKeyException e) {
       throw new RuntimeException("Textract JSON not found at s3://" + bucket + "/" + key, e);
     }
@@ -783,49 +818,61 @@ public class AiNlpService {
     return s.startsWith("/") ? s.substring(1) : s;
   }
 
+  /** Key of the business JSON saved alongside the model JSON at {@code outputKey}. */
+  public String businessKeyFor(String outputKey) {
+    return resolveOpenAiOutputKey(outputKey).replaceAll("\\.json$", "") + ".business.json";
+  }
+
   public String buildPromptKey() {
     return ensureSlash(promptPrefix) + promptFile;
   }
 
+  /**
+   * Version of everything besides the document and threshold that shapes the business JSON: the
+   * prompt's {@link PromptConfig#effectiveVersion()} and a short hash of the {@link NlpOutput}
+   * schema, safe for use in an S3 key.
+   */
+  public String outputVersion() {
+    try {
+      String schemaHash =
+          ContentHashUtils.sha256Hex(om.writeValueAsBytes(buildNlpSchemaFromPojo()))
+              .substring(0, 12);
+      String prompt = promptLoader.load(bucket, buildPromptKey()).effectiveVersion();
+      return prompt.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + schemaHash;
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("NlpOutput schema not serializable", e);
+    }
+  }
+
   // ============================================================
   // Pre-parser (telemetry + minimal heuristics)
   // ============================================================
 
-  private Map<String, Object> preParseFields(
-      List<Map<String, Object>> blocks, float minConfidence) {
+  // Compiled once; the pre-parser runs on every document
+  private static final Pattern PRE_VIN = Pattern.compile("\\b([A-HJ-NPR-Z0-9]{11,17})\\b");
+  private static final Pattern PRE_YEAR = Pattern.compile("\\b(19|20)\\d{2}\\b");
+  private static final Pattern PRE_ZIP = Pattern.compile("\\b\\d{5}(?:-\\d{4})?\\b");
+  private static final Pattern PRE_OWNER =
+      Pattern.compile(
+          "\\b(\\w+(?:\\s+\\w+){0,3})(INC|LLC|BANK|CORP|CORPORATION)\\b",
+          Pattern.CASE_INSENSITIVE);
+  private static final Pattern PRE_LIEN =
+      Pattern.compile("\\bFINANCE|BANK|CREDIT|MORTGAGE\\b", Pattern.CASE_INSENSITIVE);
+
+  private Map<String, Object> preParseFields(BlockGraph graph, float minConfidence) {
 
     // 1) Extract text (prefer LINEs; fallback WORDs)
-    List<String> lines =
-        blocks.stream()
-            .filter(b -> "LINE".equalsIgnoreCase(Objects.toString(b.get("BlockType"), "")))
-            .filter(b -> meetsConfidence(b, minConfidence))
-            .map(b -> Objects.toString(b.get("Text"), ""))
-            .filter(s -> !s.isBlank())
-            .toList();
-
-    List<String> texts;
-    if (!lines.isEmpty()) {
-      texts = lines;
-    } else {
-      texts =
-          blocks.stream()
-              .filter(b -> "WORD".equalsIgnoreCase(Objects.toString(b.get("BlockType"), "")))
-              .filter(b -> meetsConfidence(b, minConfidence))
-              .map(b -> Objects.toString(b.get("Text"), ""))
-              .filter(s -> !s.isBlank())
-              .toList();
+    List<String> texts = textsOf(graph, TextractBlockType.LINE, minConfidence);
+    if (texts.isEmpty()) {
+      texts = textsOf(graph, TextractBlockType.WORD, minConfidence);
     }
 
     String allText = String.join(" ", texts).replaceAll("\\s+", " ").trim();
 
     // Regex heuristics (VIN, year, zip, etc.)
-    Pattern vinPattern = Pattern.compile("\\b([A-HJ-NPR-Z0-9]{11,17})\\b");
-    Pattern yearPattern = Pattern.compile("\\b(19|20)\\d{2}\\b");
-    Pattern zipPattern = Pattern.compile("\\b\\d{5}(?:-\\d{4})?\\b");
-
     String vin = null;
     int vinConf = 1;
-    Matcher vinM = vinPattern.matcher(allText);
+    Matcher vinM = PRE_VIN.matcher(allText);
     if (vinM.find()) {
       vin = vinM.group(1);
       vinConf = 5;
@@ -833,7 +880,7 @@ public class AiNlpService {
 
     Integer year = null;
     int yearConf = 1;
-    Matcher yearM = yearPattern.matcher(allText);
+    Matcher yearM = PRE_YEAR.matcher(allText);
     if (yearM.find()) {
       year = Integer.parseInt(yearM.group());
       yearConf = 5;
@@ -841,7 +888,7 @@ public class AiNlpService {
 
     String address = null;
     int addrConf = 1;
-    Matcher zipM = zipPattern.matcher(allText);
+    Matcher zipM = PRE_ZIP.matcher(allText);
     if (zipM.find()) {
       address = extractSurrounding(allText, zipM.start());
       addrConf = 3;
@@ -885,144 +932,24 @@ public class AiNlpService {
   }
 
   private String guessOwner(String text) {
-    Pattern p =
-        Pattern.compile(
-            "\\b(\\w+(?:\\s+\\w+){0,3})(INC|LLC|BANK|CORP|CORPORATION)\\b",
-            Pattern.CASE_INSENSITIVE);
-    Matcher m = p.matcher(text);
+    Matcher m = PRE_OWNER.matcher(text);
     return m.find() ? m.group() : null;
   }
 
   private String guessLien(String text) {
-    Pattern p = Pattern.compile("\\bFINANCE|BANK|CREDIT|MORTGAGE\\b", Pattern.CASE_INSENSITIVE);
-    Matcher m = p.matcher(text);
+    Matcher m = PRE_LIEN.matcher(text);
     return m.find() ? m.group() : null;
   }
 
-  private static boolean meetsConfidence(Map<String, Object> block, float minConfidence) {
-    Object conf = block.get("Confidence");
-    if (conf instanceof Number) {
-      return ((Number) conf).floatValue() >= minConfidence;
+  private static List<String> textsOf(
+      BlockGraph graph, TextractBlockType type, float minConfidence) {
+    List<String> out = new ArrayList<>();
+    for (int i : graph.ofType(type)) {
+      TextractBlock b = graph.block(i);
+      if (!b.meetsConfidence(minConfidence)) continue;
+      if (b.getText() != null && !b.getText().isBlank()) out.add(b.getText());
     }
-    if (conf instanceof String s) {
-      try {
-        return Float.parseFloat(s) >= minConfidence;
-      } catch (NumberFormatException ignored) {
-        return false;
-      }
-    }
-    return false;
-  }
-
-  @SuppressWarnings("unchecked")
-  private Map<String, String> extractHighFidelityFromTextract(List<Map<String, Object>> blocks) {
-    Map<String, String> result = new HashMap<>();
-    List<String> makes =
-        List.of(
-            "FORD",
-            "TOYOTA",
-            "DODGE",
-            "HONDA",
-            "CHEVROLET",
-            "NISSAN",
-            "BMW",
-            "MERCEDES",
-            "KIA",
-            "HYUNDAI");
-
-    List<String> vinCandidates = new ArrayList<>();
-    List<Integer> odometerCandidates = new ArrayList<>();
-    List<Integer> yearCandidates = new ArrayList<>();
-    List<LocalDate> dateCandidates = new ArrayList<>();
-
-    DateTimeFormatter[] dateFormats = {
-      DateTimeFormatter.ofPattern("M/d/uu", Locale.US),
-      DateTimeFormatter.ofPattern("M/d/uuuu", Locale.US),
-      DateTimeFormatter.ofPattern("MM-dd-uu", Locale.US),
-      DateTimeFormatter.ofPattern("MM-dd-uuuu", Locale.US)
-    };
-
-    for (Map<String, Object> block : blocks) {
-      String type = Objects.toString(block.get("BlockType"), "");
-      if (!"LINE".equals(type) && !"WORD".equals(type)) continue;
-
-      String raw = Objects.toString(block.get("Text"), "");
-      String text = raw.toUpperCase().trim();
-
-      // VIN (17 chars, no I/O/Q)
-      if (text.matches("^[A-HJ-NPR-Z0-9]{17}$")) {
-        vinCandidates.add(text);
-      }
-
-      // Year
-      if (text.matches("19\\d{2}|20\\d{2}")) {
-        yearCandidates.add(Integer.parseInt(text));
-      }
-
-      // Make
-      for (String m : makes) {
-        if (text.contains(m)) {
-          result.put("make", m);
-        }
-      }
-
-      // Odometer
-      if (text.matches("\\d{1,3}(,\\d{3})*(\\s*(MI|MILES))?")) {
-        String cleaned = text.replaceAll("[^0-9]", "");
-        if (!cleaned.isEmpty()) {
-          odometerCandidates.add(Integer.parseInt(cleaned));
-        }
-      }
-
-      // Fuel type
-      if (text.contains("DIESEL")) result.put("fuel_type", "DIESEL");
-      else if (text.contains("GAS")) result.put("fuel_type", "GAS");
-      else if (text.contains("FLEX")) result.put("fuel_type", "FLEX");
-      else if (text.contains("ELECTRIC")) result.put("fuel_type", "ELECTRIC");
-
-      // Dates
-      if (text.matches("\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4}")) {
-        for (DateTimeFormatter fmt : dateFormats) {
-          try {
-            LocalDate d = LocalDate.parse(text, fmt);
-            dateCandidates.add(d);
-            break;
-          } catch (DateTimeParseException ignore) {
-          }
-        }
-      }
-
-      // Address (expanded suffixes)
-      if (text.matches(".*\\d+\\s+.*(RD|ROAD|DR|DRIVE|ST|STREET|AVE|AVENUE|BLVD|LANE|LN|CT).*")) {
-        result.put("owner_address", raw);
-      }
-
-      // Lien info
-      if (text.contains("LIEN")) {
-        result.put("lien_info", raw);
-      }
-
-      // Title brand normalization
-      if (text.contains("SALVAGE")) result.put("title_brand", "SALVAGE");
-      else if (text.contains("REBUILT")) result.put("title_brand", "REBUILT");
-      else if (text.contains("DUP")) result.put("title_brand", "DUPLICATE");
-    }
-
-    // Post-processing
-    vinCandidates.stream().findFirst().ifPresent(v -> result.put("vehicle_id_number", v));
-    yearCandidates.stream()
-        .mapToInt(y -> y)
-        .max()
-        .ifPresent(y -> result.put("year", String.valueOf(y)));
-    odometerCandidates.stream()
-        .mapToInt(o -> o)
-        .max()
-        .ifPresent(o -> result.put("odometer_reading", String.valueOf(o)));
-    dateCandidates.stream()
-        .max(Comparator.naturalOrder())
-        .ifPresent(d -> result.put("date", d.toString())); // ISO yyyy-MM-dd
-
-    return result;
+    return out;
   }
 
   // Helper to parse dates in multiple formats
@@ -1066,6 +993,48 @@ public class AiNlpService {
     return llmOutput;
   }
 
+  /**
+   * Fills the vehicle from the {@code textractVin} or, failing that, the model's VIN if {@link
+   * VinDecoder} validates it as read. A repaired VIN is used only when both sources repair to the
+   * same value, so an OCR guess never overrides what either source actually read. The VIN and
+   * model year are taken from it, the make only if the model left it empty (a WMI may cover
+   * several brands).
+   *
+   * @return whether {@code out} was changed
+   */
+  private boolean applyVinDecode(NlpOutput out, String textractVin) {
+    NlpOutput.Vehicle vehicle = out.getVehicle();
+    String modelVin = vehicle == null ? null : vehicle.getVin();
+    VinDecoder.Vin fromTextract = VinDecoder.decode(textractVin);
+    VinDecoder.Vin fromModel = VinDecoder.decode(modelVin);
+    boolean agree =
+        fromTextract != null && fromModel != null && fromTextract.value().equals(fromModel.value());
+    VinDecoder.Vin vin;
+    if (fromTextract != null && !fromTextract.repaired()) vin = fromTextract;
+    else if (fromModel != null && !fromModel.repaired()) vin = fromModel;
+    else if (agree) vin = fromTextract;
+    else return false;
+
+    if (vehicle == null) {
+      vehicle = new NlpOutput.Vehicle();
+      out.setVehicle(vehicle);
+    }
+    log.info(
+        "ainlp vin decoded vin={} repaired={} modelYear={} make={} llmVin={} llmYear={}",
+        vin.value(),
+        vin.repaired(),
+        vin.modelYear(),
+        vin.make(),
+        modelVin,
+        vehicle.getYear());
+    vehicle.setVin(vin.value());
+    if (vin.modelYear() != null) vehicle.setYear(vin.modelYear());
+    if ((vehicle.getMake() == null || vehicle.getMake().isBlank()) && vin.make() != null) {
+      vehicle.setMake(vin.make());
+    }
+    return true;
+  }
+
   String normalizeDocId(String key) {
     // Strip textract/ prefix and .json suffix if present
     return key.replaceFirst("^textract/", "").replaceFirst("\\.json$", "");
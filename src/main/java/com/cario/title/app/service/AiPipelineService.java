@@ -2,6 +2,10 @@ package com.cario.title.app.service;
 
 import com.cario.title.app.config.ServiceConfig.PerplexityServiceProperties;
 import com.cario.title.app.model.TextractResult;
+import com.cario.title.app.util.ContentHashUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
@@ -9,15 +13,19 @@ import java.util.Objects;
 import java.util.UUID;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 /**
  * AiPipelineService
  *
  * <ol>
- *   <li>Invoke AWS Textract on an S3 object via {@link TextractService#processFile} (saves filtered
- *       blocks JSON to S3).
+ *   <li>Invoke AWS Textract on an S3 object via {@link TextractService#processFile} (saves the
+ *       unfiltered blocks JSON to S3; the confidence threshold is applied when it is read).
  *   <li>Hand the Textract JSON S3 key to {@link AiNlpService#normalizeFromTextractS3} to produce
  *       business JSON.
  *   <li>Return the complete normalized business JSON (optionally saved by AiNlpService with a
@@ -25,6 +33,12 @@ import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
  * </ol>
  *
  * Fully S3-based: no local OCR or template extraction.
+ *
+ * <p>Business JSON is also stored under the input's content hash, the confidence threshold and
+ * {@link AiNlpService#outputVersion()} ({@code
+ * <open-ai-prefix>/sha256/<hash>/t<threshold>/<outputVersion>.business.json}); a document whose
+ * bytes were already processed, under any key, with the same threshold, prompt and schema is
+ * answered from that copy without calling Textract or the LLM.
  */
 @Log4j2
 public class AiPipelineService {
@@ -35,6 +49,8 @@ public class AiPipelineService {
   private final PerplexityServiceProperties perplexityProps;
 
   private final S3Client s3Client;
+  private final ContentHashService contentHashes;
+  private final ObjectMapper om = new ObjectMapper();
 
   /** Default LINE-confidence threshold (0..100) if the caller doesn’t provide one. */
   @Value("${app.textract.min-confidence:90.0}")
@@ -46,6 +62,10 @@ public class AiPipelineService {
   @Value("${perplexity.s3.bucket}")
   private String pBucket;
 
+  /** Bucket AiNlpService writes business JSON to. */
+  @Value("${aws.s3.bucket}")
+  private String resultBucket;
+
   // @Value("#{'${perplexity.service.fields}'.split(',')}")
   // private List<String> perplexityFields;
 
@@ -54,12 +74,14 @@ public class AiPipelineService {
       AiNlpService aiNlpService,
       PerplexityExtractService perplexityExtractService,
       S3Client s3Client,
-      PerplexityServiceProperties perplexityProps) {
+      PerplexityServiceProperties perplexityProps,
+      ContentHashService contentHashes) {
     this.textractService = Objects.requireNonNull(textractService);
     this.aiNlpService = Objects.requireNonNull(aiNlpService);
     this.perplexityService = perplexityExtractService;
     this.s3Client = s3Client;
     this.perplexityProps = perplexityProps;
+    this.contentHashes = Objects.requireNonNull(contentHashes);
   }
 
   /** Convenience overload: default confidence and no normalized JSON save. */
@@ -80,6 +102,21 @@ public class AiPipelineService {
    */
   public Map<String, Object> processFromS3(
       String inputBucket, String inputKey, String nlpOutputKey, Float minConfidence) {
+    return processFromS3(inputBucket, inputKey, null, nlpOutputKey, minConfidence);
+  }
+
+  /**
+   * As {@link #processFromS3(String, String, String, Float)}, for callers that already hashed the
+   * input.
+   *
+   * @param contentHash hex SHA-256 of the input file, or {@code null} to resolve it from S3
+   */
+  public Map<String, Object> processFromS3(
+      String inputBucket,
+      String inputKey,
+      String contentHash,
+      String nlpOutputKey,
+      Float minConfidence) {
 
     String reqId = UUID.randomUUID().toString();
     long t0 = System.nanoTime();
@@ -117,9 +154,41 @@ public class AiPipelineService {
         return result;
       }
 
-      // 1) Run Textract and persist filtered blocks JSON to S3
+      // 0) Identical content already processed (under any key)?
+      String hash =
+          contentHash != null
+              ? contentHash
+              : contentHashes.resolve(
+                  inputBucket, URLDecoder.decode(inputKey, StandardCharsets.UTF_8));
+      // the same bytes only dedup under the same threshold, prompt and schema
       float threshold = (minConfidence == null ? defaultMinConfidence : minConfidence);
-      TextractResult texResult = textractService.processFile(inputBucket, inputKey, threshold);
+      String hashedBusinessKey =
+          hash == null
+              ? null
+              : aiNlpService.businessKeyFor(
+                  ContentHashUtils.resultKey(hash)
+                      + "/t"
+                      + threshold
+                      + "/"
+                      + aiNlpService.outputVersion()
+                      + ".json");
+      if (hashedBusinessKey != null) {
+        Map<String, Object> existing = readBusinessJson(hashedBusinessKey);
+        if (existing != null) {
+          copyBusinessJson(hashedBusinessKey, nlpOutputKey);
+          log.info(
+              "aipipeline.dedup id={} s3={} sha256={} durationMs={}",
+              reqId,
+              safeS3,
+              hash,
+              (System.nanoTime() - t0) / 1_000_000);
+          return existing;
+        }
+      }
+
+      // 1) Run Textract and persist the blocks JSON to S3
+      TextractResult texResult =
+          textractService.processFile(inputBucket, inputKey, hash, threshold);
 
       log.info(
           "aipipeline.textract id={} input={} resultKey={} blockCount={} avgConf={}",
@@ -136,6 +205,8 @@ public class AiPipelineService {
               nlpOutputKey, // optional normalized JSON save location
               threshold); // same threshold for collapsing LINE text
 
+      if (hashedBusinessKey != null) writeBusinessJson(hashedBusinessKey, businessJson);
+
       long ms = (System.nanoTime() - t0) / 1_000_000;
       log.info(
           "aipipeline.success id={} s3={} durationMs={} businessSize={}",
@@ -159,6 +230,52 @@ public class AiPipelineService {
     }
   }
 
+  // ---------- content-addressed business JSON ----------
+
+  private Map<String, Object> readBusinessJson(String key) {
+    try {
+      byte[] bytes =
+          s3Client
+              .getObjectAsBytes(GetObjectRequest.builder().bucket(resultBucket).key(key).build())
+              .asByteArrayUnsafe();
+      return om.readValue(bytes, new TypeReference<Map<String, Object>>() {});
+    } catch (NoSuchKeyException e) {
+      return null;
+    } catch (Exception e) {
+      log.warn("aipipeline.dedup unreadable s3://{}/{} msg={}", resultBucket, key, e.getMessage());
+      return null;
+    }
+  }
+
+  /** Best effort: a failed write only costs the next duplicate a full run. */
+  private void writeBusinessJson(String key, Map<String, Object> businessJson) {
+    try {
+      byte[] bytes = om.writerWithDefaultPrettyPrinter().writeValueAsBytes(businessJson);
+      s3Client.putObject(
+          PutObjectRequest.builder()
+              .bucket(resultBucket)
+              .key(key)
+              .contentType("application/json")
+              .build(),
+          RequestBody.fromBytes(bytes));
+    } catch (Exception e) {
+      log.warn("aipipeline.dedup not stored s3://{}/{} msg={}", resultBucket, key, e.getMessage());
+    }
+  }
+
+  /** Places the shared result where the caller asked for it, as a fresh run would have. */
+  private void copyBusinessJson(String sourceKey, String nlpOutputKey) {
+    if (nlpOutputKey == null || nlpOutputKey.isBlank()) return;
+    String targetKey = aiNlpService.businessKeyFor(nlpOutputKey);
+    s3Client.copyObject(
+        CopyObjectRequest.builder()
+            .sourceBucket(resultBucket)
+            .sourceKey(sourceKey)
+            .destinationBucket(resultBucket)
+            .destinationKey(targetKey)
+            .build());
+  }
+
   private static String safeS3Uri(String bucket, String key) {
     try {
       return "s3://" + bucket + "/" + URLEncoder.encode(key, StandardCharsets.UTF_8);
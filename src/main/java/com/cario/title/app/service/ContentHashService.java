@@ -0,0 +1,97 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.util.ContentHashUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+/**
+ * Resolves the SHA-256 content hash of an S3 input document.
+ *
+ * <p>Objects uploaded through {@link DocUploadService} carry the hash in their {@value
+ * ContentHashUtils#METADATA_KEY} user metadata, so resolving it costs one {@code HeadObject}.
+ * Objects dropped into the bucket by other means are streamed through a digest once; the result is
+ * remembered per key and ETag so later lookups for the unchanged object are served locally.
+ */
+@Log4j2
+public class ContentHashService {
+
+  @Value("${app.content-hash.memory-entries:10000}")
+  private int memoryEntries;
+
+  private final S3Client s3;
+  private final Map<String, String> computed;
+
+  public ContentHashService(S3Client s3) {
+    this.s3 = Objects.requireNonNull(s3, "S3Client must not be null");
+    this.computed =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > Math.max(0, memoryEntries);
+              }
+            });
+  }
+
+  /**
+   * Returns the hex SHA-256 of {@code s3://bucket/key}, or {@code null} if the object cannot be
+   * read (callers then fall back to key-based result names).
+   */
+  public String resolve(String bucket, String key) {
+    try {
+      HeadObjectResponse head =
+          s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+      String stored = head.metadata().get(ContentHashUtils.METADATA_KEY);
+      if (stored != null && !stored.isBlank()) return stored;
+
+      String memoKey = memoKey(bucket, key, head.eTag());
+      String hash = computed.get(memoKey);
+      if (hash != null) return hash;
+
+      long t0 = System.nanoTime();
+      try (InputStream in =
+          s3.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build())) {
+        hash = ContentHashUtils.sha256Hex(in);
+      }
+      computed.put(memoKey, hash);
+      log.info(
+          "content.hash computed s3://{}/{} size={} durationMs={}",
+          bucket,
+          key,
+          head.contentLength(),
+          (System.nanoTime() - t0) / 1_000_000);
+      return hash;
+    } catch (IOException | RuntimeException e) {
+      log.warn("content.hash unavailable s3://{}/{} msg={}", bucket, key, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * The hash remembered for this version of the object, without any S3 request; {@code eTag} is
+   * the one returned by a listing. {@code null} if it has not been resolved or {@link #remember
+   * remembered} yet.
+   */
+  public String cached(String bucket, String key, String eTag) {
+    return computed.get(memoKey(bucket, key, eTag));
+  }
+
+  /** Records {@code hash} for this version of the object, e.g. after hashing bytes already read. */
+  public void remember(String bucket, String key, String eTag, String hash) {
+    computed.put(memoKey(bucket, key, eTag), hash);
+  }
+
+  private static String memoKey(String bucket, String key, String eTag) {
+    return bucket + "/" + key + "#" + eTag;
+  }
+}
@@ -1,9 +1,11 @@
 package com.cario.title.app.service;
 
 import com.cario.title.app.model.DocUploadResult;
+import com.cario.title.app.util.ContentHashUtils;
 import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import lombok.extern.log4j.Log4j2;
@@ -15,7 +17,12 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
-/** Service for uploading documents to S3 and returning document metadata. */
+/**
+ * Service for uploading documents to S3 and returning document metadata.
+ *
+ * <p>Every upload is stored with the SHA-256 of its bytes in the {@value
+ * ContentHashUtils#METADATA_KEY} user metadata, which downstream results are keyed by.
+ */
 @Log4j2
 public class DocUploadService {
 
@@ -37,6 +44,14 @@ public class DocUploadService {
 
   /** Upload a MultipartFile to S3. Generates a key if null. */
   public DocUploadResult upload(MultipartFile file, String bucket, String key) {
+    String contentHash;
+    try (InputStream in = file.getInputStream()) {
+      contentHash = ContentHashUtils.sha256Hex(in);
+    } catch (Exception e) {
+      log.error("s3.upload hash error key={} msg={}", key, e.getMessage(), e);
+      throw new RuntimeException("Failed to read upload: " + e.getMessage(), e);
+    }
+
     try (InputStream in = file.getInputStream()) {
       String resolvedBucket = (bucket == null || bucket.isBlank()) ? defaultBucket : bucket;
       String resolvedKey =
@@ -55,7 +70,12 @@ public class DocUploadService {
               .key(resolvedKey)
               .contentType(contentType)
               .contentLength(file.getSize())
-              .metadata(java.util.Map.of("original-filename", safe(file.getOriginalFilename())))
+              .metadata(
+                  Map.of(
+                      "original-filename",
+                      safe(file.getOriginalFilename()),
+                      ContentHashUtils.METADATA_KEY,
+                      contentHash))
               .build();
 
       PutObjectResponse resp = s3.putObject(req, RequestBody.fromInputStream(in, file.getSize()));
@@ -68,14 +88,16 @@ public class DocUploadService {
               .contentType(contentType)
               .size(file.getSize())
               .s3Uri("s3://" + resolvedBucket + "/" + resolvedKey)
+              .contentHash(contentHash)
               .build();
 
       log.info(
-          "s3.upload ok bucket={} key={} size={} eTag={}",
+          "s3.upload ok bucket={} key={} size={} eTag={} sha256={}",
           result.getBucket(),
           logKey(result.getKey()),
           result.getSize(),
-          result.getETag());
+          result.getETag(),
+          contentHash);
       return result;
     } catch (Exception e) {
       log.error("s3.upload error bucket={} key={} msg={}", bucket, key, e.getMessage(), e);
@@ -91,6 +113,7 @@ public class DocUploadService {
 
       String ct =
           (contentType == null || contentType.isBlank()) ? "application/octet-stream" : contentType;
+      String contentHash = ContentHashUtils.sha256Hex(bytes);
 
       PutObjectRequest req =
           PutObjectRequest.builder()
@@ -98,6 +121,7 @@ public class DocUploadService {
               .key(resolvedKey)
               .contentType(ct)
               .contentLength((long) bytes.length)
+              .metadata(Map.of(ContentHashUtils.METADATA_KEY, contentHash))
               .build();
 
       PutObjectResponse resp = s3.putObject(req, RequestBody.fromBytes(bytes));
@@ -110,14 +134,16 @@ public class DocUploadService {
               .contentType(ct)
               .size(bytes.length)
               .s3Uri("s3://" + resolvedBucket + "/" + resolvedKey)
+              .contentHash(contentHash)
               .build();
 
       log.info(
-          "s3.upload ok bucket={} key={} size={} eTag={}",
+          "s3.upload ok bucket={} key={} size={} eTag={} sha256={}",
           result.getBucket(),
           logKey(result.getKey()),
           result.getSize(),
-          result.getETag());
+          result.getETag(),
+          contentHash);
       return result;
     } catch (Exception e) {
       log.error("s3.upload error bucket={} key={} msg={}", bucket, key, e.getMessage(), e);
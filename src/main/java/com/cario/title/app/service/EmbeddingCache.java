@@ -0,0 +1,196 @@
+package com.cario.title.app.service;
+
+import com.pgvector.PGvector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Function;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Two-tier cache for text embeddings: an in-process LRU in front of the Postgres {@code
+ * embedding_cache} table.
+ *
+ * <p>Entries are keyed by embedding model plus the SHA-256 of the normalized text (Unicode NFC,
+ * whitespace collapsed, trimmed), so boilerplate repeated across titles ("COMMONWEALTH OF
+ * PENNSYLVANIA", odometer disclaimers) is embedded once. Lookups are batched: one SQL query per
+ * call for everything the LRU misses, then one embedding call for what neither tier has.
+ *
+ * <p>The Postgres tier is best effort; a failing query degrades to a cache miss.
+ */
+@Log4j2
+public class EmbeddingCache {
+
+  @Value("${app.embedding.cache.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.embedding.cache.memory-entries:20000}")
+  private int memoryEntries;
+
+  /** Part of the cache key: vectors from different models never mix. */
+  @Value("${spring.ai.openai.embedding.options.model:text-embedding-ada-002}")
+  private String model;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Map<String, float[]> lru;
+
+  private final Counter memoryHits;
+  private final Counter dbHits;
+  private final Counter misses;
+
+  public EmbeddingCache(JdbcTemplate jdbcTemplate, MeterRegistry meters) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate must not be null");
+    Objects.requireNonNull(meters, "meters must not be null");
+    this.lru =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > Math.max(0, memoryEntries);
+              }
+            });
+    this.memoryHits = hitCounter(meters, "memory");
+    this.dbHits = hitCounter(meters, "postgres");
+    this.misses =
+        Counter.builder("embedding.cache.misses")
+            .description("Texts that had to be embedded by the model")
+            .register(meters);
+  }
+
+  /**
+   * Returns one embedding per input text, in input order, calling {@code embedder} only for texts
+   * found in neither tier (each distinct text at most once).
+   */
+  public List<float[]> embed(List<String> texts, Function<List<String>, List<float[]>> embedder) {
+    if (!enabled || texts.isEmpty()) return embedder.apply(texts);
+
+    String[] keys = new String[texts.size()];
+    float[][] out = new float[texts.size()][];
+    Map<String, Integer> pending = new LinkedHashMap<>(); // key -> first index needing it
+    for (int i = 0; i < texts.size(); i++) {
+      keys[i] = key(texts.get(i));
+      out[i] = lru.get(keys[i]);
+      if (out[i] != null) {
+        memoryHits.increment();
+      } else {
+        pending.putIfAbsent(keys[i], i);
+      }
+    }
+
+    if (!pending.isEmpty()) {
+      Map<String, float[]> found = loadFromDb(pending.keySet());
+      dbHits.increment(found.size());
+      found.forEach(lru::put);
+
+      List<String> missingKeys = new ArrayList<>();
+      List<String> missingTexts = new ArrayList<>();
+      for (Map.Entry<String, Integer> e : pending.entrySet()) {
+        if (found.containsKey(e.getKey())) continue;
+        missingKeys.add(e.getKey());
+        missingTexts.add(texts.get(e.getValue()));
+      }
+
+      if (!missingTexts.isEmpty()) {
+        misses.increment(missingTexts.size());
+        List<float[]> vectors = embedder.apply(missingTexts);
+        Map<String, float[]> fresh = new LinkedHashMap<>();
+        for (int i = 0; i < missingKeys.size(); i++) fresh.put(missingKeys.get(i), vectors.get(i));
+        storeInDb(fresh);
+        fresh.forEach(lru::put);
+        found.putAll(fresh);
+      }
+
+      for (int i = 0; i < texts.size(); i++) {
+        if (out[i] == null) out[i] = found.get(keys[i]);
+      }
+    }
+    return Arrays.asList(out);
+  }
+
+  /** Single-text convenience over {@link #embed(List, Function)}. */
+  public float[] embed(String text, Function<List<String>, List<float[]>> embedder) {
+    return embed(List.of(text), embedder).get(0);
+  }
+
+  // ------------------ Postgres tier ------------------
+
+  private Map<String, float[]> loadFromDb(Collection<String> hashes) {
+    Map<String, float[]> found = new HashMap<>();
+    try {
+      jdbcTemplate.query(
+          "SELECT text_hash, vector::text AS v FROM embedding_cache "
+              + "WHERE model = ? AND text_hash = ANY (?)",
+          ps -> {
+            ps.setString(1, model);
+            ps.setArray(2, ps.getConnection().createArrayOf("text", hashes.toArray()));
+          },
+          rs -> {
+            found.put(rs.getString("text_hash"), parseVector(rs.getString("v")));
+          });
+    } catch (RuntimeException e) {
+      log.warn("embedding.cache lookup failed, treating as miss msg={}", e.getMessage());
+    }
+    return found;
+  }
+
+  private void storeInDb(Map<String, float[]> entries) {
+    List<Object[]> rows = new ArrayList<>(entries.size());
+    entries.forEach((hash, vector) -> rows.add(new Object[] {hash, new PGvector(vector)}));
+    try {
+      jdbcTemplate.batchUpdate(
+          "INSERT INTO embedding_cache (model, text_hash, vector) VALUES (?, ?, ?) "
+              + "ON CONFLICT (model, text_hash) DO NOTHING",
+          rows,
+          500,
+          (ps, row) -> {
+            ps.setString(1, model);
+            ps.setString(2, (String) row[0]);
+            ps.setObject(3, row[1]);
+          });
+    } catch (RuntimeException e) {
+      log.warn("embedding.cache store failed entries={} msg={}", entries.size(), e.getMessage());
+    }
+  }
+
+  private static float[] parseVector(String literal) {
+    try {
+      return new PGvector(literal).toArray();
+    } catch (SQLException e) {
+      throw new IllegalStateException("Unreadable vector in embedding_cache", e);
+    }
+  }
+
+  // ------------------ Keys ------------------
+
+  private String key(String text) {
+    String normalized =
+        Normalizer.normalize(Objects.toString(text, ""), Normalizer.Form.NFC)
+            .replaceAll("\\s+", " ")
+            .trim();
+    return sha256Hex(model + '\n' + normalized);
+  }
+
+  private static String sha256Hex(String s) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private static Counter hitCounter(MeterRegistry meters, String tier) {
+    return Counter.builder("embedding.cache.hits")
+        .description("Embeddings served from the cache")
+        .tag("tier", tier)
+        .register(meters);
+  }
+}
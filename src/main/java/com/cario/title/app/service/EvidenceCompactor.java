@@ -0,0 +1,140 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import java.util.*;
+
+/**
+ * Compact LLM evidence from a Textract document: each span of text once, in its most
+ * informative form.
+ *
+ * <ul>
+ *   <li>Form fields become {@code key: value} lines.
+ *   <li>Tables become {@code | a | b |} rows.
+ *   <li>Answered queries become {@code Q: question = answer}.
+ *   <li>LINEs are kept unless every word of them already appears in a form field or table cell.
+ * </ul>
+ *
+ * WORD, PAGE, CELL, QUERY_RESULT, layout and loose selection blocks are dropped (their text is
+ * part of the spans above), as are repeated spans within a page. Each page starts with a {@code
+ * ## Page n} header.
+ */
+public final class EvidenceCompactor {
+
+  private EvidenceCompactor() {}
+
+  /** One evidence line (tables: one line per row) on a page. */
+  public record Span(int page, String text) {}
+
+  /** Spans in page order; within a page in document order. */
+  public static List<Span> compact(BlockGraph graph) {
+    boolean[] covered = coveredWords(graph);
+    Map<Integer, Page> pages = new TreeMap<>();
+
+    for (int i = 0; i < graph.size(); i++) {
+      TextractBlock b = graph.block(i);
+      String text =
+          switch (b.getType()) {
+            case LINE -> uncoveredLine(graph, i, covered);
+            case KEY_VALUE_SET -> b.hasEntityType("KEY") ? formField(graph, i) : null;
+            case TABLE -> table(graph, i);
+            case QUERY -> query(graph, i);
+            case SIGNATURE -> "[signature]";
+            default -> null;
+          };
+      if (text != null && !text.isBlank()) {
+        pages.computeIfAbsent(b.getPage(), Page::new).add(text.strip());
+      }
+    }
+
+    List<Span> out = new ArrayList<>();
+    for (Page p : pages.values()) {
+      out.add(new Span(p.number, "## Page " + p.number));
+      for (String s : p.spans) out.add(new Span(p.number, s));
+    }
+    return out;
+  }
+
+  // ------------------ Internals ------------------
+
+  private static final class Page {
+    private final int number;
+    private final List<String> spans = new ArrayList<>();
+    private final Set<String> seen = new HashSet<>();
+
+    private Page(int number) {
+      this.number = number;
+    }
+
+    private void add(String span) {
+      if (seen.add(span.toLowerCase(Locale.ROOT).replaceAll("\\s+", " "))) spans.add(span);
+    }
+  }
+
+  /** Words (and checkboxes) rendered by a form field or a table cell. */
+  private static boolean[] coveredWords(BlockGraph graph) {
+    boolean[] covered = new boolean[graph.size()];
+    for (int kv : graph.ofType(TextractBlockType.KEY_VALUE_SET)) {
+      for (int w : graph.block(kv).children()) covered[w] = true;
+    }
+    for (int t : graph.ofType(TextractBlockType.TABLE)) {
+      for (int c : graph.cellsOf(t)) {
+        for (int w : graph.block(c).children()) covered[w] = true;
+      }
+    }
+    return covered;
+  }
+
+  private static String uncoveredLine(BlockGraph graph, int line, boolean[] covered) {
+    int[] words = graph.block(line).children();
+    boolean all = words.length > 0;
+    for (int w : words) all &= covered[w];
+    if (all) return null;
+    String text = graph.block(line).getText();
+    return text != null ? text : graph.childText(line);
+  }
+
+  private static String formField(BlockGraph graph, int key) {
+    StringBuilder value = new StringBuilder();
+    for (int v : graph.block(key).targets("VALUE")) {
+      String t = graph.childText(v);
+      if (t.isEmpty()) continue;
+      if (value.length() > 0) value.append(' ');
+      value.append(t);
+    }
+    String k = graph.childText(key);
+    if (k.isEmpty() && value.length() == 0) return null;
+    return k + ": " + value;
+  }
+
+  private static String table(BlockGraph graph, int table) {
+    StringBuilder sb = new StringBuilder("Table:");
+    int row = Integer.MIN_VALUE;
+    for (int c : graph.cellsOf(table)) {
+      TextractBlock cell = graph.block(c);
+      if (cell.getRowIndex() != row) {
+        sb.append(row == Integer.MIN_VALUE ? "\n" : " |\n");
+        row = cell.getRowIndex();
+      }
+      String txt = cell.getText() != null ? cell.getText().strip() : graph.childText(c);
+      sb.append("| ").append(txt).append(' ');
+    }
+    if (row != Integer.MIN_VALUE) sb.append('|');
+    return row == Integer.MIN_VALUE ? null : sb.toString();
+  }
+
+  /** {@code Q: question = answer}; unanswered queries carry no evidence. */
+  private static String query(BlockGraph graph, int query) {
+    TextractBlock q = graph.block(query);
+    StringBuilder answers = new StringBuilder();
+    for (int a : q.targets("ANSWER")) {
+      String t = graph.block(a).getText();
+      if (t == null || t.isBlank()) continue;
+      if (answers.length() > 0) answers.append(" / ");
+      answers.append(t.strip());
+    }
+    if (answers.length() == 0) return null;
+    return "Q: " + Objects.toString(q.getQueryText(), "") + " = " + answers;
+  }
+}
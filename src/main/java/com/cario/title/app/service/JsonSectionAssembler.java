@@ -0,0 +1,109 @@
+package com.cario.title.app.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Assembles a JSON object from streamed text fragments and reports each top-level field as soon as
+ * its value is closed.
+ *
+ * <p>Fragments are fed to Jackson's non-blocking parser; the tokens of the current top-level value
+ * are buffered and turned into a {@link JsonNode} when the value ends, so for an {@code NlpOutput}
+ * completion {@code vehicle} is available while {@code owner} and {@code lienholders} are still
+ * being generated. Not thread-safe: one instance per completion.
+ *
+ * <p>Malformed input stops section reporting (with a warning) but never fails the feed; the caller
+ * still parses the full text afterwards.
+ */
+@Log4j2
+public class JsonSectionAssembler {
+
+  private final ObjectMapper om;
+  private final BiConsumer<String, JsonNode> onSection;
+  private final JsonParser parser;
+  private final ObjectNode assembled;
+
+  private int depth;
+  private String field;
+  private TokenBuffer value;
+  private boolean failed;
+
+  public JsonSectionAssembler(ObjectMapper om, BiConsumer<String, JsonNode> onSection) {
+    this.om = Objects.requireNonNull(om, "om must not be null");
+    this.onSection = Objects.requireNonNull(onSection, "onSection must not be null");
+    this.assembled = om.createObjectNode();
+    try {
+      this.parser = om.getFactory().createNonBlockingByteArrayParser();
+    } catch (IOException e) {
+      throw new IllegalStateException("Non-blocking JSON parser not available", e);
+    }
+  }
+
+  /** Feeds the next fragment of the completion text. */
+  public void feed(String fragment) {
+    if (failed || fragment == null || fragment.isEmpty()) return;
+    byte[] bytes = fragment.getBytes(StandardCharsets.UTF_8);
+    try {
+      ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+      drain();
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /** Ends the input; returns the sections reported so far as one object. */
+  public ObjectNode finish() {
+    if (!failed) {
+      try {
+        ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+        drain();
+      } catch (IOException e) {
+        fail(e);
+      }
+    }
+    return assembled;
+  }
+
+  // ------------------ Internals ------------------
+
+  private void drain() throws IOException {
+    for (JsonToken t = parser.nextToken(); t != null && t != JsonToken.NOT_AVAILABLE; ) {
+      if (depth == 1 && t == JsonToken.FIELD_NAME) {
+        field = parser.currentName();
+      } else if (depth > 1 || (depth == 1 && !t.isStructEnd())) {
+        if (value == null) value = new TokenBuffer(parser);
+        // TokenBuffer keeps floats as text and reads them back as BigDecimal; store a double so
+        // sections hold the same DoubleNode the mapper's own readTree produces
+        if (t == JsonToken.VALUE_NUMBER_FLOAT) value.writeNumber(parser.getDoubleValue());
+        else value.copyCurrentEvent(parser);
+      }
+
+      if (t.isStructStart()) depth++;
+      else if (t.isStructEnd()) depth--;
+
+      // a scalar at depth 1, or the end of an object/array back at depth 1, closes the section
+      if (depth == 1 && value != null && (t.isScalarValue() || t.isStructEnd())) {
+        JsonNode node = om.readTree(value.asParser());
+        value = null;
+        assembled.set(field, node);
+        onSection.accept(field, node);
+      }
+      t = parser.nextToken();
+    }
+  }
+
+  private void fail(IOException e) {
+    failed = true;
+    log.warn("json.sections stopped at malformed input msg={}", e.getMessage());
+  }
+}
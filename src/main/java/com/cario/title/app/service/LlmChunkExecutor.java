@@ -0,0 +1,172 @@
+package com.cario.title.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Runs the per-chunk LLM calls of a document concurrently.
+ *
+ * <p>All documents share a pool of {@code app.nlp.chunks.global-concurrency} threads (the global
+ * cap on concurrent chat completions from this instance); each document runs at most {@code
+ * per-document-concurrency} of its chunks at a time, so one long document cannot take the whole
+ * pool. A failing chunk is retried up to {@code max-attempts} times and then skipped; results come
+ * back in chunk order without the skipped ones. Only a document whose chunks all fail fails.
+ */
+@Log4j2
+public class LlmChunkExecutor {
+
+  /** One chunk's model call. */
+  @FunctionalInterface
+  public interface ChunkCall {
+    String call(String chunk) throws Exception;
+  }
+
+  @Value("${app.nlp.chunks.global-concurrency:8}")
+  private int globalConcurrency;
+
+  @Value("${app.nlp.chunks.per-document-concurrency:4}")
+  private int perDocumentConcurrency;
+
+  @Value("${app.nlp.chunks.max-attempts:2}")
+  private int maxAttempts;
+
+  @Value("${app.nlp.chunks.retry-backoff-ms:1000}")
+  private long retryBackoffMs;
+
+  @Value("${app.nlp.chunks.queue-capacity:64}")
+  private int queueCapacity;
+
+  private final MeterRegistry meters;
+  private final Timer latency;
+  private final Counter retried;
+  private final Counter skipped;
+
+  private ThreadPoolExecutor executor;
+
+  public LlmChunkExecutor(MeterRegistry meters) {
+    this.meters = Objects.requireNonNull(meters, "meters must not be null");
+    this.latency =
+        Timer.builder("nlp.chunk.latency")
+            .description("Latency of one chunk's LLM call, retries included")
+            .register(meters);
+    this.retried = failures(meters, "retried");
+    this.skipped = failures(meters, "skipped");
+  }
+
+  /** Starts the shared pool; invoked by the container once properties are injected. */
+  public void start() {
+    int threads = Math.max(1, globalConcurrency);
+    AtomicInteger seq = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            r -> {
+              Thread t = new Thread(r, "llm-chunk-" + seq.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    Gauge.builder("nlp.chunk.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Chunk LLM calls in progress")
+        .register(meters);
+    log.info(
+        "nlp.chunks started globalConcurrency={} perDocumentConcurrency={} maxAttempts={}",
+        threads,
+        perDocumentConcurrency,
+        maxAttempts);
+  }
+
+  public void shutdown() {
+    if (executor != null) executor.shutdownNow();
+  }
+
+  /**
+   * Calls {@code call} for every chunk and waits for all of them.
+   *
+   * @return the results of the chunks that succeeded, in chunk order
+   * @throws IllegalStateException if no chunk succeeded
+   */
+  public List<String> mapInOrder(List<String> chunks, ChunkCall call) {
+    int n = chunks.size();
+    if (n == 0) return List.of();
+    String[] results = new String[n];
+    AtomicInteger next = new AtomicInteger();
+    int lanes = Math.min(n, Math.max(1, perDocumentConcurrency));
+    List<CompletableFuture<Void>> running = new ArrayList<>(lanes);
+    for (int l = 0; l < lanes; l++) running.add(lane(chunks, call, results, next));
+    try {
+      CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+    } catch (CompletionException e) {
+      running.forEach(f -> f.cancel(true));
+      throw e;
+    }
+
+    List<String> out = new ArrayList<>(n);
+    for (String r : results) {
+      if (r != null) out.add(r);
+    }
+    if (out.isEmpty()) throw new IllegalStateException("LLM calls failed for all " + n + " chunks");
+    if (out.size() < n) log.warn("nlp.chunks skipped {} of {} chunks", n - out.size(), n);
+    return out;
+  }
+
+  // ------------------ Internals ------------------
+
+  /** Takes the next unclaimed chunk, runs it on the pool, then continues with the one after. */
+  private CompletableFuture<Void> lane(
+      List<String> chunks, ChunkCall call, String[] results, AtomicInteger next) {
+    int i = next.getAndIncrement();
+    if (i >= chunks.size()) return CompletableFuture.completedFuture(null);
+    return CompletableFuture.runAsync(
+            () -> results[i] = latency.record(() -> attempt(i, chunks.get(i), call)), executor)
+        .thenCompose(v -> lane(chunks, call, results, next));
+  }
+
+  /** Result of the chunk, or {@code null} once every attempt failed. */
+  private String attempt(int index, String chunk, ChunkCall call) {
+    int attempts = Math.max(1, maxAttempts);
+    for (int a = 1; ; a++) {
+      try {
+        return call.call(chunk);
+      } catch (Exception e) {
+        if (a >= attempts) {
+          skipped.increment();
+          log.warn("nlp.chunk skipped index={} attempts={} error={}", index, a, e.toString());
+          return null;
+        }
+        retried.increment();
+        log.info("nlp.chunk retry index={} attempt={} error={}", index, a, e.toString());
+        try {
+          Thread.sleep(retryBackoffMs * a);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          return null;
+        }
+      }
+    }
+  }
+
+  private static Counter failures(MeterRegistry meters, String outcome) {
+    return Counter.builder("nlp.chunk.failures")
+        .description("Failed chunk LLM calls")
+        .tag("outcome", outcome)
+        .register(meters);
+  }
+}
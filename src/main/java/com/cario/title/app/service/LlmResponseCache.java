@@ -0,0 +1,204 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.util.ContentHashUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Two-tier cache for chat completions: an in-process LRU in front of the Postgres {@code
+ * llm_response_cache} table, both expiring after {@code app.llm.cache.ttl-hours}.
+ *
+ * <p>The key is the SHA-256 of the model, the sampling options, every rendered message (role and
+ * text) and the response JSON schema, so a retry, scheduler re-run or replay of an unchanged
+ * document is answered without a model call, while any change to the prompt, evidence or schema
+ * misses. Requests and hits are counted per prompt version in {@code llm.cache.requests}.
+ *
+ * <p>Only responses that parse as JSON are cached. A caller that cannot read a cached response
+ * into its target type {@link #evict evicts} it, so a bad answer is not replayed until it expires.
+ *
+ * <p>The Postgres tier is best effort; a failing query degrades to a cache miss.
+ */
+@Log4j2
+public class LlmResponseCache {
+
+  @Value("${app.llm.cache.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.llm.cache.memory-entries:2000}")
+  private int memoryEntries;
+
+  @Value("${app.llm.cache.ttl-hours:168}")
+  private long ttlHours;
+
+  @Value("${app.llm.cache.postgres.enabled:true}")
+  private boolean postgresEnabled;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final MeterRegistry meters;
+  private final ObjectMapper om =
+      new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+  private final Map<String, Entry> lru;
+
+  private record Entry(String response, Instant expiresAt) {}
+
+  public LlmResponseCache(JdbcTemplate jdbcTemplate, MeterRegistry meters) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate must not be null");
+    this.meters = Objects.requireNonNull(meters, "meters must not be null");
+    this.lru =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > Math.max(0, memoryEntries);
+              }
+            });
+  }
+
+  /**
+   * Returns the cached response for this request, or calls {@code model} and caches its answer.
+   *
+   * @param promptVersion version of the prompt set the messages were rendered from, used to tag
+   *     metrics (the rendered text is what keys the entry)
+   */
+  public String getOrCall(
+      String promptVersion,
+      List<Message> messages,
+      OpenAiChatOptions options,
+      Map<String, Object> schema,
+      Supplier<String> model) {
+    if (!enabled) return model.get();
+
+    String version = Objects.toString(promptVersion, "unknown");
+    String key = key(messages, options, schema);
+
+    Entry cached = lru.get(key);
+    if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+      count(version, "memory");
+      return cached.response();
+    }
+
+    Entry stored = loadFromDb(key);
+    if (stored != null) {
+      lru.put(key, stored);
+      count(version, "postgres");
+      return stored.response();
+    }
+
+    count(version, "miss");
+    String response = model.get();
+    if (isJson(response)) {
+      Entry fresh = new Entry(response, Instant.now().plus(Duration.ofHours(ttlHours)));
+      lru.put(key, fresh);
+      storeInDb(key, version, options.getModel(), fresh);
+    }
+    return response;
+  }
+
+  /** Drops the entry for this request from both tiers, e.g. when its response proved unreadable. */
+  public void evict(List<Message> messages, OpenAiChatOptions options, Map<String, Object> schema) {
+    if (!enabled) return;
+    String key = key(messages, options, schema);
+    lru.remove(key);
+    deleteFromDb(key);
+  }
+
+  private boolean isJson(String response) {
+    if (response == null || response.isBlank()) return false;
+    try {
+      om.readTree(response);
+      return true;
+    } catch (JsonProcessingException e) {
+      log.warn("llm.cache response is not JSON, not cached msg={}", e.getOriginalMessage());
+      return false;
+    }
+  }
+
+  // ------------------ Postgres tier ------------------
+
+  private Entry loadFromDb(String key) {
+    if (!postgresEnabled) return null;
+    try {
+      List<Entry> rows =
+          jdbcTemplate.query(
+              "SELECT response, expires_at FROM llm_response_cache "
+                  + "WHERE cache_key = ? AND expires_at > now()",
+              (rs, i) ->
+                  new Entry(rs.getString("response"), rs.getTimestamp("expires_at").toInstant()),
+              key);
+      return rows.isEmpty() ? null : rows.get(0);
+    } catch (RuntimeException e) {
+      log.warn("llm.cache lookup failed, treating as miss msg={}", e.getMessage());
+      return null;
+    }
+  }
+
+  private void storeInDb(String key, String version, String model, Entry entry) {
+    if (!postgresEnabled) return;
+    try {
+      jdbcTemplate.update(
+          "INSERT INTO llm_response_cache "
+              + "(cache_key, prompt_version, model, response, expires_at) VALUES (?, ?, ?, ?, ?) "
+              + "ON CONFLICT (cache_key) DO UPDATE SET response = EXCLUDED.response, "
+              + "prompt_version = EXCLUDED.prompt_version, expires_at = EXCLUDED.expires_at",
+          key,
+          version,
+          model,
+          entry.response(),
+          Timestamp.from(entry.expiresAt()));
+    } catch (RuntimeException e) {
+      log.warn("llm.cache store failed msg={}", e.getMessage());
+    }
+  }
+
+  private void deleteFromDb(String key) {
+    if (!postgresEnabled) return;
+    try {
+      jdbcTemplate.update("DELETE FROM llm_response_cache WHERE cache_key = ?", key);
+    } catch (RuntimeException e) {
+      log.warn("llm.cache delete failed msg={}", e.getMessage());
+    }
+  }
+
+  // ------------------ Keys ------------------
+
+  private String key(
+      List<Message> messages, OpenAiChatOptions options, Map<String, Object> schema) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(options.getModel()).append('\n');
+    sb.append(options.getTemperature()).append('\n');
+    sb.append(options.getTopP()).append('\n');
+    sb.append(options.getSeed()).append('\n');
+    for (Message m : messages) {
+      sb.append(m.getMessageType()).append('\u0000').append(m.getText()).append('\u0000');
+    }
+    try {
+      sb.append(om.writeValueAsString(schema));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Schema is not serializable", e);
+    }
+    return ContentHashUtils.sha256Hex(sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void count(String version, String result) {
+    Counter.builder("llm.cache.requests")
+        .description("Chat completions looked up in the response cache")
+        .tag("prompt_version", version)
+        .tag("result", result)
+        .register(meters)
+        .increment();
+  }
+}
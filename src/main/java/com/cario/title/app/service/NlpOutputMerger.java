@@ -0,0 +1,273 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.NlpOutput;
+import com.cario.title.app.model.TextractBlockType;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Deterministic, schema-aware merge of the per-chunk {@link NlpOutput} partials of one document.
+ *
+ * <p>For every field the non-null candidates are compared after normalization (case, spacing and
+ * punctuation ignored). Identical candidates merge trivially. Different candidates are ranked by,
+ * in order: passing the field's validation (VIN pattern, year range, ZIP/state format, as in
+ * {@link BusinessSchemaMapper}), Textract evidence (the word confidence of the best LINE that
+ * contains the value), and the number of chunks that returned it. Addresses are merged as a unit
+ * so lines of different addresses are never mixed. Lienholders are unioned by firm name.
+ *
+ * <p>When the two best candidates of a field tie on all three, the field is reported as an
+ * unresolved conflict (the best-ranked candidate is still filled in) and the caller can fall back
+ * to the LLM consolidation.
+ */
+public final class NlpOutputMerger {
+
+  /** Minimum normalized length for a value to be looked up in the Textract text. */
+  private static final int MIN_EVIDENCE_LENGTH = 3;
+
+  private static final Predicate<Object> ANY = v -> true;
+
+  private NlpOutputMerger() {}
+
+  /** Merged output plus the paths of fields whose conflict could not be decided. */
+  public record Result(NlpOutput merged, List<String> conflicts) {
+    public boolean resolved() {
+      return conflicts.isEmpty();
+    }
+  }
+
+  /** Looks values up in the document's LINE blocks. */
+  public static final class Evidence {
+    private final List<String> lines = new ArrayList<>();
+    private final List<Float> confidences = new ArrayList<>();
+
+    private Evidence() {}
+
+    public static Evidence of(BlockGraph graph) {
+      Evidence e = new Evidence();
+      if (graph == null) return e;
+      for (int i : graph.ofType(TextractBlockType.LINE)) {
+        String text = compact(graph.childText(i));
+        if (text.isEmpty()) continue;
+        float c = graph.wordConfidence(i);
+        e.lines.add(text);
+        e.confidences.add(Float.isNaN(c) ? 0f : c);
+      }
+      return e;
+    }
+
+    public static Evidence none() {
+      return new Evidence();
+    }
+
+    /** Best confidence of a LINE containing {@code value}, 0 if none does. */
+    float support(Object value) {
+      String v = compact(String.valueOf(value));
+      if (v.length() < MIN_EVIDENCE_LENGTH) return 0f;
+      float best = 0f;
+      for (int i = 0; i < lines.size(); i++) {
+        if (confidences.get(i) > best && lines.get(i).contains(v)) best = confidences.get(i);
+      }
+      return best;
+    }
+  }
+
+  public static Result merge(List<NlpOutput> partials, Evidence evidence) {
+    List<NlpOutput> in = partials.stream().filter(Objects::nonNull).toList();
+    List<String> conflicts = new ArrayList<>();
+    if (in.size() <= 1) {
+      return new Result(in.isEmpty() ? new NlpOutput() : in.get(0), conflicts);
+    }
+    Merge m = new Merge(evidence == null ? Evidence.none() : evidence, conflicts);
+
+    List<NlpOutput.Vehicle> vehicles = present(in, NlpOutput::getVehicle);
+    NlpOutput.Vehicle vehicle = null;
+    if (!vehicles.isEmpty()) {
+      vehicle =
+          NlpOutput.Vehicle.builder()
+              .vin(m.pick("vehicle.vin", vehicles, NlpOutput.Vehicle::getVin, NlpOutputMerger::vin))
+              .make(m.pick("vehicle.make", vehicles, NlpOutput.Vehicle::getMake, ANY))
+              .model(m.pick("vehicle.model", vehicles, NlpOutput.Vehicle::getModel, ANY))
+              .year(m.pick("vehicle.year", vehicles, NlpOutput.Vehicle::getYear, v -> year(v)))
+              .bodyType(m.pick("vehicle.bodyType", vehicles, NlpOutput.Vehicle::getBodyType, ANY))
+              .cylinders(
+                  m.pick("vehicle.cylinders", vehicles, NlpOutput.Vehicle::getCylinders, ANY))
+              .mileage(m.pick("vehicle.mileage", vehicles, NlpOutput.Vehicle::getMileage, ANY))
+              .build();
+    }
+
+    List<NlpOutput.Owner> owners = present(in, NlpOutput::getOwner);
+    NlpOutput.Owner owner = null;
+    if (!owners.isEmpty()) {
+      owner =
+          NlpOutput.Owner.builder()
+              .firstName(m.pick("owner.firstName", owners, NlpOutput.Owner::getFirstName, ANY))
+              .lastName(m.pick("owner.lastName", owners, NlpOutput.Owner::getLastName, ANY))
+              .firmName(m.pick("owner.firmName", owners, NlpOutput.Owner::getFirmName, ANY))
+              .address(m.address("owner.address", present(owners, NlpOutput.Owner::getAddress)))
+              .build();
+    }
+
+    NlpOutput merged =
+        NlpOutput.builder()
+            .vehicle(vehicle)
+            .owner(owner)
+            .lienholders(m.lienholders(in))
+            .issuingDate(m.pick("issuingDate", in, NlpOutput::getIssuingDate, ANY))
+            .previousStateTitle(
+                m.pick("previousStateTitle", in, NlpOutput::getPreviousStateTitle, ANY))
+            .previousTitleNumber(
+                m.pick("previousTitleNumber", in, NlpOutput::getPreviousTitleNumber, ANY))
+            .build();
+    return new Result(merged, conflicts);
+  }
+
+  // ------------------ Internals ------------------
+
+  private static final class Merge {
+    private final Evidence evidence;
+    private final List<String> conflicts;
+
+    private Merge(Evidence evidence, List<String> conflicts) {
+      this.evidence = evidence;
+      this.conflicts = conflicts;
+    }
+
+    /** Best candidate of one field across {@code items}; see the class comment for the order. */
+    private <T, V> V pick(
+        String path, List<T> items, Function<T, V> field, Predicate<? super V> valid) {
+      List<V> values = new ArrayList<>();
+      for (T item : items) {
+        V v = field.apply(item);
+        if (v != null && !compact(String.valueOf(v)).isEmpty()) values.add(v);
+      }
+      return best(path, values, valid, v -> compact(String.valueOf(v)), v -> evidence.support(v));
+    }
+
+    private NlpOutput.Address address(String path, List<NlpOutput.Address> addresses) {
+      List<NlpOutput.Address> values =
+          addresses.stream().filter(a -> !compact(addressText(a)).isEmpty()).toList();
+      return best(
+          path,
+          values,
+          NlpOutputMerger::addressValid,
+          a -> compact(addressText(a)),
+          a -> evidence.support(a.getLine1()));
+    }
+
+    /** Union by firm name; a firm listed with different addresses keeps the best-ranked one. */
+    private List<NlpOutput.Lienholder> lienholders(List<NlpOutput> partials) {
+      Map<String, List<NlpOutput.Lienholder>> byFirm = new LinkedHashMap<>();
+      for (NlpOutput p : partials) {
+        if (p.getLienholders() == null) continue;
+        for (NlpOutput.Lienholder l : p.getLienholders()) {
+          if (l == null || l.getFirmName() == null) continue;
+          String firm = compact(l.getFirmName());
+          if (!firm.isEmpty()) byFirm.computeIfAbsent(firm, k -> new ArrayList<>()).add(l);
+        }
+      }
+      List<NlpOutput.Lienholder> out = new ArrayList<>(byFirm.size());
+      int i = 0;
+      for (List<NlpOutput.Lienholder> same : byFirm.values()) {
+        String path = "lienholders[" + i++ + "]";
+        List<NlpOutput.Address> addresses = present(same, NlpOutput.Lienholder::getAddress);
+        out.add(
+            NlpOutput.Lienholder.builder()
+                .firmName(same.get(0).getFirmName())
+                .address(address(path + ".address", addresses))
+                .build());
+      }
+      return out;
+    }
+
+    private <V> V best(
+        String path,
+        List<V> values,
+        Predicate<? super V> valid,
+        Function<V, String> key,
+        Function<V, Float> support) {
+      if (values.isEmpty()) return null;
+
+      Map<String, Candidate<V>> byKey = new LinkedHashMap<>();
+      for (V v : values) {
+        byKey.computeIfAbsent(key.apply(v), k -> new Candidate<>(v)).votes++;
+      }
+      if (byKey.size() == 1) return values.get(0);
+
+      List<Candidate<V>> ranked = new ArrayList<>(byKey.values());
+      for (Candidate<V> c : ranked) {
+        c.valid = valid.test(c.value);
+        c.support = support.apply(c.value);
+      }
+      Comparator<Candidate<V>> order = Candidate.order();
+      ranked.sort(order);
+      if (order.compare(ranked.get(0), ranked.get(1)) == 0) conflicts.add(path);
+      return ranked.get(0).value;
+    }
+  }
+
+  private static final class Candidate<V> {
+    private final V value;
+    private int votes;
+    private boolean valid;
+    private float support;
+
+    private Candidate(V value) {
+      this.value = value;
+    }
+
+    /** Best first: valid, then better supported by Textract, then more votes. */
+    private static <T> Comparator<Candidate<T>> order() {
+      Comparator<Candidate<T>> worstFirst =
+          Comparator.<Candidate<T>>comparingInt(c -> c.valid ? 1 : 0)
+              .thenComparingDouble(c -> c.support)
+              .thenComparingInt(c -> c.votes);
+      return worstFirst.reversed();
+    }
+  }
+
+  private static <T, V> List<V> present(List<T> items, Function<T, V> field) {
+    List<V> out = new ArrayList<>(items.size());
+    for (T item : items) {
+      V v = field.apply(item);
+      if (v != null) out.add(v);
+    }
+    return out;
+  }
+
+  private static boolean vin(String v) {
+    return v.trim().toUpperCase(Locale.ROOT).matches("^[A-HJ-NPR-Z0-9]{17}$");
+  }
+
+  private static boolean year(Integer y) {
+    return y >= 1900 && y <= Calendar.getInstance().get(Calendar.YEAR) + 1;
+  }
+
+  private static boolean addressValid(NlpOutput.Address a) {
+    return a.getLine1() != null
+        && (a.getZip() == null || a.getZip().trim().matches("^\\d{5}(-\\d{4})?$"))
+        && (a.getState() == null || a.getState().trim().matches("^[A-Za-z]{2}$"));
+  }
+
+  private static String addressText(NlpOutput.Address a) {
+    return String.join(
+        " ",
+        Objects.toString(a.getLine1(), ""),
+        Objects.toString(a.getLine2(), ""),
+        Objects.toString(a.getCity(), ""),
+        Objects.toString(a.getState(), ""),
+        Objects.toString(a.getZip(), ""));
+  }
+
+  /** Upper-case letters and digits only, for comparing values and matching Textract lines. */
+  private static String compact(String s) {
+    if (s == null) return "";
+    StringBuilder sb = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (Character.isLetterOrDigit(c)) sb.append(Character.toUpperCase(c));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,157 @@
+package com.cario.title.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Budgeted logging of pipeline payloads (schemas, chunks, partials, model output, business JSON).
+ *
+ * <p>A payload is formatted only if the target logger has {@code app.logging.payload.level}
+ * enabled and its document is sampled ({@code sample-rate}, decided per document key so a sampled
+ * document is logged completely). Formatting stops at {@code max-chars}: JSON is written through a
+ * capped writer, so a large object is never serialized in full just to be cut.
+ *
+ * <p>Time spent by callers in payload logging is recorded in {@code log.payload.time}, skipped
+ * payloads in {@code log.payload.skipped} and truncations in {@code log.payload.truncated}.
+ */
+public class PayloadLogger {
+
+  @Value("${app.logging.payload.level:DEBUG}")
+  private String level;
+
+  /** Fraction of documents whose payloads are logged, 0.0 to 1.0. */
+  @Value("${app.logging.payload.sample-rate:1.0}")
+  private double sampleRate;
+
+  @Value("${app.logging.payload.max-chars:4000}")
+  private int maxChars;
+
+  private final ObjectWriter pretty;
+  private final Timer time;
+  private final Counter skipped;
+  private final Counter truncated;
+
+  public PayloadLogger(ObjectMapper om, MeterRegistry meters) {
+    Objects.requireNonNull(om, "om must not be null");
+    Objects.requireNonNull(meters, "meters must not be null");
+    this.pretty = om.writerWithDefaultPrettyPrinter();
+    this.time =
+        Timer.builder("log.payload.time")
+            .description("Caller time spent formatting and writing payload logs")
+            .register(meters);
+    this.skipped =
+        Counter.builder("log.payload.skipped")
+            .description("Payloads not formatted because of level or sampling")
+            .register(meters);
+    this.truncated =
+        Counter.builder("log.payload.truncated")
+            .description("Payloads cut at max-chars")
+            .register(meters);
+  }
+
+  /** Logs {@code value} as pretty JSON under {@code label}. */
+  public void json(Logger target, String docKey, String label, Object value) {
+    if (!enabled(target, docKey)) return;
+    long t0 = System.nanoTime();
+    CappedWriter out = new CappedWriter(maxChars);
+    try {
+      pretty.writeValue(out, value);
+    } catch (IOException e) {
+      if (!out.full) out.put("<unserializable: " + e.getMessage() + ">");
+    }
+    write(target, docKey, label, out);
+    time.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+  }
+
+  /** Logs the text from {@code payload} under {@code label}; the supplier runs only if logged. */
+  public void text(Logger target, String docKey, String label, Supplier<String> payload) {
+    if (!enabled(target, docKey)) return;
+    long t0 = System.nanoTime();
+    CappedWriter out = new CappedWriter(maxChars);
+    out.put(Objects.toString(payload.get(), "null"));
+    write(target, docKey, label, out);
+    time.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+  }
+
+  // ------------------ Internals ------------------
+
+  private boolean enabled(Logger target, String docKey) {
+    boolean on = target.isEnabled(level()) && sampled(docKey);
+    if (!on) skipped.increment();
+    return on;
+  }
+
+  private boolean sampled(String docKey) {
+    if (sampleRate >= 1.0) return true;
+    if (sampleRate <= 0.0) return false;
+    int bucket = Math.floorMod(Objects.hashCode(docKey), 10_000);
+    return bucket < sampleRate * 10_000;
+  }
+
+  private void write(Logger target, String docKey, String label, CappedWriter out) {
+    if (out.full) truncated.increment();
+    target.log(
+        level(),
+        "payload doc={} {}{}\n{}",
+        docKey,
+        label,
+        out.full ? " (truncated at " + maxChars + " chars)" : "",
+        out.sb);
+  }
+
+  private Level level() {
+    return Level.toLevel(level, Level.DEBUG);
+  }
+
+  /** Writer that keeps the first {@code cap} chars and fails the producer after that. */
+  private static final class CappedWriter extends Writer {
+    private final StringBuilder sb = new StringBuilder();
+    private final int cap;
+    private boolean full;
+
+    private CappedWriter(int cap) {
+      this.cap = Math.max(0, cap);
+    }
+
+    private void put(CharSequence s) {
+      if (full) return;
+      int room = cap - sb.length();
+      if (s.length() > room) {
+        sb.append(s, 0, room);
+        full = true;
+      } else {
+        sb.append(s);
+      }
+    }
+
+    @Override
+    public void write(char[] buf, int off, int len) throws IOException {
+      put(CharBuffer.wrap(buf, off, len));
+      if (full) throw new IOException("payload cap reached");
+    }
+
+    @Override
+    public void write(String s, int off, int len) throws IOException {
+      put(s.subSequence(off, off + len));
+      if (full) throw new IOException("payload cap reached");
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+  }
+}
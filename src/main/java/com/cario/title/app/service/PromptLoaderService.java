@@ -34,6 +34,7 @@ public class PromptLoaderService {
       try {
         Map<String, Object> map = yamlMapper.readValue(raw, new TypeReference<>() {});
         PromptConfig cfg = new PromptConfig();
+        cfg.setVersion(asString(map.get("version")));
         cfg.setSystemTemplate(asString(map.get("system")));
         cfg.setUserTemplate(asString(map.get("user")));
         cfg.setRules(toStringMap(map.get("rules"))); // <-- convert to Map<String,String>
@@ -0,0 +1,163 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.TextractDocument;
+import com.cario.title.app.util.TextractJsonUtils;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * In-process cache of parsed Textract output, so the Textract stage hands its blocks to the NLP
+ * stage without another {@code GetObject} and JSON parse.
+ *
+ * <p>Entries are keyed by the S3 location of the Textract output and its ETag. {@link #load}
+ * revalidates an entry with a conditional {@code GetObject} ({@code If-None-Match}), which
+ * transfers nothing while the object is unchanged; an object rewritten since (e.g. by a resumed
+ * job, possibly on another instance) is read and parsed again. The cache is bounded by the total
+ * number of blocks held (parsed documents are roughly proportional to their block count), evicting
+ * least recently used documents first.
+ *
+ * <p>Metrics: {@code textract.doc.cache.requests} (tagged {@code result=hit|miss|stale}), {@code
+ * textract.doc.cache.evictions}, and gauges {@code textract.doc.cache.blocks} and {@code
+ * textract.doc.cache.hit.ratio}.
+ */
+@Log4j2
+public class TextractDocumentCache {
+
+  @Value("${app.textract.doc-cache.enabled:true}")
+  private boolean enabled;
+
+  /** Upper bound on the blocks held across all cached documents. */
+  @Value("${app.textract.doc-cache.max-blocks:500000}")
+  private long maxBlocks;
+
+  /** Status S3 answers a conditional read with when the ETag still matches. */
+  private static final int NOT_MODIFIED = 304;
+
+  private record Entry(String eTag, TextractDocument doc) {}
+
+  private final S3Client s3;
+  private final JsonFactory json = new JsonFactory();
+
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+  private long blocks;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter stale;
+  private final Counter evictions;
+
+  public TextractDocumentCache(S3Client s3, MeterRegistry meters) {
+    this.s3 = Objects.requireNonNull(s3, "s3 must not be null");
+    Objects.requireNonNull(meters, "meters must not be null");
+    this.hits = requests(meters, "hit");
+    this.misses = requests(meters, "miss");
+    this.stale = requests(meters, "stale");
+    this.evictions =
+        Counter.builder("textract.doc.cache.evictions")
+            .description("Parsed Textract documents evicted to stay within max-blocks")
+            .register(meters);
+    Gauge.builder("textract.doc.cache.blocks", this, TextractDocumentCache::blockCount)
+        .description("Blocks held by cached Textract documents")
+        .register(meters);
+    Gauge.builder("textract.doc.cache.hit.ratio", this, TextractDocumentCache::hitRatio)
+        .description("Share of lookups served from the parsed Textract document cache")
+        .register(meters);
+  }
+
+  /**
+   * Parsed Textract output at {@code s3://bucket/key}, either a bare block array or a {@code
+   * {"Blocks": [...]}} envelope: the cached document if the object still has its ETag, otherwise
+   * the object as read now, which is cached in turn.
+   *
+   * @throws software.amazon.awssdk.services.s3.model.NoSuchKeyException if there is no such object
+   */
+  public TextractDocument load(String bucket, String key) throws IOException {
+    Entry cached = null;
+    if (enabled) {
+      synchronized (this) {
+        cached = entries.get(location(bucket, key));
+      }
+    }
+    GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(key);
+    if (cached != null) request.ifNoneMatch(cached.eTag());
+
+    try (ResponseInputStream<GetObjectResponse> in = s3.getObject(request.build());
+        JsonParser parser = json.createParser(in)) {
+      TextractDocument doc = TextractJsonUtils.fromJson(parser);
+      if (enabled) {
+        (cached == null ? misses : stale).increment();
+        if (cached != null) log.debug("textract.doc.cache stale {}, object rewritten", key);
+      }
+      put(bucket, key, in.response().eTag(), doc);
+      return doc;
+    } catch (S3Exception e) {
+      if (cached == null || e.statusCode() != NOT_MODIFIED) throw e;
+      hits.increment();
+      return cached.doc();
+    }
+  }
+
+  /**
+   * Caches {@code doc} as the content of {@code s3://bucket/key} with {@code eTag}; without an ETag
+   * the entry is never served, as it cannot be revalidated.
+   */
+  public void put(String bucket, String key, String eTag, TextractDocument doc) {
+    if (!enabled || doc == null || eTag == null || doc.size() > maxBlocks) return;
+    synchronized (this) {
+      Entry previous = entries.put(location(bucket, key), new Entry(eTag, doc));
+      if (previous != null) {
+        blocks -= previous.doc().size();
+        if (!Objects.equals(previous.eTag(), eTag)) {
+          log.debug("textract.doc.cache replaced {} eTag {} -> {}", key, previous.eTag(), eTag);
+        }
+      }
+      blocks += doc.size();
+      Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+      while (blocks > maxBlocks && it.hasNext()) {
+        Map.Entry<String, Entry> eldest = it.next();
+        blocks -= eldest.getValue().doc().size();
+        it.remove();
+        evictions.increment();
+        log.debug("textract.doc.cache evicted {}", eldest.getKey());
+      }
+    }
+  }
+
+  // ------------------ Internals ------------------
+
+  private synchronized long blockCount() {
+    return blocks;
+  }
+
+  private double hitRatio() {
+    double h = hits.count();
+    double total = h + misses.count() + stale.count();
+    return total == 0.0 ? 0.0 : h / total;
+  }
+
+  private static String location(String bucket, String key) {
+    return bucket + "/" + key;
+  }
+
+  private static Counter requests(MeterRegistry meters, String result) {
+    return Counter.builder("textract.doc.cache.requests")
+        .description("Lookups of parsed Textract documents")
+        .tag("result", result)
+        .register(meters);
+  }
+}
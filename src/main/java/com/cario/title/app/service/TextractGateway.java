@@ -0,0 +1,309 @@
+package com.cario.title.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.*;
+
+/**
+ * Single entry point for Textract API calls, with an adaptive (AIMD) concurrency limit per
+ * operation.
+ *
+ * <p>Textract quotas are per API, so {@code AnalyzeDocument}, {@code DetectDocumentText}, {@code
+ * StartDocumentAnalysis} and {@code GetDocumentAnalysis} each get their own limiter. A limit grows
+ * by roughly one per window of successful calls and is cut by {@code decrease-factor} on a
+ * throttling answer, at most once per window: a throttled call admitted before the last cut does
+ * not cut again, so a burst of concurrent throttles halves the limit once rather than once per
+ * call. Throttled calls are retried with jittered exponential backoff. Callers over the limit wait
+ * in FIFO order, so scheduler sweeps and interactive requests share capacity fairly.
+ *
+ * <p>Gauges {@code textract.gateway.limit}, {@code textract.gateway.inflight} and {@code
+ * textract.gateway.queue} (tagged by operation) expose the current state.
+ */
+@Log4j2
+public class TextractGateway {
+
+  @Value("${aws.textract.gateway.initial-limit:4}")
+  private double initialLimit;
+
+  @Value("${aws.textract.gateway.min-limit:1}")
+  private double minLimit;
+
+  @Value("${aws.textract.gateway.max-limit:32}")
+  private double maxLimit;
+
+  /** Multiplicative decrease applied to the limit on a throttling response. */
+  @Value("${aws.textract.gateway.decrease-factor:0.5}")
+  private double decreaseFactor;
+
+  @Value("${aws.textract.gateway.max-retries:5}")
+  private int maxRetries;
+
+  @Value("${aws.textract.gateway.base-backoff-ms:200}")
+  private long baseBackoffMs;
+
+  @Value("${aws.textract.gateway.max-backoff-ms:10000}")
+  private long maxBackoffMs;
+
+  /** Longest a caller waits in the queue for a slot before failing. */
+  @Value("${aws.textract.gateway.acquire-timeout-ms:120000}")
+  private long acquireTimeoutMs;
+
+  private final TextractClient textractClient;
+  private final MeterRegistry meters;
+  private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+  public TextractGateway(TextractClient textractClient, MeterRegistry meters) {
+    this.textractClient = Objects.requireNonNull(textractClient, "textractClient must not be null");
+    this.meters = Objects.requireNonNull(meters, "meters must not be null");
+  }
+
+  // ------------------ Textract operations ------------------
+
+  public AnalyzeDocumentResponse analyzeDocument(AnalyzeDocumentRequest request) {
+    return call("AnalyzeDocument", true, () -> textractClient.analyzeDocument(request));
+  }
+
+  public DetectDocumentTextResponse detectDocumentText(DetectDocumentTextRequest request) {
+    return call("DetectDocumentText", true, () -> textractClient.detectDocumentText(request));
+  }
+
+  public StartDocumentAnalysisResponse startDocumentAnalysis(
+      StartDocumentAnalysisRequest request) {
+    return call(
+        "StartDocumentAnalysis", true, () -> textractClient.startDocumentAnalysis(request));
+  }
+
+  /** Result page fetch; throttling is retried here. */
+  public GetDocumentAnalysisResponse getDocumentAnalysis(GetDocumentAnalysisRequest request) {
+    return call("GetDocumentAnalysis", true, () -> textractClient.getDocumentAnalysis(request));
+  }
+
+  /**
+   * Job status poll: limited like every other call but not retried, since the job tracker already
+   * backs off per job.
+   */
+  public GetDocumentAnalysisResponse pollDocumentAnalysis(GetDocumentAnalysisRequest request) {
+    return call("GetDocumentAnalysis", false, () -> textractClient.getDocumentAnalysis(request));
+  }
+
+  /** Current concurrency limit of {@code operation} (e.g. {@code AnalyzeDocument}). */
+  public int limit(String operation) {
+    return limiter(operation).effectiveLimit();
+  }
+
+  /** Callers currently waiting for a slot on {@code operation}. */
+  public int queueDepth(String operation) {
+    return limiter(operation).waiting();
+  }
+
+  // ------------------ Internals ------------------
+
+  private <T> T call(String operation, boolean retry, Supplier<T> request) {
+    Limiter limiter = limiter(operation);
+    for (int attempt = 0; ; attempt++) {
+      long admitted = limiter.acquire();
+      boolean throttled = false;
+      try {
+        T response = request.get();
+        limiter.onSuccess();
+        return response;
+      } catch (RuntimeException e) {
+        if (!isThrottling(e)) throw e;
+        throttled = true;
+        limiter.onThrottle(admitted);
+        if (!retry || attempt >= maxRetries) throw e;
+        log.debug(
+            "textract.gateway throttled operation={} attempt={} limit={}",
+            operation,
+            attempt + 1,
+            limiter.effectiveLimit());
+      } finally {
+        limiter.release();
+      }
+      if (throttled) sleep(backoffMs(attempt));
+    }
+  }
+
+  private static boolean isThrottling(RuntimeException e) {
+    if (e instanceof ThrottlingException
+        || e instanceof ProvisionedThroughputExceededException
+        || e instanceof LimitExceededException) {
+      return true;
+    }
+    return e instanceof AwsServiceException ase && ase.isThrottlingException();
+  }
+
+  private long backoffMs(int attempt) {
+    long cap = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt, 20));
+    return ThreadLocalRandom.current().nextLong(Math.max(1L, cap / 2), Math.max(2L, cap + 1));
+  }
+
+  private static void sleep(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while backing off Textract throttling", e);
+    }
+  }
+
+  private Limiter limiter(String operation) {
+    return limiters.computeIfAbsent(operation, this::newLimiter);
+  }
+
+  private Limiter newLimiter(String operation) {
+    Limiter limiter = new Limiter(operation);
+    Gauge.builder("textract.gateway.limit", limiter, Limiter::effectiveLimit)
+        .description("Current adaptive concurrency limit")
+        .tag("operation", operation)
+        .register(meters);
+    Gauge.builder("textract.gateway.inflight", limiter, Limiter::inFlight)
+        .description("Textract calls in progress")
+        .tag("operation", operation)
+        .register(meters);
+    Gauge.builder("textract.gateway.queue", limiter, Limiter::waiting)
+        .description("Callers waiting for a Textract slot")
+        .tag("operation", operation)
+        .register(meters);
+    return limiter;
+  }
+
+  /** AIMD limit with a FIFO wait queue; all state guarded by {@code lock}. */
+  private final class Limiter {
+    private final String operation;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition changed = lock.newCondition();
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private final Counter throttles;
+    private final Timer waits;
+    private double limit;
+    private int inFlight;
+
+    /** Multiplicative decreases so far; each call remembers the count it was admitted at. */
+    private long decreases;
+
+    private Limiter(String operation) {
+      this.operation = operation;
+      this.limit = clamp(initialLimit);
+      this.throttles =
+          Counter.builder("textract.gateway.throttled")
+              .description("Throttling responses from Textract")
+              .tag("operation", operation)
+              .register(meters);
+      this.waits =
+          Timer.builder("textract.gateway.wait")
+              .description("Time spent queued for a Textract slot")
+              .tag("operation", operation)
+              .register(meters);
+    }
+
+    /** Waits for a slot; returns the decrease count at admission for {@link #onThrottle}. */
+    private long acquire() {
+      Object ticket = new Object();
+      long t0 = System.nanoTime();
+      long deadline = t0 + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+      long admitted;
+      lock.lock();
+      try {
+        queue.addLast(ticket);
+        boolean acquired = false;
+        try {
+          while (queue.peekFirst() != ticket || inFlight >= effectiveLimit()) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0L) {
+              throw new IllegalStateException(
+                  "Timed out waiting for a Textract " + operation + " slot");
+            }
+            changed.awaitNanos(left);
+          }
+          queue.removeFirst();
+          inFlight++;
+          acquired = true;
+          admitted = decreases;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted waiting for a Textract slot", e);
+        } finally {
+          if (!acquired) queue.remove(ticket);
+          changed.signalAll(); // the next ticket may now be at the head
+        }
+      } finally {
+        lock.unlock();
+      }
+      waits.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+      return admitted;
+    }
+
+    private void release() {
+      lock.lock();
+      try {
+        inFlight--;
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void onSuccess() {
+      lock.lock();
+      try {
+        limit = clamp(limit + 1.0 / limit);
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Cuts the limit unless it was already cut after the throttled call was admitted: that cut
+     * already answered the same overload.
+     */
+    private void onThrottle(long admitted) {
+      throttles.increment();
+      lock.lock();
+      try {
+        if (decreases != admitted) return;
+        decreases++;
+        double before = limit;
+        limit = clamp(limit * decreaseFactor);
+        if ((int) before != (int) limit) {
+          log.info(
+              "textract.gateway limit decreased operation={} limit={}", operation, (int) limit);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private int effectiveLimit() {
+      return (int) Math.max(1.0, Math.floor(limit));
+    }
+
+    private int inFlight() {
+      return inFlight;
+    }
+
+    private int waiting() {
+      return queue.size();
+    }
+
+    private double clamp(double value) {
+      return Math.max(Math.max(1.0, minLimit), Math.min(maxLimit, value));
+    }
+  }
+}
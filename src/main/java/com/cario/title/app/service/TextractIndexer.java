@@ -0,0 +1,302 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractToken;
+import com.cario.title.app.util.TextractJsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.SQLException;
+import java.util.*;
+import lombok.extern.log4j.Log4j2;
+import org.postgresql.util.PGobject;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Turns a Textract {@link BlockGraph} into {@link TextractToken}s and stores them, with their
+ * embeddings, in the {@code textract_index} pgvector table.
+ *
+ * <p>Embeddings are requested in batches of {@code app.index.embed-batch-size} texts per API call
+ * and rows are written with JDBC batch inserts of {@code app.index.insert-batch-size}, instead of
+ * one HTTP round trip and one INSERT per token. Texts already embedded (by this or any earlier
+ * document) are served from the {@link EmbeddingCache}.
+ */
+@Log4j2
+public class TextractIndexer {
+
+  private static final String INSERT_SQL =
+      "INSERT INTO textract_index (id, doc_id, text, vector, page, type, confidence, metadata) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+  /** Texts sent per embedding API call. */
+  @Value("${app.index.embed-batch-size:64}")
+  private int embedBatchSize;
+
+  /** Rows per JDBC batch insert. */
+  @Value("${app.index.insert-batch-size:500}")
+  private int insertBatchSize;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final EmbeddingModel embeddingModel;
+  private final EmbeddingCache embeddingCache;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final DistributionSummary tokensPerDoc;
+  private final DistributionSummary embedBatchSizes;
+  private final Counter embedCalls;
+  private final Timer embedTimer;
+  private final Timer insertTimer;
+  private final Counter rowsInserted;
+
+  public TextractIndexer(
+      JdbcTemplate jdbcTemplate,
+      EmbeddingModel embeddingModel,
+      EmbeddingCache embeddingCache,
+      MeterRegistry meters) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate must not be null");
+    this.embeddingModel = Objects.requireNonNull(embeddingModel, "EmbeddingModel must not be null");
+    this.embeddingCache = Objects.requireNonNull(embeddingCache, "embeddingCache must not be null");
+    Objects.requireNonNull(meters, "meters must not be null");
+    this.tokensPerDoc =
+        DistributionSummary.builder("textract.index.tokens")
+            .description("Tokens indexed per document")
+            .register(meters);
+    this.embedBatchSizes =
+        DistributionSummary.builder("textract.index.embed.batch.size")
+            .description("Texts per embedding API call")
+            .register(meters);
+    this.embedCalls =
+        Counter.builder("textract.index.embed.calls")
+            .description("Embedding API calls")
+            .register(meters);
+    this.embedTimer =
+        Timer.builder("textract.index.embed.latency")
+            .description("Latency of one batched embedding call")
+            .register(meters);
+    this.insertTimer =
+        Timer.builder("textract.index.insert.latency")
+            .description("Latency of one JDBC batch insert")
+            .register(meters);
+    this.rowsInserted =
+        Counter.builder("textract.index.rows")
+            .description("Rows inserted into textract_index")
+            .register(meters);
+  }
+
+  /**
+   * Indexes a document unless rows for {@code docId} already exist.
+   *
+   * @return number of tokens written (0 when the document was already indexed)
+   */
+  public int index(String docId, BlockGraph graph) {
+    if (isIndexed(docId)) {
+      log.info("Skipping indexing: docId={} already has rows in textract_index", docId);
+      return 0; // skip re-index
+    }
+    List<TextractToken> tokens = extractTokens(graph);
+    indexTokens(docId, tokens);
+    return tokens.size();
+  }
+
+  public boolean isIndexed(String docId) {
+    Integer count =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(1) FROM textract_index WHERE doc_id = ?", Integer.class, docId);
+    return count != null && count > 0;
+  }
+
+  /** Embeds and inserts {@code tokens} in batches. */
+  public void indexTokens(String docId, List<TextractToken> tokens) {
+    if (tokens.isEmpty()) return;
+    tokensPerDoc.record(tokens.size());
+
+    int embedBatch = Math.max(1, embedBatchSize);
+    int batches = 0;
+    for (int from = 0; from < tokens.size(); from += embedBatch) {
+      List<TextractToken> batch = tokens.subList(from, Math.min(tokens.size(), from + embedBatch));
+      List<float[]> vectors = embed(batch);
+      insert(docId, batch, vectors);
+      batches++;
+    }
+    log.info(
+        "textract.index docId={} tokens={} embedBatches={} embedBatchSize={}",
+        docId,
+        tokens.size(),
+        batches,
+        embedBatch);
+  }
+
+  // ------------------ Token extraction ------------------
+
+  /** LINE, form VALUE, CELL and TABLE tokens of a document, in document order. */
+  public List<TextractToken> extractTokens(BlockGraph graph) {
+    List<TextractToken> tokens = new ArrayList<>();
+
+    for (int i = 0; i < graph.size(); i++) {
+      TextractBlock b = graph.block(i);
+      String id = b.getId() != null ? b.getId() : UUID.randomUUID().toString();
+
+      switch (b.getType()) {
+          // ---- 1) LINE ----
+        case LINE -> {
+          String text = graph.childText(i);
+          if (text.length() < 3) continue;
+          Map<String, Object> metadata = metadata(b);
+          metadata.put("entityTypes", b.getEntityTypes());
+          metadata.put("relationships", TextractJsonUtils.relationshipIds(graph.document(), i));
+          tokens.add(token(id, "LINE", b, text, confidence(graph, i), metadata));
+        }
+
+          // ---- 2) KEY_VALUE_SET VALUE ----
+        case KEY_VALUE_SET -> {
+          if (!b.hasEntityType("VALUE")) continue;
+          String text = graph.childText(i);
+          if (text.isEmpty()) continue;
+          Map<String, Object> metadata = metadata(b);
+          metadata.put("entityTypes", b.getEntityTypes());
+          metadata.put("relationships", TextractJsonUtils.relationshipIds(graph.document(), i));
+          tokens.add(token(id, "KV_VALUE", b, text, confidence(graph, i), metadata));
+        }
+
+          // ---- 3) CELL ----
+        case CELL, MERGED_CELL -> {
+          String text = graph.childText(i);
+          if (text.isEmpty()) continue;
+          Map<String, Object> metadata = metadata(b);
+          metadata.put("rowIndex", b.getRowIndex());
+          metadata.put("columnIndex", b.getColumnIndex());
+          metadata.put("rowSpan", b.getRowSpan());
+          metadata.put("columnSpan", b.getColumnSpan());
+          int table = graph.tableOf(i);
+          metadata.put("parentTableId", table < 0 ? null : graph.block(table).getId());
+          tokens.add(token(id, "CELL", b, text, confidence(graph, i), metadata));
+        }
+
+          // ---- 4) TABLE ----
+        case TABLE -> {
+          int[] cells = graph.cellsOf(i);
+          if (cells.length == 0) continue;
+          StringBuilder sb = new StringBuilder();
+          int row = Integer.MIN_VALUE;
+          for (int c : cells) {
+            int r = graph.block(c).getRowIndex();
+            if (r != row) {
+              if (sb.length() > 0) sb.append(' ');
+              row = r;
+            } else {
+              sb.append(" | ");
+            }
+            sb.append(graph.childText(c));
+          }
+          String text = sb.toString().trim();
+          if (text.isEmpty()) continue;
+          Map<String, Object> metadata = metadata(b);
+          metadata.put("cellCount", cells.length);
+          double conf = b.hasConfidence() ? b.getConfidence() : 0.0;
+          tokens.add(token(id, "TABLE", b, text, conf, metadata));
+        }
+
+        default -> {}
+      }
+    }
+
+    return tokens;
+  }
+
+  // ------------------ Internals ------------------
+
+  private List<float[]> embed(List<TextractToken> batch) {
+    List<String> texts = new ArrayList<>(batch.size());
+    for (TextractToken t : batch) texts.add(t.getText());
+    return embeddingCache.embed(texts, this::embedRemote);
+  }
+
+  /** Calls the embedding API for texts the cache could not serve. */
+  private List<float[]> embedRemote(List<String> texts) {
+    embedCalls.increment();
+    embedBatchSizes.record(texts.size());
+    List<float[]> vectors = embedTimer.record(() -> embeddingModel.embed(texts));
+    if (vectors == null || vectors.size() != texts.size()) {
+      throw new IllegalStateException(
+          "Embedding API returned "
+              + (vectors == null ? 0 : vectors.size())
+              + " vectors for "
+              + texts.size()
+              + " texts");
+    }
+    return vectors;
+  }
+
+  private void insert(String docId, List<TextractToken> batch, List<float[]> vectors) {
+    List<Object[]> rows = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      TextractToken t = batch.get(i);
+      rows.add(new Object[] {t, new PGvector(vectors.get(i)), jsonb(t.getMetadata())});
+    }
+    insertTimer.record(
+        () ->
+            jdbcTemplate.batchUpdate(
+                INSERT_SQL,
+                rows,
+                Math.max(1, insertBatchSize),
+                (ps, row) -> {
+                  TextractToken t = (TextractToken) row[0];
+                  ps.setString(1, t.getId());
+                  ps.setString(2, docId);
+                  ps.setString(3, t.getText());
+                  ps.setObject(4, row[1]); // proper pgvector
+                  ps.setInt(5, t.getPage());
+                  ps.setString(6, t.getType());
+                  ps.setDouble(7, t.getConfidence());
+                  ps.setObject(8, row[2]); // proper jsonb
+                }));
+    rowsInserted.increment(rows.size());
+  }
+
+  private PGobject jsonb(Map<String, Object> metadata) {
+    try {
+      PGobject jsonbObject = new PGobject();
+      jsonbObject.setType("jsonb");
+      jsonbObject.setValue(mapper.writeValueAsString(metadata));
+      return jsonbObject;
+    } catch (JsonProcessingException | SQLException e) {
+      throw new IllegalStateException("Failed to encode token metadata", e);
+    }
+  }
+
+  private static Map<String, Object> metadata(TextractBlock b) {
+    Map<String, Object> metadata = new HashMap<>();
+    metadata.put("bbox", TextractJsonUtils.boundingBox(b));
+    return metadata;
+  }
+
+  private static TextractToken token(
+      String id,
+      String type,
+      TextractBlock b,
+      String text,
+      double confidence,
+      Map<String, Object> metadata) {
+    return TextractToken.builder()
+        .id(id)
+        .type(type)
+        .page(b.getPage())
+        .text(text)
+        .confidence(confidence)
+        .metadata(metadata)
+        .build();
+  }
+
+  /** Mean WORD child confidence (block confidence as fallback, 0 when neither exists). */
+  private static double confidence(BlockGraph graph, int index) {
+    float c = graph.wordConfidence(index);
+    return Float.isNaN(c) ? 0.0 : c;
+  }
+}
@@ -0,0 +1,248 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractToken;
+import com.cario.title.app.repository.dynamodb.DocProcessStateItem;
+import com.cario.title.app.repository.dynamodb.DocProcessStateRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Background stage that writes Textract documents into the vector index, off the {@code
+ * processFile} critical path.
+ *
+ * <p>Only the vector-mode NLP input reads the index, so indexing is off unless {@code nlp.input}
+ * is {@code vector} or {@code app.index.enabled} says otherwise; {@link #submit} is then a no-op.
+ *
+ * <p>Documents are queued on a bounded queue drained by {@code app.index.workers} threads. When
+ * the queue is full the submitting thread indexes the document itself, which slows producers down
+ * instead of growing the heap. Progress is recorded in {@code DocProcessStateItem.indexStatus} of
+ * the item keyed by the index's {@code doc_id} ({@code sha256/<hash>}), not of the item of each
+ * input key: the rows are shared by every input with the same bytes, and that id is all the vector
+ * reader knows. Readers that need the rows call {@link #awaitIndexed}.
+ */
+@Log4j2
+public class TextractIndexingPipeline {
+
+  public static final String STATUS_QUEUED = "QUEUED";
+  public static final String STATUS_INDEXING = "INDEXING";
+  public static final String STATUS_INDEXED = "INDEXED";
+  public static final String STATUS_FAILED = "FAILED";
+
+  /** Vector indexing on or off; by default on only when {@code nlp.input} is {@code vector}. */
+  @Value("${app.index.enabled:#{'${nlp.input:}'.equalsIgnoreCase('vector')}}")
+  private boolean enabled;
+
+  /** Index in the background; false restores inline indexing in the caller. */
+  @Value("${app.index.async.enabled:true}")
+  private boolean async;
+
+  @Value("${app.index.workers:2}")
+  private int workers;
+
+  @Value("${app.index.queue-capacity:32}")
+  private int queueCapacity;
+
+  /** Interval between checks for rows written by another instance in awaitIndexed. */
+  @Value("${app.index.await-poll-ms:500}")
+  private long awaitPollMs;
+
+  private final TextractIndexer indexer;
+  private final DocProcessStateRepository stateRepository;
+  private final MeterRegistry meters;
+  private final Map<String, CompletableFuture<Integer>> inFlight = new ConcurrentHashMap<>();
+
+  private ThreadPoolExecutor executor;
+
+  public TextractIndexingPipeline(
+      TextractIndexer indexer, DocProcessStateRepository stateRepository, MeterRegistry meters) {
+    this.indexer = Objects.requireNonNull(indexer, "indexer must not be null");
+    this.stateRepository =
+        Objects.requireNonNull(stateRepository, "stateRepository must not be null");
+    this.meters = Objects.requireNonNull(meters, "meters must not be null");
+  }
+
+  /** Starts the worker pool; invoked by the container once properties are injected. */
+  public void start() {
+    int threads = Math.max(1, workers);
+    AtomicInteger seq = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            r -> {
+              Thread t = new Thread(r, "textract-index-" + seq.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    Gauge.builder("textract.index.queue.size", executor, e -> e.getQueue().size())
+        .description("Documents waiting for indexing")
+        .register(meters);
+    Gauge.builder("textract.index.inflight", inFlight, Map::size)
+        .description("Documents queued or being indexed")
+        .register(meters);
+    log.info(
+        "textract.index pipeline started enabled={} async={} workers={} queueCapacity={}",
+        enabled,
+        async,
+        threads,
+        queueCapacity);
+  }
+
+  public void shutdown() {
+    if (executor != null) executor.shutdownNow();
+  }
+
+  /** {@code false} when vector indexing is switched off ({@code app.index.enabled}). */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Queues a document; tokens are extracted from {@code graph} on the worker. */
+  public CompletableFuture<Integer> submit(String docId, BlockGraph graph) {
+    return submit(docId, () -> indexer.index(docId, graph));
+  }
+
+  /** Queues already extracted tokens (used by the streaming Textract writer). */
+  public CompletableFuture<Integer> submitTokens(String docId, List<TextractToken> tokens) {
+    return submit(
+        docId,
+        () -> {
+          if (indexer.isIndexed(docId)) return 0;
+          indexer.indexTokens(docId, tokens);
+          return tokens.size();
+        });
+  }
+
+  /**
+   * Waits until {@code docId} has rows in {@code textract_index}: joins a local in-flight job if
+   * there is one, otherwise re-checks the table (another instance may be indexing) until the
+   * timeout, or until the recorded index state says that indexing failed.
+   *
+   * @return {@code true} if the document is indexed
+   */
+  public boolean awaitIndexed(String docId, Duration timeout) {
+    if (!enabled) return indexer.isIndexed(docId);
+    long deadline = System.nanoTime() + timeout.toNanos();
+    CompletableFuture<Integer> local = inFlight.get(docId);
+    if (local != null) {
+      try {
+        local.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return true;
+      } catch (TimeoutException e) {
+        log.warn("textract.index await timed out docId={}", docId);
+        return false;
+      } catch (ExecutionException e) {
+        log.warn("textract.index await failed docId={} msg={}", docId, e.getMessage());
+        return false;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    while (true) {
+      if (indexer.isIndexed(docId)) return true;
+      if (STATUS_FAILED.equals(recordedState(docId))) {
+        log.warn("textract.index await stopped docId={}, indexing failed", docId);
+        return false;
+      }
+      if (System.nanoTime() >= deadline) return false;
+      try {
+        Thread.sleep(Math.max(50L, awaitPollMs));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+
+  // ------------------ Internals ------------------
+
+  private CompletableFuture<Integer> submit(String docId, Supplier<Integer> work) {
+    if (!enabled) return CompletableFuture.completedFuture(0);
+    if (!async) {
+      return CompletableFuture.completedFuture(run(docId, work));
+    }
+
+    CompletableFuture<Integer> future = new CompletableFuture<>();
+    CompletableFuture<Integer> existing = inFlight.putIfAbsent(docId, future);
+    if (existing != null) return existing; // already queued for this document
+
+    recordState(docId, STATUS_QUEUED, null);
+    try {
+      executor.execute(
+          () -> {
+            try {
+              future.complete(run(docId, work));
+            } catch (RuntimeException e) {
+              future.completeExceptionally(e);
+            } finally {
+              inFlight.remove(docId, future);
+            }
+          });
+    } catch (RuntimeException e) { // pool shut down
+      inFlight.remove(docId, future);
+      recordState(docId, STATUS_FAILED, null);
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private int run(String docId, Supplier<Integer> work) {
+    long t0 = System.nanoTime();
+    recordState(docId, STATUS_INDEXING, null);
+    try {
+      int tokens = work.get();
+      recordState(docId, STATUS_INDEXED, tokens > 0 ? tokens : null);
+      log.info(
+          "textract.index done docId={} tokens={} durationMs={}",
+          docId,
+          tokens,
+          (System.nanoTime() - t0) / 1_000_000);
+      return tokens;
+    } catch (RuntimeException e) {
+      log.error("Indexing failed for docId={}", docId, e);
+      recordState(docId, STATUS_FAILED, null);
+      throw e;
+    }
+  }
+
+  /** Recorded index state, or {@code null} if there is none or it could not be read. */
+  private String recordedState(String docId) {
+    try {
+      DocProcessStateItem state = stateRepository.get(docId);
+      return state == null ? null : state.getIndexStatus();
+    } catch (RuntimeException e) {
+      log.warn("textract.index state not read docId={} msg={}", docId, e.getMessage());
+      return null;
+    }
+  }
+
+  /** Best effort: a DynamoDB hiccup never fails indexing itself. */
+  private void recordState(String docId, String status, Integer tokens) {
+    try {
+      stateRepository.setIndexState(docId, status, tokens);
+    } catch (RuntimeException e) {
+      log.warn("textract.index state not recorded docId={} status={}", docId, status, e);
+    }
+  }
+}
@@ -0,0 +1,275 @@
+package com.cario.title.app.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.GetDocumentAnalysisRequest;
+import software.amazon.awssdk.services.textract.model.GetDocumentAnalysisResponse;
+
+/**
+ * Shared tracker for asynchronous Textract document-analysis jobs.
+ *
+ * <p>Callers hand over a job id and get back a {@link CompletableFuture} that completes with every
+ * block of the finished job. A single scheduler thread sweeps all in-flight jobs, each with its
+ * own adaptive backoff (starting below a second, growing towards {@code max-delay-ms}), instead
+ * of one sleep-and-poll loop per job. The sweep only dispatches due status checks to a small poll
+ * pool, at most one per job at a time, so a slow or throttled call never delays the other jobs'
+ * checks. Result pages are fetched on a separate pool so a large document never stalls polling.
+ *
+ * <p>The tracker itself never parks a thread per job, but {@link TextractService#processFile} is
+ * synchronous and joins the returned future, so each PDF in flight still holds the calling
+ * pipeline thread until its job finishes. Only callers that chain the future are freed.
+ */
+@Log4j2
+public class TextractJobTracker {
+
+  /** Delay before the first status check of a freshly registered job. */
+  @Value("${aws.textract.poll.initial-delay-ms:500}")
+  private long initialDelayMs;
+
+  /** Upper bound for the per-job backoff. */
+  @Value("${aws.textract.poll.max-delay-ms:5000}")
+  private long maxDelayMs;
+
+  /** Backoff growth factor applied after every IN_PROGRESS answer. */
+  @Value("${aws.textract.poll.multiplier:1.5}")
+  private double multiplier;
+
+  /** Resolution of the poller sweep. */
+  @Value("${aws.textract.poll.tick-ms:100}")
+  private long tickMs;
+
+  /** Jobs still running after this long are failed. */
+  @Value("${aws.textract.poll.timeout-minutes:30}")
+  private long timeoutMinutes;
+
+  /** Threads issuing status checks dispatched by the sweep. */
+  @Value("${aws.textract.poll.threads:4}")
+  private int pollThreads;
+
+  /** Threads used to page through finished job results. */
+  @Value("${aws.textract.poll.fetch-threads:2}")
+  private int fetchThreads;
+
+  private final TextractGateway textract;
+  private final Map<String, TrackedJob> jobs = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService poller;
+  private ExecutorService pollPool;
+  private ExecutorService fetcher;
+
+  public TextractJobTracker(TextractGateway textract) {
+    this.textract = Objects.requireNonNull(textract, "textract must not be null");
+  }
+
+  /** Starts the poller; invoked by the container once properties are injected. */
+  public void start() {
+    poller = Executors.newSingleThreadScheduledExecutor(daemonThreads("textract-job-poller-"));
+    pollPool =
+        Executors.newFixedThreadPool(Math.max(1, pollThreads), daemonThreads("textract-job-poll-"));
+    int threads = Math.max(1, fetchThreads);
+    fetcher = Executors.newFixedThreadPool(threads, daemonThreads("textract-job-fetch-"));
+    poller.scheduleWithFixedDelay(this::sweep, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    log.info(
+        "textract.tracker started initialDelayMs={} maxDelayMs={} multiplier={} tickMs={}"
+            + " pollThreads={}",
+        initialDelayMs,
+        maxDelayMs,
+        multiplier,
+        tickMs,
+        pollThreads);
+  }
+
+  /** Stops polling and fails every job that is still pending. */
+  public void shutdown() {
+    if (poller != null) poller.shutdownNow();
+    if (pollPool != null) pollPool.shutdownNow();
+    if (fetcher != null) fetcher.shutdownNow();
+    jobs.forEach(
+        (jobId, job) ->
+            job.future.completeExceptionally(
+                new IllegalStateException("Textract job tracker stopped: jobId=" + jobId)));
+    jobs.clear();
+  }
+
+  /**
+   * Tracks a started job and resolves with all of its blocks (unfiltered) once it succeeds.
+   *
+   * @param jobId id returned by {@code StartDocumentAnalysis}
+   * @return future completing with every block across all result pages
+   */
+  public CompletableFuture<List<Block>> track(String jobId) {
+    List<Block> blocks = new ArrayList<>();
+    return stream(jobId, blocks::addAll).thenApply(v -> blocks);
+  }
+
+  /**
+   * Tracks a started job and, once it succeeds, hands each {@code GetDocumentAnalysis} result page
+   * to {@code pageConsumer} in order, without accumulating the whole document.
+   *
+   * @param jobId id returned by {@code StartDocumentAnalysis}
+   * @param pageConsumer receives the (unfiltered) blocks of each result page
+   * @return future completing once every page has been consumed
+   */
+  public CompletableFuture<Void> stream(String jobId, Consumer<List<Block>> pageConsumer) {
+    return awaitCompletion(jobId)
+        .thenAcceptAsync(first -> forEachPage(jobId, first, pageConsumer), fetcher);
+  }
+
+  /**
+   * Tracks a started job and resolves with its first result page once the job has finished.
+   * Registering the same job id twice shares the same future.
+   */
+  public CompletableFuture<GetDocumentAnalysisResponse> awaitCompletion(String jobId) {
+    Objects.requireNonNull(jobId, "jobId must not be null");
+    return jobs.computeIfAbsent(jobId, id -> new TrackedJob(id, initialDelayMs)).future;
+  }
+
+  /** Number of jobs currently being polled. */
+  public int inFlight() {
+    return jobs.size();
+  }
+
+  // ------------------ Polling ------------------
+
+  /** Dispatches every due job that has no check in flight; never calls Textract itself. */
+  private void sweep() {
+    long now = System.nanoTime();
+    for (TrackedJob job : jobs.values()) {
+      if (now < job.nextPollAt || job.polling) continue;
+      job.polling = true;
+      try {
+        pollPool.execute(() -> pollSafely(job, now));
+      } catch (RejectedExecutionException e) {
+        job.polling = false; // shutting down
+      }
+    }
+  }
+
+  private void pollSafely(TrackedJob job, long now) {
+    try {
+      poll(job, now);
+    } catch (Exception e) {
+      // transient errors just push the next attempt out; the timeout bounds the total wait
+      log.warn("textract.tracker poll error jobId={} msg={}", job.jobId, e.getMessage());
+      if (timedOut(job, now)) {
+        finish(job).completeExceptionally(e);
+      } else {
+        job.backoff(multiplier, maxDelayMs);
+      }
+    } finally {
+      job.polling = false;
+    }
+  }
+
+  private void poll(TrackedJob job, long now) {
+    job.polls++;
+    GetDocumentAnalysisResponse response =
+        textract.pollDocumentAnalysis(
+            GetDocumentAnalysisRequest.builder().jobId(job.jobId).build());
+    String status = response.jobStatusAsString();
+    log.debug("textract.tracker jobId={} status={} polls={}", job.jobId, status, job.polls);
+
+    if ("SUCCEEDED".equals(status) || "PARTIAL_SUCCESS".equals(status)) {
+      if ("PARTIAL_SUCCESS".equals(status)) {
+        log.warn("textract.tracker jobId={} finished with PARTIAL_SUCCESS", job.jobId);
+      }
+      finish(job).complete(response);
+    } else if ("FAILED".equals(status)) {
+      finish(job)
+          .completeExceptionally(
+              new RuntimeException(
+                  "Textract async job failed: jobId="
+                      + job.jobId
+                      + " message="
+                      + response.statusMessage()));
+    } else if (timedOut(job, now)) {
+      finish(job)
+          .completeExceptionally(
+              new RuntimeException(
+                  "Textract async job timed out after "
+                      + timeoutMinutes
+                      + " minutes: jobId="
+                      + job.jobId));
+    } else {
+      job.backoff(multiplier, maxDelayMs);
+    }
+  }
+
+  private boolean timedOut(TrackedJob job, long now) {
+    return now - job.registeredAt > TimeUnit.MINUTES.toNanos(timeoutMinutes);
+  }
+
+  private CompletableFuture<GetDocumentAnalysisResponse> finish(TrackedJob job) {
+    jobs.remove(job.jobId);
+    log.info(
+        "textract.tracker jobId={} done polls={} waitedMs={}",
+        job.jobId,
+        job.polls,
+        Duration.ofNanos(System.nanoTime() - job.registeredAt).toMillis());
+    return job.future;
+  }
+
+  private void forEachPage(
+      String jobId, GetDocumentAnalysisResponse first, Consumer<List<Block>> pageConsumer) {
+    pageConsumer.accept(first.blocks());
+    String nextToken = first.nextToken();
+    while (nextToken != null) {
+      GetDocumentAnalysisResponse page =
+          textract.getDocumentAnalysis(
+              GetDocumentAnalysisRequest.builder().jobId(jobId).nextToken(nextToken).build());
+      pageConsumer.accept(page.blocks());
+      nextToken = page.nextToken();
+    }
+  }
+
+  private static ThreadFactory daemonThreads(String prefix) {
+    AtomicInteger seq = new AtomicInteger();
+    return r -> {
+      Thread t = new Thread(r, prefix + seq.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  /**
+   * Mutable poll state for one job. The sweep sets {@code polling} before dispatching and the poll
+   * thread clears it last, so at most one thread touches the rest of the state at a time.
+   */
+  private static final class TrackedJob {
+    private final String jobId;
+    private final long registeredAt = System.nanoTime();
+    private final CompletableFuture<GetDocumentAnalysisResponse> future =
+        new CompletableFuture<>();
+    private long delayMs;
+    private volatile long nextPollAt;
+    private volatile boolean polling;
+    private int polls;
+
+    private TrackedJob(String jobId, long initialDelayMs) {
+      this.jobId = jobId;
+      this.delayMs = initialDelayMs;
+      this.nextPollAt = registeredAt + TimeUnit.MILLISECONDS.toNanos(initialDelayMs);
+    }
+
+    private void backoff(double multiplier, long maxDelayMs) {
+      delayMs = Math.min(maxDelayMs, Math.max(1L, Math.round(delayMs * multiplier)));
+      nextPollAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+    }
+  }
+}
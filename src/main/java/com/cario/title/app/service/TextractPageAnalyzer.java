@@ -0,0 +1,167 @@
+package com.cario.title.app.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+import lombok.extern.log4j.Log4j2;
+import org.apache.pdfbox.multipdf.Splitter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.textract.model.AnalyzeDocumentRequest;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.Document;
+
+/**
+ * Synchronous Textract analysis of short PDFs, one {@code AnalyzeDocument} call per page.
+ *
+ * <p>The PDF is split with PDFBox and its pages are analyzed concurrently on a shared pool of
+ * {@code aws.textract.page-parallel.concurrency} threads, which also caps the sync TPS this
+ * instance puts on Textract. The per-page answers are stitched back in page order with their
+ * {@code Page} attribute renumbered to the page's position in the original document; block ids
+ * are UUIDs and stay unique across calls. This avoids the job scheduling and polling floor of
+ * {@code StartDocumentAnalysis} for the typical 1–4 page title.
+ */
+@Log4j2
+public class TextractPageAnalyzer {
+
+  @Value("${aws.textract.page-parallel.enabled:true}")
+  private boolean enabled;
+
+  /** PDFs with more pages than this go through the async job flow. */
+  @Value("${aws.textract.page-parallel.max-pages:10}")
+  private int maxPages;
+
+  /** Concurrent AnalyzeDocument calls across all documents. */
+  @Value("${aws.textract.page-parallel.concurrency:4}")
+  private int concurrency;
+
+  private final TextractGateway textract;
+
+  private ExecutorService pool;
+
+  public TextractPageAnalyzer(TextractGateway textract) {
+    this.textract = Objects.requireNonNull(textract, "textract must not be null");
+  }
+
+  /** Starts the page pool; invoked by the container once properties are injected. */
+  public void start() {
+    int threads = Math.max(1, concurrency);
+    AtomicInteger seq = new AtomicInteger();
+    pool =
+        Executors.newFixedThreadPool(
+            threads,
+            r -> {
+              Thread t = new Thread(r, "textract-page-" + seq.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    log.info(
+        "textract.pages started enabled={} maxPages={} concurrency={}",
+        enabled,
+        maxPages,
+        threads);
+  }
+
+  public void shutdown() {
+    if (pool != null) pool.shutdownNow();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Splits {@code pdf} into single-page Textract documents.
+   *
+   * @return one document per page, or {@code null} if the PDF has more than {@code max-pages}
+   *     pages
+   */
+  public List<Document> pages(byte[] pdf) {
+    try (PDDocument doc = PDDocument.load(pdf)) {
+      int count = doc.getNumberOfPages();
+      if (count == 0 || count > maxPages) {
+        log.info("textract.pages skipped pages={} maxPages={}", count, maxPages);
+        return null;
+      }
+      List<Document> pages = new ArrayList<>(count);
+      for (PDDocument page : new Splitter().split(doc)) {
+        try (page) {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          page.save(out);
+          pages.add(Document.builder().bytes(SdkBytes.fromByteArray(out.toByteArray())).build());
+        }
+      }
+      return pages;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to split PDF into pages", e);
+    }
+  }
+
+  /** Runs {@code AnalyzeDocument} with {@code features} on every page; blocks in page order. */
+  public List<Block> analyze(
+      List<Document> pages, UnaryOperator<AnalyzeDocumentRequest.Builder> features) {
+    long t0 = System.nanoTime();
+    List<Block> blocks = new ArrayList<>();
+    forEachPage(pages, (page, document) -> analyzePage(document, features)).forEach(blocks::addAll);
+    log.info(
+        "textract.pages analyzed pages={} blocks={} durationMs={}",
+        pages.size(),
+        blocks.size(),
+        (System.nanoTime() - t0) / 1_000_000);
+    return blocks;
+  }
+
+  /**
+   * Calls {@code call} with the 1-based page number and document of every page, concurrently on
+   * the page pool, and renumbers the returned blocks to that page.
+   *
+   * @return blocks per page, in page order
+   */
+  public List<List<Block>> forEachPage(
+      List<Document> pages, BiFunction<Integer, Document, List<Block>> call) {
+    List<CompletableFuture<List<Block>>> futures = new ArrayList<>(pages.size());
+    for (int i = 0; i < pages.size(); i++) {
+      Document document = pages.get(i);
+      int pageNumber = i + 1;
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () -> renumber(call.apply(pageNumber, document), pageNumber), pool));
+    }
+
+    List<List<Block>> out = new ArrayList<>(pages.size());
+    try {
+      for (CompletableFuture<List<Block>> f : futures) out.add(f.join());
+    } catch (CompletionException e) {
+      futures.forEach(f -> f.cancel(true));
+      Throwable cause = e.getCause() == null ? e : e.getCause();
+      if (cause instanceof RuntimeException re) throw re;
+      throw new RuntimeException("Textract page analysis failed", cause);
+    }
+    return out;
+  }
+
+  // ------------------ Internals ------------------
+
+  private List<Block> analyzePage(
+      Document document, UnaryOperator<AnalyzeDocumentRequest.Builder> features) {
+    AnalyzeDocumentRequest.Builder request = AnalyzeDocumentRequest.builder().document(document);
+    return textract.analyzeDocument(features.apply(request).build()).blocks();
+  }
+
+  private static List<Block> renumber(List<Block> blocks, int pageNumber) {
+    List<Block> renumbered = new ArrayList<>(blocks.size());
+    for (Block b : blocks) renumbered.add(b.toBuilder().page(pageNumber).build());
+    return renumbered;
+  }
+}
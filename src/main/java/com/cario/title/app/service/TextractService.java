@@ -1,26 +1,36 @@
 package com.cario.title.app.service;
 
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractDocument;
 import com.cario.title.app.model.TextractResult;
+import com.cario.title.app.model.TextractToken;
+import com.cario.title.app.repository.dynamodb.TextractJobRegistry;
+import com.cario.title.app.util.ContentHashUtils;
+import com.cario.title.app.util.S3MultipartOutputStream;
+import com.cario.title.app.util.TextractJsonUtils;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.pgvector.PGvector;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import lombok.extern.log4j.Log4j2;
-import org.postgresql.util.PGobject;
-import org.springframework.ai.openai.OpenAiEmbeddingModel;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
-import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 import software.amazon.awssdk.services.textract.model.*;
 
 /**
@@ -40,12 +50,40 @@ public class TextractService {
       "#{'${aws.textract.queries:VIN,Title Number,Certificate Type,Owner,Owner Address,First Lienholder,Odometer Reading,Sale Date}'.split(',')}")
   private List<String> configuredQueries;
 
-  private final S3Client s3Client;
-  private final TextractClient textractClient;
+  /** Started async jobs older than this are not resumed (Textract keeps results for 7 days). */
+  @Value("${aws.textract.job.resume-max-age-hours:144}")
+  private long resumeMaxAgeHours;
+
+  /** Threshold of the stats logged when a resumed job completes without a caller waiting. */
+  @Value("${app.textract.min-confidence:90.0}")
+  private float defaultMinConfidence;
 
-  private final JdbcTemplate jdbcTemplate;
+  /** Stream multi-page PDF results page by page to S3 instead of materializing them. */
+  @Value("${aws.textract.streaming.enabled:false}")
+  private boolean streamingEnabled;
 
-  private final OpenAiEmbeddingModel embeddingModel;
+  /** Multipart part size used when streaming results to S3. */
+  @Value("${aws.textract.streaming.part-size-mb:8}")
+  private int streamingPartSizeMb;
+
+  /** Feature set used by the async PDF flow; persisted with each job to match resumptions. */
+  private static final List<String> ASYNC_FEATURES =
+      List.of(
+          FeatureType.FORMS.toString(),
+          FeatureType.TABLES.toString(),
+          FeatureType.QUERIES.toString());
+
+  private final S3Client s3Client;
+  private final TextractGateway textract;
+  private final TextractJobTracker jobTracker;
+  private final TextractJobRegistry jobRegistry;
+
+  private final TextractIndexer indexer;
+  private final TextractIndexingPipeline indexingPipeline;
+  private final ContentHashService contentHashes;
+  private final TextractPageAnalyzer pageAnalyzer;
+  private final TieredTextractAnalyzer tieredAnalyzer;
+  private final TextractDocumentCache documentCache;
 
   // Use Jackson instead of Gson
   private final ObjectMapper mapper =
@@ -53,53 +91,64 @@ public class TextractService {
 
   public TextractService(
       final S3Client s3Client,
-      final TextractClient textractClient,
-      final JdbcTemplate jdbcTemplate,
-      OpenAiEmbeddingModel embeddingModel) {
+      final TextractGateway textract,
+      final TextractJobTracker jobTracker,
+      final TextractJobRegistry jobRegistry,
+      final TextractIndexer indexer,
+      final TextractIndexingPipeline indexingPipeline,
+      final ContentHashService contentHashes,
+      final TextractPageAnalyzer pageAnalyzer,
+      final TieredTextractAnalyzer tieredAnalyzer,
+      final TextractDocumentCache documentCache) {
     this.s3Client = Objects.requireNonNull(s3Client, "s3Client must not be null");
-    this.textractClient = Objects.requireNonNull(textractClient, "textractClient must not be null");
-    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate must not be null");
-    this.embeddingModel = Objects.requireNonNull(embeddingModel, "EmbeddingModel must not be null");
+    this.textract = Objects.requireNonNull(textract, "textract must not be null");
+    this.jobTracker = Objects.requireNonNull(jobTracker, "jobTracker must not be null");
+    this.jobRegistry = Objects.requireNonNull(jobRegistry, "jobRegistry must not be null");
+    this.indexer = Objects.requireNonNull(indexer, "indexer must not be null");
+    this.indexingPipeline =
+        Objects.requireNonNull(indexingPipeline, "indexingPipeline must not be null");
+    this.contentHashes = Objects.requireNonNull(contentHashes, "contentHashes must not be null");
+    this.pageAnalyzer = Objects.requireNonNull(pageAnalyzer, "pageAnalyzer must not be null");
+    this.tieredAnalyzer = Objects.requireNonNull(tieredAnalyzer, "tieredAnalyzer must not be null");
+    this.documentCache = Objects.requireNonNull(documentCache, "documentCache must not be null");
   }
 
   /** Processes a document stored in S3 with AWS Textract. */
   public TextractResult processFile(
       String inputBucket, String inputKey, Float confidenceThreshold) {
+    return processFile(inputBucket, inputKey, null, confidenceThreshold);
+  }
+
+  /**
+   * Processes a document stored in S3 with AWS Textract. Results are stored and indexed under the
+   * document's content hash, so identical bytes already analyzed under another key are served
+   * from the existing result.
+   *
+   * @param contentHash hex SHA-256 of the input if the caller already knows it; resolved from S3
+   *     otherwise
+   */
+  public TextractResult processFile(
+      String inputBucket, String inputKey, String contentHash, Float confidenceThreshold) {
 
     float threshold = (confidenceThreshold != null) ? confidenceThreshold : 90.0f;
 
     // Normalize input key (decode %2F, spaces, etc.)
     String normalizedKey = URLDecoder.decode(inputKey, StandardCharsets.UTF_8);
 
-    // Preserve folder hierarchy in output key
-    String outputKey = outputPrefix + normalizedKey + ".json";
+    // Content-addressed output key; the folder hierarchy is kept only if the hash is unavailable
+    String hash =
+        contentHash != null ? contentHash : contentHashes.resolve(inputBucket, normalizedKey);
+    String resultKey = resultKeyFor(inputBucket, normalizedKey, hash);
+    // async jobs are registered per content too, so the same bytes under a new key reuse a job
+    String jobKey = hash != null ? resultKey : inputBucket + "/" + normalizedKey;
+    String outputKey = outputKeyFor(resultKey);
     String s3Uri = "s3://" + outputBucket + "/" + outputKey;
 
-    // --- NEW: Check if result already exists ---
+    // Stored results are unfiltered, so an existing one serves any threshold
     try {
-      HeadObjectResponse head =
-          s3Client.headObject(
-              HeadObjectRequest.builder().bucket(outputBucket).key(outputKey).build());
-
+      TextractDocument existing = documentCache.load(outputBucket, outputKey);
       log.info("Skipping Textract: result already exists at {}", s3Uri);
-
-      String existingJson =
-          s3Client
-              .getObjectAsBytes(
-                  GetObjectRequest.builder().bucket(outputBucket).key(outputKey).build())
-              .asUtf8String();
-
-      return TextractResult.builder()
-          .outputBucket(outputBucket)
-          .outputKey(outputKey)
-          .s3Uri(s3Uri)
-          .jsonOutput(existingJson)
-          .blockCount(0) // You could parse block count if needed
-          .averageConfidence(0.0)
-          .minConfidence(0.0)
-          .maxConfidence(0.0)
-          .confidenceScores(Collections.emptyList())
-          .build();
+      return resultOf(outputKey, existing, threshold);
 
     } catch (Exception e) {
       log.info("Textract result not found in {}, proceeding with new analysis", s3Uri);
@@ -120,453 +169,434 @@ public class TextractService {
                     .build())
             .build();
 
-    List<Block> blocks;
-    if (normalizedKey.toLowerCase().endsWith(".pdf")) {
+    boolean pdf = normalizedKey.toLowerCase().endsWith(".pdf");
+    // short PDFs as single-page documents (null: page-parallel off, too long, or unreadable)
+    List<Document> pages = pdf ? splitPages(inputBucket, normalizedKey) : List.of(document);
+    List<Block> blocks = null;
+    if (pages != null && tieredAnalyzer.isEnabled()) {
+      blocks = analyzeTiered(pages, inputBucket, normalizedKey);
+    }
+    if (blocks == null && pdf && pages != null) {
+      blocks = analyzePages(pages, inputBucket, normalizedKey);
+    }
+    if (blocks == null && pdf && streamingEnabled) {
+      log.info("Detected PDF, streaming async StartDocumentAnalysis results page by page");
+      return await(
+          runAsyncJob(
+              jobKey,
+              inputBucket,
+              normalizedKey,
+              document,
+              jobId -> streamResult(jobId, resultKey, threshold)));
+    } else if (blocks == null && pdf) {
       log.info("Detected PDF, using async StartDocumentAnalysis API with FORMS+TABLES+QUERIES");
-      blocks = processAsync(document, threshold);
-    } else {
+      blocks =
+          await(runAsyncJob(jobKey, inputBucket, normalizedKey, document, jobTracker::track));
+    } else if (blocks == null) {
       // Sync for images
       AnalyzeDocumentResponse response =
-          textractClient.analyzeDocument(
+          textract.analyzeDocument(
               AnalyzeDocumentRequest.builder()
                   .document(document)
                   .featureTypes(FeatureType.FORMS, FeatureType.TABLES)
                   .build());
 
-      blocks =
-          response.blocks().stream()
-              .filter(b -> b.confidence() != null && b.confidence() >= threshold)
-              .toList();
+      blocks = response.blocks();
     }
 
-    if (blocks.isEmpty()) {
+    TextractResult result = writeResult(resultKey, blocks, threshold);
+    if (result.getBlockCount() == 0) {
       log.warn("No high-confidence blocks found for s3://{}/{}", inputBucket, normalizedKey);
     }
+    return result;
+  }
 
-    // Convert blocks into serializable maps
-    List<Map<String, Object>> serializableBlocks =
-        blocks.stream().map(this::flattenBlock).collect(Collectors.toList());
+  /**
+   * Splits a PDF within {@code aws.textract.page-parallel.max-pages} into single-page documents.
+   *
+   * @return the pages, or {@code null} to use the async job flow (page-parallel mode disabled, PDF
+   *     too long or unreadable)
+   */
+  private List<Document> splitPages(String inputBucket, String normalizedKey) {
+    if (!pageAnalyzer.isEnabled()) return null;
+    try {
+      byte[] pdf =
+          s3Client
+              .getObjectAsBytes(
+                  GetObjectRequest.builder().bucket(inputBucket).key(normalizedKey).build())
+              .asByteArrayUnsafe();
+      return pageAnalyzer.pages(pdf);
+    } catch (RuntimeException e) {
+      log.warn(
+          "Could not split s3://{}/{} into pages, using async: {}",
+          inputBucket,
+          normalizedKey,
+          e.getMessage());
+      return null;
+    }
+  }
 
-    List<TextractToken> vectorTokens = extractTokensWithMetadata(serializableBlocks);
+  /** Page-parallel sync analysis with the full feature set; {@code null} if a page call failed. */
+  private List<Block> analyzePages(List<Document> pages, String inputBucket, String normalizedKey) {
+    try {
+      List<Block> blocks =
+          pageAnalyzer.analyze(
+              pages,
+              r ->
+                  r.featureTypes(FeatureType.FORMS, FeatureType.TABLES, FeatureType.QUERIES)
+                      .queriesConfig(queriesConfig()));
+      log.info("Detected short PDF, used page-parallel sync AnalyzeDocument");
+      return blocks;
+    } catch (RuntimeException e) {
+      log.warn(
+          "Page-parallel Textract failed for s3://{}/{}, falling back to async: {}",
+          inputBucket,
+          normalizedKey,
+          e.getMessage());
+      return null;
+    }
+  }
 
-    // tokenize and store in db
+  /** Tiered analysis; {@code null} if it failed and the full feature set should be used. */
+  private List<Block> analyzeTiered(
+      List<Document> pages, String inputBucket, String normalizedKey) {
     try {
-      indexTextractBlocks(normalizedKey, serializableBlocks);
-    } catch (Exception e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
+      return tieredAnalyzer.analyze(pages);
+    } catch (RuntimeException e) {
+      log.warn(
+          "Tiered Textract failed for s3://{}/{}, using full analysis: {}",
+          inputBucket,
+          normalizedKey,
+          e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Resumes polling for async jobs that were started before a restart and never recorded as
+   * finished. Completed results are written to the usual Textract output key, so the next pipeline
+   * run for the document picks them up without starting a new job.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void resumePendingJobs() {
+    List<TextractJobRegistry.PendingJob> pending =
+        jobRegistry.findAllRunning(Duration.ofHours(resumeMaxAgeHours));
+    for (TextractJobRegistry.PendingJob job : pending) {
+      String inputBucket = bucketFromUri(job.inputS3Uri());
+      String normalizedKey = inputKeyFromUri(job.inputS3Uri());
+      if (inputBucket == null || normalizedKey == null) continue;
+      log.info("Resuming async Textract jobId={} docId={}", job.jobId(), job.documentId());
+      jobTracker
+          .track(job.jobId())
+          .whenComplete(
+              (blocks, err) -> {
+                String message = err == null ? null : err.toString();
+                jobRegistry.recordFinished(job.documentId(), job.jobId(), err == null, message);
+                if (err != null) {
+                  log.warn("Resumed Textract jobId={} failed: {}", job.jobId(), err.getMessage());
+                  return;
+                }
+                // hashed only now, on the tracker's thread, so startup never reads the inputs
+                String resultKey =
+                    resultKeyFor(
+                        inputBucket,
+                        normalizedKey,
+                        contentHashes.resolve(inputBucket, normalizedKey));
+                TextractResult result = writeResult(resultKey, blocks, defaultMinConfidence);
+                log.info(
+                    "Resumed Textract jobId={} written blocks={} avgConf={}",
+                    job.jobId(),
+                    result.getBlockCount(),
+                    String.format("%.2f", result.getAverageConfidence()));
+              });
     }
+  }
 
-    String json;
+  /**
+   * Serializes, indexes and stores the unfiltered Textract block list under the output key for
+   * {@code resultKey}, which is also the document's {@code doc_id} in the vector index (index
+   * queries apply their own confidence bound). The returned result describes the blocks meeting
+   * {@code threshold}.
+   */
+  private TextractResult writeResult(String resultKey, List<Block> blocks, float threshold) {
+    String outputKey = outputKeyFor(resultKey);
+    String s3Uri = "s3://" + outputBucket + "/" + outputKey;
+
+    TextractDocument doc = TextractJsonUtils.fromSdk(blocks);
+
+    // tokenize and store in db (in the background unless app.index.async.enabled=false)
     try {
-      json = mapper.writeValueAsString(serializableBlocks);
-    } catch (Exception e) {
-      throw new RuntimeException("Failed to serialize Textract blocks", e);
+      indexingPipeline.submit(resultKey, BlockGraph.of(doc));
+    } catch (RuntimeException e) {
+      log.error("Indexing failed for docId={}", resultKey, e);
     }
 
-    // Save JSON to S3
-    s3Client.putObject(
-        PutObjectRequest.builder()
-            .bucket(outputBucket)
-            .key(outputKey)
-            .contentType("application/json")
-            .build(),
-        RequestBody.fromString(json));
+    // Save JSON to S3; the parsed document is kept for the NLP stage
+    PutObjectResponse put =
+        s3Client.putObject(
+            PutObjectRequest.builder()
+                .bucket(outputBucket)
+                .key(outputKey)
+                .contentType("application/json")
+                .build(),
+            RequestBody.fromString(toJson(doc)));
+    documentCache.put(outputBucket, outputKey, put.eTag(), doc);
+
+    log.info("Textract result written to {} blocks={}", s3Uri, doc.size());
+    return resultOf(outputKey, doc, threshold);
+  }
 
-    log.info("Textract result written to {}", s3Uri);
+  /**
+   * Result for a stored analysis as seen at {@code threshold}: the confidence stats of the blocks
+   * meeting it, and their JSON, serialized only if a caller reads it.
+   */
+  private TextractResult resultOf(String outputKey, TextractDocument stored, float threshold) {
+    TextractDocument filtered = stored.withMinConfidence(threshold);
+    DoubleSummaryStatistics stats = filtered.confidenceStats();
+    boolean empty = stats.getCount() == 0;
 
-    // Build confidence stats
-    List<Float> confidences = blocks.stream().map(Block::confidence).toList();
-    double avgConf = confidences.stream().mapToDouble(Float::doubleValue).average().orElse(0.0);
-    double minConf = confidences.stream().mapToDouble(Float::doubleValue).min().orElse(0.0);
-    double maxConf = confidences.stream().mapToDouble(Float::doubleValue).max().orElse(0.0);
+    List<Float> confidences = new ArrayList<>(filtered.size());
+    for (TextractBlock b : filtered.blocks()) confidences.add(b.getConfidence());
 
     return TextractResult.builder()
         .outputBucket(outputBucket)
         .outputKey(outputKey)
-        .s3Uri(s3Uri)
-        .jsonOutput(json)
-        .blockCount(confidences.size())
-        .averageConfidence(avgConf)
-        .minConfidence(minConf)
-        .maxConfidence(maxConf)
+        .s3Uri("s3://" + outputBucket + "/" + outputKey)
+        .jsonOutputSupplier(() -> toJson(filtered))
+        .blockCount(filtered.size())
+        .averageConfidence(stats.getAverage())
+        .minConfidence(empty ? 0.0 : stats.getMin())
+        .maxConfidence(empty ? 0.0 : stats.getMax())
         .confidenceScores(confidences)
         .build();
   }
 
-  /** Flatten Block into serializable map */
-  private Map<String, Object> flattenBlock(Block b) {
-    Map<String, Object> m = new LinkedHashMap<>();
-    m.put("BlockType", b.blockTypeAsString());
-    m.put("Confidence", b.confidence());
-    m.put("Text", b.text());
-    m.put("Id", b.id());
-    m.put("Page", b.page());
-
-    // Geometry
-    if (b.geometry() != null) {
-      Map<String, Object> geomMap = new LinkedHashMap<>();
-      if (b.geometry().boundingBox() != null) {
-        BoundingBox bb = b.geometry().boundingBox();
-        Map<String, Float> bbMap = new LinkedHashMap<>();
-        bbMap.put("Width", bb.width());
-        bbMap.put("Height", bb.height());
-        bbMap.put("Left", bb.left());
-        bbMap.put("Top", bb.top());
-        geomMap.put("BoundingBox", bbMap);
-      }
-      if (b.geometry().polygon() != null) {
-        List<Map<String, Float>> points =
-            b.geometry().polygon().stream().map(p -> Map.of("X", p.x(), "Y", p.y())).toList();
-        geomMap.put("Polygon", points);
+  private String toJson(TextractDocument doc) {
+    try {
+      StringWriter sw = new StringWriter();
+      try (JsonGenerator gen = mapper.getFactory().createGenerator(sw)) {
+        TextractJsonUtils.writeArray(gen, doc);
       }
-      m.put("Geometry", geomMap);
+      return sw.toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to serialize Textract blocks", e);
     }
+  }
 
-    // Relationships
-    if (b.relationships() != null && !b.relationships().isEmpty()) {
-      List<Map<String, Object>> rels =
-          b.relationships().stream()
-              .map(
-                  r -> {
-                    Map<String, Object> rm = new LinkedHashMap<>();
-                    rm.put("Type", r.typeAsString());
-                    rm.put("Ids", r.ids());
-                    return rm;
-                  })
-              .toList();
-      m.put("Relationships", rels);
+  /**
+   * Streams a finished async job straight to S3: each result page is flattened, tokenized/indexed
+   * and written through a streaming JSON generator into a multipart upload, so peak heap holds one
+   * document page instead of three copies of the whole document.
+   */
+  private CompletableFuture<TextractResult> streamResult(
+      String jobId, String resultKey, float threshold) {
+    StreamingResultWriter writer;
+    try {
+      writer = new StreamingResultWriter(resultKey, threshold);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
     }
+    return jobTracker
+        .stream(jobId, writer::accept)
+        .thenApply(v -> writer.finish())
+        .whenComplete(
+            (r, err) -> {
+              if (err != null) writer.abort();
+            });
+  }
 
-    // EntityTypes
-    if (b.entityTypes() != null && !b.entityTypes().isEmpty()) {
-      m.put("EntityTypes", b.entityTypes());
+  /**
+   * Incremental writer behind {@link #streamResult}. Blocks are buffered per document page
+   * (Textract returns them page-ordered) so LINE/WORD relationships resolve within the window for
+   * indexing. The stored JSON takes relationship ids straight from the SDK blocks, so
+   * relationships that cross pages (e.g. tables continued on the next page) are kept.
+   */
+  private final class StreamingResultWriter {
+    private final String resultKey;
+    private final String outputKey;
+    private final float threshold;
+    private final boolean index;
+    private final List<TextractToken> tokens = new ArrayList<>();
+    private final S3MultipartOutputStream out;
+    private final JsonGenerator gen;
+    private final List<Block> window = new ArrayList<>();
+    private final DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+    private int windowPage = Integer.MIN_VALUE;
+
+    private StreamingResultWriter(String resultKey, float threshold) throws IOException {
+      this.resultKey = resultKey;
+      this.outputKey = outputKeyFor(resultKey);
+      this.threshold = threshold;
+      this.index = indexingPipeline.isEnabled() && !indexer.isIndexed(resultKey);
+      this.out =
+          new S3MultipartOutputStream(
+              s3Client, outputBucket, outputKey, "application/json", streamingPartSizeMb << 20);
+      this.gen = mapper.getFactory().createGenerator(out);
+      gen.writeStartArray();
     }
 
-    // Selection status (checkboxes, etc.)
-    if (b.selectionStatusAsString() != null) {
-      m.put("SelectionStatus", b.selectionStatusAsString());
+    private void accept(List<Block> page) {
+      for (Block b : page) {
+        int p = b.page() == null ? 0 : b.page();
+        if (p != windowPage && !window.isEmpty()) flushWindow();
+        windowPage = p;
+        window.add(b);
+      }
     }
 
-    return m;
-  }
-
-  /** Async Textract flow for PDFs with FORMS, TABLES, and QUERIES. */
-  private List<Block> processAsync(Document document, float threshold) {
-    // Build queries config
-    List<Query> queries =
-        configuredQueries.stream().map(q -> Query.builder().text(q.trim()).build()).toList();
-
-    StartDocumentAnalysisResponse startResponse =
-        textractClient.startDocumentAnalysis(
-            StartDocumentAnalysisRequest.builder()
-                .documentLocation(DocumentLocation.builder().s3Object(document.s3Object()).build())
-                .featureTypes(FeatureType.FORMS, FeatureType.TABLES, FeatureType.QUERIES)
-                .queriesConfig(QueriesConfig.builder().queries(queries).build())
-                .build());
-
-    String jobId = startResponse.jobId();
-    log.info("Started async Textract jobId={} with {} queries", jobId, queries.size());
-
-    GetDocumentAnalysisResponse result;
-
-    // Poll until job finishes
-    while (true) {
+    private void flushWindow() {
+      // tokens are small next to the blocks; they are indexed once the whole document is written
+      if (index) {
+        tokens.addAll(indexer.extractTokens(BlockGraph.of(TextractJsonUtils.fromSdk(window))));
+      }
       try {
-        Thread.sleep(Duration.ofSeconds(5).toMillis());
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        throw new RuntimeException("Polling interrupted", e);
+        TextractJsonUtils.writeBlocks(gen, window);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to stream Textract blocks", e);
       }
-
-      result =
-          textractClient.getDocumentAnalysis(
-              GetDocumentAnalysisRequest.builder().jobId(jobId).build());
-      String status = result.jobStatusAsString();
-      log.debug("Polling jobId={} status={}", jobId, status);
-
-      if ("SUCCEEDED".equals(status)) {
-        break;
-      } else if ("FAILED".equals(status)) {
-        throw new RuntimeException("Textract async job failed: jobId=" + jobId);
+      // all blocks are stored; the returned stats describe those meeting the threshold
+      for (Block b : window) {
+        if (b.confidence() != null && b.confidence() >= threshold) stats.accept(b.confidence());
       }
+      window.clear();
     }
 
-    // Collect blocks across all pages
-    List<Block> blocks = new ArrayList<>();
-    blocks.addAll(
-        result.blocks().stream()
-            .filter(b -> b.confidence() != null && b.confidence() >= threshold)
-            .toList());
-
-    String nextToken = result.nextToken();
-    while (nextToken != null) {
-      result =
-          textractClient.getDocumentAnalysis(
-              GetDocumentAnalysisRequest.builder().jobId(jobId).nextToken(nextToken).build());
-      blocks.addAll(
-          result.blocks().stream()
-              .filter(b -> b.confidence() != null && b.confidence() >= threshold)
-              .toList());
-      nextToken = result.nextToken();
-    }
-
-    return blocks;
-  }
-
-  private static class TextractToken {
-    public String id;
-    public String text;
-    public String type;
-    public int page;
-    public double confidence;
-    public Map<String, Object> metadata = new HashMap<>();
-  }
-
-  @SuppressWarnings({"unchecked", "rawtypes"})
-  private List<TextractToken> extractTokensWithMetadata(List<Map<String, Object>> blocks) {
-    // ---------- index blocks by Id and relationships ----------
-    Map<String, Map<String, Object>> byId = new HashMap<>();
-    for (Map<String, Object> b : blocks) {
-      byId.put(Objects.toString(b.get("Id"), ""), b);
-    }
-
-    // map: parentId -> ordered childIds (as they appear)
-    Map<String, List<String>> children = new HashMap<>();
-    for (Map<String, Object> b : blocks) {
-      List<Map<String, Object>> rels = (List<Map<String, Object>>) b.get("Relationships");
-      if (rels == null) continue;
-      String id = Objects.toString(b.get("Id"), "");
-      for (Map<String, Object> r : rels) {
-        String rt = Objects.toString(r.get("Type"), "");
-        if (!"CHILD".equals(rt)) continue;
-        List<Object> ids = (List<Object>) r.get("Ids");
-        if (ids == null) continue;
-        for (Object o : ids) {
-          String childId = Objects.toString(o, "");
-          children.computeIfAbsent(id, k -> new ArrayList<>()).add(childId);
+    private TextractResult finish() {
+      flushWindow();
+      try {
+        gen.writeEndArray();
+        gen.close(); // closes the multipart stream, completing the upload
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to complete Textract result upload", e);
+      }
+      if (index) {
+        try {
+          indexingPipeline.submitTokens(resultKey, tokens);
+        } catch (RuntimeException e) {
+          log.error("Indexing failed for docId={}", resultKey, e);
         }
       }
+      String s3Uri = "s3://" + outputBucket + "/" + outputKey;
+      log.info(
+          "Textract result streamed to {} bytes={} blocks={}", s3Uri, out.size(), stats.getCount());
+      boolean empty = stats.getCount() == 0;
+      return TextractResult.builder()
+          .outputBucket(outputBucket)
+          .outputKey(outputKey)
+          .s3Uri(s3Uri)
+          .blockCount((int) stats.getCount())
+          .averageConfidence(stats.getAverage())
+          .minConfidence(empty ? 0.0 : stats.getMin())
+          .maxConfidence(empty ? 0.0 : stats.getMax())
+          .confidenceScores(Collections.emptyList())
+          .build();
     }
 
-    // ---------- helpers ----------
-    java.util.function.Function<Map<String, Object>, String> textFromWordChildren =
-        (blk) -> {
-          String id = Objects.toString(blk.get("Id"), "");
-          List<String> kids = children.getOrDefault(id, List.of());
-          StringBuilder sb = new StringBuilder();
-          for (String kid : kids) {
-            Map<String, Object> child = byId.get(kid);
-            if (child == null) continue;
-            String bt = Objects.toString(child.get("BlockType"), "");
-            if ("WORD".equals(bt)) {
-              String w = Objects.toString(child.get("Text"), "");
-              if (!w.isBlank()) {
-                if (sb.length() > 0) sb.append(' ');
-                sb.append(w);
-              }
-            } else if ("SELECTION_ELEMENT".equals(bt)) {
-              String sel = Objects.toString(child.get("SelectionStatus"), "");
-              if (!sel.isBlank()) {
-                if (sb.length() > 0) sb.append(' ');
-                sb.append("Checkbox:").append(sel);
-              }
-            }
-          }
-          return sb.toString().trim().replaceAll("\\s+", " ");
-        };
-
-    java.util.function.Function<Map<String, Object>, Double> avgChildWordConfidence =
-        (blk) -> {
-          String id = Objects.toString(blk.get("Id"), "");
-          List<String> kids = children.getOrDefault(id, List.of());
-          double sum = 0.0;
-          int n = 0;
-          for (String kid : kids) {
-            Map<String, Object> child = byId.get(kid);
-            if (child == null) continue;
-            if ("WORD".equals(Objects.toString(child.get("BlockType"), ""))) {
-              Number c = (Number) child.get("Confidence");
-              if (c != null) {
-                sum += c.doubleValue();
-                n++;
-              }
-            }
-          }
-          if (n == 0) {
-            Number c = (Number) blk.get("Confidence");
-            return c == null ? 0.0 : c.doubleValue();
-          }
-          return sum / n;
-        };
-
-    // tableId -> list of its cells
-    Map<String, List<Map<String, Object>>> tableCells = new HashMap<>();
-    for (Map<String, Object> b : blocks) {
-      String type = Objects.toString(b.get("BlockType"), "");
-      if ("CELL".equals(type) || "MERGED_CELL".equals(type)) {
-        String parentId = Objects.toString(b.get("ParentId"), "");
-        tableCells.computeIfAbsent(parentId, k -> new ArrayList<>()).add(b);
-      }
+    private void abort() {
+      out.abort();
     }
+  }
 
-    List<TextractToken> tokens = new ArrayList<>();
+  /**
+   * Async Textract flow for PDFs with FORMS, TABLES, and QUERIES. The job id is handed to {@code
+   * consumer} (typically a {@link TextractJobTracker} call) whose future is returned. A job already
+   * recorded under {@code docId} (the content-hash result key, or {@code bucket/key} if the hash is
+   * unknown) is resumed rather than started again.
+   */
+  private <T> CompletableFuture<T> runAsyncJob(
+      String docId,
+      String inputBucket,
+      String normalizedKey,
+      Document document,
+      Function<String, CompletableFuture<T>> consumer) {
+    String inputS3Uri = "s3://" + inputBucket + "/" + normalizedKey;
+    Optional<TextractJobRegistry.PendingJob> existing =
+        jobRegistry.findRunning(docId, ASYNC_FEATURES, Duration.ofHours(resumeMaxAgeHours));
+
+    if (existing.isPresent()) {
+      String jobId = existing.get().jobId();
+      log.info("Resuming existing async Textract jobId={} for docId={}", jobId, docId);
+      return trackRecorded(docId, jobId, consumer)
+          .exceptionallyCompose(
+              err -> {
+                log.warn("Existing Textract jobId={} unusable ({}), starting anew", jobId, err);
+                return trackRecorded(docId, startAsync(docId, inputS3Uri, document), consumer);
+              });
+    }
+    return trackRecorded(docId, startAsync(docId, inputS3Uri, document), consumer);
+  }
 
-    for (Map<String, Object> b : blocks) {
-      String type = Objects.toString(b.get("BlockType"), "");
-      String id = Objects.toString(b.get("Id"), UUID.randomUUID().toString());
-      int page = ((Number) b.getOrDefault("Page", 0)).intValue();
+  private String startAsync(String docId, String inputS3Uri, Document document) {
+    QueriesConfig queries = queriesConfig();
 
-      // normalize entityTypes safely
-      List<String> entityTypes = new ArrayList<>();
-      Object entityTypesObj = b.get("EntityTypes");
-      if (entityTypesObj instanceof List<?>) {
-        for (Object e : (List<?>) entityTypesObj) {
-          entityTypes.add(String.valueOf(e));
-        }
-      }
+    StartDocumentAnalysisResponse startResponse =
+        textract.startDocumentAnalysis(
+            StartDocumentAnalysisRequest.builder()
+                .documentLocation(DocumentLocation.builder().s3Object(document.s3Object()).build())
+                .featureTypes(FeatureType.FORMS, FeatureType.TABLES, FeatureType.QUERIES)
+                .queriesConfig(queries)
+                .build());
 
-      // ---- 1) LINE ----
-      if ("LINE".equals(type)) {
-        String text = textFromWordChildren.apply(b);
-        if (text.isBlank() || text.length() < 3) continue;
-
-        TextractToken t = new TextractToken();
-        t.id = id;
-        t.type = "LINE";
-        t.page = page;
-        t.text = text;
-        t.confidence = avgChildWordConfidence.apply(b);
-        t.metadata.put("bbox", b.get("Geometry"));
-        t.metadata.put("entityTypes", entityTypes);
-        t.metadata.put("relationships", b.get("Relationships"));
-        tokens.add(t);
-        continue;
-      }
+    String jobId = startResponse.jobId();
+    log.info("Started async Textract jobId={} with {} queries", jobId, queries.queries().size());
 
-      // ---- 2) KEY_VALUE_SET VALUE ----
-      if ("KEY_VALUE_SET".equals(type)) {
-        boolean isValue = entityTypes.stream().anyMatch(et -> "VALUE".equalsIgnoreCase(et));
-        if (!isValue) continue;
-
-        String text = textFromWordChildren.apply(b);
-        if (text.isBlank()) continue;
-
-        TextractToken t = new TextractToken();
-        t.id = id;
-        t.type = "KV_VALUE";
-        t.page = page;
-        t.text = text;
-        t.confidence = avgChildWordConfidence.apply(b);
-        t.metadata.put("bbox", b.get("Geometry"));
-        t.metadata.put("entityTypes", entityTypes);
-        t.metadata.put("relationships", b.get("Relationships"));
-        tokens.add(t);
-        continue;
-      }
+    jobRegistry.recordStarted(docId, jobId, inputS3Uri, ASYNC_FEATURES);
+    return jobId;
+  }
 
-      // ---- 3) CELL ----
-      if ("CELL".equals(type) || "MERGED_CELL".equals(type)) {
-        String text = textFromWordChildren.apply(b);
-        if (text.isBlank()) continue;
-
-        TextractToken t = new TextractToken();
-        t.id = id;
-        t.type = "CELL";
-        t.page = page;
-        t.text = text;
-        t.confidence = avgChildWordConfidence.apply(b);
-        t.metadata.put("bbox", b.get("Geometry"));
-        t.metadata.put("rowIndex", b.get("RowIndex"));
-        t.metadata.put("columnIndex", b.get("ColumnIndex"));
-        t.metadata.put("rowSpan", b.get("RowSpan"));
-        t.metadata.put("columnSpan", b.get("ColumnSpan"));
-        t.metadata.put("parentTableId", b.get("ParentId"));
-        tokens.add(t);
-        continue;
-      }
+  private QueriesConfig queriesConfig() {
+    List<Query> queries =
+        configuredQueries.stream().map(q -> Query.builder().text(q.trim()).build()).toList();
+    return QueriesConfig.builder().queries(queries).build();
+  }
 
-      // ---- 4) TABLE ----
-      if ("TABLE".equals(type)) {
-        List<Map<String, Object>> cells = tableCells.getOrDefault(id, List.of());
-        if (!cells.isEmpty()) {
-          Map<Integer, List<Map<String, Object>>> rows = new TreeMap<>();
-          for (Map<String, Object> cell : cells) {
-            int row = ((Number) cell.getOrDefault("RowIndex", 0)).intValue();
-            rows.computeIfAbsent(row, k -> new ArrayList<>()).add(cell);
-          }
-          StringBuilder sb = new StringBuilder();
-          for (var e : rows.entrySet()) {
-            e.getValue()
-                .sort(Comparator.comparingInt(c -> ((Number) c.get("ColumnIndex")).intValue()));
-            if (sb.length() > 0) sb.append("\n");
-            List<String> cols = new ArrayList<>();
-            for (Map<String, Object> cell : e.getValue()) {
-              cols.add(textFromWordChildren.apply(cell));
-            }
-            sb.append(String.join(" | ", cols));
-          }
-          String text = sb.toString().trim().replaceAll("\\s+", " ");
-          if (!text.isBlank()) {
-            TextractToken t = new TextractToken();
-            t.id = id;
-            t.type = "TABLE";
-            t.page = page;
-            t.text = text;
-            t.confidence = ((Number) b.getOrDefault("Confidence", 0)).doubleValue();
-            t.metadata.put("bbox", b.get("Geometry"));
-            t.metadata.put("cellCount", cells.size());
-            tokens.add(t);
-          }
-        }
-        continue;
-      }
-    }
+  private <T> CompletableFuture<T> trackRecorded(
+      String docId, String jobId, Function<String, CompletableFuture<T>> consumer) {
+    return consumer
+        .apply(jobId)
+        .whenComplete(
+            (blocks, err) ->
+                jobRegistry.recordFinished(
+                    docId, jobId, err == null, err == null ? null : err.toString()));
+  }
 
-    return tokens;
+  private String outputKeyFor(String resultKey) {
+    return outputPrefix + resultKey + ".json";
   }
 
-  private void indexTextractBlocks(String docId, List<Map<String, Object>> blocks)
-      throws Exception {
+  /** {@code sha256/<hash>} for the input's content, or the input key if the hash is unknown. */
+  private String resultKeyFor(String inputBucket, String normalizedKey, String hash) {
+    if (hash == null) {
+      log.warn("No content hash for s3://{}/{}, keying results by key", inputBucket, normalizedKey);
+      return normalizedKey;
+    }
+    return ContentHashUtils.resultKey(hash);
+  }
 
-    // --- Check if rows already exist for this docId ---
-    Integer count =
-        jdbcTemplate.queryForObject(
-            "SELECT COUNT(1) FROM textract_index WHERE doc_id = ?", Integer.class, docId);
+  private static String bucketFromUri(String s3Uri) {
+    if (s3Uri == null || !s3Uri.startsWith("s3://")) return null;
+    int slash = s3Uri.indexOf('/', "s3://".length());
+    return slash < 0 ? null : s3Uri.substring("s3://".length(), slash);
+  }
 
-    if (count != null && count > 0) {
-      log.info("Skipping indexing: docId={} already has {} rows in textract_index", docId, count);
-      return; // skip re-index
-    }
+  private static String inputKeyFromUri(String s3Uri) {
+    if (s3Uri == null || !s3Uri.startsWith("s3://")) return null;
+    int slash = s3Uri.indexOf('/', "s3://".length());
+    return slash < 0 ? null : s3Uri.substring(slash + 1);
+  }
 
-    List<TextractToken> tokens = extractTokensWithMetadata(blocks);
-
-    for (TextractToken t : tokens) {
-
-      // Generate embedding via Spring AI
-      float[] response = embeddingModel.embed(t.text);
-
-      // Wrap in PGvector (pgvector-jdbc dependency required)
-      PGvector pgVector = new PGvector(response);
-
-      // Convert metadata -> JSONB
-      PGobject jsonbObject = new PGobject();
-      jsonbObject.setType("jsonb");
-      jsonbObject.setValue(mapper.writeValueAsString(t.metadata));
-
-      jdbcTemplate.update(
-          "INSERT INTO textract_index (id, doc_id, text, vector, page, type, confidence, metadata) "
-              + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
-          ps -> {
-            ps.setString(1, t.id);
-            ps.setString(2, docId);
-            ps.setString(3, t.text);
-            ps.setObject(4, pgVector); // proper pgvector
-            ps.setInt(5, t.page);
-            ps.setString(6, t.type);
-            ps.setDouble(7, t.confidence);
-            ps.setObject(8, jsonbObject); // proper jsonb
-          });
+  /**
+   * Waits for an async Textract result, unwrapping the future's wrapper exceptions. This parks the
+   * calling pipeline thread for the job's duration; {@link #processFile} stays synchronous because
+   * every caller (controllers, scheduler, pipelines) is.
+   */
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause() == null ? e : e.getCause();
+      if (cause instanceof RuntimeException re) throw re;
+      throw new RuntimeException("Textract async job failed", cause);
     }
   }
 }
@@ -0,0 +1,225 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.util.TextractJsonUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.*;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import software.amazon.awssdk.services.textract.model.*;
+
+/**
+ * Tiered Textract feature selection: pay for FORMS/TABLES/QUERIES only where plain text detection
+ * was not enough.
+ *
+ * <ol>
+ *   <li><b>detect</b>: {@code DetectDocumentText} on every page.
+ *   <li><b>extract</b>: {@link TitleFieldRecognizer} over the detected text.
+ *   <li><b>escalate</b>: {@code AnalyzeDocument} with QUERIES for the configured fields the
+ *       extractor did not find (only their QUERY/QUERY_RESULT blocks are kept), and with
+ *       FORMS+TABLES for pages whose detected LINE confidence is below {@code page-min-confidence}
+ *       (those pages' blocks are replaced).
+ * </ol>
+ *
+ * <p>Per-tier latency ({@code textract.tier.latency}), documents resolved or escalated ({@code
+ * textract.tier.documents}), escalated fields and escalated pages are recorded for tuning.
+ */
+@Log4j2
+public class TieredTextractAnalyzer {
+
+  @Value("${aws.textract.tiered.enabled:false}")
+  private boolean enabled;
+
+  /**
+   * {@code field=Textract query} pairs; a query is asked only when the extractor has no value for
+   * its field. Field names are the keys of {@link TitleFieldRecognizer#recognize}.
+   */
+  @Value(
+      "#{'${aws.textract.tiered.field-queries:vehicle_id_number=VIN,owner_address=Owner Address,"
+          + "lien_info=First Lienholder,odometer_reading=Odometer Reading,date=Sale Date}'"
+          + ".split(',')}")
+  private List<String> fieldQueries;
+
+  /** Pages whose mean LINE confidence after text detection is below this get FORMS+TABLES. */
+  @Value("${aws.textract.tiered.page-min-confidence:85.0}")
+  private float pageMinConfidence;
+
+  private final TextractGateway textract;
+  private final TextractPageAnalyzer pageAnalyzer;
+  private final MeterRegistry meters;
+
+  private final Counter resolved;
+  private final Counter escalated;
+  private final DistributionSummary escalatedPages;
+
+  public TieredTextractAnalyzer(
+      TextractGateway textract, TextractPageAnalyzer pageAnalyzer, MeterRegistry meters) {
+    this.textract = Objects.requireNonNull(textract, "textract must not be null");
+    this.pageAnalyzer = Objects.requireNonNull(pageAnalyzer, "pageAnalyzer must not be null");
+    this.meters = Objects.requireNonNull(meters, "meters must not be null");
+    this.resolved = documents(meters, "resolved");
+    this.escalated = documents(meters, "escalated");
+    this.escalatedPages =
+        DistributionSummary.builder("textract.tier.escalated.pages")
+            .description("Pages re-analyzed with FORMS+TABLES per escalated document")
+            .register(meters);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Runs the tiers over {@code pages} (single-page documents, see {@link
+   * TextractPageAnalyzer#pages}).
+   *
+   * @return blocks of all pages in page order, each page numbered by its position
+   */
+  public List<Block> analyze(List<Document> pages) {
+    long t0 = System.nanoTime();
+
+    // ---- tier 1: text detection ----
+    List<List<Block>> perPage =
+        timed(
+            "detect",
+            () ->
+                new ArrayList<>(
+                    pageAnalyzer.forEachPage(
+                        pages,
+                        (page, document) ->
+                            textract
+                                .detectDocumentText(
+                                    DetectDocumentTextRequest.builder().document(document).build())
+                                .blocks())));
+
+    // ---- tier 2: deterministic extractors ----
+    Map<String, String> fields =
+        timed(
+            "extract",
+            () ->
+                TitleFieldRecognizer.recognize(
+                    BlockGraph.of(TextractJsonUtils.fromSdk(flatten(perPage)))));
+
+    List<String> missing = new ArrayList<>();
+    List<Query> queries = new ArrayList<>();
+    for (String pair : fieldQueries) {
+      int eq = pair.indexOf('=');
+      if (eq <= 0) continue;
+      String field = pair.substring(0, eq).trim();
+      if (fields.containsKey(field)) continue;
+      missing.add(field);
+      queries.add(Query.builder().text(pair.substring(eq + 1).trim()).build());
+    }
+    boolean[] weak = new boolean[perPage.size()];
+    int weakCount = 0;
+    for (int p = 0; p < weak.length; p++) {
+      weak[p] = meanLineConfidence(perPage.get(p)) < pageMinConfidence;
+      if (weak[p]) weakCount++;
+    }
+
+    if (missing.isEmpty() && weakCount == 0) {
+      resolved.increment();
+      log.info(
+          "textract.tier resolved by text detection pages={} fields={} durationMs={}",
+          pages.size(),
+          fields.keySet(),
+          (System.nanoTime() - t0) / 1_000_000);
+      return flatten(perPage);
+    }
+
+    // ---- tier 3: analysis features for what is still missing ----
+    escalated.increment();
+    escalatedPages.record(weakCount);
+    missing.forEach(
+        f ->
+            Counter.builder("textract.tier.escalated.fields")
+                .description("Fields the text tier did not find, asked as Textract queries")
+                .tag("field", f)
+                .register(meters)
+                .increment());
+
+    List<List<Block>> analyzed =
+        timed(
+            "escalate",
+            () ->
+                pageAnalyzer.forEachPage(
+                    pages,
+                    (page, document) -> escalate(document, weak[page - 1], queries)));
+    for (int p = 0; p < perPage.size(); p++) {
+      List<Block> extra = analyzed.get(p);
+      if (weak[p]) {
+        perPage.set(p, extra);
+      } else if (!extra.isEmpty()) {
+        List<Block> merged = new ArrayList<>(perPage.get(p));
+        for (Block b : extra) {
+          if (b.blockType() == BlockType.QUERY || b.blockType() == BlockType.QUERY_RESULT) {
+            merged.add(b);
+          }
+        }
+        perPage.set(p, merged);
+      }
+    }
+
+    log.info(
+        "textract.tier escalated pages={} weakPages={} missingFields={} durationMs={}",
+        pages.size(),
+        weakCount,
+        missing,
+        (System.nanoTime() - t0) / 1_000_000);
+    return flatten(perPage);
+  }
+
+  // ------------------ Internals ------------------
+
+  /** Full FORMS+TABLES analysis for a weak page, QUERIES only otherwise (nothing if none). */
+  private List<Block> escalate(Document document, boolean weakPage, List<Query> queries) {
+    List<FeatureType> features = new ArrayList<>();
+    if (weakPage) {
+      features.add(FeatureType.FORMS);
+      features.add(FeatureType.TABLES);
+    }
+    if (!queries.isEmpty()) features.add(FeatureType.QUERIES);
+    if (features.isEmpty()) return List.of();
+
+    AnalyzeDocumentRequest.Builder request =
+        AnalyzeDocumentRequest.builder().document(document).featureTypes(features);
+    if (!queries.isEmpty()) request.queriesConfig(QueriesConfig.builder().queries(queries).build());
+    return textract.analyzeDocument(request.build()).blocks();
+  }
+
+  private static double meanLineConfidence(List<Block> blocks) {
+    double sum = 0.0;
+    int lines = 0;
+    for (Block b : blocks) {
+      if (b.blockType() != BlockType.LINE || b.confidence() == null) continue;
+      sum += b.confidence();
+      lines++;
+    }
+    return lines == 0 ? 0.0 : sum / lines;
+  }
+
+  private static List<Block> flatten(List<List<Block>> perPage) {
+    List<Block> out = new ArrayList<>();
+    perPage.forEach(out::addAll);
+    return out;
+  }
+
+  private <T> T timed(String tier, Supplier<T> work) {
+    return Timer.builder("textract.tier.latency")
+        .description("Latency of one Textract tier for one document")
+        .tag("tier", tier)
+        .register(meters)
+        .record(work);
+  }
+
+  private static Counter documents(MeterRegistry meters, String outcome) {
+    return Counter.builder("textract.tier.documents")
+        .description("Documents handled by the tiered Textract mode")
+        .tag("outcome", outcome)
+        .register(meters);
+  }
+}
@@ -0,0 +1,228 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractBlockType;
+import com.cario.title.app.util.AhoCorasick;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass recognizer for the high-fidelity title fields, shared by the NLP normalization, which
+ * uses them as anchors over the LLM output, and the tiered Textract mode, which uses them to decide
+ * whether analysis features are needed at all. It replaces a per-block regex and {@code contains}
+ * loop (kept in the tests as {@code TextractFieldExtractor}) and returns the same fields but one.
+ *
+ * <p>The one deliberate difference: the first 17-character text that {@link VinDecoder} validates
+ * as read is preferred as the VIN over the first that merely has VIN characters. A VIN that only
+ * validates after OCR repair is used only when no text has VIN characters at all.
+ *
+ * <p>All keywords (makes, fuel types, title brands, {@code LIEN}, street suffixes) live in one
+ * {@link AhoCorasick} automaton, so each LINE and WORD is scanned once for all of them; VIN, year,
+ * odometer and date patterns are precompiled and tried only on text of a plausible length and
+ * leading character. Precedence between keywords of a kind and between blocks is the old loop's:
+ * the last block wins, within a block the last make in {@link #MAKES}, the first fuel type in
+ * {@link #FUEL_TYPES} and the first brand in {@link #BRAND_KEYWORDS}.
+ */
+public final class TitleFieldRecognizer {
+
+  private TitleFieldRecognizer() {}
+
+  static final List<String> MAKES =
+      List.of(
+          "FORD", "TOYOTA", "DODGE", "HONDA", "CHEVROLET", "NISSAN", "BMW", "MERCEDES", "KIA",
+          "HYUNDAI");
+
+  /** In priority order. */
+  static final List<String> FUEL_TYPES = List.of("DIESEL", "GAS", "FLEX", "ELECTRIC");
+
+  /** In priority order; {@link #BRAND_VALUES} holds the brand each keyword stands for. */
+  static final List<String> BRAND_KEYWORDS = List.of("SALVAGE", "REBUILT", "DUP");
+
+  static final List<String> BRAND_VALUES = List.of("SALVAGE", "REBUILT", "DUPLICATE");
+
+  static final List<String> STREET_SUFFIXES =
+      List.of(
+          "RD", "ROAD", "DR", "DRIVE", "ST", "STREET", "AVE", "AVENUE", "BLVD", "LANE", "LN", "CT");
+
+  private static final Pattern VIN = Pattern.compile("[A-HJ-NPR-Z0-9]{17}");
+  private static final Pattern YEAR = Pattern.compile("19\\d{2}|20\\d{2}");
+  private static final Pattern ODOMETER = Pattern.compile("\\d{1,3}(,\\d{3})*(\\s*(MI|MILES))?");
+  private static final Pattern DATE = Pattern.compile("\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4}");
+
+  private static final DateTimeFormatter[] DATE_FORMATS = {
+    DateTimeFormatter.ofPattern("M/d/uu", Locale.US),
+    DateTimeFormatter.ofPattern("M/d/uuuu", Locale.US),
+    DateTimeFormatter.ofPattern("MM-dd-uu", Locale.US),
+    DateTimeFormatter.ofPattern("MM-dd-uuuu", Locale.US)
+  };
+
+  // keyword kinds; KIND[k] and RANK[k] describe keyword k of the automaton
+  private static final byte MAKE = 0;
+  private static final byte FUEL = 1;
+  private static final byte BRAND = 2;
+  private static final byte LIEN = 3;
+  private static final byte SUFFIX = 4;
+
+  private static final AhoCorasick KEYWORDS;
+  private static final byte[] KIND;
+  private static final int[] RANK;
+
+  static {
+    List<String> words = new ArrayList<>();
+    List<Byte> kinds = new ArrayList<>();
+    List<Integer> ranks = new ArrayList<>();
+    for (int r = 0; r < MAKES.size(); r++) add(words, kinds, ranks, MAKES.get(r), MAKE, r);
+    for (int r = 0; r < FUEL_TYPES.size(); r++) {
+      add(words, kinds, ranks, FUEL_TYPES.get(r), FUEL, r);
+    }
+    for (int r = 0; r < BRAND_KEYWORDS.size(); r++) {
+      add(words, kinds, ranks, BRAND_KEYWORDS.get(r), BRAND, r);
+    }
+    add(words, kinds, ranks, "LIEN", LIEN, 0);
+    for (String suffix : STREET_SUFFIXES) add(words, kinds, ranks, suffix, SUFFIX, 0);
+
+    KEYWORDS = AhoCorasick.of(words);
+    KIND = new byte[kinds.size()];
+    RANK = new int[ranks.size()];
+    for (int k = 0; k < KIND.length; k++) {
+      KIND[k] = kinds.get(k);
+      RANK[k] = ranks.get(k);
+    }
+  }
+
+  /**
+   * Scans LINE and WORD text for VIN, year, make, odometer, fuel type, dates, owner address, lien
+   * and title brand.
+   *
+   * @return field name to value; fields without evidence are absent
+   */
+  public static Map<String, String> recognize(BlockGraph graph) {
+    Map<String, String> result = new HashMap<>();
+    String vin = null;
+    String validVin = null;
+    String repairedVin = null;
+    int year = -1;
+    int odometer = -1;
+    LocalDate date = null;
+    Block block = new Block();
+
+    for (int i : graph.ofTypes(TextractBlockType.LINE, TextractBlockType.WORD)) {
+      String raw = graph.block(i).getText();
+      if (raw == null) raw = "";
+      String text = raw.toUpperCase().trim();
+      int len = text.length();
+      char first = len == 0 ? ' ' : text.charAt(0);
+      boolean digitFirst = first >= '0' && first <= '9';
+
+      if (len == 17) {
+        if (validVin == null) {
+          VinDecoder.Vin decoded = VinDecoder.decode(text);
+          if (decoded != null && !decoded.repaired()) validVin = decoded.value();
+          else if (decoded != null && repairedVin == null) repairedVin = decoded.value();
+        }
+        if (vin == null && VIN.matcher(text).matches()) vin = text;
+      }
+
+      if (len == 4 && digitFirst && YEAR.matcher(text).matches()) {
+        year = Math.max(year, Integer.parseInt(text));
+      }
+
+      if (digitFirst && ODOMETER.matcher(text).matches()) {
+        String digits = text.replaceAll("[^0-9]", "");
+        if (!digits.isEmpty()) odometer = Math.max(odometer, Integer.parseInt(digits));
+      }
+
+      if (digitFirst && len >= 5 && len <= 10 && DATE.matcher(text).matches()) {
+        LocalDate d = parseDate(text);
+        if (d != null && (date == null || d.isAfter(date))) date = d;
+      }
+
+      block.scan(text);
+      if (block.make >= 0) result.put("make", MAKES.get(block.make));
+      if (block.fuel < Integer.MAX_VALUE) result.put("fuel_type", FUEL_TYPES.get(block.fuel));
+      if (block.suffixAfter(firstDigitThenSpace(text))) result.put("owner_address", raw);
+      if (block.lien) result.put("lien_info", raw);
+      if (block.brand < Integer.MAX_VALUE) result.put("title_brand", BRAND_VALUES.get(block.brand));
+    }
+
+    if (validVin != null) vin = validVin;
+    else if (vin == null) vin = repairedVin;
+    if (vin != null) result.put("vehicle_id_number", vin);
+    if (year >= 0) result.put("year", String.valueOf(year));
+    if (odometer >= 0) result.put("odometer_reading", String.valueOf(odometer));
+    if (date != null) result.put("date", date.toString()); // ISO yyyy-MM-dd
+    return result;
+  }
+
+  // ------------------ Internals ------------------
+
+  /** Keyword hits of one block, reset on every scan. */
+  private static final class Block implements AhoCorasick.MatchConsumer {
+    private int make;
+    private int fuel;
+    private int brand;
+    private boolean lien;
+    private int lastSuffixStart;
+
+    private void scan(String text) {
+      make = -1;
+      fuel = Integer.MAX_VALUE;
+      brand = Integer.MAX_VALUE;
+      lien = false;
+      lastSuffixStart = -1;
+      KEYWORDS.scan(text, this);
+    }
+
+    @Override
+    public void onMatch(int keyword, int start) {
+      switch (KIND[keyword]) {
+        case MAKE -> make = Math.max(make, RANK[keyword]);
+        case FUEL -> fuel = Math.min(fuel, RANK[keyword]);
+        case BRAND -> brand = Math.min(brand, RANK[keyword]);
+        case LIEN -> lien = true;
+        default -> lastSuffixStart = Math.max(lastSuffixStart, start);
+      }
+    }
+
+    /** A street suffix starts after the whitespace at {@code space} ({@code -1}: none). */
+    private boolean suffixAfter(int space) {
+      return space >= 0 && lastSuffixStart > space;
+    }
+  }
+
+  /**
+   * Index of the first whitespace that follows a digit, or {@code -1}: a street suffix must start
+   * after it ({@code .*\d+\s+.*SUFFIX.*}).
+   */
+  private static int firstDigitThenSpace(String text) {
+    for (int i = 1; i < text.length(); i++) {
+      char p = text.charAt(i - 1);
+      if (p >= '0' && p <= '9' && isRegexSpace(text.charAt(i))) return i;
+    }
+    return -1;
+  }
+
+  private static boolean isRegexSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static LocalDate parseDate(String text) {
+    for (DateTimeFormatter fmt : DATE_FORMATS) {
+      try {
+        return LocalDate.parse(text, fmt);
+      } catch (DateTimeParseException ignore) {
+      }
+    }
+    return null;
+  }
+
+  private static void add(
+      List<String> words, List<Byte> kinds, List<Integer> ranks, String word, byte kind, int rank) {
+    words.add(word);
+    kinds.add(kind);
+    ranks.add(rank);
+  }
+}
@@ -0,0 +1,334 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Splits a Textract document into LLM evidence chunks by token count rather than characters.
+ *
+ * <p>Blocks are rendered as one line each (see {@link #render}) and grouped into units that are
+ * never split: a table with all its cells, a form key with its value, any other block. Units are
+ * packed page by page: a page that fits the remaining budget is added whole, a page that fits an
+ * empty chunk starts a new one, and only a page larger than the budget is cut, between units. A
+ * single unit larger than the budget is cut between its lines, so no evidence is dropped.
+ *
+ * <p>Tokens are counted locally with the BPE encoding of {@code app.nlp.chunk.tokenizer-model}; the
+ * budget per chunk is {@code app.nlp.chunk.max-input-tokens} minus the caller's prompt and schema
+ * overhead. WORD blocks whose LINE, cell or form field is rendered are left out, as their text is
+ * already there.
+ *
+ * <p>With {@code app.nlp.evidence.compact} (the default) the units are the spans of {@link
+ * EvidenceCompactor} instead of one line per block, and their tokens are recorded in {@code
+ * nlp.evidence.tokens}. Measuring the saving means rendering and tokenizing the full form too, so
+ * that is done only for a {@code app.nlp.evidence.reduction-sample-rate} fraction of documents,
+ * which record the full form's tokens as well and the saving in {@code nlp.evidence.reduction}
+ * (percent).
+ */
+@Log4j2
+public class TokenBudgetChunker {
+
+  /** Input tokens per model call, prompt and schema included. */
+  @Value("${app.nlp.chunk.max-input-tokens:24000}")
+  private int maxInputTokens;
+
+  /** Model whose tokenizer is used; unknown models fall back to o200k_base. */
+  @Value("${app.nlp.chunk.tokenizer-model:gpt-4o-mini}")
+  private String tokenizerModel;
+
+  /** Render compacted evidence (see {@link EvidenceCompactor}) instead of every block. */
+  @Value("${app.nlp.evidence.compact:true}")
+  private boolean compact;
+
+  /** Fraction of compacted documents whose full form is also tokenized; 0 disables. */
+  @Value("${app.nlp.evidence.reduction-sample-rate:0.05}")
+  private double reductionSampleRate;
+
+  /** Smallest evidence budget per chunk, however large the overhead. */
+  private static final int MIN_BUDGET = 1000;
+
+  private final EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+  private volatile Encoding encoding;
+
+  private final DistributionSummary fullTokens;
+  private final DistributionSummary compactTokens;
+  private final DistributionSummary reduction;
+
+  public TokenBudgetChunker(MeterRegistry meters) {
+    Objects.requireNonNull(meters, "meters must not be null");
+    this.fullTokens = evidenceTokens(meters, "full");
+    this.compactTokens = evidenceTokens(meters, "compact");
+    this.reduction =
+        DistributionSummary.builder("nlp.evidence.reduction")
+            .description("Evidence tokens saved by compaction, in percent")
+            .baseUnit("percent")
+            .register(meters);
+  }
+
+  /** Tokens of {@code text} under the configured model's encoding. */
+  public int countTokens(String text) {
+    return text == null || text.isEmpty() ? 0 : encoding().countTokens(text);
+  }
+
+  /**
+   * Chunks {@code graph} so that each chunk plus {@code overheadTokens} stays within {@code
+   * max-input-tokens}.
+   */
+  public List<String> chunk(BlockGraph graph, int overheadTokens) {
+    int budget = Math.max(MIN_BUDGET, maxInputTokens - overheadTokens);
+
+    Collection<List<Unit>> pages = compact ? compactPages(graph) : pages(graph);
+    if (compact) {
+      int compacted = tokens(pages);
+      compactTokens.record(compacted);
+      if (ThreadLocalRandom.current().nextDouble() < reductionSampleRate) {
+        recordReduction(tokens(pages(graph)), compacted);
+      }
+    }
+
+    Packer packer = new Packer(budget);
+    for (List<Unit> page : pages) {
+      int pageTokens = 0;
+      for (Unit u : page) pageTokens += u.tokens();
+      if (packer.fits(pageTokens) || pageTokens <= budget) {
+        if (!packer.fits(pageTokens)) packer.flush();
+        page.forEach(packer::add);
+      } else {
+        for (Unit u : page) {
+          if (u.tokens() <= budget) {
+            if (!packer.fits(u.tokens())) packer.flush();
+            packer.add(u);
+          } else {
+            splitLines(u, budget).forEach(packer::addOrFlush);
+          }
+        }
+      }
+    }
+    packer.flush();
+    log.info(
+        "ainlp chunks={} budgetTokens={} overheadTokens={}",
+        packer.chunks.size(),
+        budget,
+        overheadTokens);
+    return packer.chunks;
+  }
+
+  /**
+   * One evidence line for block {@code i} (tables expand to one line per row); {@code null} for
+   * blocks that contribute nothing on their own.
+   */
+  public static String render(BlockGraph graph, int i) {
+    TextractBlock b = graph.block(i);
+    TextractBlockType type = b.getType();
+
+    // Cells are rendered with their table below
+    if (type.isCell()) return null;
+
+    StringBuilder sb = new StringBuilder();
+    sb.append('[').append(b.getTypeName()).append("] ");
+
+    // Common text (WORD, LINE, QUERY_RESULT, etc.)
+    if (b.getText() != null) {
+      sb.append(b.getText()).append(' ');
+    }
+
+    switch (type) {
+        // Selection elements (checkboxes, radio buttons)
+      case SELECTION_ELEMENT -> sb.append("Selected: ").append(b.getSelectionStatus()).append(' ');
+
+        // Table marker, expanded row by row from its CELL children
+      case TABLE -> {
+        sb.append("(Table detected)\n");
+        // cells come ordered by row, then column
+        int row = Integer.MIN_VALUE;
+        for (int c : graph.cellsOf(i)) {
+          TextractBlock cell = graph.block(c);
+          if (cell.getRowIndex() != row) {
+            if (row != Integer.MIN_VALUE) sb.append(" |\n");
+            row = cell.getRowIndex();
+            sb.append("  Row ").append(row).append(": ");
+          }
+          String txt = cell.getText() != null ? cell.getText().trim() : graph.childText(c);
+          sb.append(" | ").append(txt.isEmpty() ? " " : txt);
+        }
+        if (row != Integer.MIN_VALUE) sb.append(" |\n");
+      }
+
+        // Page marker
+      case PAGE -> sb.append("(Page break) ");
+
+        // Key-value sets (forms), with the words of the key or value
+      case KEY_VALUE_SET -> {
+        sb.append("(Form field) ");
+        if (!b.getEntityTypes().isEmpty()) {
+          sb.append("EntityTypes=").append(b.getEntityTypes()).append(' ');
+        }
+        if (b.getText() == null) sb.append(graph.childText(i)).append(' ');
+      }
+
+        // Queries
+      case QUERY -> sb.append("Query: ").append(Objects.toString(b.getQueryText(), "")).append(' ');
+      case QUERY_RESULT ->
+          sb.append("Answer: ").append(Objects.toString(b.getText(), "")).append(' ');
+
+      default -> {
+        // Layout features
+        if (type.isLayout()) sb.append("(Layout element) ");
+      }
+    }
+
+    String text = sb.toString().trim();
+    return text.isBlank() ? null : text;
+  }
+
+  // ------------------ Internals ------------------
+
+  private record Unit(String text, int tokens) {}
+
+  /** Accumulates units into chunks of at most {@code budget} tokens. */
+  private static final class Packer {
+    private final int budget;
+    private final List<String> chunks = new ArrayList<>();
+    private final StringBuilder current = new StringBuilder();
+    private int tokens;
+
+    private Packer(int budget) {
+      this.budget = budget;
+    }
+
+    private boolean fits(int more) {
+      return tokens + more <= budget;
+    }
+
+    private void add(Unit u) {
+      current.append(u.text()).append('\n');
+      tokens += u.tokens();
+    }
+
+    private void addOrFlush(Unit u) {
+      if (!fits(u.tokens())) flush();
+      add(u);
+    }
+
+    private void flush() {
+      if (current.length() > 0) chunks.add(current.toString());
+      current.setLength(0);
+      tokens = 0;
+    }
+  }
+
+  /** Units per page, pages in document order. */
+  private Collection<List<Unit>> pages(BlockGraph graph) {
+    boolean[] attached = new boolean[graph.size()];
+    for (int i : graph.ofType(TextractBlockType.KEY_VALUE_SET)) {
+      TextractBlock b = graph.block(i);
+      if (b.hasEntityType("KEY")) for (int v : b.targets("VALUE")) attached[v] = true;
+    }
+
+    Map<Integer, List<Unit>> byPage = new TreeMap<>();
+    for (int i = 0; i < graph.size(); i++) {
+      if (attached[i] || coveredWord(graph, i)) continue;
+      TextractBlock b = graph.block(i);
+      StringBuilder text = new StringBuilder(Objects.toString(render(graph, i), ""));
+      if (b.getType() == TextractBlockType.KEY_VALUE_SET && b.hasEntityType("KEY")) {
+        for (int v : b.targets("VALUE")) {
+          String value = render(graph, v);
+          if (value != null) text.append('\n').append(value);
+        }
+      }
+      if (text.isEmpty()) continue;
+      String t = text.toString();
+      byPage.computeIfAbsent(b.getPage(), p -> new ArrayList<>()).add(unit(t));
+    }
+    return byPage.values();
+  }
+
+  /** Units per page from {@link EvidenceCompactor}; a table or form field is one span. */
+  private Collection<List<Unit>> compactPages(BlockGraph graph) {
+    Map<Integer, List<Unit>> byPage = new TreeMap<>();
+    for (EvidenceCompactor.Span span : EvidenceCompactor.compact(graph)) {
+      byPage.computeIfAbsent(span.page(), p -> new ArrayList<>()).add(unit(span.text()));
+    }
+    return byPage.values();
+  }
+
+  private void recordReduction(int full, int compacted) {
+    fullTokens.record(full);
+    double saved = full == 0 ? 0.0 : 100.0 * (full - compacted) / full;
+    reduction.record(saved);
+    log.info(
+        "ainlp evidence compacted fullTokens={} compactTokens={} reductionPct={}",
+        full,
+        compacted,
+        String.format(Locale.ROOT, "%.1f", saved));
+  }
+
+  private static int tokens(Collection<List<Unit>> pages) {
+    int sum = 0;
+    for (List<Unit> page : pages) for (Unit u : page) sum += u.tokens();
+    return sum;
+  }
+
+  private static DistributionSummary evidenceTokens(MeterRegistry meters, String form) {
+    return DistributionSummary.builder("nlp.evidence.tokens")
+        .description("Evidence tokens per document before chunking")
+        .baseUnit("tokens")
+        .tag("form", form)
+        .register(meters);
+  }
+
+  /** A WORD whose text is already rendered by its LINE, table cell or form field. */
+  private static boolean coveredWord(BlockGraph graph, int i) {
+    if (graph.block(i).getType() != TextractBlockType.WORD) return false;
+    int p = graph.parentOf(i);
+    if (p < 0) return false;
+    TextractBlockType parent = graph.block(p).getType();
+    return parent == TextractBlockType.LINE
+        || parent == TextractBlockType.KEY_VALUE_SET
+        || (parent.isCell() && graph.tableOf(p) >= 0);
+  }
+
+  private List<Unit> splitLines(Unit u, int budget) {
+    List<Unit> parts = new ArrayList<>();
+    StringBuilder part = new StringBuilder();
+    int tokens = 0;
+    for (String line : u.text().split("\n")) {
+      int t = countTokens(line) + 1;
+      if (tokens + t > budget && part.length() > 0) {
+        parts.add(new Unit(part.toString().stripTrailing(), tokens));
+        part.setLength(0);
+        tokens = 0;
+      }
+      part.append(line).append('\n');
+      tokens += t;
+    }
+    if (part.length() > 0) parts.add(new Unit(part.toString().stripTrailing(), tokens));
+    return parts;
+  }
+
+  private Unit unit(String text) {
+    return new Unit(text, countTokens(text) + 1);
+  }
+
+  private Encoding encoding() {
+    Encoding e = encoding;
+    if (e == null) {
+      e =
+          registry
+              .getEncodingForModel(tokenizerModel)
+              .orElseGet(() -> registry.getEncoding(EncodingType.O200K_BASE));
+      encoding = e;
+    }
+    return e;
+  }
+}
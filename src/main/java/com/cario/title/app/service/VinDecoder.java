@@ -0,0 +1,184 @@
+package com.cario.title.app.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.*;
+
+/**
+ * Offline VIN validation, OCR repair and decoding.
+ *
+ * <ul>
+ *   <li><b>Validation</b>: ISO 3779 / 49 CFR 565 check digit (position 9).
+ *   <li><b>Repair</b>: only characters that cannot stand where they are. {@code I}, {@code O}
+ *       and {@code Q} never occur in a VIN and are read as {@code 1}, {@code 0} and {@code 0};
+ *       {@code S}/{@code B} in the check digit or the numeric serial positions 14-17 are read as
+ *       {@code 5}/{@code 8}. A character valid at its position is never changed, so a repaired VIN
+ *       is returned only if it then passes the check digit.
+ *   <li><b>Decoding</b>: model year from position 10 (the later 30-year cycle unless it lies in
+ *       the future or position 7 is numeric), make and manufacturer from the embedded WMI table
+ *       {@code vin/wmi.csv}, country from the first characters.
+ * </ul>
+ */
+public final class VinDecoder {
+
+  private VinDecoder() {}
+
+  /** A check-digit-valid VIN and what it says; {@code make} and others may be {@code null}. */
+  public record Vin(
+      String value,
+      boolean repaired,
+      Integer modelYear,
+      String make,
+      String manufacturer,
+      String country) {}
+
+  private static final int[] WEIGHTS = {8, 7, 6, 5, 4, 3, 2, 10, 0, 9, 8, 7, 6, 5, 4, 3, 2};
+
+  /** Position 10 codes in cycle order: index {@code i} is model year 1980+i or 2010+i. */
+  private static final String YEAR_CODES = "ABCDEFGHJKLMNPRSTVWXY123456789";
+
+  private static final Map<String, String[]> WMI = loadWmi("/vin/wmi.csv");
+
+  /**
+   * Validates {@code candidate} (case, spaces and dashes ignored), repairing OCR confusions if
+   * needed.
+   *
+   * @return the decoded VIN, or {@code null} if it is not 17 characters or fails the check digit
+   *     after repair
+   */
+  public static Vin decode(String candidate) {
+    if (candidate == null) return null;
+    String normalized = candidate.toUpperCase(Locale.ROOT).replaceAll("[\\s-]", "");
+    if (normalized.length() != 17) return null;
+
+    char[] c = normalized.toCharArray();
+    boolean repaired = false;
+    for (int i = 0; i < c.length; i++) {
+      char fixed =
+          switch (c[i]) {
+            case 'I' -> '1';
+            case 'O', 'Q' -> '0';
+            default -> allowedAt(i, c[i]) ? c[i] : digitFor(c[i]);
+          };
+      if (fixed != c[i]) {
+        c[i] = fixed;
+        repaired = true;
+      }
+      if (value(c[i]) < 0) return null;
+    }
+
+    return isValid(c) ? decoded(new String(c), repaired) : null;
+  }
+
+  /** Whether {@code vin} is 17 valid VIN characters with a correct check digit. */
+  public static boolean isValid(String vin) {
+    return vin != null && vin.length() == 17 && isValid(vin.toCharArray());
+  }
+
+  /** Model year for position 10 code {@code code}, given position 7; {@code null} if invalid. */
+  static Integer modelYear(char code, char position7) {
+    int i = YEAR_CODES.indexOf(code);
+    if (i < 0) return null;
+    int later = 2010 + i;
+    boolean future = later > Year.now().getValue() + 1;
+    return future || Character.isDigit(position7) ? 1980 + i : later;
+  }
+
+  // ------------------ Internals ------------------
+
+  private static Vin decoded(String vin, boolean repaired) {
+    String[] wmi = WMI.get(vin.substring(0, 3));
+    return new Vin(
+        vin,
+        repaired,
+        modelYear(vin.charAt(9), vin.charAt(6)),
+        wmi == null || wmi[0].isEmpty() ? null : wmi[0],
+        wmi == null ? null : wmi[1],
+        country(vin));
+  }
+
+  private static boolean isValid(char[] c) {
+    int sum = 0;
+    for (int i = 0; i < 17; i++) {
+      int v = value(c[i]);
+      if (v < 0) return false;
+      sum += v * WEIGHTS[i];
+    }
+    int check = sum % 11;
+    return c[8] == (check == 10 ? 'X' : (char) ('0' + check));
+  }
+
+  /** Transliterated value of a VIN character, or {@code -1} if it cannot occur in a VIN. */
+  private static int value(char c) {
+    if (c >= '0' && c <= '9') return c - '0';
+    return switch (c) {
+      case 'A', 'J' -> 1;
+      case 'B', 'K', 'S' -> 2;
+      case 'C', 'L', 'T' -> 3;
+      case 'D', 'M', 'U' -> 4;
+      case 'E', 'N', 'V' -> 5;
+      case 'F', 'W' -> 6;
+      case 'G', 'P', 'X' -> 7;
+      case 'H', 'Y' -> 8;
+      case 'R', 'Z' -> 9;
+      default -> -1;
+    };
+  }
+
+  /** Whether {@code c} may stand at 0-based {@code index}. */
+  private static boolean allowedAt(int index, char c) {
+    if (index == 8) return Character.isDigit(c) || c == 'X';
+    if (index == 9) return YEAR_CODES.indexOf(c) >= 0;
+    if (index >= 13) return Character.isDigit(c);
+    return true;
+  }
+
+  /** The digit OCR commonly reads as {@code c}, or {@code c} itself. */
+  private static char digitFor(char c) {
+    return switch (c) {
+      case 'S' -> '5';
+      case 'B' -> '8';
+      default -> c;
+    };
+  }
+
+  private static String country(String vin) {
+    char a = vin.charAt(0);
+    char b = vin.charAt(1);
+    return switch (a) {
+      case '1', '4', '5' -> "United States";
+      case '2' -> "Canada";
+      case '3' -> b <= 'W' && Character.isLetter(b) ? "Mexico" : null;
+      case 'J' -> "Japan";
+      case 'K' -> b >= 'L' && b <= 'R' ? "South Korea" : null;
+      case 'L' -> "China";
+      case 'S' -> b >= 'A' && b <= 'M' ? "United Kingdom" : null;
+      case 'W' -> "Germany";
+      case 'Y' -> b >= 'S' && b <= 'W' ? "Sweden" : null;
+      case 'Z' -> b >= 'A' && b <= 'R' ? "Italy" : null;
+      default -> null;
+    };
+  }
+
+  private static Map<String, String[]> loadWmi(String resource) {
+    Map<String, String[]> table = new HashMap<>();
+    try (InputStream in = VinDecoder.class.getResourceAsStream(resource)) {
+      if (in == null) throw new IllegalStateException("Missing WMI table " + resource);
+      BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      for (String line; (line = reader.readLine()) != null; ) {
+        if (line.isBlank() || line.startsWith("#")) continue;
+        String[] cols = line.split(",", 3);
+        if (cols.length < 3) continue;
+        table.put(cols[0].trim(), new String[] {cols[1].trim(), cols[2].trim()});
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read WMI table " + resource, e);
+    }
+    return Map.copyOf(table);
+  }
+}
@@ -0,0 +1,117 @@
+package com.cario.title.app.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Aho-Corasick automaton over a fixed set of ASCII keywords: finds every occurrence of every
+ * keyword in one left-to-right pass, whatever the number of keywords.
+ *
+ * <p>The automaton is compiled into a dense transition table over the 128 ASCII characters;
+ * non-ASCII input characters reset it to the root (no keyword contains them). Immutable and
+ * thread-safe once built.
+ */
+public final class AhoCorasick {
+
+  private static final int ALPHABET = 128;
+
+  /** Receives each match: index of the keyword in the build list and its start offset. */
+  @FunctionalInterface
+  public interface MatchConsumer {
+    void onMatch(int keyword, int start);
+  }
+
+  private final int[][] next;
+  private final int[][] outputs;
+  private final int[] lengths;
+
+  private AhoCorasick(int[][] next, int[][] outputs, int[] lengths) {
+    this.next = next;
+    this.outputs = outputs;
+    this.lengths = lengths;
+  }
+
+  /** Builds the automaton; keywords are matched case-sensitively. */
+  public static AhoCorasick of(List<String> keywords) {
+    Objects.requireNonNull(keywords, "keywords must not be null");
+
+    // trie
+    List<int[]> trie = new ArrayList<>();
+    List<List<Integer>> out = new ArrayList<>();
+    trie.add(newState());
+    out.add(new ArrayList<>());
+    int[] lengths = new int[keywords.size()];
+    for (int k = 0; k < keywords.size(); k++) {
+      String word = keywords.get(k);
+      if (word == null || word.isEmpty()) {
+        throw new IllegalArgumentException("Keywords must not be empty");
+      }
+      lengths[k] = word.length();
+      int s = 0;
+      for (int i = 0; i < word.length(); i++) {
+        char c = word.charAt(i);
+        if (c >= ALPHABET) throw new IllegalArgumentException("Non-ASCII keyword: " + word);
+        if (trie.get(s)[c] < 0) {
+          trie.get(s)[c] = trie.size();
+          trie.add(newState());
+          out.add(new ArrayList<>());
+        }
+        s = trie.get(s)[c];
+      }
+      out.get(s).add(k);
+    }
+
+    // failure links, breadth first, folded into a complete transition table
+    int[] fail = new int[trie.size()];
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    int[] root = trie.get(0);
+    for (int c = 0; c < ALPHABET; c++) {
+      if (root[c] < 0) {
+        root[c] = 0;
+      } else {
+        fail[root[c]] = 0;
+        queue.add(root[c]);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int s = queue.poll();
+      out.get(s).addAll(out.get(fail[s]));
+      int[] row = trie.get(s);
+      for (int c = 0; c < ALPHABET; c++) {
+        int t = row[c];
+        if (t < 0) {
+          row[c] = trie.get(fail[s])[c];
+        } else {
+          fail[t] = trie.get(fail[s])[c];
+          queue.add(t);
+        }
+      }
+    }
+
+    int[][] next = trie.toArray(new int[0][]);
+    int[][] outputs = new int[out.size()][];
+    for (int s = 0; s < outputs.length; s++) {
+      outputs[s] = out.get(s).stream().mapToInt(Integer::intValue).toArray();
+    }
+    return new AhoCorasick(next, outputs, lengths);
+  }
+
+  /** Reports every keyword occurrence in {@code text}, in order of end offset. */
+  public void scan(CharSequence text, MatchConsumer consumer) {
+    int s = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      s = c < ALPHABET ? next[s][c] : 0;
+      for (int k : outputs[s]) consumer.onMatch(k, i - lengths[k] + 1);
+    }
+  }
+
+  private static int[] newState() {
+    int[] row = new int[ALPHABET];
+    Arrays.fill(row, -1);
+    return row;
+  }
+}
@@ -0,0 +1,51 @@
+package com.cario.title.app.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 content hashes of input documents and the artifact keys derived from them.
+ *
+ * <p>Results (Textract JSON, {@code textract_index} rows, business JSON) are stored under {@link
+ * #resultKey}, so identical bytes uploaded under different S3 keys share one set of results.
+ */
+public final class ContentHashUtils {
+
+  /** S3 user-metadata key holding the hex SHA-256 of the object body. */
+  public static final String METADATA_KEY = "content-sha256";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private ContentHashUtils() {}
+
+  public static String sha256Hex(byte[] bytes) {
+    return HexFormat.of().formatHex(newDigest().digest(bytes));
+  }
+
+  /** Hashes {@code in} to the end of the stream; the caller closes it. */
+  public static String sha256Hex(InputStream in) throws IOException {
+    MessageDigest digest = newDigest();
+    byte[] buf = new byte[BUFFER_SIZE];
+    for (int n; (n = in.read(buf)) != -1; ) digest.update(buf, 0, n);
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Content-addressed key for a document's results, e.g. {@code sha256/ab12...}; prefixed by the
+   * Textract or OpenAI output prefix and used as {@code doc_id} in {@code textract_index}.
+   */
+  public static String resultKey(String contentHash) {
+    return "sha256/" + contentHash;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
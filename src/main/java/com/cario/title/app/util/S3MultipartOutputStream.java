@@ -0,0 +1,171 @@
+package com.cario.title.app.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+/**
+ * {@link OutputStream} that uploads to S3 as a multipart upload, holding at most one part in
+ * memory. Small payloads (below one part) are written with a single {@code PutObject} on close.
+ *
+ * <p>{@link #close()} completes the upload; call {@link #abort()} instead when the producer fails
+ * so no orphaned parts are left behind.
+ */
+public final class S3MultipartOutputStream extends OutputStream {
+  private static final Logger log = LoggerFactory.getLogger(S3MultipartOutputStream.class);
+
+  /** S3 minimum part size (except for the last part). */
+  public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+  private final S3Client s3;
+  private final String bucket;
+  private final String key;
+  private final String contentType;
+  private final byte[] buffer;
+  private final List<CompletedPart> parts = new ArrayList<>();
+
+  private int position;
+  private String uploadId;
+  private long totalBytes;
+  private boolean closed;
+
+  public S3MultipartOutputStream(
+      S3Client s3, String bucket, String key, String contentType, int partSize) {
+    if (s3 == null) throw new IllegalArgumentException("s3Client is null");
+    this.s3 = s3;
+    this.bucket = bucket;
+    this.key = key;
+    this.contentType = contentType;
+    this.buffer = new byte[Math.max(MIN_PART_SIZE, partSize)];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (position == buffer.length) flushPart();
+    buffer[position++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    while (len > 0) {
+      if (position == buffer.length) flushPart();
+      int n = Math.min(len, buffer.length - position);
+      System.arraycopy(b, off, buffer, position, n);
+      position += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /** Total bytes written so far. */
+  public long size() {
+    return totalBytes + position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    closed = true;
+    try {
+      if (uploadId == null) {
+        // everything fit into one buffer: a plain put is cheaper than a multipart round trip
+        s3.putObject(
+            PutObjectRequest.builder().bucket(bucket).key(key).contentType(contentType).build(),
+            currentBuffer());
+        totalBytes += position;
+        position = 0;
+        return;
+      }
+      if (position > 0) uploadPart();
+      s3.completeMultipartUpload(
+          CompleteMultipartUploadRequest.builder()
+              .bucket(bucket)
+              .key(key)
+              .uploadId(uploadId)
+              .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+              .build());
+      log.info(
+          "s3.multipart completed s3://{}/{} parts={} bytes={}",
+          bucket,
+          key,
+          parts.size(),
+          totalBytes);
+    } catch (RuntimeException e) {
+      abortQuietly();
+      throw new IOException("Failed to complete upload to s3://" + bucket + "/" + key, e);
+    }
+  }
+
+  /** Abandon the upload, discarding any parts already sent. */
+  public void abort() {
+    if (closed) return;
+    closed = true;
+    abortQuietly();
+  }
+
+  // ------------------ Internals ------------------
+
+  private void flushPart() throws IOException {
+    try {
+      if (uploadId == null) {
+        uploadId =
+            s3.createMultipartUpload(
+                    CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(contentType)
+                        .build())
+                .uploadId();
+      }
+      uploadPart();
+    } catch (RuntimeException e) {
+      abort();
+      throw new IOException("Failed to upload part to s3://" + bucket + "/" + key, e);
+    }
+  }
+
+  private void uploadPart() {
+    int partNumber = parts.size() + 1;
+    UploadPartResponse resp =
+        s3.uploadPart(
+            UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) position)
+                .build(),
+            currentBuffer());
+    parts.add(CompletedPart.builder().partNumber(partNumber).eTag(resp.eTag()).build());
+    totalBytes += position;
+    position = 0;
+  }
+
+  /** Wraps the buffered bytes without copying; the SDK consumes them before we write again. */
+  private RequestBody currentBuffer() {
+    return RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, position), position);
+  }
+
+  private void abortQuietly() {
+    if (uploadId == null) return;
+    try {
+      s3.abortMultipartUpload(
+          AbortMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId).build());
+    } catch (S3Exception ex) {
+      log.warn("s3.multipart abort failed s3://{}/{} msg={}", bucket, key, ex.getMessage());
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) throw new IOException("Stream closed");
+  }
+}
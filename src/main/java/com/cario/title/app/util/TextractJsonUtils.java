@@ -0,0 +1,412 @@
+package com.cario.title.app.util;
+
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import com.cario.title.app.model.TextractDocument;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.util.*;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BoundingBox;
+import software.amazon.awssdk.services.textract.model.Geometry;
+import software.amazon.awssdk.services.textract.model.Point;
+import software.amazon.awssdk.services.textract.model.Query;
+import software.amazon.awssdk.services.textract.model.Relationship;
+
+/**
+ * Conversions between AWS SDK {@link Block}s, the stored Textract JSON and {@link
+ * TextractDocument}, in both directions.
+ *
+ * <p>The JSON layout is the one written to the Textract output prefix: an array of blocks using
+ * Textract's PascalCase attribute names ({@code BlockType}, {@code Confidence}, {@code
+ * Relationships}, ...). Documents wrapped in a Textract response envelope ({@code {"Blocks":
+ * [...]}}) are read as well.
+ */
+public final class TextractJsonUtils {
+
+  private TextractJsonUtils() {}
+
+  // ------------------ SDK -> model ------------------
+
+  /** Converts SDK blocks (e.g. one {@code AnalyzeDocument} response) into a document. */
+  public static TextractDocument fromSdk(List<Block> blocks) {
+    TextractDocument.Builder doc = TextractDocument.builder(blocks.size());
+    for (Block b : blocks) {
+      TextractBlockType type = TextractBlockType.of(b.blockTypeAsString());
+      TextractBlock.TextractBlockBuilder tb =
+          TextractBlock.builder()
+              .type(type)
+              .unknownTypeName(type == TextractBlockType.UNKNOWN ? b.blockTypeAsString() : null)
+              .text(b.text())
+              .selectionStatus(b.selectionStatusAsString());
+      if (b.confidence() != null) tb.confidence(b.confidence());
+      if (b.page() != null) tb.page(b.page());
+      if (b.rowIndex() != null) tb.rowIndex(b.rowIndex());
+      if (b.columnIndex() != null) tb.columnIndex(b.columnIndex());
+      if (b.rowSpan() != null) tb.rowSpan(b.rowSpan());
+      if (b.columnSpan() != null) tb.columnSpan(b.columnSpan());
+      if (b.hasEntityTypes() && !b.entityTypes().isEmpty()) {
+        tb.entityTypes(List.copyOf(b.entityTypesAsStrings()));
+      }
+      if (b.query() != null) {
+        tb.queryText(b.query().text()).queryAlias(b.query().alias());
+      }
+      if (b.geometry() != null) {
+        BoundingBox bb = b.geometry().boundingBox();
+        if (bb != null) {
+          tb.left(floatOrNaN(bb.left()))
+              .top(floatOrNaN(bb.top()))
+              .width(floatOrNaN(bb.width()))
+              .height(floatOrNaN(bb.height()));
+        }
+        if (b.geometry().hasPolygon()) {
+          List<Point> points = b.geometry().polygon();
+          float[] poly = new float[points.size() * 2];
+          for (int i = 0; i < points.size(); i++) {
+            poly[2 * i] = floatOrNaN(points.get(i).x());
+            poly[2 * i + 1] = floatOrNaN(points.get(i).y());
+          }
+          tb.polygon(poly);
+        }
+      }
+
+      doc.add(b.id(), tb, relationshipIdsByType(b));
+    }
+    return doc.build();
+  }
+
+  // ------------------ JSON -> model ------------------
+
+  /** Reads a parsed Textract JSON tree: either a block array or an object with {@code Blocks}. */
+  public static TextractDocument fromJson(JsonNode root) {
+    JsonNode array = root == null ? null : root.isArray() ? root : root.get("Blocks");
+    if (array == null || !array.isArray()) return TextractDocument.empty();
+
+    TextractDocument.Builder doc = TextractDocument.builder(array.size());
+    for (JsonNode n : array) {
+      if (n.isObject()) addBlock(doc, n);
+    }
+    return doc.build();
+  }
+
+  /**
+   * Streams Textract JSON from {@code parser}, which must have an {@code ObjectCodec} (i.e. be
+   * created by an {@code ObjectMapper}). The top-level token decides the layout: a block array,
+   * or an object whose {@code Blocks} array is read while other members are skipped. Blocks are
+   * converted one at a time, so only the current block is ever held as a tree.
+   */
+  public static TextractDocument fromJson(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+    if (token == JsonToken.START_ARRAY) return readBlocks(parser);
+    if (token != JsonToken.START_OBJECT) return TextractDocument.empty();
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if ("Blocks".equals(name) && value == JsonToken.START_ARRAY) return readBlocks(parser);
+      parser.skipChildren();
+    }
+    return TextractDocument.empty();
+  }
+
+  private static TextractDocument readBlocks(JsonParser parser) throws IOException {
+    TextractDocument.Builder doc = TextractDocument.builder(256);
+    for (JsonToken t; (t = parser.nextToken()) != JsonToken.END_ARRAY && t != null; ) {
+      if (t == JsonToken.START_OBJECT) {
+        addBlock(doc, parser.readValueAsTree());
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return doc.build();
+  }
+
+  private static void addBlock(TextractDocument.Builder doc, JsonNode n) {
+    String typeName = text(n, "BlockType");
+    TextractBlockType type = TextractBlockType.of(typeName);
+    TextractBlock.TextractBlockBuilder tb =
+        TextractBlock.builder()
+            .type(type)
+            .unknownTypeName(type == TextractBlockType.UNKNOWN ? typeName : null)
+            .text(text(n, "Text"))
+            .confidence(floatValue(n.get("Confidence")))
+            .page(n.path("Page").asInt(0))
+            .selectionStatus(text(n, "SelectionStatus"))
+            .rowIndex(n.path("RowIndex").asInt(0))
+            .columnIndex(n.path("ColumnIndex").asInt(0))
+            .rowSpan(n.path("RowSpan").asInt(0))
+            .columnSpan(n.path("ColumnSpan").asInt(0));
+
+    JsonNode entityTypes = n.get("EntityTypes");
+    if (entityTypes != null && entityTypes.isArray() && !entityTypes.isEmpty()) {
+      List<String> et = new ArrayList<>(entityTypes.size());
+      entityTypes.forEach(e -> et.add(e.asText()));
+      tb.entityTypes(List.copyOf(et));
+    }
+
+    JsonNode query = n.get("Query");
+    if (query != null && query.isObject()) {
+      tb.queryText(text(query, "Text")).queryAlias(text(query, "Alias"));
+    }
+
+    JsonNode geometry = n.get("Geometry");
+    if (geometry != null && geometry.isObject()) {
+      JsonNode bb = geometry.get("BoundingBox");
+      if (bb != null && bb.isObject()) {
+        tb.left(floatValue(bb.get("Left")))
+            .top(floatValue(bb.get("Top")))
+            .width(floatValue(bb.get("Width")))
+            .height(floatValue(bb.get("Height")));
+      }
+      JsonNode polygon = geometry.get("Polygon");
+      if (polygon != null && polygon.isArray()) {
+        float[] poly = new float[polygon.size() * 2];
+        for (int i = 0; i < polygon.size(); i++) {
+          poly[2 * i] = floatValue(polygon.get(i).get("X"));
+          poly[2 * i + 1] = floatValue(polygon.get(i).get("Y"));
+        }
+        tb.polygon(poly);
+      }
+    }
+
+    Map<String, List<String>> rels = null;
+    JsonNode relationships = n.get("Relationships");
+    if (relationships != null && relationships.isArray()) {
+      for (JsonNode r : relationships) {
+        JsonNode ids = r.get("Ids");
+        if (ids == null || !ids.isArray() || ids.isEmpty()) continue;
+        if (rels == null) rels = new LinkedHashMap<>(4);
+        List<String> target = rels.computeIfAbsent(text(r, "Type"), k -> new ArrayList<>());
+        ids.forEach(id -> target.add(id.asText()));
+      }
+    }
+    doc.add(text(n, "Id"), tb, rels);
+  }
+
+  // ------------------ model -> JSON ------------------
+
+  /** Writes every block of {@code doc} as one JSON array. */
+  public static void writeArray(JsonGenerator gen, TextractDocument doc) throws IOException {
+    gen.writeStartArray();
+    writeBlocks(gen, doc);
+    gen.writeEndArray();
+  }
+
+  /** Writes the blocks of {@code doc} as consecutive array elements (no enclosing array). */
+  public static void writeBlocks(JsonGenerator gen, TextractDocument doc) throws IOException {
+    for (int i = 0; i < doc.size(); i++) writeBlock(gen, doc.get(i), relationshipIdsByType(doc, i));
+  }
+
+  /**
+   * Writes SDK {@code blocks} as consecutive array elements (no enclosing array), keeping their
+   * relationship ids exactly as Textract returned them. Unlike converting through {@link #fromSdk}
+   * first, ids of blocks outside {@code blocks} (e.g. written by an earlier streaming window)
+   * survive.
+   */
+  public static void writeBlocks(JsonGenerator gen, List<Block> blocks) throws IOException {
+    TextractDocument doc = fromSdk(blocks);
+    for (int i = 0; i < blocks.size(); i++) {
+      writeBlock(gen, doc.get(i), relationshipIdsByType(blocks.get(i)));
+    }
+  }
+
+  private static void writeBlock(
+      JsonGenerator gen, TextractBlock b, Map<String, List<String>> relationships)
+      throws IOException {
+    gen.writeStartObject();
+    gen.writeStringField("BlockType", b.getTypeName());
+    if (b.hasConfidence()) gen.writeNumberField("Confidence", b.getConfidence());
+    if (b.getText() != null) gen.writeStringField("Text", b.getText());
+    if (b.getId() != null) gen.writeStringField("Id", b.getId());
+    if (b.getPage() > 0) gen.writeNumberField("Page", b.getPage());
+
+    if (b.hasBoundingBox() || b.getPolygon() != null) {
+      gen.writeObjectFieldStart("Geometry");
+      if (b.hasBoundingBox()) {
+        gen.writeObjectFieldStart("BoundingBox");
+        gen.writeNumberField("Width", b.getWidth());
+        gen.writeNumberField("Height", b.getHeight());
+        gen.writeNumberField("Left", b.getLeft());
+        gen.writeNumberField("Top", b.getTop());
+        gen.writeEndObject();
+      }
+      float[] poly = b.getPolygon();
+      if (poly != null) {
+        gen.writeArrayFieldStart("Polygon");
+        for (int i = 0; i + 1 < poly.length; i += 2) {
+          gen.writeStartObject();
+          gen.writeNumberField("X", poly[i]);
+          gen.writeNumberField("Y", poly[i + 1]);
+          gen.writeEndObject();
+        }
+        gen.writeEndArray();
+      }
+      gen.writeEndObject();
+    }
+
+    if (relationships != null) {
+      gen.writeArrayFieldStart("Relationships");
+      for (Map.Entry<String, List<String>> r : relationships.entrySet()) {
+        gen.writeStartObject();
+        gen.writeStringField("Type", r.getKey());
+        gen.writeArrayFieldStart("Ids");
+        for (String id : r.getValue()) gen.writeString(id);
+        gen.writeEndArray();
+        gen.writeEndObject();
+      }
+      gen.writeEndArray();
+    }
+
+    if (!b.getEntityTypes().isEmpty()) {
+      gen.writeArrayFieldStart("EntityTypes");
+      for (String et : b.getEntityTypes()) gen.writeString(et);
+      gen.writeEndArray();
+    }
+    if (b.getSelectionStatus() != null) {
+      gen.writeStringField("SelectionStatus", b.getSelectionStatus());
+    }
+    if (b.getRowIndex() > 0) gen.writeNumberField("RowIndex", b.getRowIndex());
+    if (b.getColumnIndex() > 0) gen.writeNumberField("ColumnIndex", b.getColumnIndex());
+    if (b.getRowSpan() > 0) gen.writeNumberField("RowSpan", b.getRowSpan());
+    if (b.getColumnSpan() > 0) gen.writeNumberField("ColumnSpan", b.getColumnSpan());
+    if (b.getQueryText() != null) {
+      gen.writeObjectFieldStart("Query");
+      gen.writeStringField("Text", b.getQueryText());
+      if (b.getQueryAlias() != null) gen.writeStringField("Alias", b.getQueryAlias());
+      gen.writeEndObject();
+    }
+    gen.writeEndObject();
+  }
+
+  // ------------------ model -> SDK ------------------
+
+  /** Converts a document back into SDK blocks (e.g. to serve stored results as API responses). */
+  public static List<Block> toSdk(TextractDocument doc) {
+    List<Block> out = new ArrayList<>(doc.size());
+    for (int i = 0; i < doc.size(); i++) {
+      TextractBlock b = doc.get(i);
+      Block.Builder sb =
+          Block.builder()
+              .blockType(b.getTypeName())
+              .id(b.getId())
+              .text(b.getText())
+              .selectionStatus(b.getSelectionStatus());
+      if (b.hasConfidence()) sb.confidence(b.getConfidence());
+      if (b.getPage() > 0) sb.page(b.getPage());
+      if (b.getRowIndex() > 0) sb.rowIndex(b.getRowIndex());
+      if (b.getColumnIndex() > 0) sb.columnIndex(b.getColumnIndex());
+      if (b.getRowSpan() > 0) sb.rowSpan(b.getRowSpan());
+      if (b.getColumnSpan() > 0) sb.columnSpan(b.getColumnSpan());
+      if (!b.getEntityTypes().isEmpty()) sb.entityTypesWithStrings(b.getEntityTypes());
+      if (b.getQueryText() != null) {
+        sb.query(Query.builder().text(b.getQueryText()).alias(b.getQueryAlias()).build());
+      }
+      if (b.hasBoundingBox() || b.getPolygon() != null) {
+        Geometry.Builder g = Geometry.builder();
+        if (b.hasBoundingBox()) {
+          g.boundingBox(
+              BoundingBox.builder()
+                  .width(b.getWidth())
+                  .height(b.getHeight())
+                  .left(b.getLeft())
+                  .top(b.getTop())
+                  .build());
+        }
+        float[] poly = b.getPolygon();
+        if (poly != null) {
+          List<Point> points = new ArrayList<>(poly.length / 2);
+          for (int p = 0; p + 1 < poly.length; p += 2) {
+            points.add(Point.builder().x(poly[p]).y(poly[p + 1]).build());
+          }
+          g.polygon(points);
+        }
+        sb.geometry(g.build());
+      }
+      if (b.getRelationships().length > 0) {
+        List<Relationship> rels = new ArrayList<>(b.getRelationships().length);
+        for (TextractBlock.Relationship r : b.getRelationships()) {
+          List<String> ids = new ArrayList<>(r.targets().length);
+          for (int t : r.targets()) ids.add(doc.get(t).getId());
+          rels.add(Relationship.builder().type(r.type()).ids(ids).build());
+        }
+        sb.relationships(rels);
+      }
+      out.add(sb.build());
+    }
+    return out;
+  }
+
+  // ------------------ Metadata helpers ------------------
+
+  /** Bounding box as a small map (for JSONB metadata), or {@code null} if the block has none. */
+  public static Map<String, Float> boundingBox(TextractBlock b) {
+    if (!b.hasBoundingBox()) return null;
+    Map<String, Float> bb = new LinkedHashMap<>(8);
+    bb.put("Width", b.getWidth());
+    bb.put("Height", b.getHeight());
+    bb.put("Left", b.getLeft());
+    bb.put("Top", b.getTop());
+    return bb;
+  }
+
+  /** Relationships of block {@code index} with targets mapped back to Textract ids. */
+  public static List<Map<String, Object>> relationshipIds(TextractDocument doc, int index) {
+    TextractBlock.Relationship[] rels = doc.get(index).getRelationships();
+    if (rels.length == 0) return List.of();
+    List<Map<String, Object>> out = new ArrayList<>(rels.length);
+    for (TextractBlock.Relationship r : rels) {
+      List<String> ids = new ArrayList<>(r.targets().length);
+      for (int t : r.targets()) ids.add(doc.get(t).getId());
+      out.add(Map.of("Type", r.type(), "Ids", ids));
+    }
+    return out;
+  }
+
+  // ------------------ Internals ------------------
+
+  /** Relationship type to target ids of block {@code index}, or {@code null} if it has none. */
+  private static Map<String, List<String>> relationshipIdsByType(TextractDocument doc, int index) {
+    TextractBlock.Relationship[] rels = doc.get(index).getRelationships();
+    if (rels.length == 0) return null;
+    Map<String, List<String>> out = new LinkedHashMap<>(4);
+    for (TextractBlock.Relationship r : rels) {
+      List<String> ids = out.computeIfAbsent(r.type(), k -> new ArrayList<>(r.targets().length));
+      for (int t : r.targets()) ids.add(doc.get(t).getId());
+    }
+    return out;
+  }
+
+  /** Relationship type to target ids of an SDK block, or {@code null} if it has none. */
+  private static Map<String, List<String>> relationshipIdsByType(Block b) {
+    if (!b.hasRelationships()) return null;
+    Map<String, List<String>> out = null;
+    for (Relationship r : b.relationships()) {
+      if (r.ids() == null || r.ids().isEmpty()) continue;
+      if (out == null) out = new LinkedHashMap<>(4);
+      out.computeIfAbsent(r.typeAsString(), k -> new ArrayList<>()).addAll(r.ids());
+    }
+    return out;
+  }
+
+  private static String text(JsonNode n, String field) {
+    JsonNode v = n.get(field);
+    return v == null || v.isNull() ? null : v.asText();
+  }
+
+  private static float floatValue(JsonNode v) {
+    if (v == null || v.isNull()) return Float.NaN;
+    if (v.isNumber()) return v.floatValue();
+    try {
+      return Float.parseFloat(v.asText());
+    } catch (NumberFormatException e) {
+      return Float.NaN;
+    }
+  }
+
+  private static float floatOrNaN(Float f) {
+    return f == null ? Float.NaN : f;
+  }
+}
@@ -0,0 +1,106 @@
+package com.cario.title.app.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class BlockGraphTest {
+
+  @Test
+  void tableCellsAreOrderedByRowThenColumn() {
+    // children listed out of order: (2,1) (1,2) (1,1) (2,2)
+    TextractDocument doc =
+        TextractDocument.builder(5)
+            .add("t", table(), children("a", "b", "c", "d"))
+            .add("a", cell(2, 1), null)
+            .add("b", cell(1, 2), null)
+            .add("c", cell(1, 1), null)
+            .add("d", cell(2, 2), null)
+            .build();
+    BlockGraph graph = BlockGraph.of(doc);
+
+    assertArrayEquals(new int[] {3, 2, 1, 4}, graph.cellsOf(0));
+    assertEquals(0, graph.tableOf(1));
+    assertEquals(-1, graph.tableOf(0));
+    assertArrayEquals(new int[0], graph.cellsOf(1));
+  }
+
+  @Test
+  void tableCellsOrderRowsNumericallyNotByIndex() {
+    TextractDocument doc =
+        TextractDocument.builder(3)
+            .add("t", table(), children("a", "b"))
+            .add("a", cell(10, 1), null)
+            .add("b", cell(9, 3), null)
+            .build();
+    assertArrayEquals(new int[] {2, 1}, BlockGraph.of(doc).cellsOf(0));
+  }
+
+  @Test
+  void ofTypesMergesBucketsBackIntoDocumentOrder() {
+    TextractDocument doc =
+        TextractDocument.builder(5)
+            .add("p", TextractBlock.builder().type(TextractBlockType.PAGE), null)
+            .add("l1", word(TextractBlockType.LINE, "A", 90f), null)
+            .add("w1", word(TextractBlockType.WORD, "A", 90f), null)
+            .add("l2", word(TextractBlockType.LINE, "B", 90f), null)
+            .add("w2", word(TextractBlockType.WORD, "B", 90f), null)
+            .build();
+    BlockGraph graph = BlockGraph.of(doc);
+
+    assertArrayEquals(new int[] {1, 3}, graph.ofType(TextractBlockType.LINE));
+    assertArrayEquals(
+        new int[] {1, 2, 3, 4}, graph.ofTypes(TextractBlockType.WORD, TextractBlockType.LINE));
+    assertArrayEquals(new int[0], graph.ofType(TextractBlockType.TABLE));
+  }
+
+  @Test
+  void childTextJoinsWordsAndCheckboxesInOrder() {
+    TextractDocument doc =
+        TextractDocument.builder(4)
+            .add("l", word(TextractBlockType.LINE, "ignored", 50f), children("w1", "s", "w2"))
+            .add("w1", word(TextractBlockType.WORD, " SALVAGE ", 80f), null)
+            .add(
+                "s",
+                TextractBlock.builder()
+                    .type(TextractBlockType.SELECTION_ELEMENT)
+                    .selectionStatus("SELECTED")
+                    .confidence(99f),
+                null)
+            .add("w2", word(TextractBlockType.WORD, "TITLE", 90f), null)
+            .build();
+    BlockGraph graph = BlockGraph.of(doc);
+
+    assertEquals("SALVAGE Checkbox:SELECTED TITLE", graph.childText(0));
+    // mean of the WORD children only; the checkbox does not count
+    assertEquals(85f, graph.wordConfidence(0), 1e-4);
+    assertEquals("", graph.childText(1));
+    assertEquals(80f, graph.wordConfidence(1), 1e-4);
+  }
+
+  // ------------------ Internals ------------------
+
+  private static TextractBlock.TextractBlockBuilder table() {
+    return TextractBlock.builder().type(TextractBlockType.TABLE).confidence(90f);
+  }
+
+  private static TextractBlock.TextractBlockBuilder cell(int row, int column) {
+    return TextractBlock.builder()
+        .type(TextractBlockType.CELL)
+        .rowIndex(row)
+        .columnIndex(column)
+        .confidence(90f);
+  }
+
+  private static TextractBlock.TextractBlockBuilder word(
+      TextractBlockType type, String text, float confidence) {
+    return TextractBlock.builder().type(type).text(text).confidence(confidence);
+  }
+
+  private static Map<String, List<String>> children(String... ids) {
+    return Map.of("CHILD", List.of(ids));
+  }
+}
@@ -0,0 +1,111 @@
+package com.cario.title.app.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TextractDocumentTest {
+
+  /** LINE l1 with words w1 (95) and w2 (40), LINE l2 (60) with word w3 (90). */
+  private static TextractDocument lines() {
+    return TextractDocument.builder(5)
+        .add("l1", block(TextractBlockType.LINE, "VIN 1HG", 90f), children("w1", "w2"))
+        .add("w1", block(TextractBlockType.WORD, "VIN", 95f), null)
+        .add("w2", block(TextractBlockType.WORD, "1HG", 40f), null)
+        .add("l2", block(TextractBlockType.LINE, "MAKE", 60f), children("w3"))
+        .add("w3", block(TextractBlockType.WORD, "MAKE", 90f), null)
+        .build();
+  }
+
+  @Test
+  void builderResolvesIdsToIndexesAndParents() {
+    TextractDocument doc = lines();
+    assertArrayEquals(new int[] {1, 2}, doc.get(0).children());
+    assertEquals(0, doc.parentOf(1));
+    assertEquals(0, doc.parentOf(2));
+    assertEquals(3, doc.parentOf(4));
+    assertEquals(-1, doc.parentOf(0));
+  }
+
+  @Test
+  void builderDropsIdsOutsideTheDocument() {
+    TextractDocument doc =
+        TextractDocument.builder(1)
+            .add("l1", block(TextractBlockType.LINE, "X", 90f), children("missing"))
+            .build();
+    assertEquals(0, doc.get(0).getRelationships().length);
+  }
+
+  @Test
+  void minConfidenceDropsBlocksAndRelationshipsToThem() {
+    TextractDocument filtered = lines().withMinConfidence(70f);
+
+    assertEquals(3, filtered.size());
+    assertEquals(List.of("l1", "w1", "w3"), ids(filtered));
+    // w2 is gone from l1's children, l2 is gone so w3 has no parent
+    assertArrayEquals(new int[] {1}, filtered.get(0).children());
+    assertEquals(0, filtered.parentOf(1));
+    assertEquals(-1, filtered.parentOf(2));
+  }
+
+  @Test
+  void minConfidenceIsInclusive() {
+    assertEquals(List.of("l1", "w1", "l2", "w3"), ids(lines().withMinConfidence(60f)));
+  }
+
+  @Test
+  void minConfidenceDropsBlocksWithoutConfidence() {
+    TextractDocument doc =
+        TextractDocument.builder(2)
+            .add("p", TextractBlock.builder().type(TextractBlockType.PAGE), children("l"))
+            .add("l", block(TextractBlockType.LINE, "X", 99f), null)
+            .build();
+    TextractDocument filtered = doc.withMinConfidence(0f);
+    assertEquals(List.of("l"), ids(filtered));
+    assertEquals(-1, filtered.parentOf(0));
+  }
+
+  @Test
+  void minConfidenceReturnsSameDocumentWhenEverythingIsKept() {
+    TextractDocument doc = lines();
+    assertSame(doc, doc.withMinConfidence(40f));
+  }
+
+  @Test
+  void minConfidenceReturnsEmptyWhenNothingIsKept() {
+    TextractDocument filtered = lines().withMinConfidence(99.5f);
+    assertTrue(filtered.isEmpty());
+    assertSame(TextractDocument.empty(), filtered);
+  }
+
+  @Test
+  void confidenceStatsSkipBlocksWithoutConfidence() {
+    TextractDocument doc =
+        TextractDocument.builder(2)
+            .add("p", TextractBlock.builder().type(TextractBlockType.PAGE), null)
+            .add("l", block(TextractBlockType.LINE, "X", 80f), null)
+            .build();
+    assertEquals(1, doc.confidenceStats().getCount());
+    assertEquals(80.0, doc.confidenceStats().getAverage(), 1e-6);
+  }
+
+  // ------------------ Internals ------------------
+
+  private static TextractBlock.TextractBlockBuilder block(
+      TextractBlockType type, String text, float confidence) {
+    return TextractBlock.builder().type(type).text(text).confidence(confidence);
+  }
+
+  private static Map<String, List<String>> children(String... ids) {
+    return Map.of("CHILD", List.of(ids));
+  }
+
+  private static List<String> ids(TextractDocument doc) {
+    return doc.blocks().stream().map(TextractBlock::getId).toList();
+  }
+}
@@ -0,0 +1,191 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class EmbeddingCacheTest {
+
+  private JdbcTemplate jdbc;
+  private SimpleMeterRegistry meters;
+  private EmbeddingCache cache;
+
+  /** Texts handed to the embedder, one list per call. */
+  private final List<List<String>> embedded = new ArrayList<>();
+
+  /** Embeds a text as {@code [length, first char]}. */
+  private final Function<List<String>, List<float[]>> embedder =
+      texts -> {
+        embedded.add(texts);
+        return texts.stream().map(t -> new float[] {t.length(), t.charAt(0)}).toList();
+      };
+
+  @BeforeEach
+  void setUp() {
+    jdbc = mock(JdbcTemplate.class);
+    meters = new SimpleMeterRegistry();
+    cache = cache(100);
+  }
+
+  @Test
+  void eachDistinctTextIsEmbeddedOnceAndThenServedFromMemory() {
+    List<float[]> first = cache.embed(List.of("OWNER", "LIEN", "OWNER"), embedder);
+
+    assertEquals(List.of(List.of("OWNER", "LIEN")), embedded);
+    assertArrayEquals(new float[] {5, 'O'}, first.get(0));
+    assertArrayEquals(new float[] {4, 'L'}, first.get(1));
+    assertSame(first.get(0), first.get(2));
+
+    List<float[]> second = cache.embed(List.of("LIEN", "OWNER"), embedder);
+    assertEquals(1, embedded.size());
+    assertSame(first.get(1), second.get(0));
+    assertEquals(2.0, counter("embedding.cache.hits", "memory"));
+    assertEquals(2.0, meters.get("embedding.cache.misses").counter().count());
+  }
+
+  @Test
+  void whitespaceAndUnicodeFormsShareAnEntry() {
+    cache.embed("FIRST  LIEN\n", embedder);
+    cache.embed(" FIRST LIEN", embedder);
+    // precomposed and combining e-acute normalize to the same NFC text
+    cache.embed("CR\u00c9DIT", embedder);
+    cache.embed("CRE\u0301DIT", embedder);
+
+    assertEquals(List.of(List.of("FIRST  LIEN\n"), List.of("CR\u00c9DIT")), embedded);
+  }
+
+  @Test
+  void postgresHitsSkipTheEmbedderAndFillMemory() throws Exception {
+    String[] hash = new String[1];
+    ResultSet row = mock(ResultSet.class);
+    when(row.getString("text_hash")).thenAnswer(call -> hash[0]);
+    when(row.getString("v")).thenReturn("[1.0,2.0]");
+    doAnswer(
+            call -> {
+              // the key asked for is stored
+              hash[0] = onlyKey(call.getArgument(1));
+              RowCallbackHandler handler = call.getArgument(2);
+              handler.processRow(row);
+              return null;
+            })
+        .when(jdbc)
+        .query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+    assertArrayEquals(new float[] {1f, 2f}, cache.embed("ODOMETER", embedder));
+    assertArrayEquals(new float[] {1f, 2f}, cache.embed("ODOMETER", embedder));
+
+    assertEquals(List.of(), embedded);
+    assertEquals(1.0, counter("embedding.cache.hits", "postgres"));
+    assertEquals(1.0, counter("embedding.cache.hits", "memory"));
+    verify(jdbc, never()).batchUpdate(anyString(), anyList(), anyInt(), any());
+  }
+
+  @Test
+  void freshEmbeddingsAreStoredInPostgres() {
+    cache.embed(List.of("VIN", "MAKE"), embedder);
+
+    verify(jdbc)
+        .batchUpdate(
+            anyString(),
+            argThat((List<Object[]> rows) -> rows.size() == 2),
+            eq(500),
+            any(ParameterizedPreparedStatementSetter.class));
+  }
+
+  @Test
+  void failingPostgresDegradesToAMiss() {
+    doThrow(new DataAccessResourceFailureException("down"))
+        .when(jdbc)
+        .query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+    doThrow(new DataAccessResourceFailureException("down"))
+        .when(jdbc)
+        .batchUpdate(anyString(), anyList(), anyInt(), any());
+
+    assertArrayEquals(new float[] {3, 'V'}, cache.embed("VIN", embedder));
+    assertArrayEquals(new float[] {3, 'V'}, cache.embed("VIN", embedder));
+    assertEquals(1, embedded.size());
+  }
+
+  @Test
+  void leastRecentlyUsedEntryIsEvicted() {
+    cache = cache(2);
+    cache.embed("A", embedder);
+    cache.embed("B", embedder);
+    cache.embed("A", embedder); // B is now the eldest
+    cache.embed("C", embedder);
+    cache.embed("A", embedder);
+    cache.embed("B", embedder);
+
+    assertEquals(List.of(List.of("A"), List.of("B"), List.of("C"), List.of("B")), embedded);
+  }
+
+  @Test
+  void disabledCacheAlwaysCallsTheEmbedder() {
+    ReflectionTestUtils.setField(cache, "enabled", false);
+    cache.embed(List.of("A", "A"), embedder);
+    cache.embed(List.of("A"), embedder);
+
+    assertEquals(List.of(List.of("A", "A"), List.of("A")), embedded);
+    verify(jdbc, never())
+        .query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+  }
+
+  // ------------------ Internals ------------------
+
+  private EmbeddingCache cache(int memoryEntries) {
+    EmbeddingCache cache = new EmbeddingCache(jdbc, meters);
+    ReflectionTestUtils.setField(cache, "enabled", true);
+    ReflectionTestUtils.setField(cache, "memoryEntries", memoryEntries);
+    ReflectionTestUtils.setField(cache, "model", "test-model");
+    return cache;
+  }
+
+  private double counter(String name, String tier) {
+    return meters.get(name).tag("tier", tier).counter().count();
+  }
+
+  /** The single hash a lookup binds as its {@code text_hash} array. */
+  private static String onlyKey(PreparedStatementSetter setter) throws Exception {
+    PreparedStatement ps = mock(PreparedStatement.class);
+    Connection connection = mock(Connection.class);
+    when(ps.getConnection()).thenReturn(connection);
+    String[] key = new String[1];
+    when(connection.createArrayOf(anyString(), any()))
+        .thenAnswer(
+            call -> {
+              Object[] keys = call.getArgument(1);
+              key[0] = (String) keys[0];
+              return null;
+            });
+    setter.setValues(ps);
+    return key[0];
+  }
+}
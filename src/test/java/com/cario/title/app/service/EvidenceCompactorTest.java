@@ -0,0 +1,145 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import com.cario.title.app.model.TextractDocument;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class EvidenceCompactorTest {
+
+  @Test
+  void formFieldsTablesAndQueriesReplaceTheLinesTheyCover() {
+    TextractDocument doc =
+        TextractDocument.builder(24)
+            .add("p", block(TextractBlockType.PAGE, null), children("l1"))
+            .add("l1", block(TextractBlockType.LINE, "CERTIFICATE OF TITLE"), children("w1"))
+            .add("w1", block(TextractBlockType.WORD, "CERTIFICATE"), null)
+            // VIN: <value>, and the LINE Textract also reports for it
+            .add("k", field("KEY"), Map.of("CHILD", List.of("kw"), "VALUE", List.of("v")))
+            .add("kw", block(TextractBlockType.WORD, "VIN"), null)
+            .add("v", field("VALUE"), children("vw"))
+            .add("vw", block(TextractBlockType.WORD, "1HGCM82633A004352"), null)
+            .add("l2", block(TextractBlockType.LINE, "VIN 1HGCM82633A004352"), children("kw", "vw"))
+            // a 2x2 table, and the LINE of its second row
+            .add("t", block(TextractBlockType.TABLE, null), children("c11", "c12", "c21", "c22"))
+            .add("c11", cell(1, 1), children("cw11"))
+            .add("c12", cell(1, 2), children("cw12"))
+            .add("c21", cell(2, 1), children("cw21"))
+            .add("c22", cell(2, 2), children("cw22"))
+            .add("cw11", block(TextractBlockType.WORD, "LIENHOLDER"), null)
+            .add("cw12", block(TextractBlockType.WORD, "DATE"), null)
+            .add("cw21", block(TextractBlockType.WORD, "PNC"), null)
+            .add("cw22", block(TextractBlockType.WORD, "2021"), null)
+            .add("l3", block(TextractBlockType.LINE, "PNC 2021"), children("cw21", "cw22"))
+            .add("q", query("What is the make?"), Map.of("ANSWER", List.of("a")))
+            .add("a", block(TextractBlockType.QUERY_RESULT, "HONDA"), null)
+            .add("unanswered", query("Who is the lienholder?"), null)
+            .add("s", block(TextractBlockType.SIGNATURE, null), null)
+            .build();
+
+    assertEquals(
+        List.of(
+            "## Page 1",
+            "CERTIFICATE OF TITLE",
+            "VIN: 1HGCM82633A004352",
+            "Table:\n| LIENHOLDER | DATE  |\n| PNC | 2021 |",
+            "Q: What is the make? = HONDA",
+            "[signature]"),
+        texts(doc));
+  }
+
+  @Test
+  void lineIsKeptWhileAnyOfItsWordsIsUncovered() {
+    TextractDocument doc =
+        TextractDocument.builder(6)
+            .add("k", field("KEY"), Map.of("CHILD", List.of("kw"), "VALUE", List.of("v")))
+            .add("kw", block(TextractBlockType.WORD, "MAKE"), null)
+            .add("v", field("VALUE"), null)
+            .add("l", block(TextractBlockType.LINE, "MAKE HONDA"), children("kw", "w"))
+            .add("w", block(TextractBlockType.WORD, "HONDA"), null)
+            .build();
+
+    // an empty value still names its key
+    assertEquals(List.of("## Page 1", "MAKE:", "MAKE HONDA"), texts(doc));
+  }
+
+  @Test
+  void repeatedSpansAreDroppedWithinAPageOnly() {
+    TextractDocument doc =
+        TextractDocument.builder(4)
+            .add("a", line("FIRST LIEN", 1), null)
+            .add("b", line("first  lien", 1), null)
+            .add("c", line("SECOND LIEN", 1), null)
+            .add("d", line("First Lien", 2), null)
+            .build();
+
+    assertEquals(
+        List.of(
+            new EvidenceCompactor.Span(1, "## Page 1"),
+            new EvidenceCompactor.Span(1, "FIRST LIEN"),
+            new EvidenceCompactor.Span(1, "SECOND LIEN"),
+            new EvidenceCompactor.Span(2, "## Page 2"),
+            new EvidenceCompactor.Span(2, "First Lien")),
+        EvidenceCompactor.compact(BlockGraph.of(doc)));
+  }
+
+  @Test
+  void pagesComeOutInPageOrder() {
+    TextractDocument doc =
+        TextractDocument.builder(3)
+            .add("a", line("BACK", 2), null)
+            .add("b", line("FRONT", 1), null)
+            .add("c", line("  ", 1), null)
+            .build();
+
+    assertEquals(List.of("## Page 1", "FRONT", "## Page 2", "BACK"), texts(doc));
+  }
+
+  @Test
+  void looseWordsAndLayoutGiveNoEvidence() {
+    TextractDocument doc =
+        TextractDocument.builder(2)
+            .add("w", block(TextractBlockType.WORD, "ORPHAN"), null)
+            .add("p", block(TextractBlockType.PAGE, null), null)
+            .build();
+
+    assertEquals(List.of(), texts(doc));
+  }
+
+  // ------------------ Internals ------------------
+
+  private static List<String> texts(TextractDocument doc) {
+    return EvidenceCompactor.compact(BlockGraph.of(doc)).stream()
+        .map(EvidenceCompactor.Span::text)
+        .toList();
+  }
+
+  private static TextractBlock.TextractBlockBuilder block(TextractBlockType type, String text) {
+    return TextractBlock.builder().type(type).text(text).page(1).confidence(95f);
+  }
+
+  private static TextractBlock.TextractBlockBuilder line(String text, int page) {
+    return block(TextractBlockType.LINE, text).page(page);
+  }
+
+  private static TextractBlock.TextractBlockBuilder field(String entityType) {
+    return block(TextractBlockType.KEY_VALUE_SET, null).entityTypes(List.of(entityType));
+  }
+
+  private static TextractBlock.TextractBlockBuilder cell(int row, int column) {
+    return block(TextractBlockType.CELL, null).rowIndex(row).columnIndex(column);
+  }
+
+  private static TextractBlock.TextractBlockBuilder query(String question) {
+    return block(TextractBlockType.QUERY, null).queryText(question);
+  }
+
+  private static Map<String, List<String>> children(String... ids) {
+    return Map.of("CHILD", List.of(ids));
+  }
+}
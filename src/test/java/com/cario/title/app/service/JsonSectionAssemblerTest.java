@@ -0,0 +1,109 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JsonSectionAssemblerTest {
+
+  private static final String JSON =
+      "{\"vehicle\":{\"vin\":\"1HGCM82633A004352\",\"year\":2003,\"make\":\"HONDA\"},"
+          + "\"owner\":{\"lastName\":\"Doe\",\"address\":{\"line1\":\"1 Main St\",\"zip\":null}},"
+          + "\"lienholders\":[{\"firmName\":\"Ally {Bank}\"},"
+          + "{\"firmName\":\"Cr\u00e9dit \\\"X\\\"\"}],"
+          + "\"issuingDate\":\"2024-01-02\",\"previousTitleNumber\":null,\"s3Uri\":12.5}";
+
+  private final ObjectMapper om = new ObjectMapper();
+
+  @Test
+  void wholeTextGivesEverySectionInOrder() throws Exception {
+    List<String> names = new ArrayList<>();
+    JsonSectionAssembler assembler = new JsonSectionAssembler(om, (n, v) -> names.add(n));
+    assembler.feed(JSON);
+    ObjectNode result = assembler.finish();
+
+    assertEquals(
+        List.of(
+            "vehicle", "owner", "lienholders", "issuingDate", "previousTitleNumber", "s3Uri"),
+        names);
+    assertEquals(om.readTree(JSON), result);
+  }
+
+  @Test
+  void boundariesSplitAnywhereGiveTheSameSections() throws Exception {
+    JsonNode expected = om.readTree(JSON);
+    for (int size = 1; size <= 7; size++) {
+      List<JsonNode> values = new ArrayList<>();
+      JsonSectionAssembler assembler = new JsonSectionAssembler(om, (n, v) -> values.add(v));
+      for (int i = 0; i < JSON.length(); i += size) {
+        assembler.feed(JSON.substring(i, Math.min(JSON.length(), i + size)));
+      }
+      assertEquals(expected, assembler.finish(), "fragment size " + size);
+      assertEquals(6, values.size(), "fragment size " + size);
+      assertEquals(expected.get("lienholders"), values.get(2), "fragment size " + size);
+    }
+  }
+
+  @Test
+  void sectionIsReportedAsSoonAsItCloses() {
+    List<String> names = new ArrayList<>();
+    JsonSectionAssembler assembler = new JsonSectionAssembler(om, (n, v) -> names.add(n));
+    int ownerStart = JSON.indexOf("\"owner\"");
+
+    // everything up to the comma after vehicle, split inside the VIN and the make
+    assembler.feed(JSON.substring(0, 20));
+    assembler.feed(JSON.substring(20, 60));
+    assertEquals(List.of(), names);
+    assembler.feed(JSON.substring(60, ownerStart));
+    assertEquals(List.of("vehicle"), names);
+
+    // a scalar section is only closed by the token that follows it
+    int dateEnd = JSON.indexOf("\"2024-01-02\"") + "\"2024-01-02\"".length();
+    assembler.feed(JSON.substring(ownerStart, dateEnd - 3));
+    assertEquals(List.of("vehicle", "owner", "lienholders"), names);
+    assembler.feed(JSON.substring(dateEnd - 3, dateEnd));
+    assertEquals(List.of("vehicle", "owner", "lienholders", "issuingDate"), names);
+  }
+
+  @Test
+  void trailingNumberClosesOnlyWithTheObject() {
+    List<String> names = new ArrayList<>();
+    JsonSectionAssembler assembler = new JsonSectionAssembler(om, (n, v) -> names.add(n));
+    assembler.feed("{\"year\":20");
+    assembler.feed("03");
+    assertEquals(List.of(), names);
+    assembler.feed("}");
+    assertEquals(List.of("year"), names);
+    assertEquals(2003, assembler.finish().get("year").asInt());
+  }
+
+  @Test
+  void malformedInputStopsReportingWithoutFailing() {
+    List<String> names = new ArrayList<>();
+    JsonSectionAssembler assembler = new JsonSectionAssembler(om, (n, v) -> names.add(n));
+    assembler.feed("{\"vehicle\":{\"vin\":\"X\"},");
+    assembler.feed("\"owner\":{\"lastName\" \"Doe\"}, \"issuingDate\":\"2024-01-02\"}");
+    ObjectNode result = assembler.finish();
+
+    assertEquals(List.of("vehicle"), names);
+    assertEquals(1, result.size());
+    assertTrue(result.has("vehicle"));
+  }
+
+  @Test
+  void truncatedInputKeepsClosedSections() {
+    List<String> names = new ArrayList<>();
+    JsonSectionAssembler assembler = new JsonSectionAssembler(om, (n, v) -> names.add(n));
+    assembler.feed(JSON.substring(0, JSON.indexOf("\"lienholders\"") + 20));
+    ObjectNode result = assembler.finish();
+
+    assertEquals(List.of("vehicle", "owner"), names);
+    assertEquals(2, result.size());
+  }
+}
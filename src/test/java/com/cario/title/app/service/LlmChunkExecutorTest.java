@@ -0,0 +1,176 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class LlmChunkExecutorTest {
+
+  private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+  private LlmChunkExecutor executor;
+
+  @AfterEach
+  void tearDown() {
+    if (executor != null) executor.shutdown();
+  }
+
+  @Test
+  void resultsComeBackInChunkOrder() {
+    executor = executor(8, 4, 1);
+    List<String> chunks = List.of("a", "b", "c", "d", "e", "f");
+
+    // earlier chunks finish last
+    List<String> results =
+        executor.mapInOrder(
+            chunks,
+            chunk -> {
+              Thread.sleep(5L * ('g' - chunk.charAt(0)));
+              return chunk.toUpperCase();
+            });
+
+    assertEquals(List.of("A", "B", "C", "D", "E", "F"), results);
+  }
+
+  @Test
+  void failedAttemptIsRetried() {
+    executor = executor(4, 4, 3);
+    Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    List<String> results =
+        executor.mapInOrder(
+            List.of("a", "flaky", "c"),
+            chunk -> {
+              int n = calls.computeIfAbsent(chunk, c -> new AtomicInteger()).incrementAndGet();
+              if (chunk.equals("flaky") && n < 3) throw new IllegalStateException("429");
+              return chunk;
+            });
+
+    assertEquals(List.of("a", "flaky", "c"), results);
+    assertEquals(3, calls.get("flaky").get());
+    assertEquals(1, calls.get("a").get());
+    assertEquals(2.0, failures("retried"));
+    assertEquals(0.0, failures("skipped"));
+  }
+
+  @Test
+  void chunkFailingEveryAttemptIsSkipped() {
+    executor = executor(4, 4, 2);
+    AtomicInteger brokenCalls = new AtomicInteger();
+
+    List<String> results =
+        executor.mapInOrder(
+            List.of("a", "broken", "c"),
+            chunk -> {
+              if (chunk.equals("broken")) {
+                brokenCalls.incrementAndGet();
+                throw new IllegalStateException("bad JSON");
+              }
+              return chunk;
+            });
+
+    assertEquals(List.of("a", "c"), results);
+    assertEquals(2, brokenCalls.get());
+    assertEquals(1.0, failures("retried"));
+    assertEquals(1.0, failures("skipped"));
+  }
+
+  @Test
+  void documentFailsOnlyWhenEveryChunkFails() {
+    executor = executor(4, 4, 1);
+
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                executor.mapInOrder(
+                    List.of("a", "b"),
+                    chunk -> {
+                      throw new IllegalStateException("down");
+                    }));
+    assertTrue(e.getMessage().contains("all 2 chunks"), e.getMessage());
+  }
+
+  @Test
+  void noChunksGiveNoResults() {
+    executor = executor(4, 4, 1);
+    assertEquals(List.of(), executor.mapInOrder(List.of(), chunk -> chunk));
+  }
+
+  @Test
+  void documentRunsAtMostItsOwnShareOfThePool() {
+    executor = executor(8, 2, 1);
+    Concurrency concurrency = new Concurrency();
+
+    executor.mapInOrder(chunks(10), concurrency::call);
+
+    assertEquals(2, concurrency.max.get());
+  }
+
+  @Test
+  void documentsTogetherStayWithinTheGlobalCap() throws Exception {
+    executor = executor(3, 2, 1);
+    Concurrency concurrency = new Concurrency();
+
+    List<CompletableFuture<List<String>>> documents = new ArrayList<>();
+    for (int d = 0; d < 3; d++) {
+      documents.add(
+          CompletableFuture.supplyAsync(() -> executor.mapInOrder(chunks(6), concurrency::call)));
+    }
+    for (CompletableFuture<List<String>> document : documents) {
+      assertEquals(chunks(6), document.get(10, TimeUnit.SECONDS));
+    }
+
+    assertTrue(concurrency.max.get() <= 3, "max concurrent calls " + concurrency.max.get());
+  }
+
+  // ------------------ Internals ------------------
+
+  private LlmChunkExecutor executor(int global, int perDocument, int maxAttempts) {
+    LlmChunkExecutor executor = new LlmChunkExecutor(meters);
+    ReflectionTestUtils.setField(executor, "globalConcurrency", global);
+    ReflectionTestUtils.setField(executor, "perDocumentConcurrency", perDocument);
+    ReflectionTestUtils.setField(executor, "maxAttempts", maxAttempts);
+    ReflectionTestUtils.setField(executor, "retryBackoffMs", 1L);
+    ReflectionTestUtils.setField(executor, "queueCapacity", 64);
+    executor.start();
+    return executor;
+  }
+
+  private double failures(String outcome) {
+    return meters.get("nlp.chunk.failures").tag("outcome", outcome).counter().count();
+  }
+
+  private static List<String> chunks(int n) {
+    List<String> chunks = new ArrayList<>();
+    for (int i = 0; i < n; i++) chunks.add("chunk-" + i);
+    return chunks;
+  }
+
+  /** Chunk call that records the most calls ever in progress at once. */
+  private static final class Concurrency {
+    private final AtomicInteger current = new AtomicInteger();
+    private final AtomicInteger max = new AtomicInteger();
+
+    private String call(String chunk) throws InterruptedException {
+      max.accumulateAndGet(current.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20);
+        return chunk;
+      } finally {
+        current.decrementAndGet();
+      }
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class LlmResponseCacheTest {
+
+  private static final String VERSION = "v3";
+  private static final String ANSWER = "{\"vehicle_id_number\":\"1HGCM82633A004352\"}";
+  private static final Map<String, Object> SCHEMA =
+      Map.of("type", "object", "properties", Map.of("vehicle_id_number", Map.of("type", "string")));
+
+  private JdbcTemplate jdbc;
+  private SimpleMeterRegistry meters;
+  private LlmResponseCache cache;
+
+  /** Model stand-in answering {@link #ANSWER} and counting its calls. */
+  private final AtomicInteger modelCalls = new AtomicInteger();
+
+  private final Supplier<String> model =
+      () -> {
+        modelCalls.incrementAndGet();
+        return ANSWER;
+      };
+
+  @BeforeEach
+  void setUp() {
+    jdbc = mock(JdbcTemplate.class);
+    meters = new SimpleMeterRegistry();
+    cache = new LlmResponseCache(jdbc, meters);
+    ReflectionTestUtils.setField(cache, "enabled", true);
+    ReflectionTestUtils.setField(cache, "memoryEntries", 100);
+    ReflectionTestUtils.setField(cache, "ttlHours", 168L);
+    ReflectionTestUtils.setField(cache, "postgresEnabled", true);
+  }
+
+  @Test
+  void missCallsTheModelOnceAndRepeatsAreServedFromMemory() {
+    assertEquals(ANSWER, cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model));
+    assertEquals(ANSWER, cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model));
+
+    assertEquals(1, modelCalls.get());
+    assertEquals(1.0, requests("miss"));
+    assertEquals(1.0, requests("memory"));
+    verify(jdbc, times(1))
+        .update(
+            startsWith("INSERT INTO llm_response_cache"),
+            anyString(),
+            eq(VERSION),
+            eq("gpt-4o-mini"),
+            eq(ANSWER),
+            any(Timestamp.class));
+  }
+
+  @Test
+  void anyChangeToMessagesOptionsOrSchemaMisses() {
+    cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model);
+    cache.getOrCall(VERSION, messages("other evidence"), options(), SCHEMA, model);
+    cache.getOrCall(
+        VERSION,
+        messages("evidence"),
+        OpenAiChatOptions.builder().model("gpt-4o").temperature(0.0).build(),
+        SCHEMA,
+        model);
+    cache.getOrCall(
+        VERSION,
+        messages("evidence"),
+        OpenAiChatOptions.builder().model("gpt-4o-mini").temperature(0.2).build(),
+        SCHEMA,
+        model);
+    cache.getOrCall(VERSION, messages("evidence"), options(), Map.of("type", "object"), model);
+
+    assertEquals(5, modelCalls.get());
+    assertEquals(5.0, requests("miss"));
+  }
+
+  @Test
+  void promptVersionTagsMetricsButDoesNotKeyEntries() {
+    cache.getOrCall("v1", messages("evidence"), options(), SCHEMA, model);
+    cache.getOrCall("v2", messages("evidence"), options(), SCHEMA, model);
+
+    assertEquals(1, modelCalls.get());
+    assertEquals(1.0, requests("v1", "miss"));
+    assertEquals(1.0, requests("v2", "memory"));
+  }
+
+  @Test
+  void responsesThatAreNotJsonAreNotCached() {
+    Supplier<String> prose =
+        () -> {
+          modelCalls.incrementAndGet();
+          return "Sorry, I cannot read this title.";
+        };
+
+    cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, prose);
+    cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, prose);
+
+    assertEquals(2, modelCalls.get());
+    verify(jdbc, never()).update(startsWith("INSERT"), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void expiredEntriesAreNotServed() {
+    ReflectionTestUtils.setField(cache, "ttlHours", 0L);
+
+    cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model);
+    cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model);
+
+    assertEquals(2, modelCalls.get());
+    assertEquals(2.0, requests("miss"));
+  }
+
+  @Test
+  void postgresHitSkipsTheModelAndFillsMemory() throws Exception {
+    ResultSet row = mock(ResultSet.class);
+    when(row.getString("response")).thenReturn(ANSWER);
+    when(row.getTimestamp("expires_at"))
+        .thenReturn(Timestamp.from(Instant.now().plus(Duration.ofHours(1))));
+    doAnswer(call -> List.of(call.<RowMapper<?>>getArgument(1).mapRow(row, 0)))
+        .when(jdbc)
+        .query(startsWith("SELECT"), any(RowMapper.class), anyString());
+
+    assertEquals(ANSWER, cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model));
+    assertEquals(ANSWER, cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model));
+
+    assertEquals(0, modelCalls.get());
+    assertEquals(1.0, requests("postgres"));
+    assertEquals(1.0, requests("memory"));
+  }
+
+  @Test
+  void failingPostgresDegradesToAMiss() {
+    when(jdbc.query(anyString(), any(RowMapper.class), anyString()))
+        .thenThrow(new DataAccessResourceFailureException("down"));
+    when(jdbc.update(anyString(), any(), any(), any(), any(), any()))
+        .thenThrow(new DataAccessResourceFailureException("down"));
+
+    assertEquals(ANSWER, cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model));
+    assertEquals(ANSWER, cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model));
+
+    assertEquals(1, modelCalls.get());
+  }
+
+  @Test
+  void evictedResponseIsFetchedAgain() {
+    cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model);
+    cache.evict(messages("evidence"), options(), SCHEMA);
+    cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model);
+
+    assertEquals(2, modelCalls.get());
+    verify(jdbc).update(startsWith("DELETE FROM llm_response_cache"), anyString());
+  }
+
+  @Test
+  void disabledCacheAlwaysCallsTheModel() {
+    ReflectionTestUtils.setField(cache, "enabled", false);
+
+    cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model);
+    cache.getOrCall(VERSION, messages("evidence"), options(), SCHEMA, model);
+    cache.evict(messages("evidence"), options(), SCHEMA);
+
+    assertEquals(2, modelCalls.get());
+    verifyNoInteractions(jdbc);
+  }
+
+  // ------------------ Internals ------------------
+
+  private double requests(String result) {
+    return requests(VERSION, result);
+  }
+
+  private double requests(String version, String result) {
+    return meters
+        .get("llm.cache.requests")
+        .tag("prompt_version", version)
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+
+  private static List<Message> messages(String evidence) {
+    return List.of(
+        new SystemMessage("Extract title fields as JSON."),
+        new UserMessage("Evidence: " + evidence));
+  }
+
+  private static OpenAiChatOptions options() {
+    return OpenAiChatOptions.builder().model("gpt-4o-mini").temperature(0.0).build();
+  }
+}
@@ -0,0 +1,158 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.NlpOutput;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import com.cario.title.app.model.TextractDocument;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class NlpOutputMergerTest {
+
+  private static final String VIN = "1HGCM82633A004352";
+
+  @Test
+  void sameValueWrittenDifferentlyIsNoConflict() {
+    NlpOutputMerger.Result r = merge(vehicle(VIN, " honda ", 2003), vehicle(VIN, "HONDA.", 2003));
+    assertTrue(r.resolved());
+    assertEquals(" honda ", r.merged().getVehicle().getMake());
+  }
+
+  @Test
+  void validValueBeatsInvalidOne() {
+    NlpOutputMerger.Result r =
+        merge(
+            vehicle("1HGCM82633A00435", "HONDA", 1803),
+            vehicle(VIN, "HONDA", 2003),
+            vehicle("1HGCM82633A00435", "HONDA", 1803));
+    assertTrue(r.resolved());
+    assertEquals(VIN, r.merged().getVehicle().getVin());
+    assertEquals(2003, r.merged().getVehicle().getYear());
+  }
+
+  @Test
+  void textractEvidenceBeatsVotes() {
+    NlpOutputMerger.Result r =
+        NlpOutputMerger.merge(
+            List.of(
+                vehicle(VIN, "HONDA", 2003),
+                vehicle(VIN, "HONDA", 2003),
+                vehicle(VIN, "ACURA", 2003)),
+            evidence("MAKE ACURA"));
+    assertTrue(r.resolved());
+    assertEquals("ACURA", r.merged().getVehicle().getMake());
+  }
+
+  @Test
+  void votesDecideWithoutEvidence() {
+    NlpOutputMerger.Result r =
+        merge(
+            vehicle(VIN, "ACURA", 2003), vehicle(VIN, "HONDA", 2003), vehicle(VIN, "HONDA", 2003));
+    assertTrue(r.resolved());
+    assertEquals("HONDA", r.merged().getVehicle().getMake());
+  }
+
+  @Test
+  void tieIsReportedAndFirstCandidateKept() {
+    NlpOutputMerger.Result r = merge(vehicle(VIN, "HONDA", 2003), vehicle(VIN, "ACURA", 2004));
+    assertEquals(List.of("vehicle.make", "vehicle.year"), r.conflicts());
+    assertEquals("HONDA", r.merged().getVehicle().getMake());
+    assertEquals(2003, r.merged().getVehicle().getYear());
+  }
+
+  @Test
+  void addressesAreMergedAsAUnit() {
+    NlpOutput.Address good = address("1 MAIN ST", "RENO", "NV", "89501");
+    NlpOutput.Address badZip = address("2 OAK AVE", "SPARKS", "NV", "8950");
+    NlpOutputMerger.Result r = merge(owner(badZip), owner(good));
+
+    assertTrue(r.resolved());
+    assertSame(good, r.merged().getOwner().getAddress());
+  }
+
+  @Test
+  void lienholdersAreUnionedByFirmName() {
+    NlpOutput.Address reno = address("1 MAIN ST", "RENO", "NV", "89501");
+    NlpOutput a = new NlpOutput();
+    a.setLienholders(List.of(lienholder("Ally Bank", reno)));
+    NlpOutput b = new NlpOutput();
+    b.setLienholders(List.of(lienholder("ALLY BANK.", reno), lienholder("Chase", null)));
+
+    NlpOutputMerger.Result r = merge(a, b);
+    assertTrue(r.resolved());
+    List<NlpOutput.Lienholder> out = r.merged().getLienholders();
+    assertEquals(2, out.size());
+    assertEquals("Ally Bank", out.get(0).getFirmName());
+    assertEquals(reno, out.get(0).getAddress());
+    assertEquals("Chase", out.get(1).getFirmName());
+    assertNull(out.get(1).getAddress());
+  }
+
+  @Test
+  void missingSectionsAndPartialsAreSkipped() {
+    NlpOutput noVehicle = new NlpOutput();
+    noVehicle.setIssuingDate("2024-01-02");
+    NlpOutputMerger.Result r =
+        NlpOutputMerger.merge(
+            Arrays.asList(null, noVehicle, vehicle(VIN, "HONDA", 2003)),
+            NlpOutputMerger.Evidence.none());
+
+    assertTrue(r.resolved());
+    assertEquals(VIN, r.merged().getVehicle().getVin());
+    assertEquals("2024-01-02", r.merged().getIssuingDate());
+    assertNull(r.merged().getOwner());
+  }
+
+  @Test
+  void singlePartialIsReturnedAsIs() {
+    NlpOutput only = vehicle(VIN, "HONDA", 2003);
+    assertSame(only, NlpOutputMerger.merge(List.of(only), null).merged());
+  }
+
+  // ------------------ Internals ------------------
+
+  private static NlpOutputMerger.Result merge(NlpOutput... partials) {
+    return NlpOutputMerger.merge(List.of(partials), NlpOutputMerger.Evidence.none());
+  }
+
+  private static NlpOutputMerger.Evidence evidence(String line) {
+    TextractDocument.Builder doc = TextractDocument.builder(2);
+    doc.add(
+        "l",
+        TextractBlock.builder().type(TextractBlockType.LINE).text(line).confidence(95f),
+        Map.of("CHILD", List.of("w")));
+    doc.add(
+        "w",
+        TextractBlock.builder().type(TextractBlockType.WORD).text(line).confidence(95f),
+        null);
+    return NlpOutputMerger.Evidence.of(BlockGraph.of(doc.build()));
+  }
+
+  private static NlpOutput vehicle(String vin, String make, int year) {
+    NlpOutput out = new NlpOutput();
+    out.setVehicle(NlpOutput.Vehicle.builder().vin(vin).make(make).year(year).build());
+    return out;
+  }
+
+  private static NlpOutput owner(NlpOutput.Address address) {
+    NlpOutput out = new NlpOutput();
+    out.setOwner(NlpOutput.Owner.builder().lastName("DOE").address(address).build());
+    return out;
+  }
+
+  private static NlpOutput.Lienholder lienholder(String firm, NlpOutput.Address address) {
+    return NlpOutput.Lienholder.builder().firmName(firm).address(address).build();
+  }
+
+  private static NlpOutput.Address address(String line1, String city, String state, String zip) {
+    return NlpOutput.Address.builder().line1(line1).city(city).state(state).zip(zip).build();
+  }
+}
@@ -0,0 +1,133 @@
+package com.cario.title.app.service;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * The regex and keyword field extraction that {@link TitleFieldRecognizer} replaced, kept as the
+ * reference for its tests and benchmark. The recognizer returns the same fields except the VIN,
+ * where it prefers a check-digit-valid VIN over the first text that merely has VIN characters.
+ */
+public final class TextractFieldExtractor {
+
+  private TextractFieldExtractor() {}
+
+  /**
+   * Scans LINE and WORD text for VIN, year, make, odometer, fuel type, dates, owner address, lien
+   * and title brand.
+   *
+   * @return field name to value; fields without evidence are absent
+   */
+  public static Map<String, String> extractHighFidelity(BlockGraph graph) {
+    Map<String, String> result = new HashMap<>();
+    List<String> makes =
+        List.of(
+            "FORD",
+            "TOYOTA",
+            "DODGE",
+            "HONDA",
+            "CHEVROLET",
+            "NISSAN",
+            "BMW",
+            "MERCEDES",
+            "KIA",
+            "HYUNDAI");
+
+    List<String> vinCandidates = new ArrayList<>();
+    List<Integer> odometerCandidates = new ArrayList<>();
+    List<Integer> yearCandidates = new ArrayList<>();
+    List<LocalDate> dateCandidates = new ArrayList<>();
+
+    DateTimeFormatter[] dateFormats = {
+      DateTimeFormatter.ofPattern("M/d/uu", Locale.US),
+      DateTimeFormatter.ofPattern("M/d/uuuu", Locale.US),
+      DateTimeFormatter.ofPattern("MM-dd-uu", Locale.US),
+      DateTimeFormatter.ofPattern("MM-dd-uuuu", Locale.US)
+    };
+
+    for (int i : graph.ofTypes(TextractBlockType.LINE, TextractBlockType.WORD)) {
+      TextractBlock block = graph.block(i);
+      String raw = Objects.toString(block.getText(), "");
+      String text = raw.toUpperCase().trim();
+
+      // VIN (17 chars, no I/O/Q)
+      if (text.matches("^[A-HJ-NPR-Z0-9]{17}$")) {
+        vinCandidates.add(text);
+      }
+
+      // Year
+      if (text.matches("19\\d{2}|20\\d{2}")) {
+        yearCandidates.add(Integer.parseInt(text));
+      }
+
+      // Make
+      for (String m : makes) {
+        if (text.contains(m)) {
+          result.put("make", m);
+        }
+      }
+
+      // Odometer
+      if (text.matches("\\d{1,3}(,\\d{3})*(\\s*(MI|MILES))?")) {
+        String cleaned = text.replaceAll("[^0-9]", "");
+        if (!cleaned.isEmpty()) {
+          odometerCandidates.add(Integer.parseInt(cleaned));
+        }
+      }
+
+      // Fuel type
+      if (text.contains("DIESEL")) result.put("fuel_type", "DIESEL");
+      else if (text.contains("GAS")) result.put("fuel_type", "GAS");
+      else if (text.contains("FLEX")) result.put("fuel_type", "FLEX");
+      else if (text.contains("ELECTRIC")) result.put("fuel_type", "ELECTRIC");
+
+      // Dates
+      if (text.matches("\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4}")) {
+        for (DateTimeFormatter fmt : dateFormats) {
+          try {
+            LocalDate d = LocalDate.parse(text, fmt);
+            dateCandidates.add(d);
+            break;
+          } catch (DateTimeParseException ignore) {
+          }
+        }
+      }
+
+      // Address (expanded suffixes)
+      if (text.matches(".*\\d+\\s+.*(RD|ROAD|DR|DRIVE|ST|STREET|AVE|AVENUE|BLVD|LANE|LN|CT).*")) {
+        result.put("owner_address", raw);
+      }
+
+      // Lien info
+      if (text.contains("LIEN")) {
+        result.put("lien_info", raw);
+      }
+
+      // Title brand normalization
+      if (text.contains("SALVAGE")) result.put("title_brand", "SALVAGE");
+      else if (text.contains("REBUILT")) result.put("title_brand", "REBUILT");
+      else if (text.contains("DUP")) result.put("title_brand", "DUPLICATE");
+    }
+
+    // Post-processing
+    vinCandidates.stream().findFirst().ifPresent(v -> result.put("vehicle_id_number", v));
+    yearCandidates.stream()
+        .mapToInt(y -> y)
+        .max()
+        .ifPresent(y -> result.put("year", String.valueOf(y)));
+    odometerCandidates.stream()
+        .mapToInt(o -> o)
+        .max()
+        .ifPresent(o -> result.put("odometer_reading", String.valueOf(o)));
+    dateCandidates.stream()
+        .max(Comparator.naturalOrder())
+        .ifPresent(d -> result.put("date", d.toString())); // ISO yyyy-MM-dd
+
+    return result;
+  }
+}
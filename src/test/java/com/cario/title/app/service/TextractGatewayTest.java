@@ -0,0 +1,207 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.AnalyzeDocumentRequest;
+import software.amazon.awssdk.services.textract.model.AnalyzeDocumentResponse;
+import software.amazon.awssdk.services.textract.model.GetDocumentAnalysisRequest;
+import software.amazon.awssdk.services.textract.model.GetDocumentAnalysisResponse;
+import software.amazon.awssdk.services.textract.model.InvalidS3ObjectException;
+import software.amazon.awssdk.services.textract.model.ThrottlingException;
+
+class TextractGatewayTest {
+
+  private static final String ANALYZE = "AnalyzeDocument";
+  private static final String POLL = "GetDocumentAnalysis";
+
+  private static final AnalyzeDocumentRequest ANALYZE_REQUEST =
+      AnalyzeDocumentRequest.builder().build();
+  private static final GetDocumentAnalysisRequest POLL_REQUEST =
+      GetDocumentAnalysisRequest.builder().jobId("job").build();
+
+  private TextractClient client;
+  private SimpleMeterRegistry meters;
+  private TextractGateway gateway;
+
+  /** Concurrent callers; the common pool may have fewer threads than a test needs. */
+  private final ExecutorService callers = Executors.newCachedThreadPool();
+
+  @BeforeEach
+  void setUp() {
+    client = mock(TextractClient.class);
+    meters = new SimpleMeterRegistry();
+    gateway = new TextractGateway(client, meters);
+    ReflectionTestUtils.setField(gateway, "initialLimit", 8.0);
+    ReflectionTestUtils.setField(gateway, "minLimit", 1.0);
+    ReflectionTestUtils.setField(gateway, "maxLimit", 32.0);
+    ReflectionTestUtils.setField(gateway, "decreaseFactor", 0.5);
+    ReflectionTestUtils.setField(gateway, "maxRetries", 3);
+    ReflectionTestUtils.setField(gateway, "baseBackoffMs", 1L);
+    ReflectionTestUtils.setField(gateway, "maxBackoffMs", 2L);
+    ReflectionTestUtils.setField(gateway, "acquireTimeoutMs", 5000L);
+  }
+
+  @AfterEach
+  void tearDown() {
+    callers.shutdownNow();
+  }
+
+  @Test
+  void limitGrowsByAboutOnePerWindowOfSuccesses() {
+    AnalyzeDocumentResponse ok = AnalyzeDocumentResponse.builder().build();
+    when(client.analyzeDocument(any(AnalyzeDocumentRequest.class))).thenReturn(ok);
+
+    for (int i = 0; i < 8; i++) assertSame(ok, gateway.analyzeDocument(ANALYZE_REQUEST));
+    // each success adds 1/limit: eight of them reach 8.95, the ninth 9.06
+    assertEquals(8, gateway.limit(ANALYZE));
+    gateway.analyzeDocument(ANALYZE_REQUEST);
+    assertEquals(9, gateway.limit(ANALYZE));
+  }
+
+  @Test
+  void limitNeverGrowsPastTheMaximum() {
+    ReflectionTestUtils.setField(gateway, "maxLimit", 9.0);
+    when(client.analyzeDocument(any(AnalyzeDocumentRequest.class)))
+        .thenReturn(AnalyzeDocumentResponse.builder().build());
+
+    for (int i = 0; i < 100; i++) gateway.analyzeDocument(ANALYZE_REQUEST);
+    assertEquals(9, gateway.limit(ANALYZE));
+  }
+
+  @Test
+  void throttlingHalvesTheLimitAndIsRetried() {
+    AnalyzeDocumentResponse ok = AnalyzeDocumentResponse.builder().build();
+    when(client.analyzeDocument(any(AnalyzeDocumentRequest.class)))
+        .thenThrow(throttled())
+        .thenThrow(throttled())
+        .thenReturn(ok);
+
+    assertSame(ok, gateway.analyzeDocument(ANALYZE_REQUEST));
+    // 8 -> 4 -> 2, then one success adds 1/2
+    assertEquals(2, gateway.limit(ANALYZE));
+    verify(client, times(3)).analyzeDocument(any(AnalyzeDocumentRequest.class));
+    assertEquals(2.0, throttles(ANALYZE));
+  }
+
+  @Test
+  void limitNeverDropsBelowTheMinimum() {
+    ReflectionTestUtils.setField(gateway, "maxRetries", 10);
+    when(client.analyzeDocument(any(AnalyzeDocumentRequest.class))).thenThrow(throttled());
+
+    assertThrows(ThrottlingException.class, () -> gateway.analyzeDocument(ANALYZE_REQUEST));
+    assertEquals(1, gateway.limit(ANALYZE));
+    verify(client, times(11)).analyzeDocument(any(AnalyzeDocumentRequest.class));
+  }
+
+  @Test
+  void concurrentThrottlesFromOneWindowCutTheLimitOnce() throws Exception {
+    CyclicBarrier allInFlight = new CyclicBarrier(4);
+    when(client.getDocumentAnalysis(any(GetDocumentAnalysisRequest.class)))
+        .thenAnswer(
+            call -> {
+              allInFlight.await(5, TimeUnit.SECONDS);
+              throw throttled();
+            });
+
+    List<CompletableFuture<Void>> calls = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      calls.add(
+          CompletableFuture.runAsync(() -> gateway.pollDocumentAnalysis(POLL_REQUEST), callers));
+    }
+    for (CompletableFuture<Void> call : calls) {
+      assertThrows(Exception.class, () -> call.get(5, TimeUnit.SECONDS));
+    }
+
+    // all four were admitted before the first cut: 8 -> 4, not 8 -> 1
+    assertEquals(4, gateway.limit(POLL));
+    assertEquals(4.0, throttles(POLL));
+
+    // a call admitted after that cut may cut again
+    assertThrows(ThrottlingException.class, () -> gateway.pollDocumentAnalysis(POLL_REQUEST));
+    assertEquals(2, gateway.limit(POLL));
+  }
+
+  @Test
+  void pollsAreNotRetried() {
+    when(client.getDocumentAnalysis(any(GetDocumentAnalysisRequest.class)))
+        .thenThrow(throttled());
+
+    assertThrows(ThrottlingException.class, () -> gateway.pollDocumentAnalysis(POLL_REQUEST));
+    verify(client, times(1)).getDocumentAnalysis(any(GetDocumentAnalysisRequest.class));
+    assertEquals(4, gateway.limit(POLL));
+  }
+
+  @Test
+  void otherErrorsPassThroughWithoutACut() {
+    when(client.analyzeDocument(any(AnalyzeDocumentRequest.class)))
+        .thenThrow(InvalidS3ObjectException.builder().message("no such object").build());
+
+    assertThrows(
+        InvalidS3ObjectException.class, () -> gateway.analyzeDocument(ANALYZE_REQUEST));
+    verify(client, times(1)).analyzeDocument(any(AnalyzeDocumentRequest.class));
+    assertEquals(8, gateway.limit(ANALYZE));
+  }
+
+  @Test
+  void callersOverTheLimitQueueUntilASlotFrees() throws Exception {
+    ReflectionTestUtils.setField(gateway, "initialLimit", 1.0);
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    GetDocumentAnalysisResponse ok = GetDocumentAnalysisResponse.builder().build();
+    when(client.getDocumentAnalysis(any(GetDocumentAnalysisRequest.class)))
+        .thenAnswer(
+            call -> {
+              firstStarted.countDown();
+              releaseFirst.await(5, TimeUnit.SECONDS);
+              return ok;
+            })
+        .thenReturn(ok);
+
+    CompletableFuture<GetDocumentAnalysisResponse> first =
+        CompletableFuture.supplyAsync(() -> gateway.getDocumentAnalysis(POLL_REQUEST), callers);
+    firstStarted.await(5, TimeUnit.SECONDS);
+    CompletableFuture<GetDocumentAnalysisResponse> second =
+        CompletableFuture.supplyAsync(() -> gateway.getDocumentAnalysis(POLL_REQUEST), callers);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (gateway.queueDepth(POLL) == 0 && System.nanoTime() < deadline) Thread.sleep(1);
+    assertEquals(1, gateway.queueDepth(POLL));
+    verify(client, times(1)).getDocumentAnalysis(any(GetDocumentAnalysisRequest.class));
+
+    releaseFirst.countDown();
+    assertSame(ok, first.get(5, TimeUnit.SECONDS));
+    assertSame(ok, second.get(5, TimeUnit.SECONDS));
+    assertEquals(0, gateway.queueDepth(POLL));
+  }
+
+  // ------------------ Internals ------------------
+
+  private double throttles(String operation) {
+    return meters.get("textract.gateway.throttled").tag("operation", operation).counter().count();
+  }
+
+  private static ThrottlingException throttled() {
+    return ThrottlingException.builder().message("Rate exceeded").build();
+  }
+}
@@ -0,0 +1,181 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.GetDocumentAnalysisRequest;
+import software.amazon.awssdk.services.textract.model.GetDocumentAnalysisResponse;
+import software.amazon.awssdk.services.textract.model.JobStatus;
+import software.amazon.awssdk.services.textract.model.ThrottlingException;
+
+class TextractJobTrackerTest {
+
+  private TextractGateway gateway;
+  private TextractJobTracker tracker;
+
+  /** {@code System.nanoTime()} of every status poll, in order. */
+  private final List<Long> polls = Collections.synchronizedList(new ArrayList<>());
+
+  @BeforeEach
+  void setUp() {
+    gateway = mock(TextractGateway.class);
+    tracker = new TextractJobTracker(gateway);
+    ReflectionTestUtils.setField(tracker, "initialDelayMs", 20L);
+    ReflectionTestUtils.setField(tracker, "maxDelayMs", 80L);
+    ReflectionTestUtils.setField(tracker, "multiplier", 2.0);
+    ReflectionTestUtils.setField(tracker, "tickMs", 5L);
+    ReflectionTestUtils.setField(tracker, "timeoutMinutes", 30L);
+    ReflectionTestUtils.setField(tracker, "pollThreads", 2);
+    ReflectionTestUtils.setField(tracker, "fetchThreads", 1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    tracker.shutdown();
+  }
+
+  @Test
+  void pollDelayGrowsByTheMultiplierUpToTheCap() throws Exception {
+    answerPolls(6, page(JobStatus.SUCCEEDED, null, "b1"));
+    tracker.start();
+
+    long t0 = System.nanoTime();
+    GetDocumentAnalysisResponse done = tracker.awaitCompletion("job").get(5, TimeUnit.SECONDS);
+
+    assertEquals(JobStatus.SUCCEEDED, done.jobStatus());
+    assertEquals(7, polls.size());
+    assertEquals(0, tracker.inFlight());
+    // at least 20, 40, 80, 80, ... ms apart: doubling from the initial delay up to the cap
+    long previous = t0;
+    for (int i = 0; i < polls.size(); i++) {
+      long gapMs = TimeUnit.NANOSECONDS.toMillis(polls.get(i) - previous);
+      assertTrue(gapMs >= Math.min(80L, 20L << i), "poll " + i + " after " + gapMs + " ms");
+      previous = polls.get(i);
+    }
+    // uncapped, the last gap would be 1280 ms
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(polls.get(6) - polls.get(5)) < 500);
+  }
+
+  @Test
+  void jobStillRunningAfterTheTimeoutFails() {
+    ReflectionTestUtils.setField(tracker, "timeoutMinutes", 0L);
+    answerPolls(Integer.MAX_VALUE, null);
+    tracker.start();
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> tracker.awaitCompletion("job").get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause().getMessage().contains("timed out"), e.getCause().getMessage());
+    assertEquals(1, polls.size());
+    assertEquals(0, tracker.inFlight());
+  }
+
+  @Test
+  void transientPollErrorsBackOffAndRetry() throws Exception {
+    when(gateway.pollDocumentAnalysis(any()))
+        .thenAnswer(
+            call -> {
+              polls.add(System.nanoTime());
+              if (polls.size() <= 2) throw ThrottlingException.builder().message("slow").build();
+              return page(JobStatus.SUCCEEDED, null, "b1");
+            });
+    tracker.start();
+
+    tracker.awaitCompletion("job").get(5, TimeUnit.SECONDS);
+    assertEquals(3, polls.size());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(polls.get(2) - polls.get(1)) >= 80);
+  }
+
+  @Test
+  void failedJobCompletesExceptionally() {
+    answerPolls(0, page(JobStatus.FAILED, null));
+    tracker.start();
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> tracker.awaitCompletion("job").get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause().getMessage().contains("jobId=job"));
+  }
+
+  @Test
+  void sameJobIdSharesOneFutureAndOnePollLoop() throws Exception {
+    answerPolls(0, page(JobStatus.SUCCEEDED, null));
+    CompletableFuture<GetDocumentAnalysisResponse> first = tracker.awaitCompletion("job");
+    assertSame(first, tracker.awaitCompletion("job"));
+    tracker.start();
+
+    first.get(5, TimeUnit.SECONDS);
+    assertEquals(1, polls.size());
+  }
+
+  @Test
+  void trackCollectsEveryResultPageInOrder() throws Exception {
+    answerPolls(0, page(JobStatus.SUCCEEDED, "t1", "b1", "b2"));
+    when(gateway.getDocumentAnalysis(any()))
+        .thenAnswer(
+            call -> {
+              GetDocumentAnalysisRequest request = call.getArgument(0);
+              return "t1".equals(request.nextToken())
+                  ? page(JobStatus.SUCCEEDED, "t2", "b3")
+                  : page(JobStatus.SUCCEEDED, null, "b4");
+            });
+    tracker.start();
+
+    List<Block> blocks = tracker.track("job").get(5, TimeUnit.SECONDS);
+    assertEquals(List.of("b1", "b2", "b3", "b4"), blocks.stream().map(Block::id).toList());
+  }
+
+  @Test
+  void shutdownFailsPendingJobs() {
+    CompletableFuture<GetDocumentAnalysisResponse> pending = tracker.awaitCompletion("job");
+    tracker.shutdown();
+
+    ExecutionException e = assertThrows(ExecutionException.class, pending::get);
+    assertInstanceOf(IllegalStateException.class, e.getCause());
+    assertEquals(0, tracker.inFlight());
+  }
+
+  // ------------------ Internals ------------------
+
+  /** Answers the first {@code running} polls with IN_PROGRESS and later ones with {@code then}. */
+  private void answerPolls(int running, GetDocumentAnalysisResponse then) {
+    GetDocumentAnalysisResponse inProgress = page(JobStatus.IN_PROGRESS, null);
+    when(gateway.pollDocumentAnalysis(any()))
+        .thenAnswer(
+            call -> {
+              polls.add(System.nanoTime());
+              return polls.size() <= running ? inProgress : then;
+            });
+  }
+
+  private static GetDocumentAnalysisResponse page(
+      JobStatus status, String nextToken, String... blockIds) {
+    List<Block> blocks = new ArrayList<>();
+    for (String id : blockIds) blocks.add(Block.builder().id(id).build());
+    return GetDocumentAnalysisResponse.builder()
+        .jobStatus(status)
+        .statusMessage(status == JobStatus.FAILED ? "unsupported document" : null)
+        .nextToken(nextToken)
+        .blocks(blocks)
+        .build();
+  }
+}
@@ -0,0 +1,171 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import com.cario.title.app.model.TextractDocument;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TitleFieldRecognizerTest {
+
+  private static final String VIN = "1HGCM82633A004352";
+
+  /** Same characters as {@link #VIN} but a wrong check digit. */
+  private static final String BAD_CHECK_DIGIT_VIN = "1HGCM82633A004353";
+
+  /** {@link #VIN} with OCR's {@code O} for {@code 0}: no VIN characters, valid once repaired. */
+  private static final String MISREAD_VIN = "1HGCM82633A0O4352";
+
+  private static final String[] TITLE_LINES = {
+    "COMMONWEALTH OF PENNSYLVANIA",
+    "CERTIFICATE OF TITLE FOR A VEHICLE",
+    VIN,
+    "2003",
+    "HONDA ACCORD EX SEDAN",
+    "FUEL TYPE GAS",
+    "84,512 MILES",
+    "DATE OF ISSUE 03/14/2021",
+    "03/14/2021",
+    "1234 Maple Avenue",
+    "HARRISBURG PA 17101-2208",
+    "FIRST LIEN IN FAVOR OF",
+    "PNC BANK NA 249 FIFTH AVENUE PITTSBURGH PA 15222",
+    "TITLE BRAND NONE",
+    "SECRETARY OF TRANSPORTATION"
+  };
+
+  @Test
+  void titleGivesTheExtractorsFields() {
+    BlockGraph graph = linesWithWords(TITLE_LINES);
+    Map<String, String> fields = TitleFieldRecognizer.recognize(graph);
+
+    assertEquals(TextractFieldExtractor.extractHighFidelity(graph), fields);
+    assertEquals(VIN, fields.get("vehicle_id_number"));
+    assertEquals("2003", fields.get("year"));
+    assertEquals("HONDA", fields.get("make"));
+    assertEquals("GAS", fields.get("fuel_type"));
+    assertEquals("84512", fields.get("odometer_reading"));
+    assertEquals("2021-03-14", fields.get("date"));
+    // the last LINE with a house number and a suffix, not its WORDs or the first address
+    assertEquals("PNC BANK NA 249 FIFTH AVENUE PITTSBURGH PA 15222", fields.get("owner_address"));
+    // the WORD after the LINE is the last block with LIEN
+    assertEquals("LIEN", fields.get("lien_info"));
+    assertNull(fields.get("title_brand"));
+  }
+
+  @Test
+  void keywordPrecedenceMatchesTheExtractor() {
+    assertSameFields(
+        Map.of("make", "HONDA", "fuel_type", "GAS", "title_brand", "SALVAGE"),
+        // within a block: the last make of the list, the first fuel and brand of theirs
+        "HONDA FORD",
+        "ELECTRIC GAS FLEX",
+        "DUPLICATE SALVAGE REBUILT");
+    // the last block with a keyword wins
+    assertSameFields(
+        Map.of("make", "KIA", "fuel_type", "DIESEL", "title_brand", "DUPLICATE"),
+        "HYUNDAI",
+        "REBUILT",
+        "KIA SORENTO",
+        "GAS",
+        "DIESEL",
+        "DUP");
+    // overlapping keywords: KIA inside ALASKIAN, GAS inside GASOLINE, DUP inside DUPLICATE
+    assertSameFields(
+        Map.of("make", "KIA", "fuel_type", "GAS", "title_brand", "DUPLICATE"),
+        "ALASKIAN GASOLINE DUPLICATE");
+  }
+
+  @Test
+  void addressNeedsASuffixAfterAHouseNumber() {
+    assertSameFields(Map.of("owner_address", "12 Elm St"), "12 Elm St", "STREET 12", "ST 9");
+    assertSameFields(Map.of(), "MAIN ST 1234", "1234STREET", "BLVD 7 ");
+    // the suffix may run into other letters, as with the extractor's .* on both sides
+    assertSameFields(Map.of("owner_address", "7 FIRST AVE"), "7 FIRST AVE");
+    assertSameFields(Map.of("owner_address", "7 CASTLE"), "7 CASTLE");
+  }
+
+  @Test
+  void numbersTakeTheLargestAndDatesTheLatest() {
+    assertSameFields(
+        Map.of("year", "2011", "odometer_reading", "120500", "date", "2022-07-02"),
+        "2011",
+        "1999",
+        "120,500 MI",
+        "84,512",
+        "7/2/22",
+        "03-14-2021",
+        "13/40/2021");
+  }
+
+  @Test
+  void readVinIsPreferredOverAnEarlierInvalidOne() {
+    BlockGraph graph = lines(BAD_CHECK_DIGIT_VIN, VIN);
+    assertEquals(VIN, TitleFieldRecognizer.recognize(graph).get("vehicle_id_number"));
+    // the deliberate difference: the extractor keeps the first text with VIN characters
+    assertEquals(
+        BAD_CHECK_DIGIT_VIN,
+        TextractFieldExtractor.extractHighFidelity(graph).get("vehicle_id_number"));
+  }
+
+  @Test
+  void repairedVinIsUsedOnlyWithoutAnyVinCharacters() {
+    assertEquals(VIN, TitleFieldRecognizer.recognize(lines(MISREAD_VIN)).get("vehicle_id_number"));
+    assertEquals(
+        BAD_CHECK_DIGIT_VIN,
+        TitleFieldRecognizer.recognize(lines(MISREAD_VIN, BAD_CHECK_DIGIT_VIN))
+            .get("vehicle_id_number"));
+  }
+
+  @Test
+  void emptyAndMissingTextGiveNoFields() {
+    TextractDocument doc =
+        TextractDocument.builder(2)
+            .add("l", TextractBlock.builder().type(TextractBlockType.LINE), null)
+            .add("w", line("   "), null)
+            .build();
+    assertEquals(Map.of(), TitleFieldRecognizer.recognize(BlockGraph.of(doc)));
+  }
+
+  // ------------------ Internals ------------------
+
+  private static void assertSameFields(Map<String, String> expected, String... lines) {
+    BlockGraph graph = lines(lines);
+    assertEquals(expected, TitleFieldRecognizer.recognize(graph), String.join(" | ", lines));
+    assertEquals(expected, TextractFieldExtractor.extractHighFidelity(graph));
+  }
+
+  private static BlockGraph lines(String... lines) {
+    TextractDocument.Builder doc = TextractDocument.builder(lines.length);
+    for (int i = 0; i < lines.length; i++) doc.add("l" + i, line(lines[i]), null);
+    return BlockGraph.of(doc.build());
+  }
+
+  /** Every line followed by its words, as Textract lists them. */
+  private static BlockGraph linesWithWords(String... lines) {
+    TextractDocument.Builder doc = TextractDocument.builder(lines.length * 4);
+    for (int i = 0; i < lines.length; i++) {
+      String[] words = lines[i].split(" ");
+      List<String> ids = new ArrayList<>();
+      for (int w = 0; w < words.length; w++) ids.add("w" + i + "-" + w);
+      doc.add("l" + i, line(lines[i]), Map.of("CHILD", ids));
+      for (int w = 0; w < words.length; w++) {
+        doc.add(
+            ids.get(w),
+            TextractBlock.builder().type(TextractBlockType.WORD).text(words[w]).confidence(98f),
+            null);
+      }
+    }
+    return BlockGraph.of(doc.build());
+  }
+
+  private static TextractBlock.TextractBlockBuilder line(String text) {
+    return TextractBlock.builder().type(TextractBlockType.LINE).text(text).confidence(99f);
+  }
+}
@@ -0,0 +1,255 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cario.title.app.model.BlockGraph;
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import com.cario.title.app.model.TextractDocument;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TokenBudgetChunkerTest {
+
+  /** Budget of every test: {@code max-input-tokens} 1000 is also the smallest budget there is. */
+  private static final int BUDGET = 1000;
+
+  private SimpleMeterRegistry meters;
+  private TokenBudgetChunker chunker;
+  private Doc doc;
+
+  @BeforeEach
+  void setUp() {
+    meters = new SimpleMeterRegistry();
+    chunker = new TokenBudgetChunker(meters);
+    ReflectionTestUtils.setField(chunker, "maxInputTokens", BUDGET);
+    ReflectionTestUtils.setField(chunker, "tokenizerModel", "gpt-4o-mini");
+    ReflectionTestUtils.setField(chunker, "compact", false);
+    ReflectionTestUtils.setField(chunker, "reductionSampleRate", 0.0);
+    doc = new Doc();
+  }
+
+  @Test
+  void wholePagesArePackedUntilTheBudgetIsReached() {
+    List<String> page1 = doc.lines(1, 350);
+    List<String> page2 = doc.lines(2, 350);
+    List<String> page3 = doc.lines(3, 350);
+
+    List<String> chunks = chunker.chunk(doc.graph(), 0);
+
+    assertEquals(2, chunks.size());
+    assertContainsAll(chunks.get(0), page1);
+    assertContainsAll(chunks.get(0), page2);
+    assertContainsAll(chunks.get(1), page3);
+  }
+
+  @Test
+  void pageThatDoesNotFitStartsANewChunkRatherThanBeingCut() {
+    List<String> page1 = doc.lines(1, 600);
+    List<String> page2 = doc.lines(2, 600);
+
+    List<String> chunks = chunker.chunk(doc.graph(), 0);
+
+    assertEquals(2, chunks.size());
+    assertContainsAll(chunks.get(0), page1);
+    assertContainsAll(chunks.get(1), page2);
+  }
+
+  @Test
+  void oversizedPageIsCutBetweenTablesAndFormFieldsNeverInside() {
+    List<String> before = doc.lines(1, 600);
+    List<String> rows = doc.table(1, 300);
+    doc.formField(1, "LIENHOLDER", "HUNTINGTON NATIONAL");
+    List<String> after = doc.lines(1, 600);
+
+    List<String> chunks = chunker.chunk(doc.graph(), 0);
+
+    assertTrue(chunks.size() >= 2, chunks.size() + " chunks");
+    String table = only(chunks, "(Table detected)");
+    assertContainsAll(table, rows);
+    String field = only(chunks, "LIENHOLDER");
+    assertTrue(field.contains("HUNTINGTON NATIONAL"), field);
+    assertContainsAll(String.join("", chunks), before);
+    assertContainsAll(String.join("", chunks), after);
+  }
+
+  @Test
+  void tableLargerThanTheBudgetIsCutBetweenRowsWithoutLosingAny() {
+    List<String> rows = doc.table(1, 2500);
+
+    List<String> chunks = chunker.chunk(doc.graph(), 0);
+
+    assertTrue(chunks.size() >= 3, chunks.size() + " chunks");
+    String all = String.join("", chunks);
+    int at = 0;
+    for (String row : rows) {
+      int found = all.indexOf(row, at);
+      assertTrue(found >= at, "row out of order or missing: " + row);
+      assertEquals(found, all.lastIndexOf(row), "row repeated: " + row);
+      at = found;
+    }
+  }
+
+  @Test
+  void overheadShrinksTheBudgetButNotBelowTheMinimum() {
+    ReflectionTestUtils.setField(chunker, "maxInputTokens", 3000);
+    doc.lines(1, 600);
+    doc.lines(2, 600);
+    BlockGraph graph = doc.graph();
+
+    assertEquals(1, chunker.chunk(graph, 0).size());
+    assertEquals(2, chunker.chunk(graph, 2000).size());
+    assertEquals(2, chunker.chunk(graph, 100_000).size());
+  }
+
+  @Test
+  void wordsAreLeftOutWhenTheirLineIsRendered() {
+    doc.lineWithWords(1, "ODOMETER 84512 MILES");
+
+    List<String> chunks = chunker.chunk(doc.graph(), 0);
+
+    assertEquals(List.of("[LINE] ODOMETER 84512 MILES\n"), chunks);
+  }
+
+  @Test
+  void compactModeUsesTheCompactorsSpansAndRecordsTokens() {
+    ReflectionTestUtils.setField(chunker, "compact", true);
+    doc.lineWithWords(1, "CERTIFICATE OF TITLE");
+    doc.formField(1, "MAKE", "HONDA");
+
+    List<String> chunks = chunker.chunk(doc.graph(), 0);
+
+    assertEquals(List.of("## Page 1\nCERTIFICATE OF TITLE\nMAKE: HONDA\n"), chunks);
+    assertEquals(1, summary("compact").count());
+    // not sampled: the full form is neither tokenized nor recorded
+    assertEquals(0, summary("full").count());
+    assertEquals(0, meters.get("nlp.evidence.reduction").summary().count());
+  }
+
+  @Test
+  void sampledDocumentsRecordTheReduction() {
+    ReflectionTestUtils.setField(chunker, "compact", true);
+    ReflectionTestUtils.setField(chunker, "reductionSampleRate", 1.0);
+    doc.lineWithWords(1, "CERTIFICATE OF TITLE");
+    doc.formField(1, "MAKE", "HONDA");
+
+    chunker.chunk(doc.graph(), 0);
+
+    assertEquals(1, summary("full").count());
+    assertTrue(summary("full").totalAmount() > summary("compact").totalAmount());
+    double reduction = meters.get("nlp.evidence.reduction").summary().totalAmount();
+    assertTrue(reduction > 0 && reduction < 100, "reduction " + reduction);
+  }
+
+  @Test
+  void emptyDocumentGivesNoChunks() {
+    assertEquals(List.of(), chunker.chunk(BlockGraph.of(TextractDocument.empty()), 0));
+  }
+
+  // ------------------ Internals ------------------
+
+  private DistributionSummary summary(String form) {
+    return meters.get("nlp.evidence.tokens").tag("form", form).summary();
+  }
+
+  private static void assertContainsAll(String chunk, List<String> texts) {
+    for (String text : texts) assertTrue(chunk.contains(text), "missing: " + text);
+  }
+
+  /** The one chunk containing {@code marker}. */
+  private static String only(List<String> chunks, String marker) {
+    List<String> matching = chunks.stream().filter(c -> c.contains(marker)).toList();
+    assertEquals(1, matching.size(), marker + " in " + matching.size() + " chunks");
+    return matching.get(0);
+  }
+
+  /** Builds a document of LINEs, tables and form fields sized in the chunker's tokens. */
+  private final class Doc {
+    private final TextractDocument.Builder builder = TextractDocument.builder(256);
+    private int ids;
+
+    /** LINEs on {@code page} adding up to about {@code tokens}; returns their texts. */
+    private List<String> lines(int page, int tokens) {
+      List<String> texts = new ArrayList<>();
+      for (int sum = 0; sum < tokens; ) {
+        String text = "PAGE " + page + " LINE " + ids + " OWNER JOHN A SMITH 1234 MAPLE AVENUE";
+        builder.add(id(), block(TextractBlockType.LINE, text, page), null);
+        texts.add(text);
+        sum += chunker.countTokens("[LINE] " + text) + 1;
+      }
+      return texts;
+    }
+
+    /** A LINE followed by its WORDs. */
+    private void lineWithWords(int page, String text) {
+      String line = id();
+      String[] parts = text.split(" ");
+      List<String> words = new ArrayList<>();
+      for (int w = 0; w < parts.length; w++) words.add(line + "-w" + w);
+      builder.add(line, block(TextractBlockType.LINE, text, page), Map.of("CHILD", words));
+      for (int w = 0; w < parts.length; w++) {
+        builder.add(words.get(w), block(TextractBlockType.WORD, parts[w], page), null);
+      }
+    }
+
+    /** A two-column table of about {@code tokens}; returns each row's second cell. */
+    private List<String> table(int page, int tokens) {
+      String table = id();
+      List<String> cells = new ArrayList<>();
+      List<String> values = new ArrayList<>();
+      List<TextractBlock.TextractBlockBuilder> blocks = new ArrayList<>();
+      for (int row = 1, sum = 0; sum < tokens; row++) {
+        String value = "LIEN " + row + " RECORDED FOR PNC BANK NA PITTSBURGH";
+        blocks.add(cell(page, row, 1, "ROW" + row));
+        blocks.add(cell(page, row, 2, value));
+        values.add(value);
+        sum += chunker.countTokens("  Row " + row + ":  | ROW" + row + " | " + value + " |") + 1;
+      }
+      for (int i = 0; i < blocks.size(); i++) cells.add(table + "-c" + i);
+      builder.add(table, block(TextractBlockType.TABLE, null, page), Map.of("CHILD", cells));
+      for (int i = 0; i < blocks.size(); i++) builder.add(cells.get(i), blocks.get(i), null);
+      return values;
+    }
+
+    private void formField(int page, String key, String value) {
+      String keyId = id();
+      String valueId = id();
+      builder.add(
+          keyId,
+          field("KEY", page),
+          Map.of("CHILD", List.of(keyId + "-w"), "VALUE", List.of(valueId)));
+      builder.add(keyId + "-w", block(TextractBlockType.WORD, key, page), null);
+      builder.add(valueId, field("VALUE", page), Map.of("CHILD", List.of(valueId + "-w")));
+      builder.add(valueId + "-w", block(TextractBlockType.WORD, value, page), null);
+    }
+
+    private BlockGraph graph() {
+      return BlockGraph.of(builder.build());
+    }
+
+    private String id() {
+      return "b" + ids++;
+    }
+  }
+
+  private static TextractBlock.TextractBlockBuilder block(
+      TextractBlockType type, String text, int page) {
+    return TextractBlock.builder().type(type).text(text).page(page).confidence(95f);
+  }
+
+  private static TextractBlock.TextractBlockBuilder cell(
+      int page, int row, int column, String text) {
+    return block(TextractBlockType.CELL, text, page).rowIndex(row).columnIndex(column);
+  }
+
+  private static TextractBlock.TextractBlockBuilder field(String entityType, int page) {
+    return block(TextractBlockType.KEY_VALUE_SET, null, page).entityTypes(List.of(entityType));
+  }
+}
@@ -0,0 +1,63 @@
+package com.cario.title.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class VinDecoderTest {
+
+  private static final String HONDA = "1HGCM82633A004352";
+
+  @Test
+  void decodesValidVin() {
+    VinDecoder.Vin vin = VinDecoder.decode(HONDA);
+    assertEquals(HONDA, vin.value());
+    assertFalse(vin.repaired());
+    assertEquals(2003, vin.modelYear());
+    assertEquals("HONDA", vin.make());
+    assertEquals("United States", vin.country());
+  }
+
+  @Test
+  void checkDigitXIsValid() {
+    assertTrue(VinDecoder.isValid("1M8GDM9AXKP042788"));
+    assertEquals(1989, VinDecoder.decode("1M8GDM9AXKP042788").modelYear());
+  }
+
+  @Test
+  void repairsLettersThatNeverOccurInVins() {
+    VinDecoder.Vin vin = VinDecoder.decode("IHGCM82633AOO4352");
+    assertEquals(HONDA, vin.value());
+    assertTrue(vin.repaired());
+  }
+
+  @Test
+  void repairsLetterInNumericSerial() {
+    assertEquals(HONDA, VinDecoder.decode("1HGCM82633A0043S2").value());
+  }
+
+  @Test
+  void neverSwapsCharactersValidAtTheirPosition() {
+    // B is a legal VDS character, so a misread 8 there is not guessed back into a valid VIN
+    assertNull(VinDecoder.decode("1HGCMB2633A004352"));
+    VinDecoder.Vin tesla = VinDecoder.decode("5YJSA1E22MF123456");
+    assertEquals("5YJSA1E22MF123456", tesla.value());
+    assertFalse(tesla.repaired());
+  }
+
+  @Test
+  void ignoresCaseSpacesAndDashes() {
+    assertEquals(HONDA, VinDecoder.decode("1hgcm8-2633 a004352").value());
+  }
+
+  @Test
+  void rejectsWhatCannotBeRepaired() {
+    assertNull(VinDecoder.decode("1HGCM82634A004352"));
+    assertNull(VinDecoder.decode("1HGCM82633A00435"));
+    assertNull(VinDecoder.decode("CERTIFICATEOFTITL"));
+    assertNull(VinDecoder.decode(null));
+  }
+}
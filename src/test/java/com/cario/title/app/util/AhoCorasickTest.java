@@ -0,0 +1,89 @@
+package com.cario.title.app.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class AhoCorasickTest {
+
+  @Test
+  void overlappingKeywordsAreAllReportedByEndOffset() {
+    List<String> keywords = List.of("HE", "SHE", "HIS", "HERS");
+    // SHE and HE end together; the longer one comes first
+    assertEquals(List.of("SHE@1", "HE@2", "HERS@2"), matches(keywords, "USHERS"));
+    assertEquals(List.of("HIS@0", "SHE@2", "HE@3"), matches(keywords, "HISHE"));
+  }
+
+  @Test
+  void keywordThatPrefixesAnotherIsReportedAtItsOwnEnd() {
+    List<String> keywords = List.of("STREET", "ST");
+    assertEquals(List.of("ST@7", "STREET@7"), matches(keywords, "1 MAIN STREET"));
+    assertEquals(List.of("ST@0", "ST@3"), matches(keywords, "ST ST"));
+  }
+
+  @Test
+  void repeatedKeywordsMatchEveryOccurrence() {
+    assertEquals(List.of("A@0", "AA@0", "A@1", "AA@1", "A@2"), matches(List.of("AA", "A"), "AAA"));
+  }
+
+  @Test
+  void matchingIsCaseSensitive() {
+    assertEquals(List.of(), matches(List.of("FORD"), "Ford"));
+  }
+
+  @Test
+  void nonAsciiInputResetsTheAutomaton() {
+    List<String> keywords = List.of("FORD", "LIEN");
+    assertEquals(List.of(), matches(keywords, "FO\u00e9RD"));
+    assertEquals(List.of("FORD@1", "LIEN@6"), matches(keywords, "\u00e9FORD\u00e9LIEN"));
+  }
+
+  @Test
+  void agreesWithIndexOfOnRandomText() {
+    List<String> keywords = List.of("AB", "BAB", "ABBA", "B", "CAB", "ABC", "BCA", "CC");
+    Random random = new Random(42);
+    for (int n = 0; n < 500; n++) {
+      char[] chars = new char[random.nextInt(40)];
+      for (int i = 0; i < chars.length; i++) chars[i] = (char) ('A' + random.nextInt(3));
+      String text = new String(chars);
+
+      List<String> expected = new ArrayList<>();
+      for (String word : keywords) {
+        for (int at = text.indexOf(word); at >= 0; at = text.indexOf(word, at + 1)) {
+          expected.add(word + "@" + at);
+        }
+      }
+      List<String> actual = matches(keywords, text);
+      expected.sort(null);
+      actual.sort(null);
+      assertEquals(expected, actual, text);
+    }
+  }
+
+  @Test
+  void emptyOrNonAsciiKeywordsAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> AhoCorasick.of(List.of("FORD", "")));
+    assertThrows(IllegalArgumentException.class, () -> AhoCorasick.of(Arrays.asList("A", null)));
+    assertThrows(IllegalArgumentException.class, () -> AhoCorasick.of(List.of("CR\u00c9DIT")));
+    assertThrows(NullPointerException.class, () -> AhoCorasick.of(null));
+  }
+
+  @Test
+  void noKeywordsNeverMatch() {
+    assertEquals(List.of(), matches(List.of(), "ANYTHING"));
+  }
+
+  // ------------------ Internals ------------------
+
+  /** Matches as {@code KEYWORD@start}, in the order the automaton reports them. */
+  private static List<String> matches(List<String> keywords, String text) {
+    List<String> out = new ArrayList<>();
+    AhoCorasick.of(keywords).scan(text, (k, start) -> out.add(keywords.get(k) + "@" + start));
+    return out;
+  }
+}
@@ -0,0 +1,232 @@
+package com.cario.title.app.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cario.title.app.model.TextractBlock;
+import com.cario.title.app.model.TextractBlockType;
+import com.cario.title.app.model.TextractDocument;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BoundingBox;
+import software.amazon.awssdk.services.textract.model.Geometry;
+import software.amazon.awssdk.services.textract.model.Point;
+import software.amazon.awssdk.services.textract.model.Query;
+import software.amazon.awssdk.services.textract.model.Relationship;
+
+class TextractJsonUtilsTest {
+
+  private final ObjectMapper om = new ObjectMapper();
+
+  /** A page with a KEY/VALUE pair, a line of two words, a two-cell table and a query answer. */
+  private static List<Block> page(int page) {
+    String p = "p" + page + "-";
+    return List.of(
+        block(p + "page", "PAGE", null, 99.9f, page, rel("CHILD", p + "line", p + "table")),
+        block(p + "key", "KEY_VALUE_SET", null, 88.5f, page, rel("VALUE", p + "value"))
+            .toBuilder()
+            .entityTypesWithStrings("KEY")
+            .build(),
+        block(p + "value", "KEY_VALUE_SET", null, 87.25f, page, rel("CHILD", p + "w2"))
+            .toBuilder()
+            .entityTypesWithStrings("VALUE")
+            .build(),
+        block(p + "line", "LINE", "VIN 1HG", 97.5f, page, rel("CHILD", p + "w1", p + "w2")),
+        block(p + "w1", "WORD", "VIN", 99f, page, null),
+        block(p + "w2", "WORD", "1HG", 96f, page, null),
+        block(p + "table", "TABLE", null, 90f, page, rel("CHILD", p + "c1", p + "c2")),
+        cell(p + "c1", page, 1, 1),
+        cell(p + "c2", page, 1, 2),
+        block(p + "q", "QUERY", null, Float.NaN, page, rel("ANSWER", p + "qr"))
+            .toBuilder()
+            .query(Query.builder().text("What is the VIN?").alias("VIN").build())
+            .build(),
+        block(p + "qr", "QUERY_RESULT", "1HGCM82633A004352", 91f, page, null),
+        block(p + "x", "SOME_FUTURE_TYPE", "x", 50f, page, null));
+  }
+
+  @Test
+  void sdkRoundTripPreservesEveryAttribute() {
+    List<Block> blocks = page(1);
+    assertEquals(blocks, TextractJsonUtils.toSdk(TextractJsonUtils.fromSdk(blocks)));
+  }
+
+  @Test
+  void fromSdkResolvesRelationshipsAndKeepsUnknownTypes() {
+    TextractDocument doc = TextractJsonUtils.fromSdk(page(1));
+    assertArrayEquals(new int[] {4, 5}, doc.get(3).children());
+    assertArrayEquals(new int[] {2}, doc.get(1).targets("VALUE"));
+    assertEquals(TextractBlockType.UNKNOWN, doc.get(11).getType());
+    assertEquals("SOME_FUTURE_TYPE", doc.get(11).getTypeName());
+    assertTrue(doc.get(1).hasEntityType("KEY"));
+    assertEquals(0.1f, doc.get(0).getLeft(), 1e-6);
+  }
+
+  @Test
+  void jsonRoundTripMatchesTreeAndStreamingReaders() throws IOException {
+    TextractDocument doc = TextractJsonUtils.fromSdk(page(1));
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator gen = om.getFactory().createGenerator(sw)) {
+      TextractJsonUtils.writeArray(gen, doc);
+    }
+    String json = sw.toString();
+
+    TextractDocument fromTree = TextractJsonUtils.fromJson(om.readTree(json));
+    TextractDocument fromStream;
+    try (JsonParser parser = om.createParser(json)) {
+      fromStream = TextractJsonUtils.fromJson(parser);
+    }
+
+    assertEquals(describe(doc), describe(fromTree));
+    assertEquals(describe(doc), describe(fromStream));
+    assertEquals(page(1), TextractJsonUtils.toSdk(fromStream));
+  }
+
+  @Test
+  void readersAcceptTheResponseEnvelopeAndSkipOtherMembers() throws IOException {
+    TextractDocument doc = TextractJsonUtils.fromSdk(page(1));
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator gen = om.getFactory().createGenerator(sw)) {
+      gen.writeStartObject();
+      gen.writeStringField("JobStatus", "SUCCEEDED");
+      gen.writeObjectFieldStart("DocumentMetadata");
+      gen.writeNumberField("Pages", 1);
+      gen.writeArrayFieldStart("Warnings");
+      gen.writeStartObject();
+      gen.writeStringField("ErrorCode", "Blocks");
+      gen.writeEndObject();
+      gen.writeEndArray();
+      gen.writeEndObject();
+      gen.writeFieldName("Blocks");
+      TextractJsonUtils.writeArray(gen, doc);
+      gen.writeEndObject();
+    }
+    String json = sw.toString();
+
+    try (JsonParser parser = om.createParser(json)) {
+      assertEquals(describe(doc), describe(TextractJsonUtils.fromJson(parser)));
+    }
+    assertEquals(describe(doc), describe(TextractJsonUtils.fromJson(om.readTree(json))));
+  }
+
+  @Test
+  void readersReturnEmptyForOtherShapes() throws IOException {
+    assertTrue(TextractJsonUtils.fromJson(om.readTree("{\"JobStatus\":\"FAILED\"}")).isEmpty());
+    try (JsonParser parser = om.createParser("\"not blocks\"")) {
+      assertTrue(TextractJsonUtils.fromJson(parser).isEmpty());
+    }
+  }
+
+  /**
+   * Mirrors the streaming result writer: blocks are written one window per page, and a table on
+   * page 1 continues with a cell only listed on page 2. Reading the stored JSON back must give the
+   * same document as converting all blocks at once.
+   */
+  @Test
+  void windowedWritesKeepRelationshipsThatCrossWindows() throws IOException {
+    List<Block> first = new ArrayList<>(page(1));
+    first.set(
+        6,
+        first.get(6).toBuilder().relationships(rel("CHILD", "p1-c1", "p1-c2", "p2-c3")).build());
+    List<Block> second = new ArrayList<>(page(2));
+    second.add(cell("p2-c3", 2, 2, 1));
+    List<Block> all = new ArrayList<>(first);
+    all.addAll(second);
+
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator gen = om.getFactory().createGenerator(sw)) {
+      gen.writeStartArray();
+      TextractJsonUtils.writeBlocks(gen, first);
+      TextractJsonUtils.writeBlocks(gen, second);
+      gen.writeEndArray();
+    }
+    String json = sw.toString();
+
+    TextractDocument expected = TextractJsonUtils.fromSdk(all);
+    TextractDocument fromStream;
+    try (JsonParser parser = om.createParser(json)) {
+      fromStream = TextractJsonUtils.fromJson(parser);
+    }
+    assertEquals(3, expected.get(6).children().length);
+    assertEquals(describe(expected), describe(fromStream));
+    assertEquals(describe(expected), describe(TextractJsonUtils.fromJson(om.readTree(json))));
+  }
+
+  // ------------------ Internals ------------------
+
+  private static Block block(
+      String id, String type, String text, float confidence, int page, Relationship rel) {
+    Block.Builder b =
+        Block.builder()
+            .id(id)
+            .blockType(type)
+            .text(text)
+            .page(page)
+            .geometry(
+                Geometry.builder()
+                    .boundingBox(
+                        BoundingBox.builder()
+                            .left(0.1f)
+                            .top(0.2f)
+                            .width(0.3f)
+                            .height(0.05f)
+                            .build())
+                    .polygon(
+                        Point.builder().x(0.1f).y(0.2f).build(),
+                        Point.builder().x(0.4f).y(0.2f).build(),
+                        Point.builder().x(0.4f).y(0.25f).build(),
+                        Point.builder().x(0.1f).y(0.25f).build())
+                    .build());
+    if (!Float.isNaN(confidence)) b.confidence(confidence);
+    if (rel != null) b.relationships(rel);
+    return b.build();
+  }
+
+  private static Block cell(String id, int page, int row, int column) {
+    return block(id, "CELL", null, 80f, page, null)
+        .toBuilder()
+        .rowIndex(row)
+        .columnIndex(column)
+        .rowSpan(1)
+        .columnSpan(1)
+        .build();
+  }
+
+  private static Relationship rel(String type, String... ids) {
+    return Relationship.builder().type(type).ids(ids).build();
+  }
+
+  /** One line per block with every attribute and relationship targets as ids. */
+  private static List<String> describe(TextractDocument doc) {
+    List<String> out = new ArrayList<>(doc.size());
+    for (int i = 0; i < doc.size(); i++) {
+      TextractBlock b = doc.get(i);
+      StringBuilder sb = new StringBuilder();
+      sb.append(b.getId()).append('|').append(b.getTypeName()).append('|').append(b.getText());
+      sb.append('|').append(b.getConfidence()).append('|').append(b.getPage());
+      sb.append('|').append(b.getLeft()).append(',').append(b.getTop());
+      sb.append(',').append(b.getWidth()).append(',').append(b.getHeight());
+      sb.append('|').append(Arrays.toString(b.getPolygon()));
+      sb.append('|').append(b.getRowIndex()).append(',').append(b.getColumnIndex());
+      sb.append(',').append(b.getRowSpan()).append(',').append(b.getColumnSpan());
+      sb.append('|').append(b.getEntityTypes()).append('|').append(b.getSelectionStatus());
+      sb.append('|').append(b.getQueryText()).append(',').append(b.getQueryAlias());
+      for (TextractBlock.Relationship r : b.getRelationships()) {
+        sb.append('|').append(r.type()).append(':');
+        for (int t : r.targets()) sb.append(doc.get(t).getId()).append(' ');
+      }
+      sb.append("|parent=").append(doc.parentOf(i));
+      out.add(sb.toString());
+    }
+    return out;
+  }
+}